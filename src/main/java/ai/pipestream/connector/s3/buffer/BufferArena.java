@@ -0,0 +1,132 @@
+package ai.pipestream.connector.s3.buffer;
+
+import ai.pipestream.connector.s3.concurrent.AsyncPermits;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of direct buffers for objects the consumer buffers to checksum them.
+ * <p>
+ * Buffers come in power-of-two size classes from 64 KiB
+ * up, and are reused once released instead of being left to the garbage
+ * collector. The configured budget ({@code s3.connector.consumer.buffer-budget-bytes})
+ * bounds all direct memory the arena holds, leased and pooled: a lease waits,
+ * without a thread, until its size class fits in what is not leased, and pooled
+ * buffers of other classes are dropped to make room for a new allocation. A
+ * lease larger than the budget is clamped to it and proceeds alone.
+ * </p>
+ */
+@ApplicationScoped
+public class BufferArena {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public BufferArena() {
+    }
+
+    /** Smallest size class. */
+    static final int MIN_CLASS_BYTES = 64 * 1024;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    MeterRegistry registry;
+
+    private AsyncPermits budget;
+    private final TreeMap<Integer, ArrayDeque<ByteBuffer>> pooled = new TreeMap<>();
+    private long pooledBytes;
+    private long leasedBytes;
+
+    @PostConstruct
+    void initArena() {
+        budget = new AsyncPermits("buffer-arena", Math.max(MIN_CLASS_BYTES, config.consumer().bufferBudgetBytes()));
+        Gauge.builder("s3.consumer.buffer.leased.bytes", this, BufferArena::leasedBytes)
+            .description("Direct buffer bytes leased to objects being checksummed and uploaded")
+            .register(registry);
+        Gauge.builder("s3.consumer.buffer.pooled.bytes", this, BufferArena::pooledBytes)
+            .description("Direct buffer bytes kept for reuse")
+            .register(registry);
+        Gauge.builder("s3.consumer.buffer.queued", budget, AsyncPermits::queued)
+            .description("Downloads waiting for buffer budget")
+            .register(registry);
+    }
+
+    /**
+     * Leases a buffer with room for at least {@code size} bytes, waiting for budget.
+     *
+     * @param size bytes the buffer must hold, at most 1 GiB
+     * @return a Uni emitting the lease once the budget allows it
+     */
+    public Uni<PooledBuffer> lease(int size) {
+        int sizeClass = sizeClass(size);
+        return budget.acquire(sizeClass)
+            .map(ignored -> new PooledBuffer(this, take(sizeClass), sizeClass));
+    }
+
+    /**
+     * @return bytes currently leased
+     */
+    public synchronized long leasedBytes() {
+        return leasedBytes;
+    }
+
+    /**
+     * @return bytes kept in the pool for reuse
+     */
+    public synchronized long pooledBytes() {
+        return pooledBytes;
+    }
+
+    void release(ByteBuffer buffer, int sizeClass) {
+        synchronized (this) {
+            leasedBytes -= sizeClass;
+            buffer.clear();
+            pooled.computeIfAbsent(sizeClass, ignored -> new ArrayDeque<>()).push(buffer);
+            pooledBytes += sizeClass;
+        }
+        budget.release(sizeClass);
+    }
+
+    private synchronized ByteBuffer take(int sizeClass) {
+        leasedBytes += sizeClass;
+        ArrayDeque<ByteBuffer> free = pooled.get(sizeClass);
+        if (free != null && !free.isEmpty()) {
+            pooledBytes -= sizeClass;
+            return free.pop();
+        }
+        // The budget guarantees leased + this class fits; drop pooled buffers
+        // of other classes (largest first) until retained memory does too.
+        while (leasedBytes + pooledBytes > budget.capacity() && !pooled.isEmpty()) {
+            Map.Entry<Integer, ArrayDeque<ByteBuffer>> largest = pooled.lastEntry();
+            largest.getValue().pop();
+            pooledBytes -= largest.getKey();
+            if (largest.getValue().isEmpty()) {
+                pooled.remove(largest.getKey());
+            }
+        }
+        return ByteBuffer.allocateDirect(sizeClass);
+    }
+
+    static int sizeClass(int size) {
+        if (size > 1 << 30) {
+            throw new IllegalArgumentException("Buffer of " + size + " bytes exceeds the largest size class");
+        }
+        if (size <= MIN_CLASS_BYTES) {
+            return MIN_CLASS_BYTES;
+        }
+        int sizeClass = Integer.highestOneBit(size);
+        return sizeClass == size ? sizeClass : sizeClass << 1;
+    }
+}
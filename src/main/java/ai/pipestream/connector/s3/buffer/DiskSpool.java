@@ -0,0 +1,227 @@
+package ai.pipestream.connector.s3.buffer;
+
+import ai.pipestream.connector.s3.concurrent.AsyncPermits;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Local disk spool for objects too large to buffer in memory.
+ * <p>
+ * An object is streamed from its S3 response into a file of the spool directory
+ * through a {@link FileChannel}, and hashed on the way, so it gets a SHA-256 for
+ * intake dedupe without being held on the heap; the upload then reads the file.
+ * The disk quota ({@code s3.connector.consumer.spool-quota-bytes}) bounds the
+ * bytes spooled at once: an object waits, without a thread, until its size fits,
+ * and an object larger than the quota proceeds alone. Each file is deleted when
+ * its {@link SpooledFile} is closed, and files a previous process left behind are
+ * deleted at startup.
+ * </p>
+ */
+@ApplicationScoped
+public class DiskSpool {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public DiskSpool() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(DiskSpool.class);
+
+    private static final String SUFFIX = ".spool";
+    private static final int CHUNK_BYTES = 1024 * 1024;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    MeterRegistry registry;
+
+    private volatile Path directory;
+    private volatile AsyncPermits quota;
+
+    void onStart(@Observes StartupEvent event) {
+        S3ConnectorConfig.ConsumerConfig consumer = config.consumer();
+        if (!consumer.spoolEnabled()) {
+            return;
+        }
+        Path dir = consumer.spoolDirectory()
+            .filter(value -> !value.isBlank())
+            .map(Path::of)
+            .orElse(Path.of(System.getProperty("java.io.tmpdir"), "s3-connector-spool"));
+        try {
+            Files.createDirectories(dir);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+                for (Path leftover : leftovers) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare spool directory " + dir, e);
+        }
+        AsyncPermits permits = new AsyncPermits("disk-spool", Math.max(1, consumer.spoolQuotaBytes()));
+        Gauge.builder("s3.consumer.spool.bytes", permits, p -> p.capacity() - p.available())
+            .description("Disk quota bytes held by spooled objects")
+            .register(registry);
+        Gauge.builder("s3.consumer.spool.queued", permits, AsyncPermits::queued)
+            .description("Downloads waiting for disk spool quota")
+            .register(registry);
+        directory = dir;
+        quota = permits;
+        LOG.infof("Disk spool enabled: directory=%s, quota=%d bytes", dir, consumer.spoolQuotaBytes());
+    }
+
+    /**
+     * @return whether large objects are spooled to disk
+     */
+    public boolean isEnabled() {
+        return quota != null;
+    }
+
+    /**
+     * Waits for disk quota for {@code size} bytes.
+     *
+     * @param size expected object size
+     * @return a Uni emitting a reservation to {@link #write(Reservation, InputStream, long) write} into
+     * @throws IllegalStateException if the spool is not enabled
+     */
+    public Uni<Reservation> reserve(long size) {
+        AsyncPermits permits = quota;
+        if (permits == null) {
+            throw new IllegalStateException("Disk spool is not enabled");
+        }
+        return permits.acquire(size).map(ignored -> new Reservation(permits, size));
+    }
+
+    /**
+     * Streams {@code in} to a new spool file while hashing it, then closes {@code in}.
+     * Blocks; call it off the event loop. The reservation is handed over to the
+     * returned file, or released if writing fails.
+     *
+     * @param reservation quota held for the object, at least {@code expected} bytes
+     * @param in          object body
+     * @param expected    number of bytes the body should hold
+     * @return the spooled file
+     * @throws UncheckedIOException if reading or writing fails, or the body holds fewer or more than
+     *                              {@code expected} bytes, or more than the reservation
+     */
+    public SpooledFile write(Reservation reservation, InputStream in, long expected) {
+        Path file = null;
+        try (in; ReadableByteChannel source = Channels.newChannel(in)) {
+            file = Files.createTempFile(directory, "object-", SUFFIX);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES);
+            long size = 0;
+            try (FileChannel target = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                while (source.read(chunk) >= 0) {
+                    chunk.flip();
+                    digest.update(chunk.duplicate());
+                    size += chunk.remaining();
+                    if (size > expected || size > reservation.size()) {
+                        throw new IOException("Object is larger than its expected " + expected + " bytes");
+                    }
+                    while (chunk.hasRemaining()) {
+                        target.write(chunk);
+                    }
+                    chunk.clear();
+                }
+            }
+            if (size < expected) {
+                throw new IOException("Object ended after " + size + " of its expected " + expected + " bytes");
+            }
+            return new SpooledFile(file, size, HexFormat.of().formatHex(digest.digest()), reservation);
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            deleteQuietly(file);
+            reservation.release();
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException("Failed to spool S3 object", io);
+            }
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warnf(e, "Could not delete spool file %s", file);
+        }
+    }
+
+    /**
+     * Disk quota held for one object.
+     */
+    public static final class Reservation {
+
+        private final AsyncPermits quota;
+        private final long size;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(AsyncPermits quota, long size) {
+            this.quota = quota;
+            this.size = size;
+        }
+
+        /**
+         * @return reserved bytes
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Gives the quota back; idempotent.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                quota.release(size);
+            }
+        }
+    }
+
+    /**
+     * A spooled object. Closing it deletes the file and releases its quota.
+     *
+     * @param path        spool file
+     * @param size        bytes written
+     * @param sha256Hex   hex SHA-256 of the bytes
+     * @param reservation quota held by the file
+     */
+    public record SpooledFile(Path path, long size, String sha256Hex, Reservation reservation) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            deleteQuietly(path);
+            reservation.release();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ai.pipestream.connector.s3.buffer;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A direct buffer leased from a {@link BufferArena}.
+ * <p>
+ * The buffer is filled once, from a stream with {@link #fill(InputStream, int)} or
+ * from a stream of chunks with {@link #fill(Multi, int)}; after that its contents
+ * can be digested in place and read through {@link #inputStream()} or
+ * {@link #contents()} without copying them onto the heap. {@link #close()} hands the buffer back to
+ * the arena; it is idempotent, and nothing read from the buffer may be used
+ * afterwards.
+ * </p>
+ */
+public final class PooledBuffer implements AutoCloseable {
+
+    private final BufferArena arena;
+    private final ByteBuffer buffer;
+    private final int sizeClass;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PooledBuffer(BufferArena arena, ByteBuffer buffer, int sizeClass) {
+        this.arena = arena;
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+    }
+
+    /**
+     * Reads a stream to its end into the buffer, then closes the stream.
+     *
+     * @param in       stream to read
+     * @param expected number of bytes the stream should hold
+     * @return this buffer, holding the stream's bytes
+     * @throws IOException if reading fails, or the stream holds fewer or more than {@code expected}
+     *                     bytes, or more than the buffer can take
+     */
+    public PooledBuffer fill(InputStream in, int expected) throws IOException {
+        buffer.clear();
+        buffer.limit(Math.min(buffer.capacity(), expected));
+        try (ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw truncated(expected);
+                }
+            }
+            if (in.read() >= 0) {
+                throw new IOException("Object is larger than its expected " + expected + " bytes");
+            }
+        }
+        buffer.flip();
+        return this;
+    }
+
+    /**
+     * Copies a stream of chunks into the buffer as they arrive, without blocking.
+     *
+     * @param chunks   chunks to read, subscribed once
+     * @param expected number of bytes the chunks should hold
+     * @return a Uni emitting this buffer, holding the chunks' bytes, once the chunks complete;
+     * it fails with an {@link UncheckedIOException} if they hold fewer or more than {@code expected}
+     * bytes, or more than the buffer can take
+     */
+    public Uni<PooledBuffer> fill(Multi<ByteBuffer> chunks, int expected) {
+        return Uni.createFrom().deferred(() -> {
+            buffer.clear();
+            buffer.limit(Math.min(buffer.capacity(), expected));
+            return chunks
+                .onItem().invoke(chunk -> {
+                    if (chunk.remaining() > buffer.remaining()) {
+                        throw new UncheckedIOException(
+                            new IOException("Object is larger than its expected " + expected + " bytes"));
+                    }
+                    buffer.put(chunk);
+                })
+                .collect().last()
+                .map(ignored -> {
+                    if (buffer.hasRemaining()) {
+                        throw new UncheckedIOException(truncated(expected));
+                    }
+                    buffer.flip();
+                    return this;
+                });
+        });
+    }
+
+    private IOException truncated(int expected) {
+        return new IOException("Object ended after " + buffer.position() + " of its expected " + expected + " bytes");
+    }
+
+    /**
+     * @return number of bytes the buffer can hold
+     */
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return number of bytes held
+     */
+    public int size() {
+        return buffer.limit();
+    }
+
+    /**
+     * Feeds the held bytes to a digest, in place.
+     *
+     * @param digest message digest to update
+     * @return the digest
+     */
+    public MessageDigest digest(MessageDigest digest) {
+        digest.update(buffer.duplicate());
+        return digest;
+    }
+
+    /**
+     * @return a stream over the held bytes, independent of other streams over this buffer
+     */
+    public InputStream inputStream() {
+        return new ByteBufferInputStream(buffer.asReadOnlyBuffer());
+    }
+
+    /**
+     * @return a read-only view of the held bytes, independent of other views of this buffer
+     */
+    public ByteBuffer contents() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Hands the buffer back to its arena.
+     */
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            arena.release(buffer, sizeClass);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
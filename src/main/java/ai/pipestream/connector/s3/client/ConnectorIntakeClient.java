@@ -4,10 +4,12 @@ import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.UUID;
 
 /**
@@ -75,20 +77,71 @@ public class ConnectorIntakeClient {
                 crawlId == null ? "" : crawlId,
                 checksumSha256
             )
-            .map(response -> {
-                String respContentType = response.getHeaderString("content-type");
-                if (respContentType == null || respContentType.isBlank()) {
-                    respContentType = MediaType.APPLICATION_JSON;
-                }
-                String respBody = response.readEntity(String.class);
-                return new IntakeUploadResponse(response.getStatus(), respContentType, respBody);
-            })
+            .map(ConnectorIntakeClient::toUploadResponse)
             .onFailure().invoke(error -> {
                 LOG.errorf(error, "Failed to upload to connector-intake-service: datasourceId=%s, sourceUrl=%s",
                     datasourceId, sourceUrl);
             });
     }
 
+    /**
+     * Uploads an S3 object spooled to a local file to the connector-intake-service.
+     *
+     * @param datasourceId    datasource identifier for the upload
+     * @param apiKey          API key for authentication
+     * @param sourceUrl       source URL of the S3 object
+     * @param bucket          S3 bucket name
+     * @param key             S3 object key
+     * @param contentType     MIME content type of the object
+     * @param sizeBytes       size of the object in bytes
+     * @param crawlId         the crawl invocation id (forwarded as x-crawl-id); may be empty
+     * @param checksumSha256  hex SHA-256 of the file, forwarded as x-checksum-sha256
+     * @param file            file holding the object body
+     * @return the intake service response
+     */
+    public Uni<IntakeUploadResponse> uploadFile(
+        String datasourceId,
+        String apiKey,
+        String sourceUrl,
+        String bucket,
+        String key,
+        String contentType,
+        long sizeBytes,
+        String crawlId,
+        String checksumSha256,
+        Path file) {
+
+        LOG.infof("Starting spooled upload for %s (size: %d bytes)", sourceUrl, sizeBytes);
+
+        return restClient.uploadRawFile(
+                file.toFile(),
+                contentType,
+                sizeBytes,
+                datasourceId,
+                apiKey,
+                sourceUrl,
+                key,
+                key,
+                UUID.randomUUID().toString(),
+                crawlId == null ? "" : crawlId,
+                checksumSha256
+            )
+            .map(ConnectorIntakeClient::toUploadResponse)
+            .onFailure().invoke(error -> {
+                LOG.errorf(error, "Failed to upload to connector-intake-service: datasourceId=%s, sourceUrl=%s",
+                    datasourceId, sourceUrl);
+            });
+    }
+
+    private static IntakeUploadResponse toUploadResponse(Response response) {
+        String respContentType = response.getHeaderString("content-type");
+        if (respContentType == null || respContentType.isBlank()) {
+            respContentType = MediaType.APPLICATION_JSON;
+        }
+        String respBody = response.readEntity(String.class);
+        return new IntakeUploadResponse(response.getStatus(), respContentType, respBody);
+    }
+
     /**
      * Response from the connector-intake-service upload endpoint.
      *
@@ -9,6 +9,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import java.io.File;
 import java.io.InputStream;
 
 /**
@@ -49,4 +50,37 @@ public interface ConnectorIntakeRestClient {
         @HeaderParam("x-crawl-id") String crawlId,
         @HeaderParam("x-checksum-sha256") String checksumSha256
     );
+
+    /**
+     * Uploads an S3 object spooled to a local file. The client streams the file
+     * from disk, so the body is never held in memory.
+     *
+     * @param body          file holding the object body
+     * @param contentType   MIME content type of the object
+     * @param contentLength size of the object in bytes
+     * @param datasourceId  datasource identifier for the upload
+     * @param apiKey        API key for authentication
+     * @param sourceUri     source URI of the S3 object
+     * @param sourcePath    source path of the S3 object
+     * @param filename      filename for the object
+     * @param requestId     request identifier for the upload
+     * @param crawlId       crawl invocation id, forwarded so the whole crawl is one run
+     * @param checksumSha256 hex SHA-256 of the body (arms intake dedupe); may be null
+     * @return the intake service response
+     */
+    @POST
+    @Consumes(MediaType.WILDCARD)
+    Uni<Response> uploadRawFile(
+        File body,
+        @HeaderParam("Content-Type") String contentType,
+        @HeaderParam("Content-Length") long contentLength,
+        @HeaderParam("x-datasource-id") String datasourceId,
+        @HeaderParam("x-api-key") String apiKey,
+        @HeaderParam("x-source-uri") String sourceUri,
+        @HeaderParam("x-source-path") String sourcePath,
+        @HeaderParam("x-filename") String filename,
+        @HeaderParam("x-request-id") String requestId,
+        @HeaderParam("x-crawl-id") String crawlId,
+        @HeaderParam("x-checksum-sha256") String checksumSha256
+    );
 }
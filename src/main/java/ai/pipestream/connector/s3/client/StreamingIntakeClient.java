@@ -0,0 +1,181 @@
+package ai.pipestream.connector.s3.client;
+
+import ai.pipestream.connector.s3.client.ConnectorIntakeClient.IntakeUploadResponse;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.netty.buffer.Unpooled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.core.http.HttpClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+
+/**
+ * Non-blocking upload client for the connector-intake-service.
+ * <p>
+ * Sends the same {@code POST /uploads/raw} as {@link ConnectorIntakeRestClient},
+ * but takes the body as a stream of {@link ByteBuffer}s (such as an S3 response
+ * publisher) and writes them to a Vert.x HTTP request as they arrive, wrapped
+ * rather than copied. Vert.x only requests more chunks while the connection can
+ * take them, so a slow intake slows the S3 download instead of filling memory,
+ * and no thread waits on either side. Works against a plain {@code http(s)://}
+ * intake URL; service-discovery URLs are left to the REST client.
+ * </p>
+ */
+@ApplicationScoped
+public class StreamingIntakeClient {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public StreamingIntakeClient() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(StreamingIntakeClient.class);
+
+    private static final String UPLOAD_PATH = "/uploads/raw";
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @ConfigProperty(name = "quarkus.rest-client.connector-intake.url")
+    String intakeUrl;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    void initClient() {
+        httpClient = vertx.createHttpClient(new HttpClientOptions()
+            .setKeepAlive(true)
+            .setMaxPoolSize(Math.max(1, config.consumer().uploadConcurrency())));
+    }
+
+    @PreDestroy
+    void closeClient() {
+        if (httpClient != null) {
+            httpClient.closeAndForget();
+        }
+    }
+
+    /**
+     * @return whether the intake URL can be used by this client
+     */
+    public boolean isAvailable() {
+        return intakeUrl != null && (intakeUrl.startsWith("http://") || intakeUrl.startsWith("https://"));
+    }
+
+    /**
+     * Uploads an S3 object to the connector-intake-service from a stream of chunks.
+     *
+     * @param datasourceId   datasource identifier for the upload
+     * @param apiKey         API key for authentication
+     * @param sourceUrl      source URL of the S3 object
+     * @param bucket         S3 bucket name
+     * @param key            S3 object key
+     * @param contentType    MIME content type of the object
+     * @param sizeBytes      size of the object in bytes
+     * @param crawlId        the crawl invocation id (forwarded as x-crawl-id); may be empty
+     * @param checksumSha256 hex SHA-256 of the body, forwarded as x-checksum-sha256; may be null
+     * @param body           the object body, subscribed once
+     * @return the intake service response; fails with a {@link WebApplicationException} on an error status
+     */
+    public Uni<IntakeUploadResponse> uploadRaw(
+        String datasourceId,
+        String apiKey,
+        String sourceUrl,
+        String bucket,
+        String key,
+        String contentType,
+        long sizeBytes,
+        String crawlId,
+        String checksumSha256,
+        Multi<ByteBuffer> body) {
+
+        LOG.infof("Starting streamed upload for %s (size: %d bytes)", sourceUrl, sizeBytes);
+
+        RequestOptions options = new RequestOptions()
+            .setMethod(HttpMethod.POST)
+            .setAbsoluteURI(stripTrailingSlash(intakeUrl) + UPLOAD_PATH)
+            .putHeader("Content-Type", contentType != null && !contentType.isBlank()
+                ? contentType : MediaType.APPLICATION_OCTET_STREAM)
+            .putHeader("Content-Length", Long.toString(sizeBytes))
+            .putHeader("x-datasource-id", datasourceId)
+            .putHeader("x-api-key", apiKey)
+            .putHeader("x-source-uri", sourceUrl)
+            .putHeader("x-source-path", key)
+            .putHeader("x-filename", key)
+            .putHeader("x-request-id", UUID.randomUUID().toString())
+            .putHeader("x-crawl-id", crawlId == null ? "" : crawlId);
+        if (checksumSha256 != null) {
+            options.putHeader("x-checksum-sha256", checksumSha256);
+        }
+
+        return httpClient.request(options)
+            // Without a request the body is never subscribed; cancel it so its S3 connection is released.
+            .onFailure().invoke(() -> discard(body))
+            .flatMap(request -> request.send(body.map(chunk ->
+                Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(Unpooled.wrappedBuffer(chunk))))))
+            .flatMap(response -> response.body().map(responseBody -> {
+                String respContentType = response.getHeader("content-type");
+                if (respContentType == null || respContentType.isBlank()) {
+                    respContentType = MediaType.APPLICATION_JSON;
+                }
+                if (response.statusCode() >= 400) {
+                    throw new WebApplicationException("Intake upload failed with HTTP " + response.statusCode()
+                        + ": " + responseBody, Response.status(response.statusCode()).build());
+                }
+                return new IntakeUploadResponse(response.statusCode(), respContentType, responseBody.toString());
+            }))
+            .onFailure().invoke(error -> LOG.errorf(error,
+                "Failed to upload to connector-intake-service: datasourceId=%s, sourceUrl=%s", datasourceId, sourceUrl));
+    }
+
+    /**
+     * Subscribes to a body that will not be sent and cancels it without requesting
+     * any chunk, which aborts the underlying connection (such as an S3 response's).
+     *
+     * @param body the body to give up on
+     */
+    public static void discard(Multi<ByteBuffer> body) {
+        body.subscribe().withSubscriber(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+            }
+
+            @Override
+            public void onError(Throwable failure) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
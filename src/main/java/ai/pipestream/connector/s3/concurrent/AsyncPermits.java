@@ -0,0 +1,181 @@
+package ai.pipestream.connector.s3.concurrent;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counting semaphore for Mutiny pipelines.
+ * <p>
+ * Waiters park as a pending {@link Uni} instead of a parked thread, so a
+ * crawl can cap how many S3 calls are in flight across an arbitrarily
+ * deep tree of merged streams without dedicating a thread to each waiter.
+ * Waiters are served FIFO. A request larger than the total capacity is
+ * clamped to it, so one oversized item still proceeds (alone) instead of
+ * waiting forever.
+ * </p>
+ */
+public final class AsyncPermits {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final String name;
+    private final long capacity;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private long available;
+
+    /**
+     * Creates a semaphore with {@code capacity} permits, all initially available.
+     *
+     * @param name     label used in error messages and logs
+     * @param capacity total number of permits; must be greater than 0
+     */
+    public AsyncPermits(String name, long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(name + " capacity must be greater than 0");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.available = capacity;
+    }
+
+    /**
+     * Runs {@code action} while holding one permit.
+     *
+     * @param action supplier of the guarded work, subscribed once the permit is granted
+     * @param <T>    item type
+     * @return a Uni that emits the action's outcome and releases the permit on any termination
+     */
+    public <T> Uni<T> withPermit(Supplier<Uni<T>> action) {
+        return withPermits(1, action);
+    }
+
+    /**
+     * Runs {@code action} while holding {@code permits} permits.
+     *
+     * @param permits number of permits to hold (clamped to the capacity)
+     * @param action  supplier of the guarded work, subscribed once the permits are granted
+     * @param <T>     item type
+     * @return a Uni that emits the action's outcome and releases the permits on any termination
+     */
+    public <T> Uni<T> withPermits(long permits, Supplier<Uni<T>> action) {
+        long weight = clamp(permits);
+        return acquire(weight).onItem().transformToUni(ignored ->
+            Uni.createFrom().deferred(action)
+                .onTermination().invoke(() -> release(weight)));
+    }
+
+    /**
+     * Waits for {@code permits} permits. The caller owns them once the Uni emits
+     * and must hand them back with {@link #release(long)}. A subscriber cancelled
+     * while still queued gives up its place without consuming anything.
+     *
+     * @param permits number of permits to take (clamped to the capacity)
+     * @return a Uni that emits once the permits are held
+     */
+    public Uni<Void> acquire(long permits) {
+        long weight = clamp(permits);
+        return Uni.createFrom().deferred(() -> {
+            Waiter waiter = new Waiter(weight);
+            return Uni.createFrom().<Void>emitter(emitter -> {
+                    waiter.emitter = emitter;
+                    if (tryGrantOrEnqueue(waiter)) {
+                        emitter.complete(null);
+                    }
+                })
+                .onCancellation().invoke(() -> abandon(waiter));
+        });
+    }
+
+    /**
+     * Returns permits and wakes as many queued waiters as now fit.
+     *
+     * @param permits number of permits to return (clamped to the capacity)
+     */
+    public void release(long permits) {
+        long weight = clamp(permits);
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (this) {
+            available = Math.min(capacity, available + weight);
+            while (!waiters.isEmpty() && waiters.peekFirst().permits <= available) {
+                Waiter next = waiters.pollFirst();
+                if (next.state.compareAndSet(WAITING, GRANTED)) {
+                    available -= next.permits;
+                    ready.add(next);
+                }
+            }
+        }
+        for (Waiter waiter : ready) {
+            waiter.emitter.complete(null);
+        }
+    }
+
+    /**
+     * @return permits not currently held by anyone
+     */
+    public synchronized long available() {
+        return available;
+    }
+
+    /**
+     * @return number of callers waiting for permits
+     */
+    public synchronized int queued() {
+        return waiters.size();
+    }
+
+    /**
+     * @return the total number of permits
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncPermits[" + name + ", available=" + available() + "/" + capacity + ", queued=" + queued() + "]";
+    }
+
+    private synchronized boolean tryGrantOrEnqueue(Waiter waiter) {
+        if (waiters.isEmpty() && available >= waiter.permits) {
+            waiter.state.set(GRANTED);
+            available -= waiter.permits;
+            return true;
+        }
+        waiters.addLast(waiter);
+        return false;
+    }
+
+    private void abandon(Waiter waiter) {
+        if (waiter.state.compareAndSet(WAITING, CANCELLED)) {
+            synchronized (this) {
+                waiters.remove(waiter);
+            }
+        } else if (waiter.state.compareAndSet(GRANTED, CANCELLED)) {
+            // Granted, but the subscriber went away before it could use the
+            // permits: hand them straight back.
+            release(waiter.permits);
+        }
+    }
+
+    private long clamp(long permits) {
+        return Math.max(0, Math.min(permits, capacity));
+    }
+
+    private static final class Waiter {
+        private final long permits;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile UniEmitter<? super Void> emitter;
+
+        private Waiter(long permits) {
+            this.permits = permits;
+        }
+    }
+}
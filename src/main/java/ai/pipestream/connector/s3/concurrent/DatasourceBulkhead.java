@@ -0,0 +1,116 @@
+package ai.pipestream.connector.s3.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Bounds blocking work globally and per datasource, for callers on virtual threads.
+ * <p>
+ * A call first takes a permit of its datasource, then a global one, waiting for
+ * each by blocking; on a virtual thread that only parks the thread. Taking the
+ * datasource permit first means a busy datasource queues on its own permits and
+ * never holds global permits while it waits, so it cannot starve the others.
+ * Both permits are fair, so waiting calls are admitted in arrival order.
+ * </p>
+ * <p>
+ * A datasource's permits are dropped once no call is running or waiting for them,
+ * so datasources seen once do not stay tracked for the life of the process.
+ * </p>
+ */
+public final class DatasourceBulkhead {
+
+    private final Semaphore global;
+    private final int globalLimit;
+    private final int perDatasource;
+    private final Map<String, Lane> datasources = new ConcurrentHashMap<>();
+
+    /**
+     * @param globalLimit        calls running at once across all datasources
+     * @param perDatasourceLimit calls running at once for one datasource
+     */
+    public DatasourceBulkhead(int globalLimit, int perDatasourceLimit) {
+        this.globalLimit = Math.max(1, globalLimit);
+        this.global = new Semaphore(this.globalLimit, true);
+        this.perDatasource = Math.max(1, perDatasourceLimit);
+    }
+
+    /**
+     * Runs {@code work} once both permits are held, blocking the calling thread until then.
+     *
+     * @param datasourceId datasource the work belongs to
+     * @param work         blocking work
+     * @param <T>          result type
+     * @return the work's result
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    public <T> T call(String datasourceId, Supplier<T> work) {
+        // Callers are counted under the map's per-key lock, so a lane is only
+        // removed when no caller holds it, and never while one is about to wait on it.
+        Lane lane = datasources.compute(datasourceId, (id, existing) -> {
+            Lane joined = existing != null ? existing : new Lane(perDatasource);
+            joined.callers++;
+            return joined;
+        });
+        try {
+            acquire(lane.permits);
+            try {
+                acquire(global);
+                try {
+                    return work.get();
+                } finally {
+                    global.release();
+                }
+            } finally {
+                lane.permits.release();
+            }
+        } finally {
+            datasources.computeIfPresent(datasourceId, (id, existing) -> --existing.callers == 0 ? null : existing);
+        }
+    }
+
+    /**
+     * @return calls running across all datasources
+     */
+    public int active() {
+        return globalLimit - global.availablePermits();
+    }
+
+    /**
+     * @return calls waiting for a global permit
+     */
+    public int queued() {
+        return global.getQueueLength();
+    }
+
+    /**
+     * @return datasources with calls running or waiting
+     */
+    public int trackedDatasources() {
+        return datasources.size();
+    }
+
+    private static void acquire(Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a consumer permit", e);
+        }
+    }
+
+    /**
+     * Permits of one datasource and the calls holding or waiting for them; the
+     * count is only changed inside the map's compute functions.
+     */
+    private static final class Lane {
+
+        private final Semaphore permits;
+        private int callers;
+
+        private Lane(int limit) {
+            this.permits = new Semaphore(limit, true);
+        }
+    }
+}
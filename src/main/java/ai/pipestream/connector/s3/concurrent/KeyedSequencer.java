@@ -0,0 +1,64 @@
+package ai.pipestream.connector.s3.concurrent;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs Mutiny actions one at a time per key, and concurrently across keys.
+ * <p>
+ * Each submission is chained behind the previous submission for the same key
+ * and starts once that one has terminated (with an item, a failure or a
+ * cancellation of work that had already started). Only the tail of each chain is
+ * remembered, and a key is forgotten as soon as its last action terminates, so
+ * memory follows the number of keys with work outstanding. Submissions are
+ * ordered by the call to {@link #submit(String, Supplier)}, not by subscription,
+ * so the returned Uni must be subscribed: an unsubscribed submission holds up its
+ * key forever.
+ * </p>
+ */
+public final class KeyedSequencer {
+
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Queues {@code action} behind the earlier submissions for {@code key}.
+     *
+     * @param key    ordering key
+     * @param action supplier of the work, subscribed once the earlier work for the key has terminated
+     * @param <T>    item type
+     * @return a Uni that emits the action's outcome
+     */
+    public <T> Uni<T> submit(String key, Supplier<Uni<T>> action) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> previous = tails.put(key, done);
+        Runnable finish = () -> {
+            done.complete(null);
+            tails.remove(key, done);
+        };
+        Uni<Void> turn = previous == null
+            ? Uni.createFrom().voidItem()
+            : Uni.createFrom().completionStage(previous);
+        return turn
+            .onItem().transformToUni(ignored -> Uni.createFrom().deferred(action))
+            .onTermination().invoke((item, failure, cancelled) -> {
+                if (cancelled && previous != null && !previous.isDone()) {
+                    // Cancelled while still queued: the next submission must
+                    // keep waiting for the one before this.
+                    previous.whenComplete((ignored, error) -> finish.run());
+                } else {
+                    finish.run();
+                }
+            });
+    }
+
+    /**
+     * @return number of keys with work queued or running
+     */
+    public int activeKeys() {
+        return tails.size();
+    }
+}
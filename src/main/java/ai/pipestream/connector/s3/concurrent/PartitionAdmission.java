@@ -0,0 +1,83 @@
+package ai.pipestream.connector.s3.concurrent;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Admits Kafka records into per-partition processing windows without letting one
+ * partition hold up the others.
+ * <p>
+ * Each partition runs up to {@code perPartition} records at once; its records
+ * start in the order they were admitted. Admission itself only waits for a
+ * consumer-wide budget of {@code maxWaiting} records that are admitted but not
+ * yet started, so a partition whose window is full queues its records there
+ * while the records of other partitions keep starting. Delivery stalls only once
+ * that many records are waiting, whichever partitions they belong to.
+ * </p>
+ */
+public final class PartitionAdmission {
+
+    private final int perPartition;
+    private final AsyncPermits waiting;
+    private final Map<Integer, AsyncPermits> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the admission for one consumer.
+     *
+     * @param perPartition records of one partition processed at once; must be greater than 0
+     * @param maxWaiting   records admitted but not yet started, across partitions; must be greater than 0
+     */
+    public PartitionAdmission(int perPartition, int maxWaiting) {
+        if (perPartition <= 0) {
+            throw new IllegalArgumentException("perPartition must be greater than 0");
+        }
+        this.perPartition = perPartition;
+        this.waiting = new AsyncPermits("admission-waiting", maxWaiting);
+    }
+
+    /**
+     * Admits a record of {@code partition}. Once the partition's window has room
+     * the work starts in the background, and its outcome goes to
+     * {@code onItem} or {@code onFailure}.
+     *
+     * @param partition the record's partition
+     * @param work      supplier of the record's processing, subscribed when it starts
+     * @param onItem    receives the work's item
+     * @param onFailure receives the work's failure
+     * @param <T>       item type
+     * @return a Uni that completes once the record is admitted, which may be before it starts
+     */
+    public <T> Uni<Void> admit(int partition, Supplier<Uni<T>> work, Consumer<T> onItem,
+                               Consumer<Throwable> onFailure) {
+        AsyncPermits window = windows.computeIfAbsent(partition,
+            p -> new AsyncPermits("partition-" + p, perPartition));
+        return waiting.acquire(1)
+            .invoke(() -> window.acquire(1)
+                .onItem().transformToUni(ignored -> {
+                    waiting.release(1);
+                    return Uni.createFrom().deferred(work)
+                        .onTermination().invoke(() -> window.release(1));
+                })
+                .subscribe().with(onItem, onFailure));
+    }
+
+    /**
+     * @return records admitted but not yet started, across partitions
+     */
+    public long waiting() {
+        return waiting.capacity() - waiting.available();
+    }
+
+    /**
+     * @param partition a partition
+     * @return records of the partition currently being processed
+     */
+    public long inFlight(int partition) {
+        AsyncPermits window = windows.get(partition);
+        return window == null ? 0 : window.capacity() - window.available();
+    }
+}
@@ -5,6 +5,8 @@ import io.quarkus.runtime.annotations.ConfigRoot;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
 
+import java.time.Duration;
+
 
 /**
  * Configuration interface for the S3 connector service.
@@ -18,7 +20,11 @@ import io.smallrye.config.WithDefault;
  * <ul>
  *   <li>{@code s3.connector.crawl-mode} - Operation mode (default: "initial-crawl")</li>
  *   <li>{@code s3.connector.initial-crawl.*} - Initial crawl settings</li>
+ *   <li>{@code s3.connector.publish.*} - Crawl event publishing window and retries</li>
+ *   <li>{@code s3.connector.checkpoint.*} - Crawl run checkpoints and resume</li>
  *   <li>{@code s3.connector.event-driven.*} - Event-driven crawl settings</li>
+ *   <li>{@code s3.connector.datasource-cache.*} - Datasource configuration cache</li>
+ *   <li>{@code s3.connector.clients.*} - Per-datasource S3 client cache</li>
  *   <li>{@code quarkus.rest-client.connector-intake.*} - Connector intake service settings</li>
  * </ul>
  *
@@ -34,7 +40,7 @@ public interface S3ConnectorConfig {
      * Supported modes:
      * <ul>
      *   <li>{@code "initial-crawl"} - Performs one-time bucket crawling</li>
-     *   <li>{@code "event-driven"} - Listens for S3 events (not yet implemented)</li>
+     *   <li>{@code "event-driven"} - Listens for S3 events (see {@link #eventDriven()})</li>
      *   <li>{@code "both"} - Combines initial crawl with event-driven mode</li>
      * </ul>
      *
@@ -52,16 +58,75 @@ public interface S3ConnectorConfig {
      */
     InitialCrawlConfig initialCrawl();
 
+    /**
+     * Gets the crawl event publishing configuration.
+     * <p>
+     * Bounds how much crawl event traffic may be outstanding at the Kafka
+     * producer, and how failed sends are retried.
+     *
+     * @return configuration for crawl event publishing
+     */
+    PublishConfig publish();
+
+    /**
+     * Gets the crawl event consumer configuration.
+     * <p>
+     * Controls how the objects named by crawl events read from Kafka are
+     * downloaded and handed to intake.
+     *
+     * @return configuration for the crawl event consumer
+     */
+    ConsumerConfig consumer();
+
+    /**
+     * Gets the crawl checkpoint configuration.
+     * <p>
+     * Controls whether crawls record their listing progress in {@code s3_crawl_runs}
+     * so they can be resumed after a restart.
+     *
+     * @return configuration for crawl checkpoints
+     */
+    CheckpointConfig checkpoint();
+
     /**
      * Gets the event-driven crawl configuration.
      * <p>
      * Defines settings for event-driven crawling based on S3 notifications.
-     * Currently not implemented but reserved for future use.
      *
      * @return configuration for event-driven crawl operations
      */
     EventDrivenConfig eventDriven();
 
+    /**
+     * Gets the notification webhook configuration.
+     * <p>
+     * Controls the HTTP endpoint that S3-compatible stores such as MinIO post
+     * bucket notifications to.
+     *
+     * @return configuration for the notification webhook
+     */
+    WebhookConfig webhook();
+
+    /**
+     * Gets the datasource configuration cache settings.
+     * <p>
+     * Controls how long datasource configurations looked up for every crawl
+     * event are served from memory before they are read again.
+     *
+     * @return configuration for the datasource configuration cache
+     */
+    DatasourceCacheConfig datasourceCache();
+
+    /**
+     * Gets the per-datasource S3 client cache configuration.
+     * <p>
+     * Bounds how many S3 clients are kept, and when idle or replaced clients
+     * are closed.
+     *
+     * @return configuration for the S3 client cache
+     */
+    ClientsConfig clients();
+
     /**
      * Configuration for initial crawl operations.
      * <p>
@@ -99,26 +164,935 @@ public interface S3ConnectorConfig {
          */
         @WithDefault("1000")
         int maxKeysPerRequest();
+
+        /**
+         * Checks if crawls started through {@code StartCrawl} run incrementally.
+         * <p>
+         * An incremental crawl looks up each listing page in {@code s3_crawl_state}
+         * and only publishes objects that are new or changed since they were last
+         * processed. A REST start-crawl request can override this per crawl.
+         *
+         * @return {@code true} for incremental crawls, defaults to {@code false}
+         */
+        @WithDefault("false")
+        boolean incremental();
+
+        /**
+         * Gets how incremental crawls decide which objects changed.
+         * <ul>
+         *   <li>{@code state-table} - batched lookups in {@code s3_crawl_state} (default)</li>
+         *   <li>{@code snapshot} - sorted merge against the previous crawl's listing
+         *       snapshot; also reports deletions. Always lists sequentially.</li>
+         * </ul>
+         *
+         * @return the change detection strategy, defaults to {@code state-table}
+         */
+        @WithDefault("state-table")
+        ChangeDetection changeDetection();
+
+        /**
+         * Gets where listing snapshots are kept for {@code snapshot} change detection.
+         *
+         * @return listing snapshot settings
+         */
+        SnapshotConfig snapshot();
+
+        /**
+         * Gets how many listing pages may be fetched ahead of the pages being published.
+         * <p>
+         * Lets ListObjectsV2 calls overlap with publishing; bounds the number of
+         * listed-but-unpublished pages held in memory.
+         *
+         * @return pages to list ahead, defaults to 4
+         */
+        @WithDefault("4")
+        int listAheadPages();
+
+        /**
+         * Gets the strategy used to list the bucket.
+         * <ul>
+         *   <li>{@code sequential} - one ListObjectsV2 page after another (default)</li>
+         *   <li>{@code prefix-fan-out} - discovers {@code CommonPrefixes} with {@link #delimiter()}
+         *       and lists every sub-prefix concurrently</li>
+         *   <li>{@code key-range} - splits the keyspace into {@link #keyRangeCount()} ranges
+         *       bounded with {@code StartAfter} and lists them concurrently; for flat buckets</li>
+         *   <li>{@code inventory} - reads the bucket's latest S3 Inventory report from
+         *       {@link #inventoryManifest()} instead of calling ListObjectsV2</li>
+         * </ul>
+         *
+         * @return the listing mode, defaults to {@code sequential}
+         */
+        @WithDefault("sequential")
+        ListingMode listingMode();
+
+        /**
+         * Gets the S3 Inventory report read in {@code inventory} listing mode.
+         * <p>
+         * Either the {@code s3://} URI of a {@code manifest.json}, or the
+         * {@code s3://} URI of an inventory configuration's destination prefix
+         * ({@code .../source-bucket/config-id/}), in which case the newest
+         * {@code <timestamp>/manifest.json} under it is used. {@code {bucket}} in
+         * the URI stands for the crawled bucket, so one setting serves every
+         * bucket with an inventory configuration. The report is read with the
+         * datasource's S3 client and must be in CSV format; buckets without a
+         * usable report are listed with ListObjectsV2.
+         *
+         * @return the inventory manifest or destination prefix, empty if not configured
+         */
+        java.util.Optional<String> inventoryManifest();
+
+        /**
+         * Gets whether bucket crawls list object versions.
+         * <ul>
+         *   <li>{@code none} - lists objects; events carry no version id (default)</li>
+         *   <li>{@code latest} - lists with ListObjectVersions and emits one event per
+         *       key, pinned to its current version</li>
+         *   <li>{@code all} - also emits an event for every noncurrent version</li>
+         * </ul>
+         * A versioned crawl always pages through ListObjectVersions in key order,
+         * whatever {@link #listingMode()} and {@link #changeDetection()} say, and is
+         * not checkpointed.
+         *
+         * @return which versions to crawl, defaults to {@code none}
+         */
+        @WithDefault("none")
+        VersionListing versions();
+
+        /**
+         * Gets the delimiter used to discover sub-prefixes in {@code prefix-fan-out} mode.
+         *
+         * @return the key delimiter, defaults to {@code /}
+         */
+        @WithDefault("/")
+        String delimiter();
+
+        /**
+         * Gets the cap on concurrent ListObjectsV2 calls for one crawl.
+         * <p>
+         * Applies across the whole prefix tree, however deep the fan-out goes.
+         *
+         * @return maximum concurrent list requests, defaults to 16
+         */
+        @WithDefault("16")
+        int listingConcurrency();
+
+        /**
+         * Gets how many delimiter levels the fan-out descends before listing a
+         * sub-prefix flat (without a delimiter).
+         *
+         * @return maximum fan-out depth, defaults to 6
+         */
+        @WithDefault("6")
+        int fanOutMaxDepth();
+
+        /**
+         * Gets the number of ranges the keyspace is split into up front in
+         * {@code key-range} mode.
+         *
+         * @return initial key range count, defaults to 16
+         */
+        @WithDefault("16")
+        int keyRangeCount();
+
+        /**
+         * Gets how the initial key range boundaries are chosen in {@code key-range} mode.
+         *
+         * @return the boundary strategy, defaults to {@code sampled}
+         */
+        @WithDefault("sampled")
+        KeyRangeBoundaries keyRangeBoundaries();
+
+        /**
+         * Gets the characters keys are expected to start with (after the prefix).
+         * <p>
+         * Boundaries are spread evenly over this alphabet. The default suits
+         * hex or base-36 hash-named keys; keys outside it are still listed, they
+         * just land in whichever range their sort order puts them.
+         *
+         * @return the key alphabet, defaults to digits and lowercase letters
+         */
+        @WithDefault("0123456789abcdefghijklmnopqrstuvwxyz")
+        String keyRangeAlphabet();
+
+        /**
+         * Gets the number of pages a key range must have listed before it is
+         * considered for a dynamic re-split.
+         * <p>
+         * A range that reaches this many pages and has listed more than twice the
+         * average of the ranges already finished has its remainder split in two.
+         *
+         * @return minimum pages before re-splitting, defaults to 8
+         */
+        @WithDefault("8")
+        int keyRangeSplitPages();
+
+        /**
+         * Gets the cap on the total number of key ranges a crawl may create
+         * through re-splitting.
+         *
+         * @return maximum number of key ranges, defaults to 256
+         */
+        @WithDefault("256")
+        int keyRangeMaxRanges();
+    }
+
+    /**
+     * Strategy used to enumerate the objects of a bucket.
+     */
+    enum ListingMode {
+        /**
+         * Lists the bucket one page at a time, following continuation tokens.
+         */
+        SEQUENTIAL,
+
+        /**
+         * Lists each delimiter-separated sub-prefix concurrently.
+         */
+        PREFIX_FAN_OUT,
+
+        /**
+         * Lists {@code StartAfter}-bounded key ranges concurrently.
+         */
+        KEY_RANGE,
+
+        /**
+         * Reads the objects from an S3 Inventory report instead of listing the bucket.
+         */
+        INVENTORY
+    }
+
+    /**
+     * Which object versions a crawl lists.
+     */
+    enum VersionListing {
+        /**
+         * Lists current objects without version ids.
+         */
+        NONE,
+
+        /**
+         * Lists the current version of each key.
+         */
+        LATEST,
+
+        /**
+         * Lists every version of each key, current and noncurrent.
+         */
+        ALL
+    }
+
+    /**
+     * Listing snapshot settings for {@code snapshot} change detection.
+     */
+    interface SnapshotConfig {
+
+        /**
+         * Gets where snapshots are stored.
+         *
+         * @return the snapshot store, defaults to {@code local}
+         */
+        @WithDefault("local")
+        SnapshotStore store();
+
+        /**
+         * Gets the local directory for snapshots ({@code local} store) and scratch
+         * files (both stores). Required by the {@code local} store with snapshot
+         * change detection, and must then be persistent storage every replica sees.
+         *
+         * @return the snapshot directory; the {@code bucket} store's scratch files go to the
+         *         system temp directory when empty
+         */
+        java.util.Optional<String> directory();
+
+        /**
+         * Gets the key prefix snapshots are written under in the crawled bucket
+         * ({@code bucket} store). No events are published for keys under it, from
+         * crawls or from notifications.
+         *
+         * @return the snapshot key prefix, defaults to {@code .s3-connector/snapshots/}
+         */
+        @WithDefault(".s3-connector/snapshots/")
+        String keyPrefix();
+    }
+
+    /**
+     * How incremental crawls detect changed objects.
+     */
+    enum ChangeDetection {
+        /**
+         * Batched lookups against {@code s3_crawl_state}.
+         */
+        STATE_TABLE,
+
+        /**
+         * Sorted merge against the previous listing snapshot.
+         */
+        SNAPSHOT
+    }
+
+    /**
+     * Where listing snapshots are stored.
+     */
+    enum SnapshotStore {
+        /**
+         * A local directory.
+         */
+        LOCAL,
+
+        /**
+         * The crawled bucket itself.
+         */
+        BUCKET
+    }
+
+    /**
+     * How the initial boundaries of {@code key-range} listing are chosen.
+     */
+    enum KeyRangeBoundaries {
+        /**
+         * Evenly spaced over the key alphabet, without looking at the bucket.
+         */
+        LEXICOGRAPHIC,
+
+        /**
+         * Probes the bucket with cheap single-key listings and drops boundaries
+         * around empty parts of the keyspace, so each range starts non-empty.
+         */
+        SAMPLED
+    }
+
+    /**
+     * Configuration for publishing crawl events to Kafka.
+     * <p>
+     * The in-flight window is shared by every crawl in the process, since they
+     * all feed the same producer. When it is full, crawls stop pulling objects
+     * from their listings until sends complete.
+     */
+    interface PublishConfig {
+
+        /**
+         * Gets the maximum number of crawl event sends outstanding at once.
+         *
+         * @return maximum in-flight sends, defaults to 512
+         */
+        @WithDefault("512")
+        int maxInFlight();
+
+        /**
+         * Gets the maximum serialized size of crawl events outstanding at once.
+         * <p>
+         * Keep this below the producer's {@code buffer.memory} so the window
+         * fills before the producer buffer does.
+         *
+         * @return in-flight byte budget, defaults to 16 MiB
+         */
+        @WithDefault("16777216")
+        long maxInFlightBytes();
+
+        /**
+         * Gets how many times a failed send is retried before the event is given up on.
+         * <p>
+         * A send that exhausts its retries is logged and counted against the
+         * crawl; it does not fail the page or the crawl.
+         *
+         * @return retries per event, defaults to 5
+         */
+        @WithDefault("5")
+        int maxRetries();
+
+        /**
+         * Gets the delay before the first retry of a failed send, in milliseconds.
+         * Later retries back off exponentially.
+         *
+         * @return initial retry backoff, defaults to 200
+         */
+        @WithDefault("200")
+        long retryInitialBackoffMs();
+
+        /**
+         * Gets the upper bound on the delay between retries, in milliseconds.
+         *
+         * @return maximum retry backoff, defaults to 10000
+         */
+        @WithDefault("10000")
+        long retryMaxBackoffMs();
+
+        /**
+         * Gets how the Kafka key of a crawl event is derived, which decides how the
+         * events of one datasource spread over partitions and consumers.
+         *
+         * @return the partition key strategy, defaults to {@link PartitionKey#DATASOURCE}
+         */
+        @WithDefault("datasource")
+        PartitionKey partitionKey();
+
+        /**
+         * Gets how many leading {@code /}-separated key segments form the key with
+         * {@link PartitionKey#PREFIX}.
+         *
+         * @return prefix depth, defaults to 1
+         */
+        @WithDefault("1")
+        int partitionKeyPrefixDepth();
+
+        /**
+         * Gets how many keys each datasource is spread over with {@link PartitionKey#SHARDED}.
+         *
+         * @return shards per datasource, defaults to 32
+         */
+        @WithDefault("32")
+        int partitionKeyShards();
+    }
+
+    /**
+     * How the Kafka key of a crawl event is derived. Every strategy keys all
+     * events of one object alike, so they stay in order on one partition.
+     */
+    enum PartitionKey {
+        /**
+         * One key per datasource: a datasource is processed by one consumer, in order.
+         */
+        DATASOURCE,
+
+        /**
+         * One key per object ({@code datasource, bucket, key}): spreads a datasource
+         * over every partition.
+         */
+        OBJECT,
+
+        /**
+         * One key per leading key prefix (see {@code partition-key-prefix-depth}):
+         * keeps the objects of a directory together.
+         */
+        PREFIX,
+
+        /**
+         * A datasource spread over a fixed number of keys (see
+         * {@code partition-key-shards}), objects assigned by a hash of bucket and key.
+         */
+        SHARDED
+    }
+
+    /**
+     * Configuration for the crawl event consumer.
+     * <p>
+     * Records of one Kafka partition are processed up to
+     * {@link #partitionConcurrency()} at a time, one at a time per object, each
+     * going through fetch, digest and upload stages with their own concurrency. Each
+     * record is acknowledged when its object is done, and the {@code throttled}
+     * commit strategy commits the highest offset below which every record is
+     * done, so a restart never skips an unfinished record.
+     */
+    interface ConsumerConfig {
+
+        /**
+         * Gets how many records of one partition are processed concurrently.
+         * <p>
+         * {@code 1} processes a partition strictly in order. Records queued behind
+         * an earlier record for the same object count toward the limit, and every
+         * record still has to finish within the channel's
+         * {@code throttled.unprocessed-record-max-age.ms}. Records of a partition
+         * whose window is full wait without holding up other partitions, up to
+         * {@link #maxWaitingRecords()}.
+         *
+         * @return records in flight per partition, defaults to 1
+         */
+        @WithDefault("1")
+        int partitionConcurrency();
+
+        /**
+         * Gets how many records may wait for their partition's window, across all
+         * partitions of this consumer.
+         * <p>
+         * Once this many records are waiting, the channel stops delivering records
+         * of every partition until one of them starts. Waiting records count toward
+         * {@code throttled.unprocessed-record-max-age.ms} like running ones.
+         *
+         * @return records waiting across partitions, defaults to 256
+         */
+        @WithDefault("256")
+        int maxWaitingRecords();
+
+        /**
+         * Gets how many S3 downloads run at once (fetch stage).
+         *
+         * @return concurrent downloads, defaults to 16
+         */
+        @WithDefault("16")
+        int fetchConcurrency();
+
+        /**
+         * Gets how many SHA-256 digests of buffered objects are computed at once (digest stage).
+         *
+         * @return concurrent digests, defaults to 4
+         */
+        @WithDefault("4")
+        int digestConcurrency();
+
+        /**
+         * Gets how many intake uploads run at once (upload stage).
+         *
+         * @return concurrent uploads, defaults to 16
+         */
+        @WithDefault("16")
+        int uploadConcurrency();
+
+        /**
+         * Gets the direct memory available for buffering objects to checksum them.
+         * <p>
+         * Buffers are pooled in power-of-two size classes, so an object may take up
+         * to twice its size. Downloads of buffered objects wait for budget, sized
+         * from the listing, before their GET is issued.
+         *
+         * @return buffer budget in bytes, defaults to 512 MiB
+         */
+        @WithDefault("536870912")
+        long bufferBudgetBytes();
+
+        /**
+         * Checks if objects over {@code s3.connector.checksum-max-buffer-bytes} are
+         * spooled to local disk, so they are uploaded with a checksum too.
+         * <p>
+         * When disabled they stream from S3 to intake without a checksum, which
+         * leaves them out of intake dedupe.
+         *
+         * @return {@code true} to spool large objects, defaults to {@code false}
+         */
+        @WithDefault("false")
+        boolean spoolEnabled();
+
+        /**
+         * Gets the directory spool files are written to. Leftover spool files in it
+         * are deleted at startup.
+         *
+         * @return the spool directory, empty for {@code s3-connector-spool} under {@code java.io.tmpdir}
+         */
+        java.util.Optional<String> spoolDirectory();
+
+        /**
+         * Gets the disk space spooled objects may take at once; further large
+         * objects wait until space is freed, before their GET is issued.
+         *
+         * @return spool quota in bytes, defaults to 10 GiB
+         */
+        @WithDefault("10737418240")
+        long spoolQuotaBytes();
+
+        /**
+         * Checks if downloads ask S3 for the object's stored checksum
+         * ({@code ChecksumMode.ENABLED}).
+         * <p>
+         * An object uploaded with a full-object SHA-256 then streams to intake with
+         * that checksum, without being buffered or spooled. Objects without one, or
+         * with a composite multipart checksum, are hashed locally as before.
+         *
+         * @return {@code true} to use S3-native checksums, defaults to {@code true}
+         */
+        @WithDefault("true")
+        boolean nativeChecksums();
+
+        /**
+         * Checks if large objects are downloaded as concurrent byte ranges instead
+         * of one GET.
+         *
+         * @return {@code true} for ranged downloads, defaults to {@code false}
+         */
+        @WithDefault("false")
+        boolean rangedDownloads();
+
+        /**
+         * Gets the object size from which ranged downloads are used.
+         *
+         * @return ranged download threshold in bytes, defaults to 256 MiB
+         */
+        @WithDefault("268435456")
+        long rangedDownloadThresholdBytes();
+
+        /**
+         * Gets the size of each range. Objects uploaded in multipart parts of at
+         * most four times this size are read part by part instead.
+         *
+         * @return range size in bytes, defaults to 16 MiB
+         */
+        @WithDefault("16777216")
+        long rangedDownloadPartBytes();
+
+        /**
+         * Gets how many ranges of one object are downloaded at once; this many
+         * ranges are held in memory while the object is reassembled.
+         *
+         * @return concurrent ranges per object, defaults to 4
+         */
+        @WithDefault("4")
+        int rangedDownloadConcurrency();
+
+        /**
+         * Checks if objects are streamed from S3 to intake without blocking a thread.
+         * <p>
+         * The S3 response body is written to the intake request chunk by chunk as
+         * it arrives, and read from S3 only as fast as intake accepts it; buffered
+         * objects are read into their pooled buffer the same way. Objects that are
+         * spooled to disk or downloaded in ranges, and intake URLs that are not
+         * plain {@code http(s)://}, keep the blocking stream path.
+         *
+         * @return {@code true} for non-blocking streaming, defaults to {@code false}
+         */
+        @WithDefault("false")
+        boolean reactiveStreaming();
+
+        /**
+         * Gets the threads crawl events are processed on.
+         *
+         * @return the execution mode, defaults to {@link ConsumerExecution#WORKER_POOL}
+         */
+        @WithDefault("worker-pool")
+        ConsumerExecution execution();
+
+        /**
+         * Gets how many objects are transferred at once in {@code virtual-threads}
+         * execution, across all datasources. The fetch, digest and upload stage
+         * limits do not apply in that mode.
+         *
+         * @return concurrent transfers, defaults to 256
+         */
+        @WithDefault("256")
+        int virtualThreadConcurrency();
+
+        /**
+         * Gets how many objects of one datasource are transferred at once in
+         * {@code virtual-threads} execution.
+         *
+         * @return concurrent transfers per datasource, defaults to 64
+         */
+        @WithDefault("64")
+        int virtualThreadDatasourceConcurrency();
+    }
+
+    /**
+     * Threads the crawl event consumer transfers objects on.
+     */
+    enum ConsumerExecution {
+        /**
+         * Asynchronous S3 and intake calls, with blocking reads on the shared
+         * worker pool, bounded by the fetch, digest and upload stages.
+         */
+        WORKER_POOL,
+
+        /**
+         * One virtual thread per transfer making plain blocking S3 and intake
+         * calls, bounded by a global and a per-datasource limit.
+         */
+        VIRTUAL_THREADS
+    }
+
+    /**
+     * Configuration for crawl run checkpoints.
+     * <p>
+     * A crawl with a request id records its listing shards and, per shard, the last
+     * key up to which every event has been published. Sequential and key-range
+     * crawls resume from there; prefix fan-out crawls are recorded but start over.
+     */
+    interface CheckpointConfig {
+
+        /**
+         * Checks if crawls record checkpoints.
+         *
+         * @return {@code true} if checkpoints are recorded, defaults to true
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Gets how long a running crawl may go without recording progress before
+         * another instance may resume it, on the assumption that its pod is gone.
+         *
+         * @return staleness threshold, defaults to 5 minutes
+         */
+        @WithDefault("5m")
+        Duration staleAfter();
     }
 
     /**
      * Configuration for event-driven crawl operations.
      * <p>
-     * Reserved for future implementation of S3 event notification-based crawling.
-     * Currently serves as a placeholder for enabling/disabling this feature.
+     * S3 bucket notifications (sent directly, or through SNS) are long-polled
+     * from an SQS-compatible queue and turned into {@link ai.pipestream.connector.s3.state.CrawlSource#LIVE}
+     * crawl events for every enabled {@code LIVE} or {@code BOTH} crawl target
+     * whose bucket and prefix match the object.
      */
     interface EventDrivenConfig {
 
         /**
          * Checks if event-driven crawling is enabled.
          * <p>
-         * When enabled, the connector will listen for S3 event notifications
-         * instead of performing periodic crawls. This feature is not yet implemented.
+         * When enabled, the connector polls {@link #queueUrl()} for S3 event
+         * notifications from startup until shutdown.
          *
          * @return {@code true} if event-driven crawling is enabled, {@code false} otherwise
          */
         @WithDefault("false")
         boolean enabled();
+
+        /**
+         * Gets the URL of the queue S3 notifications are delivered to.
+         *
+         * @return the queue URL; required when event-driven crawling is enabled
+         */
+        java.util.Optional<String> queueUrl();
+
+        /**
+         * Gets the endpoint of an SQS-compatible service (e.g. ElasticMQ), instead of AWS.
+         *
+         * @return the endpoint override, empty for the AWS endpoint of {@link #region()}
+         */
+        java.util.Optional<String> endpointOverride();
+
+        /**
+         * Gets the region of the queue.
+         *
+         * @return the queue region, defaults to {@code us-east-1}
+         */
+        @WithDefault("us-east-1")
+        String region();
+
+        /**
+         * Gets a static access key for the queue; without one the default AWS
+         * credentials chain is used.
+         *
+         * @return the access key id, if any
+         */
+        java.util.Optional<String> accessKeyId();
+
+        /**
+         * Gets the secret key paired with {@link #accessKeyId()}.
+         *
+         * @return the secret access key, if any
+         */
+        java.util.Optional<String> secretAccessKey();
+
+        /**
+         * Gets the number of concurrent long-poll loops on the queue.
+         *
+         * @return concurrent pollers, defaults to 4
+         */
+        @WithDefault("4")
+        int pollers();
+
+        /**
+         * Gets the number of messages requested per receive (SQS allows at most 10).
+         *
+         * @return messages per receive, defaults to 10
+         */
+        @WithDefault("10")
+        int maxMessages();
+
+        /**
+         * Gets how long a receive waits for messages before returning empty
+         * (SQS allows at most 20 seconds).
+         *
+         * @return long-poll wait in seconds, defaults to 20
+         */
+        @WithDefault("20")
+        int waitTimeSeconds();
+
+        /**
+         * Gets how long a poller backs off after a failed receive or batch, doubling
+         * up to twelve times this on consecutive failures.
+         *
+         * @return initial poll error backoff, defaults to 5 seconds
+         */
+        @WithDefault("5s")
+        Duration errorBackoff();
+    }
+
+    /**
+     * Configuration for the bucket notification webhook.
+     * <p>
+     * {@code POST /api/notifications/s3} accepts S3 event notifications (one per
+     * request, or a JSON array of them), acknowledges them at once and coalesces
+     * their records per {@code (bucket, key)} for {@link #debounce()} before they
+     * are published as {@link ai.pipestream.connector.s3.state.CrawlSource#LIVE}
+     * crawl events for the matching {@code LIVE} or {@code BOTH} crawl targets.
+     */
+    interface WebhookConfig {
+
+        /**
+         * Checks if the notification webhook is enabled.
+         *
+         * @return {@code true} if notifications are accepted over HTTP, {@code false} otherwise
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Gets the token senders must present as {@code Authorization: Bearer <token>}
+         * (MinIO's {@code auth_token}). The endpoint does not take {@code x-api-key},
+         * which webhook senders cannot set, so the token is required: the webhook
+         * refuses to start without one.
+         *
+         * @return the expected token
+         */
+        java.util.Optional<String> authToken();
+
+        /**
+         * Gets how long the records of one object are coalesced, counted from the
+         * first record, before the object's latest state is published.
+         *
+         * @return debounce window, defaults to 1 second
+         */
+        @WithDefault("1s")
+        Duration debounce();
+
+        /**
+         * Gets the maximum number of objects held for coalescing. Notifications for
+         * further objects are refused with {@code 503} so the sender retries them.
+         *
+         * @return maximum pending objects, defaults to 100000
+         */
+        @WithDefault("100000")
+        int maxPendingObjects();
     }
 
+    /**
+     * Configuration for the datasource configuration cache.
+     * <p>
+     * Lookups are answered from memory while an entry is fresh; concurrent
+     * lookups of a stale or missing entry share one database read. Registrations
+     * made through this instance update the cache at once; those made through
+     * other instances arrive as {@code NOTIFY s3_datasource_configs} when
+     * {@link #listen()} is on, and are picked up when the entry expires otherwise.
+     */
+    interface DatasourceCacheConfig {
+
+        /**
+         * Gets how long a loaded datasource configuration is served from memory.
+         *
+         * @return time to live of cached configurations, defaults to 5 minutes
+         */
+        @WithDefault("5m")
+        Duration ttl();
+
+        /**
+         * Gets how long a datasource found not to be registered is remembered as
+         * missing, so events for it do not each query the database.
+         *
+         * @return time to live of missing datasources, defaults to 30 seconds
+         */
+        @WithDefault("30s")
+        Duration negativeTtl();
+
+        /**
+         * Checks if this instance listens for datasource configuration changes
+         * made through other instances.
+         * <p>
+         * A database trigger notifies {@code s3_datasource_configs} with the
+         * datasource id on every change; each instance then re-reads that
+         * configuration and closes its S3 client if it changed. The listener holds
+         * one connection of the reactive pool.
+         *
+         * @return {@code true} to listen for changes, defaults to {@code true}
+         */
+        @WithDefault("true")
+        boolean listen();
+    }
+
+    /**
+     * Configuration for the per-datasource S3 client cache.
+     * <p>
+     * Each client has its own connection pool, so clients are created once per
+     * datasource, even when many events of a new datasource arrive together, and
+     * closed once the datasource has not been used for {@link #idleTtl()}.
+     */
+    interface ClientsConfig {
+
+        /**
+         * Gets the maximum number of cached clients; beyond it the least recently
+         * used client is evicted.
+         *
+         * @return maximum cached clients, defaults to 256
+         */
+        @WithDefault("256")
+        int maxCached();
+
+        /**
+         * Gets how long a client may go unused before it is evicted.
+         *
+         * @return idle time to live, defaults to 30 minutes
+         */
+        @WithDefault("30m")
+        Duration idleTtl();
+
+        /**
+         * Gets how long an evicted or replaced client stays open at least before
+         * it is closed; a client still leased by a crawl or transfer is closed
+         * only once its last lease is released.
+         *
+         * @return close grace period, defaults to 2 minutes
+         */
+        @WithDefault("2m")
+        Duration closeGrace();
+
+        /**
+         * Gets the number of threads of the event loop group all S3 clients share.
+         *
+         * @return event loop threads, empty for the number of available processors
+         */
+        java.util.OptionalInt eventLoopThreads();
+
+        /**
+         * Gets the maximum number of connections of an S3 client's pool, unless
+         * overridden for its datasource. Datasources with the same connection
+         * settings and pool size share one pool, and these connections with it.
+         *
+         * @return connections per pool, defaults to 100
+         */
+        @WithDefault("100")
+        int maxConcurrency();
+
+        /**
+         * Gets how long a request waits for a pooled connection before failing.
+         *
+         * @return connection acquisition timeout, defaults to 30 seconds
+         */
+        @WithDefault("30s")
+        Duration connectionAcquisitionTimeout();
+
+        /**
+         * Gets how long a response may stall without data before the request fails.
+         *
+         * @return read timeout, defaults to 30 seconds
+         */
+        @WithDefault("30s")
+        Duration readTimeout();
+
+        /**
+         * Checks if pooled connections use TCP keep-alive.
+         *
+         * @return {@code true} for TCP keep-alive, defaults to {@code true}
+         */
+        @WithDefault("true")
+        boolean tcpKeepAlive();
+
+        /**
+         * Gets per-datasource client settings, keyed by datasource id.
+         *
+         * @return per-datasource overrides
+         */
+        java.util.Map<String, DatasourceClientConfig> datasource();
+    }
+
+    /**
+     * Client settings of one datasource.
+     */
+    interface DatasourceClientConfig {
+
+        /**
+         * Gets the maximum number of connections of the datasource's pool. A size
+         * no other datasource with the same connection settings uses gives the
+         * datasource a pool of its own.
+         *
+         * @return connections per pool, empty for {@code s3.connector.clients.max-concurrency}
+         */
+        java.util.OptionalInt maxConcurrency();
+    }
 }
@@ -0,0 +1,529 @@
+package ai.pipestream.connector.s3.crawl;
+
+import ai.pipestream.connector.s3.concurrent.AsyncPermits;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectVersionsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectVersion;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Listing strategies for bucket crawls.
+ * <p>
+ * A plain ListObjectsV2 walk ({@link #sequential}) is strictly serial: every page
+ * needs the previous page's continuation token. The other strategies split the keyspace so that
+ * independent parts of the bucket are listed concurrently, and stream the
+ * resulting pages as a {@link Multi} of object batches for the crawl to publish.
+ * </p>
+ *
+ * <h2>Prefix fan-out</h2>
+ * <p>
+ * Each prefix is listed with a delimiter. Objects directly under it are emitted,
+ * and every {@code CommonPrefix} in the response is listed the same way as soon
+ * as it is discovered, so a hot subtree keeps splitting into more concurrent
+ * listings as it is revealed. Below {@code fan-out-max-depth} delimiter levels a
+ * prefix is listed flat. One {@link AsyncPermits} per crawl caps the number of
+ * ListObjectsV2 calls in flight across the whole tree.
+ * </p>
+ *
+ * <h2>Key ranges</h2>
+ * <p>
+ * Flat buckets (hash-named keys, no delimiter) give prefix fan-out nothing to
+ * split. Key-range listing instead cuts the keyspace into ranges
+ * {@code (lower, upper]}: each range is listed with {@code StartAfter=lower},
+ * paged by {@code StartAfter} of the last key seen, and stops as soon as a key
+ * sorts past {@code upper}. Boundaries are either spread evenly over the key
+ * alphabet or sampled from the bucket with single-key probes so that empty parts
+ * of the keyspace do not get a range. A range that turns out much denser than
+ * the ranges already finished splits its unlisted remainder at a lexicographic
+ * midpoint, and both halves continue concurrently.
+ * </p>
+ *
+ * <h2>Shards</h2>
+ * <p>
+ * Sequential and key-range listings emit {@link ListedPage}s that name the
+ * {@link ListingShard} they belong to and the interval of keys they cover, which
+ * is what lets a crawl checkpoint and later resume each shard with
+ * {@code StartAfter}. Prefix fan-out has no such order and is not sharded.
+ * </p>
+ *
+ * <h2>Versions</h2>
+ * <p>
+ * {@link #versions} pages through ListObjectVersions instead, for crawls whose
+ * events pin each object to a version id without a HEAD per object.
+ * </p>
+ *
+ * @since 1.0.0
+ */
+@ApplicationScoped
+public class BucketLister {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public BucketLister() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(BucketLister.class);
+
+    @Inject
+    S3ConnectorConfig config;
+
+    /**
+     * Lists a bucket one page after another, following continuation tokens.
+     * Pages are fetched on demand, so a downstream that requests ahead gets the
+     * next LIST call issued while it is still working on earlier pages.
+     *
+     * @param client S3 client for the datasource
+     * @param bucket bucket to list
+     * @param prefix root prefix (may be {@code null} for the whole bucket)
+     * @return batches of objects, one per listing page, in key order
+     */
+    public Multi<List<S3Object>> sequential(S3AsyncClient client, String bucket, String prefix) {
+        return sequential(client, bucket, prefix, ListingShard.wholeKeyspace())
+            .map(ListedPage::objects);
+    }
+
+    /**
+     * Lists one shard of a bucket sequentially, starting after the shard's lower
+     * bound and running to the end of the keyspace (a sequential shard is never
+     * bounded above).
+     *
+     * @param client S3 client for the datasource
+     * @param bucket bucket to list
+     * @param prefix root prefix (may be {@code null} for the whole bucket)
+     * @param shard  shard to list; its lower bound is the {@code StartAfter} of the first page
+     * @return the listing pages in key order, each with the keyspace it covers
+     */
+    public Multi<ListedPage> sequential(S3AsyncClient client, String bucket, String prefix, ListingShard shard) {
+        ListObjectsV2Request.Builder first = ListObjectsV2Request.builder()
+            .bucket(bucket)
+            .maxKeys(config.initialCrawl().maxKeysPerRequest())
+            .prefix(prefix);
+        if (shard.lower() != null) {
+            first.startAfter(shard.lower());
+        }
+        return Multi.createFrom().deferred(() -> {
+            AtomicReference<String> after = new AtomicReference<>(shard.lower());
+            return pages(client, first.build(), new AsyncPermits("list-" + bucket, 1))
+                .map(page -> {
+                    List<S3Object> contents = page.contents();
+                    boolean truncated = Boolean.TRUE.equals(page.isTruncated());
+                    String from = after.get();
+                    String through = !truncated ? null
+                        : contents.isEmpty() ? from : contents.get(contents.size() - 1).key();
+                    after.set(through);
+                    return new ListedPage(shard.id(), from, through,
+                        truncated ? page.nextContinuationToken() : null, contents);
+                });
+        });
+    }
+
+    /**
+     * Lists a bucket by fanning out over its delimiter-separated sub-prefixes.
+     *
+     * @param client S3 client for the datasource
+     * @param bucket bucket to list
+     * @param prefix root prefix (may be {@code null} for the whole bucket)
+     * @return batches of objects, one per listing page, in no particular order
+     */
+    public Multi<List<S3Object>> prefixFanOut(S3AsyncClient client, String bucket, String prefix) {
+        S3ConnectorConfig.InitialCrawlConfig crawl = config.initialCrawl();
+        LOG.debugf("Prefix fan-out listing: bucket=%s, prefix=%s, delimiter=%s, concurrency=%d, maxDepth=%d",
+            bucket, prefix, crawl.delimiter(), crawl.listingConcurrency(), crawl.fanOutMaxDepth());
+        FanOut fanOut = new FanOut(client, bucket, crawl);
+        return fanOut.listPrefix(prefix, 0);
+    }
+
+    /**
+     * Cuts a flat bucket's keyspace into the initial ranges of a key-range listing.
+     *
+     * @param client S3 client for the datasource
+     * @param bucket bucket to list
+     * @param prefix root prefix (may be {@code null} for the whole bucket)
+     * @return one shard per initial key range, in key order
+     */
+    public Uni<List<ListingShard>> keyRangeShards(S3AsyncClient client, String bucket, String prefix) {
+        S3ConnectorConfig.InitialCrawlConfig crawl = config.initialCrawl();
+        LOG.debugf("Key-range listing: bucket=%s, prefix=%s, ranges=%d, boundaries=%s, concurrency=%d",
+            bucket, prefix, crawl.keyRangeCount(), crawl.keyRangeBoundaries(), crawl.listingConcurrency());
+        return new KeyRanges(client, bucket, prefix, crawl).boundaries()
+            .map(boundaries -> {
+                List<ListingShard> shards = new ArrayList<>(boundaries.size() + 1);
+                String lower = null;
+                for (String boundary : boundaries) {
+                    shards.add(new ListingShard(String.format("range-%04d", shards.size()), lower, boundary));
+                    lower = boundary;
+                }
+                shards.add(new ListingShard(String.format("range-%04d", shards.size()), lower, null));
+                return shards;
+            });
+    }
+
+    /**
+     * Lists a flat bucket as concurrent {@code StartAfter}-bounded key ranges.
+     * Ranges re-split while listing; every page still reports the shard it came from.
+     *
+     * @param client S3 client for the datasource
+     * @param bucket bucket to list
+     * @param prefix root prefix (may be {@code null} for the whole bucket)
+     * @param shards shards to list, from {@link #keyRangeShards} or a checkpoint
+     * @return listing pages, each with the keyspace it covers, in no particular order
+     */
+    public Multi<ListedPage> keyRanges(S3AsyncClient client, String bucket, String prefix, List<ListingShard> shards) {
+        return new KeyRanges(client, bucket, prefix, config.initialCrawl()).listAll(shards);
+    }
+
+    /**
+     * Lists the object versions of a bucket one ListObjectVersions page after
+     * another, following the key and version-id markers. Delete markers are not
+     * returned, so a key whose current version is a delete marker has no current
+     * version here.
+     *
+     * @param client     S3 client for the datasource
+     * @param bucket     bucket to list
+     * @param prefix     root prefix (may be {@code null} for the whole bucket)
+     * @param latestOnly whether to keep only each key's current version
+     * @return batches of versions, one per listing page, in key order and newest first per key
+     */
+    public Multi<List<ObjectVersion>> versions(S3AsyncClient client, String bucket, String prefix, boolean latestOnly) {
+        ListObjectVersionsRequest first = ListObjectVersionsRequest.builder()
+            .bucket(bucket)
+            .maxKeys(config.initialCrawl().maxKeysPerRequest())
+            .prefix(prefix)
+            .build();
+        return Multi.createBy().repeating()
+            .uni(() -> new AtomicReference<ListObjectVersionsRequest>(first),
+                next -> Uni.createFrom().completionStage(() -> client.listObjectVersions(next.get()))
+                    .invoke(page -> {
+                        if (Boolean.TRUE.equals(page.isTruncated())) {
+                            next.set(next.get().toBuilder()
+                                .keyMarker(page.nextKeyMarker())
+                                .versionIdMarker(page.nextVersionIdMarker())
+                                .build());
+                        }
+                    }))
+            .whilst(page -> Boolean.TRUE.equals(page.isTruncated()))
+            .map(page -> latestOnly
+                ? page.versions().stream().filter(version -> Boolean.TRUE.equals(version.isLatest())).toList()
+                : page.versions());
+    }
+
+    /**
+     * Pages through one ListObjectsV2 listing, following continuation tokens.
+     * Each page is only requested when downstream asks for it, and every call
+     * holds one of {@code listPermits} for its duration.
+     *
+     * @param client      S3 client
+     * @param first       request for the first page
+     * @param listPermits cap on concurrent list calls shared by the crawl
+     * @return the listing pages in order
+     */
+    static Multi<ListObjectsV2Response> pages(S3AsyncClient client, ListObjectsV2Request first,
+                                              AsyncPermits listPermits) {
+        return Multi.createBy().repeating()
+            .uni(() -> new AtomicReference<ListObjectsV2Request>(first),
+                next -> listPermits.withPermit(() -> Uni.createFrom().completionStage(() -> client.listObjectsV2(next.get())))
+                    .invoke(page -> {
+                        if (Boolean.TRUE.equals(page.isTruncated())) {
+                            next.set(next.get().toBuilder()
+                                .continuationToken(page.nextContinuationToken())
+                                .build());
+                        }
+                    }))
+            .whilst(page -> Boolean.TRUE.equals(page.isTruncated()));
+    }
+
+    /**
+     * State of one fan-out crawl: the client, limits, and the shared list-call permits.
+     */
+    private static final class FanOut {
+        private final S3AsyncClient client;
+        private final String bucket;
+        private final int maxKeys;
+        private final String delimiter;
+        private final int maxDepth;
+        private final int concurrency;
+        private final AsyncPermits listPermits;
+
+        private FanOut(S3AsyncClient client, String bucket, S3ConnectorConfig.InitialCrawlConfig crawl) {
+            this.client = client;
+            this.bucket = bucket;
+            this.maxKeys = crawl.maxKeysPerRequest();
+            this.delimiter = crawl.delimiter();
+            this.maxDepth = crawl.fanOutMaxDepth();
+            this.concurrency = Math.max(1, crawl.listingConcurrency());
+            this.listPermits = new AsyncPermits("list-" + bucket, concurrency);
+        }
+
+        private Multi<List<S3Object>> listPrefix(String prefix, int depth) {
+            boolean split = depth < maxDepth;
+            ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .maxKeys(maxKeys)
+                .prefix(prefix);
+            if (split) {
+                request.delimiter(delimiter);
+            }
+
+            return pages(client, request.build(), listPermits)
+                .onItem().transformToMulti(page -> {
+                    Multi<List<S3Object>> objects = page.contents().isEmpty()
+                        ? Multi.createFrom().<List<S3Object>>empty()
+                        : Multi.createFrom().item(page.contents());
+                    List<CommonPrefix> children = page.commonPrefixes();
+                    if (!split || children.isEmpty()) {
+                        return objects;
+                    }
+                    LOG.tracef("Fan-out: prefix=%s depth=%d discovered %d sub-prefix(es)", prefix, depth, children.size());
+                    Multi<List<S3Object>> nested = Multi.createFrom().iterable(children)
+                        .onItem().transformToMulti(child -> listPrefix(child.prefix(), depth + 1))
+                        .merge(concurrency);
+                    return Multi.createBy().merging().streams(objects, nested);
+                })
+                .merge(concurrency);
+        }
+    }
+
+    /**
+     * One key range {@code (lower, upper]} of a shard; a {@code null} bound is open.
+     */
+    private record KeyRange(String shard, String lower, String upper) {
+    }
+
+    /**
+     * State of one key-range crawl: the client, limits, shared list-call permits
+     * and the per-range page counts that drive dynamic re-splitting.
+     */
+    private static final class KeyRanges {
+
+        /** Candidate boundaries probed per wanted range when sampling. */
+        private static final int SAMPLES_PER_RANGE = 4;
+
+        private final S3AsyncClient client;
+        private final String bucket;
+        private final String prefix;
+        private final int maxKeys;
+        private final int concurrency;
+        private final int initialRanges;
+        private final S3ConnectorConfig.KeyRangeBoundaries boundaryMode;
+        private final String alphabet;
+        private final int splitPages;
+        private final int maxRanges;
+        private final AsyncPermits listPermits;
+        private final AtomicInteger rangeCount = new AtomicInteger();
+        private final AtomicInteger completedRanges = new AtomicInteger();
+        private final AtomicLong completedPages = new AtomicLong();
+
+        private KeyRanges(S3AsyncClient client, String bucket, String prefix,
+                          S3ConnectorConfig.InitialCrawlConfig crawl) {
+            this.client = client;
+            this.bucket = bucket;
+            this.prefix = prefix;
+            this.maxKeys = crawl.maxKeysPerRequest();
+            this.concurrency = Math.max(1, crawl.listingConcurrency());
+            this.initialRanges = Math.max(1, crawl.keyRangeCount());
+            this.boundaryMode = crawl.keyRangeBoundaries();
+            this.alphabet = crawl.keyRangeAlphabet();
+            this.splitPages = Math.max(1, crawl.keyRangeSplitPages());
+            this.maxRanges = Math.max(initialRanges, crawl.keyRangeMaxRanges());
+            this.listPermits = new AsyncPermits("list-" + bucket, concurrency);
+        }
+
+        private Uni<List<String>> boundaries() {
+            if (boundaryMode == S3ConnectorConfig.KeyRangeBoundaries.LEXICOGRAPHIC) {
+                return Uni.createFrom().item(KeyOrder.lexicographicBoundaries(prefix, alphabet, initialRanges));
+            }
+            return sampledBoundaries();
+        }
+
+        /**
+         * Probes the first key after each candidate boundary, keeps only the cells
+         * between candidates that actually hold keys, and groups those occupied
+         * cells evenly into the wanted number of ranges.
+         */
+        private Uni<List<String>> sampledBoundaries() {
+            List<String> candidates = KeyOrder.lexicographicBoundaries(prefix, alphabet,
+                initialRanges * SAMPLES_PER_RANGE);
+            List<Uni<Optional<String>>> probes = new ArrayList<>();
+            probes.add(firstKeyAfter(null));
+            for (String candidate : candidates) {
+                probes.add(firstKeyAfter(candidate));
+            }
+
+            return Uni.join().all(probes).andFailFast()
+                .map(firstKeys -> {
+                    // Cell i is (candidates[i-1], candidates[i]]; the last cell is open-ended.
+                    List<Integer> occupied = new ArrayList<>();
+                    for (int cell = 0; cell <= candidates.size(); cell++) {
+                        Optional<String> first = firstKeys.get(cell);
+                        if (first.isPresent()
+                            && (cell == candidates.size() || KeyOrder.compare(first.get(), candidates.get(cell)) <= 0)) {
+                            occupied.add(cell);
+                        }
+                    }
+
+                    List<String> boundaries = new ArrayList<>();
+                    int groups = Math.min(initialRanges, occupied.size());
+                    for (int g = 1; g < groups; g++) {
+                        int cell = occupied.get(g * occupied.size() / groups - 1);
+                        if (cell < candidates.size()) {
+                            boundaries.add(candidates.get(cell));
+                        }
+                    }
+                    LOG.debugf("Key-range sampling: bucket=%s, prefix=%s, %d/%d cell(s) occupied, %d range(s)",
+                        bucket, prefix, occupied.size(), candidates.size() + 1, boundaries.size() + 1);
+                    return boundaries;
+                });
+        }
+
+        private Uni<Optional<String>> firstKeyAfter(String startAfter) {
+            ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .maxKeys(1);
+            if (startAfter != null) {
+                request.startAfter(startAfter);
+            }
+            return listPermits.withPermit(() -> Uni.createFrom().completionStage(() -> client.listObjectsV2(request.build())))
+                .map(page -> page.contents().isEmpty()
+                    ? Optional.<String>empty()
+                    : Optional.of(page.contents().get(0).key()));
+        }
+
+        private Multi<ListedPage> listAll(List<ListingShard> shards) {
+            List<KeyRange> ranges = shards.stream()
+                .map(shard -> new KeyRange(shard.id(), shard.lower(), shard.upper()))
+                .toList();
+            rangeCount.set(ranges.size());
+            return listRanges(ranges);
+        }
+
+        private Multi<ListedPage> listRanges(List<KeyRange> ranges) {
+            return Multi.createFrom().iterable(ranges)
+                .onItem().transformToMulti(this::listRange)
+                .merge(concurrency);
+        }
+
+        private Multi<ListedPage> listRange(KeyRange range) {
+            return Multi.createFrom().deferred(() -> {
+                RangeCursor cursor = new RangeCursor(range);
+                return Multi.createBy().repeating()
+                    .uni(() -> cursor,
+                        c -> listPermits.withPermit(() -> Uni.createFrom().completionStage(() -> client.listObjectsV2(c.nextRequest())))
+                            .map(c::advance))
+                    .whilst(page -> !cursor.done)
+                    .onCompletion().switchTo(() -> cursor.remainder == null
+                        ? Multi.createFrom().<ListedPage>empty()
+                        : listRanges(cursor.remainder));
+            });
+        }
+
+        /**
+         * A range that has listed {@code pages} pages is re-split when it is past the
+         * minimum, the range cap allows it, and it is more than twice as dense as the
+         * average range that has already finished.
+         */
+        private boolean shouldSplit(int pages) {
+            int completed = completedRanges.get();
+            if (pages < splitPages || completed == 0 || rangeCount.get() >= maxRanges) {
+                return false;
+            }
+            double average = (double) completedPages.get() / completed;
+            return pages > 2 * Math.max(1.0, average);
+        }
+
+        /**
+         * Listing position inside one range. Used by one repeating stream, one page at a time.
+         */
+        private final class RangeCursor {
+            private final KeyRange range;
+            private String startAfter;
+            private int pages;
+            private boolean done;
+            private List<KeyRange> remainder;
+
+            private RangeCursor(KeyRange range) {
+                this.range = range;
+                this.startAfter = range.lower();
+            }
+
+            private ListObjectsV2Request nextRequest() {
+                ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                    .bucket(bucket)
+                    .maxKeys(maxKeys)
+                    .prefix(prefix);
+                if (startAfter != null) {
+                    request.startAfter(startAfter);
+                }
+                return request.build();
+            }
+
+            private ListedPage advance(ListObjectsV2Response page) {
+                pages++;
+                String after = startAfter;
+                List<S3Object> contents = page.contents();
+                List<S3Object> inRange = contents;
+                boolean reachedUpper = false;
+                if (range.upper() != null) {
+                    // Keys arrive sorted, so only the tail of the page can spill past the upper bound.
+                    int end = contents.size();
+                    while (end > 0 && KeyOrder.compare(contents.get(end - 1).key(), range.upper()) > 0) {
+                        end--;
+                    }
+                    reachedUpper = end < contents.size()
+                        || (end > 0 && contents.get(end - 1).key().equals(range.upper()));
+                    inRange = contents.subList(0, end);
+                }
+
+                if (reachedUpper || contents.isEmpty() || !Boolean.TRUE.equals(page.isTruncated())) {
+                    done = true;
+                    completedRanges.incrementAndGet();
+                    completedPages.addAndGet(pages);
+                    return new ListedPage(range.shard(), after, range.upper(), null, inRange);
+                }
+
+                startAfter = contents.get(contents.size() - 1).key();
+                if (shouldSplit(pages)) {
+                    String midpoint = midpoint(startAfter, range.upper());
+                    if (midpoint != null) {
+                        LOG.debugf("Key-range re-split: bucket=%s, range=(%s, %s] after %d page(s) at %s",
+                            bucket, startAfter, range.upper(), pages, midpoint);
+                        rangeCount.incrementAndGet();
+                        remainder = List.of(new KeyRange(range.shard(), startAfter, midpoint),
+                            new KeyRange(range.shard(), midpoint, range.upper()));
+                        done = true;
+                    }
+                }
+                return new ListedPage(range.shard(), after, startAfter, null, inRange);
+            }
+
+            /**
+             * Midpoint of the part of the keys after the crawl prefix, so an open-ended
+             * range is split inside the prefix rather than past it.
+             */
+            private String midpoint(String lower, String upper) {
+                String base = prefix != null && lower.startsWith(prefix)
+                    && (upper == null || upper.startsWith(prefix)) ? prefix : "";
+                String mid = KeyOrder.midpoint(lower.substring(base.length()),
+                    upper == null ? null : upper.substring(base.length()));
+                return mid == null ? null : base + mid;
+            }
+        }
+    }
+}
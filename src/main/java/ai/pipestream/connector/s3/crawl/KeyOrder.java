@@ -0,0 +1,138 @@
+package ai.pipestream.connector.s3.crawl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Key ordering helpers matching S3's listing order.
+ * <p>
+ * S3 lists keys in UTF-8 binary order, which is the same as Unicode code point
+ * order. {@link String#compareTo(String)} compares UTF-16 code units instead and
+ * disagrees for supplementary characters, so range boundaries are compared and
+ * derived here by code point.
+ * </p>
+ */
+public final class KeyOrder {
+
+    /** Lowest code point used when inventing a boundary below an existing key. */
+    private static final int FLOOR = 0x20;
+
+    /** Exclusive ceiling used when a range is open-ended (printable ASCII). */
+    private static final int CEILING = 0x7F;
+
+    private KeyOrder() {
+    }
+
+    /**
+     * Compares two keys in S3 listing order.
+     *
+     * @param a first key
+     * @param b second key
+     * @return negative, zero or positive as {@code a} sorts before, with or after {@code b}
+     */
+    public static int compare(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * Finds a key strictly between {@code lower} and {@code upper}.
+     *
+     * @param lower exclusive lower bound
+     * @param upper exclusive upper bound, or {@code null} for an open-ended range
+     * @return a key {@code m} with {@code lower < m < upper}, or {@code null} when
+     *         the two bounds are adjacent and no such key can be formed
+     */
+    public static String midpoint(String lower, String upper) {
+        int[] lo = lower.codePoints().toArray();
+        int[] hi = upper == null ? null : upper.codePoints().toArray();
+        StringBuilder mid = new StringBuilder();
+        boolean open = hi == null;
+        for (int i = 0; ; i++) {
+            int cl = i < lo.length ? lo[i] : -1;
+            int ch;
+            if (open) {
+                ch = CEILING;
+            } else if (i < hi.length) {
+                ch = hi[i];
+            } else {
+                // upper is a prefix of lower, so lower >= upper: nothing in between.
+                return null;
+            }
+            if (cl == ch) {
+                mid.appendCodePoint(cl);
+                continue;
+            }
+            int low = cl < 0 ? FLOOR - 1 : cl;
+            if (ch - low >= 2) {
+                return mid.appendCodePoint((low + ch) >>> 1).toString();
+            }
+            if (cl < 0 || cl > ch) {
+                return null;
+            }
+            // Adjacent code points: keep lower's and look for room further right,
+            // where upper no longer constrains the result.
+            mid.appendCodePoint(cl);
+            open = true;
+        }
+    }
+
+    /**
+     * Derives evenly spaced boundaries that split the keys under {@code prefix}
+     * into {@code ranges} lexicographic ranges, using the characters of
+     * {@code alphabet} as the expected first characters after the prefix.
+     *
+     * @param prefix   key prefix shared by every boundary (may be {@code null})
+     * @param alphabet characters keys are expected to start with
+     * @param ranges   number of ranges wanted
+     * @return {@code ranges - 1} strictly increasing boundaries (fewer if the alphabet is too small)
+     */
+    public static List<String> lexicographicBoundaries(String prefix, String alphabet, int ranges) {
+        int[] symbols = alphabet.codePoints().distinct().sorted().toArray();
+        List<String> boundaries = new ArrayList<>();
+        if (ranges <= 1 || symbols.length == 0) {
+            return boundaries;
+        }
+        String base = prefix == null ? "" : prefix;
+        int width = 1;
+        long cells = symbols.length;
+        while (cells < ranges && width < 4) {
+            width++;
+            cells *= symbols.length;
+        }
+        long previous = -1;
+        for (int r = 1; r < ranges; r++) {
+            long index = r * cells / ranges;
+            if (index == previous || index >= cells) {
+                continue;
+            }
+            previous = index;
+            boundaries.add(base + encode(index, width, symbols));
+        }
+        return boundaries;
+    }
+
+    private static String encode(long index, int width, int[] symbols) {
+        int[] digits = new int[width];
+        long rest = index;
+        for (int i = width - 1; i >= 0; i--) {
+            digits[i] = symbols[(int) (rest % symbols.length)];
+            rest /= symbols.length;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int digit : digits) {
+            sb.appendCodePoint(digit);
+        }
+        return sb.toString();
+    }
+}
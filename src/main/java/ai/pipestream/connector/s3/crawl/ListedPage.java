@@ -0,0 +1,45 @@
+package ai.pipestream.connector.s3.crawl;
+
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.List;
+
+/**
+ * One listing page together with the part of its shard's keyspace it covers.
+ * <p>
+ * The page accounts for every key in {@code (after, through]}: the objects it
+ * holds are all the keys there are in that interval. Consecutive pages of a shard
+ * chain up ({@code through} of one is {@code after} of the next), so once every
+ * page up to some point has been published, its {@code through} is a safe place
+ * to resume from. The last page of a shard has {@code through} equal to the
+ * shard's upper bound, {@code null} for an open shard.
+ * </p>
+ *
+ * @param shard             shard the page was listed for, or {@code null} when the
+ *                          listing is not checkpointed
+ * @param after             exclusive start of the covered keys, {@code null} at the start of the keyspace
+ * @param through           inclusive end of the covered keys, {@code null} at the end of the keyspace
+ * @param continuationToken token for the next page of a sequential listing, if any
+ * @param objects           objects listed in the interval, in key order
+ */
+public record ListedPage(String shard, String after, String through, String continuationToken,
+                         List<S3Object> objects) {
+
+    /**
+     * Wraps objects from a listing that has no checkpointable order.
+     *
+     * @param objects listed objects
+     * @return a page without a shard
+     */
+    public static ListedPage unsharded(List<S3Object> objects) {
+        return new ListedPage(null, null, null, null, objects);
+    }
+
+    /**
+     * @param filtered the objects of this page that are to be published
+     * @return the same interval with only {@code filtered} to publish
+     */
+    public ListedPage withObjects(List<S3Object> filtered) {
+        return new ListedPage(shard, after, through, continuationToken, filtered);
+    }
+}
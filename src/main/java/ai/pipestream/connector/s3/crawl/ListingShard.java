@@ -0,0 +1,36 @@
+package ai.pipestream.connector.s3.crawl;
+
+/**
+ * A part of a crawl's keyspace that is listed, and checkpointed, on its own:
+ * the keys {@code (lower, upper]} under the crawl prefix. A {@code null} bound is open.
+ * <p>
+ * A resumed shard has its checkpoint as {@code lower}, so listing continues with
+ * {@code StartAfter} set to the last key that was fully published.
+ * </p>
+ *
+ * @param id    shard identifier, stable for the lifetime of a crawl run
+ * @param lower exclusive lower bound, or {@code null} from the start of the keyspace
+ * @param upper inclusive upper bound, or {@code null} to the end of the keyspace
+ */
+public record ListingShard(String id, String lower, String upper) {
+
+    /**
+     * Shard id of a sequential crawl, which lists the whole keyspace as one shard.
+     */
+    public static final String WHOLE_KEYSPACE = "all";
+
+    /**
+     * @return the single shard of a sequential crawl
+     */
+    public static ListingShard wholeKeyspace() {
+        return new ListingShard(WHOLE_KEYSPACE, null, null);
+    }
+
+    /**
+     * @param lastKey last fully published key
+     * @return this shard, continuing after {@code lastKey}
+     */
+    public ListingShard resumeAfter(String lastKey) {
+        return new ListingShard(id, lastKey, upper);
+    }
+}
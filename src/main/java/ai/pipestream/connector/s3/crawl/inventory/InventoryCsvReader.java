@@ -0,0 +1,224 @@
+package ai.pipestream.connector.s3.crawl.inventory;
+
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the objects of one gzip-compressed S3 Inventory CSV data file, a
+ * chunk at a time.
+ * <p>
+ * Data files have no header; columns are located by the manifest's
+ * {@code fileSchema}. Keys are URL-encoded in the report and decoded here. Rows
+ * for noncurrent versions ({@code IsLatest=false}) and delete markers are
+ * skipped, as are keys outside the crawled prefix, so the objects match what
+ * ListObjectsV2 would have returned. ETags are quoted the way ListObjectsV2
+ * returns them, so incremental crawls compare them against the same form.
+ * </p>
+ */
+public final class InventoryCsvReader implements Closeable {
+
+    private final BufferedReader in;
+    private final String prefix;
+    private final int key;
+    private final int size;
+    private final int lastModified;
+    private final int eTag;
+    private final int storageClass;
+    private final int isLatest;
+    private final int isDeleteMarker;
+    private long line;
+
+    /**
+     * Reads a gzip-compressed data file from a stream.
+     *
+     * @param gzipped the compressed data file
+     * @param columns data file columns from the manifest
+     * @param prefix  crawled prefix; rows for other keys are skipped (may be {@code null})
+     * @throws IOException if the stream is not gzip or the columns have no {@code Key}
+     */
+    public InventoryCsvReader(InputStream gzipped, List<String> columns, String prefix) throws IOException {
+        this.key = columns.indexOf("Key");
+        if (key < 0) {
+            gzipped.close();
+            throw new IOException("Inventory fileSchema has no Key column: " + columns);
+        }
+        this.size = columns.indexOf("Size");
+        this.lastModified = columns.indexOf("LastModifiedDate");
+        this.eTag = columns.indexOf("ETag");
+        this.storageClass = columns.indexOf("StorageClass");
+        this.isLatest = columns.indexOf("IsLatest");
+        this.isDeleteMarker = columns.indexOf("IsDeleteMarker");
+        this.prefix = prefix == null ? "" : prefix;
+        GZIPInputStream uncompressed;
+        try {
+            uncompressed = new GZIPInputStream(gzipped, 64 * 1024);
+        } catch (IOException e) {
+            gzipped.close();
+            throw e;
+        }
+        this.in = new BufferedReader(new InputStreamReader(uncompressed, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Opens a downloaded data file after checking it against the manifest's MD5.
+     *
+     * @param file        the compressed data file
+     * @param columns     data file columns from the manifest
+     * @param prefix      crawled prefix (may be {@code null})
+     * @param md5Checksum expected hex MD5 of the file, or {@code null} to skip the check
+     * @return a reader positioned at the first row
+     * @throws IOException if the file cannot be read or does not match its checksum
+     */
+    public static InventoryCsvReader open(Path file, List<String> columns, String prefix, String md5Checksum)
+            throws IOException {
+        if (md5Checksum != null && !md5Checksum.isBlank()) {
+            String actual = md5(file);
+            if (!actual.equalsIgnoreCase(md5Checksum)) {
+                throw new IOException("Inventory data file " + file + " has MD5 " + actual
+                    + ", manifest says " + md5Checksum);
+            }
+        }
+        return new InventoryCsvReader(Files.newInputStream(file), columns, prefix);
+    }
+
+    /**
+     * Reads up to {@code max} objects.
+     *
+     * @param max maximum objects to return
+     * @return the next objects, empty at the end of the file
+     * @throws IOException if the file cannot be read or a row is malformed
+     */
+    public List<S3Object> next(int max) throws IOException {
+        List<S3Object> objects = new ArrayList<>(Math.min(max, 1024));
+        String row;
+        while (objects.size() < max && (row = in.readLine()) != null) {
+            line++;
+            if (row.isEmpty()) {
+                continue;
+            }
+            S3Object object = toObject(parse(row));
+            if (object != null) {
+                objects.add(object);
+            }
+        }
+        return objects;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private S3Object toObject(List<String> fields) throws IOException {
+        if (key >= fields.size()) {
+            throw new IOException("Inventory row " + line + " has " + fields.size() + " column(s), no Key");
+        }
+        if ("false".equalsIgnoreCase(field(fields, isLatest)) || "true".equalsIgnoreCase(field(fields, isDeleteMarker))) {
+            return null;
+        }
+        String objectKey = URLDecoder.decode(fields.get(key), StandardCharsets.UTF_8);
+        if (!objectKey.startsWith(prefix)) {
+            return null;
+        }
+        S3Object.Builder object = S3Object.builder().key(objectKey);
+        String value = field(fields, size);
+        if (value != null) {
+            try {
+                object.size(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                throw new IOException("Inventory row " + line + " has an invalid Size: " + value, e);
+            }
+        }
+        value = field(fields, lastModified);
+        if (value != null) {
+            try {
+                object.lastModified(Instant.parse(value));
+            } catch (DateTimeParseException e) {
+                throw new IOException("Inventory row " + line + " has an invalid LastModifiedDate: " + value, e);
+            }
+        }
+        value = field(fields, eTag);
+        if (value != null) {
+            object.eTag(value.startsWith("\"") ? value : "\"" + value + "\"");
+        }
+        value = field(fields, storageClass);
+        if (value != null) {
+            object.storageClass(value);
+        }
+        return object.build();
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits one CSV row; fields may be quoted, with {@code ""} for a quote inside.
+     */
+    private List<String> parse(String row) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Inventory row " + line + " has an unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String md5(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 unavailable", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,315 @@
+package ai.pipestream.connector.s3.crawl.inventory;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.core.FileTransformerConfiguration;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Lists a bucket from its S3 Inventory report instead of ListObjectsV2.
+ * <p>
+ * For buckets with hundreds of millions of keys, the daily or weekly inventory
+ * S3 already writes is far cheaper to read than a full listing. The report's
+ * {@code manifest.json} names the data files; they are downloaded and parsed
+ * {@code listing-concurrency} at a time, each checked against the manifest's MD5
+ * before any of its rows is emitted, and streamed as object batches of
+ * {@code max-keys-per-request} like listing pages. Objects come in no particular
+ * order across files, so inventory crawls are not checkpointed.
+ * </p>
+ * <p>
+ * Inventory reports are per source bucket, while the configured location is
+ * shared by every crawl: a {@code {bucket}} placeholder in it is replaced with
+ * the crawled bucket. {@link #findReport} yields nothing when no usable report
+ * exists for a bucket (none under the location, one for another bucket, or one
+ * that is not CSV), and crawls then list that bucket with ListObjectsV2.
+ * </p>
+ * <p>
+ * Only CSV reports are read; ORC and Parquet would need the Hadoop-based
+ * readers, which this connector does not ship.
+ * </p>
+ */
+@ApplicationScoped
+public class InventoryLister {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public InventoryLister() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(InventoryLister.class);
+
+    private static final String MANIFEST = "manifest.json";
+
+    /** Stands for the crawled bucket in the configured manifest location. */
+    private static final String BUCKET_PLACEHOLDER = "{bucket}";
+
+    /**
+     * Report directories under an inventory configuration, e.g. {@code 2024-05-01T01-00Z/}.
+     */
+    private static final Pattern REPORT_DIRECTORY = Pattern.compile("\\d{4}-\\d{2}-\\d{2}T\\d{2}-\\d{2}Z/");
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Lists a bucket from an inventory report.
+     *
+     * @param client           S3 client for the datasource; also used to read the report
+     * @param bucket           crawled bucket; must be the report's source bucket
+     * @param prefix           crawled prefix (may be {@code null} for the whole bucket)
+     * @param manifestLocation {@code s3://} URI of a {@code manifest.json}, or of an inventory
+     *                         destination prefix to use its newest report; {@code null} fails the listing
+     * @return batches of current objects, in no particular order; a failure with
+     *         {@link IllegalArgumentException} if the report cannot be used for this bucket
+     */
+    public Multi<List<S3Object>> list(S3AsyncClient client, String bucket, String prefix, String manifestLocation) {
+        return findReport(client, bucket, manifestLocation)
+            .onItem().ifNull().failWith(() -> new IllegalArgumentException(
+                "No usable inventory report for bucket " + bucket + " at " + manifestLocation))
+            .onItem().transformToMulti(report -> list(client, report, prefix));
+    }
+
+    /**
+     * Lists a bucket from a report found with {@link #findReport}.
+     *
+     * @param client S3 client for the datasource; also used to read the report
+     * @param report the bucket's inventory report
+     * @param prefix crawled prefix (may be {@code null} for the whole bucket)
+     * @return batches of current objects, in no particular order
+     */
+    public Multi<List<S3Object>> list(S3AsyncClient client, Report report, String prefix) {
+        int concurrency = Math.max(1, config.initialCrawl().listingConcurrency());
+        int chunkSize = config.initialCrawl().maxKeysPerRequest();
+        InventoryManifest manifest = report.manifest;
+        List<String> columns = manifest.columns();
+        LOG.infof("Inventory listing: bucket=%s, prefix=%s, manifest=%s, %d data file(s)",
+            manifest.sourceBucket(), prefix, report.location, manifest.files().size());
+        return Multi.createFrom().iterable(manifest.files())
+            .onItem().transformToMulti(file ->
+                readDataFile(client, report.location.bucket(), file, columns, prefix, chunkSize))
+            .merge(concurrency);
+    }
+
+    /**
+     * Finds the inventory report to list a bucket from.
+     *
+     * @param client           S3 client for the datasource; also used to read the report
+     * @param bucket           crawled bucket
+     * @param manifestLocation {@code s3://} URI of a {@code manifest.json}, or of an inventory
+     *                         destination prefix to use its newest report; {@code {bucket}} in it
+     *                         stands for {@code bucket}
+     * @return the report, or {@code null} if there is no usable report for {@code bucket}; a
+     *         failure with {@link IllegalArgumentException} if the location is missing or invalid
+     */
+    public Uni<Report> findReport(S3AsyncClient client, String bucket, String manifestLocation) {
+        return Uni.createFrom().item(() -> Location.parse(manifestLocation, bucket))
+            .flatMap(location -> location.key().endsWith(MANIFEST)
+                ? Uni.createFrom().item(location)
+                : latestManifest(client, location))
+            .flatMap(location -> location == null
+                ? Uni.createFrom().<Report>nullItem()
+                : readManifest(client, location)
+                    .map(manifest -> manifest == null || !usable(manifest, location, bucket)
+                        ? null
+                        : new Report(location, manifest)));
+    }
+
+    private static boolean usable(InventoryManifest manifest, Location location, String bucket) {
+        if (!manifest.isCsv()) {
+            LOG.warnf("Inventory report %s is %s; only CSV inventory reports are supported",
+                location, manifest.fileFormat());
+            return false;
+        }
+        if (manifest.sourceBucket() != null && !manifest.sourceBucket().equals(bucket)) {
+            LOG.warnf("Inventory report %s lists bucket %s, not %s", location, manifest.sourceBucket(), bucket);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the newest {@code <timestamp>/manifest.json} under an inventory destination
+     * prefix; emits {@code null} if there is none.
+     */
+    private Uni<Location> latestManifest(S3AsyncClient client, Location root) {
+        String prefix = root.key().isEmpty() || root.key().endsWith("/") ? root.key() : root.key() + "/";
+        ListObjectsV2Request first = ListObjectsV2Request.builder()
+            .bucket(root.bucket())
+            .prefix(prefix)
+            .delimiter("/")
+            .build();
+        return Multi.createBy().repeating()
+            .uni(() -> new AtomicReference<ListObjectsV2Request>(first),
+                next -> Uni.createFrom().completionStage(() -> client.listObjectsV2(next.get()))
+                    .invoke(page -> next.set(next.get().toBuilder()
+                        .continuationToken(page.nextContinuationToken())
+                        .build())))
+            .whilst(page -> Boolean.TRUE.equals(page.isTruncated()))
+            .onItem().transformToIterable(ListObjectsV2Response::commonPrefixes)
+            .map(CommonPrefix::prefix)
+            .filter(directory -> REPORT_DIRECTORY.matcher(directory.substring(prefix.length())).matches())
+            .collect().with(Collectors.maxBy(Comparator.<String>naturalOrder()))
+            .map(latest -> {
+                if (latest.isEmpty()) {
+                    LOG.warnf("No inventory report found under %s", root);
+                    return null;
+                }
+                return new Location(root.bucket(), latest.get() + MANIFEST);
+            });
+    }
+
+    /**
+     * Reads a manifest; emits {@code null} if there is no such object.
+     */
+    private Uni<InventoryManifest> readManifest(S3AsyncClient client, Location location) {
+        GetObjectRequest request = GetObjectRequest.builder().bucket(location.bucket()).key(location.key()).build();
+        return Uni.createFrom().completionStage(() -> client.getObject(request, AsyncResponseTransformer.toBytes()))
+            .map(bytes -> {
+                try {
+                    return InventoryManifest.parse(objectMapper, bytes.asByteArray());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Invalid inventory manifest " + location + ": " + e.getMessage(), e);
+                }
+            })
+            .onFailure(InventoryLister::isNotFound).recoverWithItem(() -> {
+                LOG.warnf("No inventory manifest at %s", location);
+                return null;
+            });
+    }
+
+    /**
+     * Downloads one data file to a temporary file and streams its objects; the
+     * file is deleted once the stream ends, fails or is cancelled.
+     */
+    private Multi<List<S3Object>> readDataFile(S3AsyncClient client, String bucket, InventoryManifest.DataFile file,
+                                               List<String> columns, String prefix, int chunkSize) {
+        return blocking(() -> Files.createTempFile("s3-inventory-", ".csv.gz"))
+            .onItem().transformToMulti(tempFile -> Multi.createFrom().resource(
+                    () -> tempFile,
+                    path -> download(client, bucket, file.key(), path)
+                        .flatMap(v -> blocking(() -> InventoryCsvReader.open(path, columns, prefix, file.md5Checksum())))
+                        .onItem().transformToMulti(reader -> Multi.createFrom().resource(
+                                () -> reader,
+                                r -> Multi.createBy().repeating()
+                                    .uni(() -> blocking(() -> r.next(chunkSize)))
+                                    .until(List::isEmpty))
+                            .withFinalizer(r -> {
+                                try {
+                                    r.close();
+                                } catch (IOException e) {
+                                    LOG.debugf(e, "Failed to close inventory data file %s", path);
+                                }
+                            })))
+                .withFinalizer(path -> {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        LOG.warnf(e, "Failed to delete downloaded inventory data file %s", path);
+                    }
+                }));
+    }
+
+    private Uni<Void> download(S3AsyncClient client, String bucket, String key, Path target) {
+        GetObjectRequest request = GetObjectRequest.builder().bucket(bucket).key(key).build();
+        return Uni.createFrom().completionStage(() -> client.getObject(request,
+                AsyncResponseTransformer.toFile(target, FileTransformerConfiguration.defaultCreateOrReplaceExisting())))
+            .invoke(response -> LOG.debugf("Downloaded inventory data file s3://%s/%s (%d bytes)",
+                bucket, key, response.contentLength()))
+            .replaceWithVoid();
+    }
+
+    private static <T> Uni<T> blocking(IoSupplier<T> action) {
+        return Uni.createFrom().item(() -> {
+                try {
+                    return action.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    private static boolean isNotFound(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof S3Exception s3 && s3.statusCode() == 404) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    /**
+     * An inventory report usable for one bucket: its manifest and where it was read from.
+     */
+    public static final class Report {
+
+        private final Location location;
+        private final InventoryManifest manifest;
+
+        private Report(Location location, InventoryManifest manifest) {
+            this.location = location;
+            this.manifest = manifest;
+        }
+
+        @Override
+        public String toString() {
+            return location.toString();
+        }
+    }
+
+    /**
+     * A bucket and key parsed from an {@code s3://bucket/key} URI.
+     */
+    private record Location(String bucket, String key) {
+
+        static Location parse(String template, String bucket) {
+            String uri = template == null ? null : template.replace(BUCKET_PLACEHOLDER, bucket);
+            if (uri == null) {
+                throw new IllegalArgumentException("s3.connector.initial-crawl.inventory-manifest is required for inventory listing");
+            }
+            if (!uri.startsWith("s3://") || uri.length() == "s3://".length()) {
+                throw new IllegalArgumentException("Inventory manifest must be an s3://bucket/key URI, got: " + uri);
+            }
+            String path = uri.substring("s3://".length());
+            int slash = path.indexOf('/');
+            return slash < 0 ? new Location(path, "") : new Location(path.substring(0, slash), path.substring(slash + 1));
+        }
+
+        @Override
+        public String toString() {
+            return "s3://" + bucket + "/" + key;
+        }
+    }
+}
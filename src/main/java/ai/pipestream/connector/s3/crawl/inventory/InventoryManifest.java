@@ -0,0 +1,74 @@
+package ai.pipestream.connector.s3.crawl.inventory;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code manifest.json} of one S3 Inventory report: which bucket it
+ * describes, the format and columns of its data files, and where they are.
+ *
+ * @param sourceBucket      bucket the inventory lists
+ * @param destinationBucket ARN of the bucket the report was delivered to
+ * @param fileFormat        {@code CSV}, {@code ORC} or {@code Parquet}
+ * @param fileSchema        comma-separated column names of the data files
+ * @param files             the report's data files
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record InventoryManifest(String sourceBucket, String destinationBucket, String fileFormat,
+                                String fileSchema, List<DataFile> files) {
+
+    /**
+     * Normalizes a missing file list to an empty one.
+     */
+    public InventoryManifest {
+        files = files == null ? List.of() : List.copyOf(files);
+    }
+
+    /**
+     * Parses a manifest.
+     *
+     * @param objectMapper JSON mapper
+     * @param json         the manifest document
+     * @return the parsed manifest
+     * @throws IOException if the document is not a valid manifest
+     */
+    public static InventoryManifest parse(ObjectMapper objectMapper, byte[] json) throws IOException {
+        InventoryManifest manifest = objectMapper.readValue(json, InventoryManifest.class);
+        if (manifest.fileFormat() == null || manifest.fileSchema() == null) {
+            throw new IOException("Inventory manifest has no fileFormat or fileSchema");
+        }
+        return manifest;
+    }
+
+    /**
+     * @return whether the data files are gzip-compressed CSV
+     */
+    public boolean isCsv() {
+        return "CSV".equalsIgnoreCase(fileFormat);
+    }
+
+    /**
+     * @return the data file columns, in order
+     */
+    public List<String> columns() {
+        return Arrays.stream(fileSchema.split(","))
+            .map(String::trim)
+            .toList();
+    }
+
+    /**
+     * One data file of the report.
+     *
+     * @param key         object key of the file in the destination bucket
+     * @param size        compressed size in bytes
+     * @param md5Checksum hex MD5 of the compressed file
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record DataFile(String key, long size, @JsonProperty("MD5checksum") String md5Checksum) {
+    }
+}
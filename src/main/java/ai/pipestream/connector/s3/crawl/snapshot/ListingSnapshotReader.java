@@ -0,0 +1,130 @@
+package ai.pipestream.connector.s3.crawl.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams a listing snapshot written by {@link ListingSnapshotWriter}, one entry
+ * at a time, with a single entry of look-ahead.
+ */
+public final class ListingSnapshotReader implements Closeable {
+
+    private final DataInputStream in;
+    private byte[] key = new byte[0];
+    private SnapshotEntry next;
+    private boolean finished;
+
+    private ListingSnapshotReader(DataInputStream in) {
+        this.in = in;
+        this.finished = in == null;
+    }
+
+    /**
+     * Opens a snapshot file and checks its header.
+     *
+     * @param file snapshot file
+     * @return a reader positioned before the first entry
+     * @throws IOException if the file cannot be read or is not a listing snapshot
+     */
+    public static ListingSnapshotReader open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new GZIPInputStream(Files.newInputStream(file), 64 * 1024), 64 * 1024));
+        try {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != ListingSnapshotWriter.MAGIC || version != ListingSnapshotWriter.VERSION) {
+                throw new IOException("Not a version " + ListingSnapshotWriter.VERSION + " listing snapshot: " + file);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new ListingSnapshotReader(in);
+    }
+
+    /**
+     * @return a reader with no entries, standing in for a missing previous snapshot
+     */
+    public static ListingSnapshotReader empty() {
+        return new ListingSnapshotReader(null);
+    }
+
+    /**
+     * Returns the next entry without consuming it.
+     *
+     * @return the next entry, or {@code null} at the end of the snapshot
+     * @throws IOException if the snapshot cannot be read or is truncated
+     */
+    public SnapshotEntry peek() throws IOException {
+        if (next == null && !finished) {
+            next = read();
+        }
+        return next;
+    }
+
+    /**
+     * Returns and consumes the next entry.
+     *
+     * @return the next entry, or {@code null} at the end of the snapshot
+     * @throws IOException if the snapshot cannot be read or is truncated
+     */
+    public SnapshotEntry poll() throws IOException {
+        SnapshotEntry entry = peek();
+        next = null;
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private SnapshotEntry read() throws IOException {
+        try {
+            int shared = (int) readVarLong();
+            int suffix = (int) readVarLong();
+            if (shared == 0 && suffix == 0) {
+                finished = true;
+                return null;
+            }
+            if (shared > key.length) {
+                throw new IOException("Corrupt listing snapshot: shared prefix " + shared + " exceeds previous key");
+            }
+            byte[] current = Arrays.copyOf(key, shared + suffix);
+            in.readFully(current, shared, suffix);
+            key = current;
+
+            byte[] etag = new byte[(int) readVarLong()];
+            in.readFully(etag);
+            long size = readVarLong();
+            long lastModified = readVarLong();
+            return new SnapshotEntry(new String(current, StandardCharsets.UTF_8),
+                new String(etag, StandardCharsets.UTF_8), size, lastModified);
+        } catch (EOFException e) {
+            throw new IOException("Truncated listing snapshot", e);
+        }
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt listing snapshot: varint too long");
+    }
+}
@@ -0,0 +1,215 @@
+package ai.pipestream.connector.s3.crawl.snapshot;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.FileTransformerConfiguration;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the last completed listing of each crawled (datasource, bucket, prefix)
+ * as a compressed snapshot, on local disk or in the crawled bucket itself.
+ * <p>
+ * {@link #open} loads the previous snapshot (an empty one on the first crawl)
+ * and starts a {@link SnapshotDiff} that writes the next one alongside. In
+ * {@code bucket} mode snapshots live under {@code snapshot.key-prefix} in the
+ * crawled bucket. {@link #isSnapshotKey(String)} tells them apart; the event
+ * publisher drops events for them, whichever listing or notification found them,
+ * so the connector never ingests its own snapshots as documents.
+ * </p>
+ * <p>
+ * A {@code local} store is only a baseline for crawls that run where it lives,
+ * so snapshot change detection requires an explicit, persistent
+ * {@code snapshot.directory} for it: a temp directory would leave other replicas,
+ * and this one after a restart, reporting every object as created and no
+ * deletions at all.
+ * </p>
+ */
+@ApplicationScoped
+public class ListingSnapshotStore {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public ListingSnapshotStore() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(ListingSnapshotStore.class);
+
+    @Inject
+    S3ConnectorConfig config;
+
+    void onStart(@Observes StartupEvent event) {
+        S3ConnectorConfig.InitialCrawlConfig initialCrawl = config.initialCrawl();
+        if (initialCrawl.changeDetection() == S3ConnectorConfig.ChangeDetection.SNAPSHOT
+            && initialCrawl.snapshot().store() == S3ConnectorConfig.SnapshotStore.LOCAL
+            && initialCrawl.snapshot().directory().isEmpty()) {
+            throw new IllegalStateException("s3.connector.initial-crawl.snapshot.directory is required for the local "
+                + "snapshot store; point it at persistent storage shared by all replicas, or use snapshot.store=bucket");
+        }
+    }
+
+    /**
+     * Whether a key is one of the connector's own snapshots, written into the
+     * crawled bucket by the {@code bucket} store.
+     *
+     * @param key object key
+     * @return {@code true} if the key lies under {@code snapshot.key-prefix} of the {@code bucket} store
+     */
+    public boolean isSnapshotKey(String key) {
+        S3ConnectorConfig.SnapshotConfig snapshot = config.initialCrawl().snapshot();
+        return snapshot.store() == S3ConnectorConfig.SnapshotStore.BUCKET
+            && key != null && key.startsWith(snapshot.keyPrefix());
+    }
+
+    /**
+     * Opens a snapshot diff for one crawl.
+     *
+     * @param client       S3 client for the datasource
+     * @param datasourceId datasource identifier
+     * @param bucket       crawled bucket
+     * @param prefix       crawled prefix (may be {@code null})
+     * @return a diff over the previous snapshot, writing the next one
+     */
+    public Uni<SnapshotDiff> open(S3AsyncClient client, String datasourceId, String bucket, String prefix) {
+        S3ConnectorConfig.SnapshotConfig snapshot = config.initialCrawl().snapshot();
+        String name = snapshotName(datasourceId, bucket, prefix);
+        int chunkSize = config.initialCrawl().maxKeysPerRequest();
+
+        if (snapshot.store() == S3ConnectorConfig.SnapshotStore.BUCKET) {
+            String key = snapshot.keyPrefix() + name;
+            Predicate<String> ownKeys = this::isSnapshotKey;
+            return blocking(() -> scratchFile(name, ".prev"))
+                .flatMap(download -> downloadPrevious(client, bucket, key, download)
+                    .flatMap(found -> blocking(() -> {
+                        Path nextFile = scratchFile(name, ".next");
+                        ListingSnapshotReader previous = found
+                            ? ListingSnapshotReader.open(download)
+                            : ListingSnapshotReader.empty();
+                        return new SnapshotDiff(name, previous, nextFile, ownKeys, chunkSize,
+                            file -> upload(client, bucket, key, file),
+                            List.of(download, nextFile));
+                    })));
+        }
+
+        return blocking(() -> {
+            Path dir = directory();
+            Path current = dir.resolve(name);
+            Path nextFile = Files.createTempFile(dir, name, ".next");
+            boolean found = Files.exists(current);
+            ListingSnapshotReader previous = found ? ListingSnapshotReader.open(current) : ListingSnapshotReader.empty();
+            LOG.debugf("Listing snapshot %s: previous=%s", current, found ? "found" : "none");
+            return new SnapshotDiff(name, previous, nextFile, key -> false, chunkSize,
+                file -> blocking(() -> {
+                    Files.move(file, current, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return null;
+                }),
+                List.of(nextFile));
+        });
+    }
+
+    /**
+     * Snapshot file name for one crawl scope: a hash of datasource, bucket and prefix.
+     *
+     * @param datasourceId datasource identifier
+     * @param bucket       crawled bucket
+     * @param prefix       crawled prefix (may be {@code null})
+     * @return the snapshot file name
+     */
+    static String snapshotName(String datasourceId, String bucket, String prefix) {
+        String scope = datasourceId + "\n" + bucket + "\n" + (prefix == null ? "" : prefix);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(scope.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash).substring(0, 32) + ".snap.gz";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private Uni<Boolean> downloadPrevious(S3AsyncClient client, String bucket, String key, Path target) {
+        GetObjectRequest request = GetObjectRequest.builder().bucket(bucket).key(key).build();
+        return Uni.createFrom().completionStage(() -> client.getObject(request,
+                AsyncResponseTransformer.toFile(target, FileTransformerConfiguration.defaultCreateOrReplaceExisting())))
+            .replaceWith(Boolean.TRUE)
+            .onFailure(ListingSnapshotStore::isNotFound).recoverWithItem(Boolean.FALSE)
+            .invoke(found -> LOG.debugf("Listing snapshot s3://%s/%s: previous=%s", bucket, key, found ? "found" : "none"));
+    }
+
+    private Uni<Void> upload(S3AsyncClient client, String bucket, String key, Path file) {
+        PutObjectRequest request = PutObjectRequest.builder()
+            .bucket(bucket)
+            .key(key)
+            .contentType("application/gzip")
+            .build();
+        return Uni.createFrom().completionStage(() -> client.putObject(request, AsyncRequestBody.fromFile(file)))
+            .replaceWithVoid();
+    }
+
+    /**
+     * The {@code local} store's directory; {@link #onStart} has made sure it is configured.
+     */
+    private Path directory() throws IOException {
+        Path dir = config.initialCrawl().snapshot().directory()
+            .map(Path::of)
+            .orElseThrow(() -> new IllegalStateException("s3.connector.initial-crawl.snapshot.directory is not set"));
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * A scratch file of the {@code bucket} store, in {@code snapshot.directory} if
+     * set and the system temp directory otherwise.
+     */
+    private Path scratchFile(String name, String suffix) throws IOException {
+        java.util.Optional<String> dir = config.initialCrawl().snapshot().directory();
+        return dir.isPresent()
+            ? Files.createTempFile(Files.createDirectories(Path.of(dir.get())), name, suffix)
+            : Files.createTempFile(name, suffix);
+    }
+
+    private static boolean isNotFound(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof S3Exception s3 && s3.statusCode() == 404) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> Uni<T> blocking(IoSupplier<T> action) {
+        return Uni.createFrom().item(() -> {
+                try {
+                    return action.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+}
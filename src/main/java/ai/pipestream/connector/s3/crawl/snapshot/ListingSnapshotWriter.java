@@ -0,0 +1,106 @@
+package ai.pipestream.connector.s3.crawl.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a listing snapshot: a gzip stream of objects in key order.
+ * <p>
+ * Layout after the {@code S3LS} magic and a format version: one record per object
+ * holding the length of the key prefix shared with the previous key, the rest of
+ * the key, the ETag, the size and the last modified time, with all integers as
+ * unsigned varints. A record with an empty key ends the stream, so a truncated
+ * file is detectable. Sorted keys share long prefixes, which keeps the file small
+ * before gzip even starts.
+ * </p>
+ */
+public final class ListingSnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x53334C53;
+    static final int VERSION = 1;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final DataOutputStream out;
+    private byte[] previousKey = EMPTY;
+    private long count;
+
+    /**
+     * Creates (or truncates) {@code file} and writes the snapshot header.
+     *
+     * @param file target file
+     * @throws IOException if the file cannot be written
+     */
+    public ListingSnapshotWriter(Path file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(
+            new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Appends one object. Keys must be appended in ascending S3 key order.
+     *
+     * @param key                object key (non-empty)
+     * @param etag               object ETag (may be {@code null})
+     * @param size               object size in bytes
+     * @param lastModifiedMillis last modified time in epoch milliseconds, 0 when unknown
+     * @throws IOException if the record cannot be written
+     */
+    public void append(String key, String etag, long size, long lastModifiedMillis) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length == 0) {
+            throw new IllegalArgumentException("snapshot keys must not be empty");
+        }
+        int shared = 0;
+        int limit = Math.min(previousKey.length, keyBytes.length);
+        while (shared < limit && previousKey[shared] == keyBytes[shared]) {
+            shared++;
+        }
+        writeVarLong(shared);
+        writeVarLong(keyBytes.length - shared);
+        out.write(keyBytes, shared, keyBytes.length - shared);
+
+        byte[] etagBytes = etag == null ? EMPTY : etag.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(etagBytes.length);
+        out.write(etagBytes);
+        writeVarLong(Math.max(0, size));
+        writeVarLong(Math.max(0, lastModifiedMillis));
+
+        previousKey = keyBytes;
+        count++;
+    }
+
+    /**
+     * @return number of objects appended so far
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Writes the end-of-snapshot record and closes the file.
+     *
+     * @throws IOException if the file cannot be finished
+     */
+    @Override
+    public void close() throws IOException {
+        writeVarLong(0);
+        writeVarLong(0);
+        out.close();
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+}
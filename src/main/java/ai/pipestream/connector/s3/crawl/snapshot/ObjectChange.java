@@ -0,0 +1,13 @@
+package ai.pipestream.connector.s3.crawl.snapshot;
+
+import ai.pipestream.connector.s3.events.ChangeType;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * A change found by merging a live listing against the previous snapshot.
+ *
+ * @param type   what happened to the object
+ * @param object the object as listed now, or as last recorded for {@link ChangeType#DELETED}
+ */
+public record ObjectChange(ChangeType type, S3Object object) {
+}
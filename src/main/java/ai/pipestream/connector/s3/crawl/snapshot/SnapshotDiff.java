@@ -0,0 +1,236 @@
+package ai.pipestream.connector.s3.crawl.snapshot;
+
+import ai.pipestream.connector.s3.crawl.KeyOrder;
+import ai.pipestream.connector.s3.events.ChangeType;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * One crawl's sorted merge of its live listing against the previous snapshot.
+ * <p>
+ * Both sides are in S3 key order, so a single forward pass over each finds every
+ * change: a key only in the listing is {@link ChangeType#CREATED}, a key in both
+ * with a different ETag or size is {@link ChangeType#MODIFIED}, and a key only in
+ * the snapshot is {@link ChangeType#DELETED}. Every listed object is written to
+ * the next snapshot on the way through. Memory use is one listing page plus one
+ * chunk of changes, however many keys the bucket holds.
+ * </p>
+ * <p>
+ * The next snapshot only replaces the previous one on {@link #commit()}; a crawl
+ * that fails or does not get all of its changes out calls {@link #discard()} so
+ * that the next crawl diffs against the same baseline again.
+ * </p>
+ */
+public final class SnapshotDiff {
+
+    private static final Logger LOG = Logger.getLogger(SnapshotDiff.class);
+
+    private final String name;
+    private final ListingSnapshotReader previous;
+    private final Path nextFile;
+    private final ListingSnapshotWriter next;
+    private final Predicate<String> excluded;
+    private final int chunkSize;
+    private final Function<Path, Uni<Void>> commitAction;
+    private final List<Path> scratchFiles;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private String lastListedKey;
+    private long created;
+    private long modified;
+    private long deleted;
+
+    SnapshotDiff(String name, ListingSnapshotReader previous, Path nextFile, Predicate<String> excluded,
+                 int chunkSize, Function<Path, Uni<Void>> commitAction, List<Path> scratchFiles) throws IOException {
+        this.name = name;
+        this.previous = previous;
+        this.nextFile = nextFile;
+        this.next = new ListingSnapshotWriter(nextFile);
+        this.excluded = excluded;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.commitAction = commitAction;
+        this.scratchFiles = scratchFiles;
+    }
+
+    /**
+     * Merges a key-ordered listing against the previous snapshot.
+     * <p>
+     * Snapshot I/O runs on the worker pool. Pages must arrive in key order, as a
+     * sequential ListObjectsV2 walk delivers them; an out-of-order key fails the
+     * stream rather than producing wrong deletes.
+     * </p>
+     *
+     * @param livePages listing pages in ascending key order
+     * @return batches of changes in key order, at most one chunk each
+     */
+    public Multi<List<ObjectChange>> diff(Multi<List<S3Object>> livePages) {
+        Multi<List<ObjectChange>> listed = livePages
+            .onItem().transformToMultiAndConcatenate(page -> {
+                PageCursor cursor = new PageCursor(page);
+                return chunks(() -> mergeChunk(cursor));
+            });
+        Multi<List<ObjectChange>> remaining = Multi.createFrom().deferred(() -> chunks(this::drainDeletedChunk));
+        return Multi.createBy().concatenating().streams(listed, remaining);
+    }
+
+    /**
+     * Finishes the next snapshot and makes it the baseline for the next crawl.
+     *
+     * @return completion once the snapshot is stored
+     */
+    public Uni<Void> commit() {
+        return Uni.createFrom().item(() -> {
+                finish();
+                return nextFile;
+            })
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+            .flatMap(commitAction)
+            .invoke(() -> LOG.infof("Listing snapshot %s committed: %d object(s); %d created, %d modified, %d deleted",
+                name, next.count(), created, modified, deleted))
+            .eventually(() -> Uni.createFrom().item(() -> {
+                    deleteScratch();
+                    return null;
+                })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool()));
+    }
+
+    /**
+     * Drops the next snapshot, keeping the previous one as the baseline.
+     *
+     * @return completion once scratch files are removed
+     */
+    public Uni<Void> discard() {
+        return Uni.createFrom().item(() -> {
+                finish();
+                deleteScratch();
+                LOG.infof("Listing snapshot %s discarded; the previous snapshot stays the baseline", name);
+                return (Void) null;
+            })
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    private Multi<List<ObjectChange>> chunks(java.util.function.Supplier<List<ObjectChange>> step) {
+        return Multi.createBy().repeating()
+            .uni(() -> Uni.createFrom().item(step).runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+            .until(List::isEmpty);
+    }
+
+    /**
+     * Advances the merge through one page, returning up to one chunk of changes.
+     * An empty result means the page is fully merged.
+     */
+    private List<ObjectChange> mergeChunk(PageCursor cursor) {
+        List<ObjectChange> changes = new ArrayList<>();
+        try {
+            while (changes.size() < chunkSize && cursor.index < cursor.page.size()) {
+                S3Object object = cursor.page.get(cursor.index);
+                if (excluded.test(object.key())) {
+                    cursor.index++;
+                    continue;
+                }
+                if (!cursor.checked) {
+                    if (lastListedKey != null && KeyOrder.compare(object.key(), lastListedKey) <= 0) {
+                        throw new IllegalStateException("Listing is not in key order at '" + object.key()
+                            + "' after '" + lastListedKey + "'; snapshot change detection needs a sequential listing");
+                    }
+                    lastListedKey = object.key();
+                    cursor.checked = true;
+                }
+
+                SnapshotEntry old = previous.peek();
+                if (old != null && KeyOrder.compare(old.key(), object.key()) < 0) {
+                    previous.poll();
+                    changes.add(deletedChange(old));
+                    continue;
+                }
+
+                cursor.index++;
+                cursor.checked = false;
+                long size = object.size() != null ? object.size() : 0L;
+                if (old != null && old.key().equals(object.key())) {
+                    previous.poll();
+                    if (!Objects.equals(old.etag(), Objects.requireNonNullElse(object.eTag(), "")) || old.size() != size) {
+                        modified++;
+                        changes.add(new ObjectChange(ChangeType.MODIFIED, object));
+                    }
+                } else {
+                    created++;
+                    changes.add(new ObjectChange(ChangeType.CREATED, object));
+                }
+                next.append(object.key(), object.eTag(), size,
+                    object.lastModified() != null ? object.lastModified().toEpochMilli() : 0L);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Listing snapshot " + name + " merge failed", e);
+        }
+        return changes;
+    }
+
+    /**
+     * Emits tombstones for snapshot keys past the end of the listing, one chunk at a time.
+     */
+    private List<ObjectChange> drainDeletedChunk() {
+        List<ObjectChange> changes = new ArrayList<>();
+        try {
+            SnapshotEntry old;
+            while (changes.size() < chunkSize && (old = previous.poll()) != null) {
+                changes.add(deletedChange(old));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Listing snapshot " + name + " merge failed", e);
+        }
+        return changes;
+    }
+
+    private ObjectChange deletedChange(SnapshotEntry entry) {
+        deleted++;
+        return new ObjectChange(ChangeType.DELETED, entry.toS3Object());
+    }
+
+    private void finish() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try (previous; next) {
+            // closing both: the writer appends its end-of-snapshot record
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to finish listing snapshot " + name, e);
+        }
+    }
+
+    private void deleteScratch() {
+        for (Path file : scratchFiles) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warnf(e, "Failed to delete listing snapshot scratch file %s", file);
+            }
+        }
+    }
+
+    /**
+     * Position within one listing page.
+     */
+    private static final class PageCursor {
+        private final List<S3Object> page;
+        private int index;
+        private boolean checked;
+
+        private PageCursor(List<S3Object> page) {
+            this.page = page;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ai.pipestream.connector.s3.crawl.snapshot;
+
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Instant;
+
+/**
+ * One object as recorded in a listing snapshot.
+ *
+ * @param key                object key
+ * @param etag               object ETag as listed (may be empty)
+ * @param size               object size in bytes
+ * @param lastModifiedMillis last modified time in epoch milliseconds, 0 when unknown
+ */
+public record SnapshotEntry(String key, String etag, long size, long lastModifiedMillis) {
+
+    /**
+     * Rebuilds the listing entry this snapshot row was written from.
+     *
+     * @return an {@link S3Object} with the recorded key, ETag, size and last modified time
+     */
+    public S3Object toS3Object() {
+        return S3Object.builder()
+            .key(key)
+            .eTag(etag.isEmpty() ? null : etag)
+            .size(size)
+            .lastModified(lastModifiedMillis > 0 ? Instant.ofEpochMilli(lastModifiedMillis) : null)
+            .build();
+    }
+}
@@ -0,0 +1,25 @@
+package ai.pipestream.connector.s3.events;
+
+/**
+ * Kind of change a crawl event reports for its object, when the crawl knows it.
+ * <p>
+ * Carried on the event's source URL as the {@code change} marker. Full crawls
+ * and state-table incremental crawls do not set it; snapshot change detection
+ * sets it on every event.
+ */
+public enum ChangeType {
+    /**
+     * The object did not exist in the previous listing.
+     */
+    CREATED,
+
+    /**
+     * The object's ETag or size differs from the previous listing.
+     */
+    MODIFIED,
+
+    /**
+     * The object was in the previous listing but is gone (a tombstone).
+     */
+    DELETED
+}
@@ -0,0 +1,105 @@
+package ai.pipestream.connector.s3.events;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Derives the Kafka key of a crawl event.
+ * <p>
+ * Kafka orders records per partition, and a key always maps to the same
+ * partition, so a strategy must give every event of one object
+ * ({@code datasource, bucket, key}) the same key. Within that rule it decides how
+ * widely a datasource spreads: one key per datasource serializes it on one
+ * consumer, one key per object lets every consumer in the group work on it.
+ * </p>
+ */
+@FunctionalInterface
+public interface PartitionKeyStrategy {
+
+    /**
+     * Derives the key of an event.
+     *
+     * @param event crawl event with a datasource id
+     * @return the Kafka key
+     */
+    UUID key(S3CrawlEvent event);
+
+    /**
+     * One key per datasource.
+     *
+     * @return the strategy
+     */
+    static PartitionKeyStrategy datasource() {
+        return event -> uuid(event.getDatasourceId());
+    }
+
+    /**
+     * One key per object.
+     *
+     * @return the strategy
+     */
+    static PartitionKeyStrategy object() {
+        return event -> uuid(event.getDatasourceId(), event.getBucket(), event.getKey());
+    }
+
+    /**
+     * One key per leading key prefix.
+     *
+     * @param depth number of leading {@code /}-separated segments of the object key that form the prefix
+     * @return the strategy
+     */
+    static PartitionKeyStrategy prefix(int depth) {
+        int segments = Math.max(1, depth);
+        return event -> uuid(event.getDatasourceId(), event.getBucket(), prefixOf(event.getKey(), segments));
+    }
+
+    /**
+     * A fixed number of keys per datasource, objects assigned by a hash of bucket and key.
+     *
+     * @param shards keys per datasource
+     * @return the strategy
+     */
+    static PartitionKeyStrategy sharded(int shards) {
+        int count = Math.max(1, shards);
+        return event -> {
+            int shard = Math.floorMod((event.getBucket() + "/" + event.getKey()).hashCode(), count);
+            return uuid(event.getDatasourceId(), "#shard", Integer.toString(shard));
+        };
+    }
+
+    /**
+     * Builds the strategy selected by the publish configuration.
+     *
+     * @param publish publish configuration
+     * @return the configured strategy
+     */
+    static PartitionKeyStrategy of(S3ConnectorConfig.PublishConfig publish) {
+        return switch (publish.partitionKey()) {
+            case DATASOURCE -> datasource();
+            case OBJECT -> object();
+            case PREFIX -> prefix(publish.partitionKeyPrefixDepth());
+            case SHARDED -> sharded(publish.partitionKeyShards());
+        };
+    }
+
+    private static String prefixOf(String key, int segments) {
+        int end = -1;
+        for (int i = 0; i < segments; i++) {
+            int next = key.indexOf('/', end + 1);
+            if (next < 0) {
+                // Fewer segments than the depth: the object sits directly in the
+                // prefix, so key it by the part before its name.
+                return end < 0 ? "" : key.substring(0, end + 1);
+            }
+            end = next;
+        }
+        return key.substring(0, end + 1);
+    }
+
+    private static UUID uuid(String... parts) {
+        return UUID.nameUUIDFromBytes(String.join("\u0000", parts).getBytes(StandardCharsets.UTF_8));
+    }
+}
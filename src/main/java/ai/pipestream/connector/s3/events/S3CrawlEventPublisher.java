@@ -2,10 +2,14 @@ package ai.pipestream.connector.s3.events;
 
 import ai.pipestream.apicurio.registry.protobuf.ProtobufChannel;
 import ai.pipestream.apicurio.registry.protobuf.ProtobufEmitter;
+import ai.pipestream.connector.s3.concurrent.AsyncPermits;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.crawl.snapshot.ListingSnapshotStore;
 import ai.pipestream.connector.s3.v1.S3CrawlEvent;
 import ai.pipestream.connector.s3.state.CrawlSource;
 import com.google.protobuf.Timestamp;
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
@@ -13,6 +17,7 @@ import org.jboss.logging.Logger;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HexFormat;
 
@@ -29,6 +34,17 @@ import java.util.HexFormat;
  * Events are published asynchronously using Mutiny's reactive programming model.
  * Each event represents a discovered S3 object that should be processed by the pipeline.
  * </p>
+ * <p>
+ * Crawls publish through {@link #publishInWindow(S3CrawlEvent)}, which holds each send
+ * inside a process-wide in-flight window (a count of outstanding sends and a budget
+ * of their serialized bytes) and retries failed sends with exponential backoff. A
+ * full window delays the caller rather than piling more records onto the producer.
+ * </p>
+ * <p>
+ * Every crawl, listing and notification path publishes through this class, so it
+ * is where events for the connector's own listing snapshots are dropped (see
+ * {@link ListingSnapshotStore#isSnapshotKey(String)}).
+ * </p>
  *
  * <h2>Event ID Generation</h2>
  * <p>
@@ -49,16 +65,40 @@ public class S3CrawlEventPublisher {
 
     private static final Logger LOG = Logger.getLogger(S3CrawlEventPublisher.class);
 
+    /** Source URL marker carrying the {@link ChangeType} of snapshot-diff events. */
+    private static final String CHANGE_MARKER = "change";
+
+    /** Source URL marker carrying the {@link CrawlSource} of every event. */
+    private static final String CRAWL_SOURCE_MARKER = "crawl_source";
+
     @Inject
     @ProtobufChannel("s3-crawl-events-out")
     ProtobufEmitter<S3CrawlEvent> eventEmitter;
 
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    ListingSnapshotStore snapshotStore;
+
+    private AsyncPermits inFlightSends;
+    private AsyncPermits inFlightBytes;
+
+    @PostConstruct
+    void initWindow() {
+        S3ConnectorConfig.PublishConfig publish = config.publish();
+        inFlightSends = new AsyncPermits("publish-sends", Math.max(1, publish.maxInFlight()));
+        inFlightBytes = new AsyncPermits("publish-bytes", Math.max(1, publish.maxInFlightBytes()));
+    }
+
     /**
      * Publishes an S3 crawl event to the configured Kafka topic.
      * <p>
      * The event is serialized using Protocol Buffers and sent asynchronously
-     * to the "s3-crawl-events-out" channel. If publishing fails, the error
-     * is logged but does not throw an exception to avoid interrupting crawl operations.
+     * to the "s3-crawl-events-out" channel. A failed attempt is logged at WARN and
+     * surfaced through the returned Uni, so the caller decides whether to retry and
+     * logs the final failure. An event for one of the connector's own listing
+     * snapshots is not sent.
      * </p>
      *
      * @param event the {@link S3CrawlEvent} protobuf message to publish
@@ -67,17 +107,62 @@ public class S3CrawlEventPublisher {
      * @since 1.0.0
      */
     public Uni<Void> publish(S3CrawlEvent event) {
+        if (isOwnSnapshot(event)) {
+            return Uni.createFrom().voidItem();
+        }
         LOG.debugf("Publishing S3 crawl event: datasourceId=%s, sourceUrl=%s", 
             event.getDatasourceId(), event.getSourceUrl());
         
-        return Uni.createFrom().completionStage(eventEmitter.send(event))
+        return Uni.createFrom().completionStage(() -> eventEmitter.send(event))
             .onFailure().invoke(error -> {
-                LOG.errorf(error, "Error publishing S3 crawl event: datasourceId=%s, sourceUrl=%s",
-                    event.getDatasourceId(), event.getSourceUrl());
+                // Callers retry or report the final failure; one attempt failing is not an error yet.
+                LOG.warnf("Attempt to publish S3 crawl event failed: datasourceId=%s, sourceUrl=%s: %s",
+                    event.getDatasourceId(), event.getSourceUrl(), error.toString());
             })
             .replaceWithVoid();
     }
 
+    /**
+     * Publishes an S3 crawl event inside the shared in-flight window, retrying failed sends.
+     * <p>
+     * The send waits for a slot in the window (one send plus the event's serialized
+     * size in bytes) and keeps it through its retries, so a slow or failing broker
+     * shrinks the rate at which crawls hand over new events. An event whose retries
+     * are exhausted is logged and reported as {@code false}; the returned Uni never fails.
+     * An event for one of the connector's own listing snapshots is not sent and
+     * reported as {@code true}, as there is nothing left to do for it.
+     * </p>
+     *
+     * @param event the {@link S3CrawlEvent} protobuf message to publish
+     * @return a {@link Uni} emitting {@code true} once the event was sent, or
+     *         {@code false} if every attempt failed
+     */
+    public Uni<Boolean> publishInWindow(S3CrawlEvent event) {
+        if (isOwnSnapshot(event)) {
+            return Uni.createFrom().item(Boolean.TRUE);
+        }
+        S3ConnectorConfig.PublishConfig publish = config.publish();
+        long bytes = event.getSerializedSize();
+        return inFlightSends.withPermit(() -> inFlightBytes.withPermits(bytes, () -> publish(event)
+                .onFailure().retry()
+                .withBackOff(Duration.ofMillis(publish.retryInitialBackoffMs()), Duration.ofMillis(publish.retryMaxBackoffMs()))
+                .atMost(Math.max(1, publish.maxRetries()))))
+            .replaceWith(Boolean.TRUE)
+            .onFailure().recoverWithItem(error -> {
+                LOG.errorf(error, "Giving up on S3 crawl event after %d retries: datasourceId=%s, sourceUrl=%s",
+                    publish.maxRetries(), event.getDatasourceId(), event.getSourceUrl());
+                return Boolean.FALSE;
+            });
+    }
+
+    private boolean isOwnSnapshot(S3CrawlEvent event) {
+        if (!snapshotStore.isSnapshotKey(event.getKey())) {
+            return false;
+        }
+        LOG.debugf("Skipping the connector's own listing snapshot: sourceUrl=%s", event.getSourceUrl());
+        return true;
+    }
+
     /**
      * Builds an {@link S3CrawlEvent} protobuf message from S3 object metadata.
      * <p>
@@ -120,6 +205,33 @@ public class S3CrawlEventPublisher {
     public S3CrawlEvent buildEvent(String datasourceId, String bucket, String key,
                                    String versionId, long sizeBytes, String etag, Instant lastModified,
                                    CrawlSource crawlSource, String crawlId) {
+        return buildEvent(datasourceId, bucket, key, versionId, sizeBytes, etag, lastModified,
+            crawlSource, crawlId, null);
+    }
+
+    /**
+     * Builds an {@link S3CrawlEvent} protobuf message that also reports what changed.
+     * <p>
+     * The change is carried as a {@code change} marker on the source URL. A
+     * {@link ChangeType#DELETED} event is a tombstone: it describes the object as
+     * last seen, and there is nothing left to download.
+     * </p>
+     *
+     * @param datasourceId the unique identifier for the datasource
+     * @param bucket the S3 bucket name containing the object
+     * @param key the S3 object key (path within the bucket)
+     * @param versionId the S3 version ID for versioned objects, may be null
+     * @param sizeBytes the size of the object in bytes
+     * @param etag the S3 ETag for the object
+     * @param lastModified the last modified timestamp of the object
+     * @param crawlSource the crawl source classification
+     * @param crawlId the crawl invocation id stamped on the event (may be empty)
+     * @param change the detected change, or {@code null} when the crawl does not know it
+     * @return a fully constructed {@link S3CrawlEvent} protobuf message
+     */
+    public S3CrawlEvent buildEvent(String datasourceId, String bucket, String key,
+                                   String versionId, long sizeBytes, String etag, Instant lastModified,
+                                   CrawlSource crawlSource, String crawlId, ChangeType change) {
         Instant now = Instant.now();
         String eventId = computeEventId(datasourceId, bucket, key, versionId, now);
 
@@ -130,7 +242,10 @@ public class S3CrawlEventPublisher {
         }
 
         CrawlSource resolvedCrawlSource = crawlSource == null ? CrawlSource.INCREMENTAL : crawlSource;
-        sourceUrl = appendSourceMarker(sourceUrl, "crawl_source", resolvedCrawlSource.name().toLowerCase());
+        sourceUrl = appendSourceMarker(sourceUrl, CRAWL_SOURCE_MARKER, resolvedCrawlSource.name().toLowerCase());
+        if (change != null) {
+            sourceUrl = appendSourceMarker(sourceUrl, CHANGE_MARKER, change.name().toLowerCase());
+        }
 
         return S3CrawlEvent.newBuilder()
             .setEventId(eventId)
@@ -147,6 +262,49 @@ public class S3CrawlEventPublisher {
             .build();
     }
 
+    /**
+     * Checks whether an event is a deletion tombstone.
+     *
+     * @param event crawl event
+     * @return {@code true} if the event reports a {@link ChangeType#DELETED} object
+     */
+    public static boolean isTombstone(S3CrawlEvent event) {
+        return ChangeType.DELETED.name().toLowerCase().equals(sourceMarker(event, CHANGE_MARKER));
+    }
+
+    /**
+     * Reads the crawl source an event was published with.
+     *
+     * @param event crawl event
+     * @return the event's {@link CrawlSource}, or {@code null} if it carries none
+     */
+    public static CrawlSource crawlSource(S3CrawlEvent event) {
+        String value = sourceMarker(event, CRAWL_SOURCE_MARKER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return CrawlSource.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String sourceMarker(S3CrawlEvent event, String key) {
+        String sourceUrl = event.getSourceUrl();
+        int query = sourceUrl.indexOf('?');
+        if (query < 0) {
+            return null;
+        }
+        String prefix = key + "=";
+        for (String param : sourceUrl.substring(query + 1).split("&")) {
+            if (param.startsWith(prefix)) {
+                return param.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
     private static String appendSourceMarker(String sourceUrl, String key, String value) {
         if (sourceUrl == null || key == null || key.isBlank() || value == null || value.isBlank()) {
             return sourceUrl;
@@ -1,25 +1,28 @@
 package ai.pipestream.connector.s3.events;
 
 import ai.pipestream.apicurio.registry.protobuf.UuidKeyExtractor;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
 import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 /**
  * Deterministic UUID key extractor for {@link S3CrawlEvent} messages.
  * <p>
- * This extractor generates deterministic UUID keys from the datasource ID to ensure
- * that all events from the same datasource are routed to the same Kafka partition.
- * This enables proper ordering and processing of events within a datasource while
- * allowing parallel processing across different datasources.
+ * This extractor generates deterministic UUID keys so that all events of the same
+ * object are routed to the same Kafka partition and processed in order. How widely
+ * the events of one datasource spread over partitions is decided by the
+ * {@link PartitionKeyStrategy} selected with {@code s3.connector.publish.partition-key}.
  * </p>
  *
  * <h2>Key Generation</h2>
  * <p>
- * The UUID is generated using {@link UUID#nameUUIDFromBytes(byte[])} with the
- * datasource ID as input, ensuring the same datasource always produces the same key.
+ * The UUID is generated using {@link UUID#nameUUIDFromBytes(byte[])}. With the
+ * default {@code datasource} strategy its input is the datasource ID alone, so
+ * the same datasource always produces the same key, as before strategies existed.
  * </p>
  *
  * @since 1.0.0
@@ -33,17 +36,27 @@ public class S3CrawlEventUuidKeyExtractor implements UuidKeyExtractor<S3CrawlEve
     public S3CrawlEventUuidKeyExtractor() {
     }
 
+    @Inject
+    S3ConnectorConfig config;
+
+    private PartitionKeyStrategy strategy;
+
+    @PostConstruct
+    void initStrategy() {
+        strategy = PartitionKeyStrategy.of(config.publish());
+    }
+
     /**
      * Extracts a deterministic UUID key from an {@link S3CrawlEvent}.
      * <p>
-     * Generates a UUID using the event's datasource ID as the seed, ensuring
-     * that all events from the same datasource receive the same partition key.
-     * This enables Kafka to consistently route events from the same datasource
-     * to the same partition for ordered processing.
+     * Generates a UUID with the configured {@link PartitionKeyStrategy}, ensuring
+     * that all events of the same object receive the same partition key. This
+     * enables Kafka to consistently route events of the same object to the same
+     * partition for ordered processing.
      * </p>
      *
      * @param event the {@link S3CrawlEvent} to extract the key from
-     * @return a deterministic {@link UUID} key based on the datasource ID
+     * @return a deterministic {@link UUID} key
      * @throws IllegalArgumentException if the event is null or has an empty datasource ID
      * @since 1.0.0
      */
@@ -52,6 +65,6 @@ public class S3CrawlEventUuidKeyExtractor implements UuidKeyExtractor<S3CrawlEve
         if (event == null || event.getDatasourceId().isEmpty()) {
             throw new IllegalArgumentException("S3CrawlEvent must have a datasource_id");
         }
-        return UUID.nameUUIDFromBytes(event.getDatasourceId().getBytes(StandardCharsets.UTF_8));
+        return strategy.key(event);
     }
 }
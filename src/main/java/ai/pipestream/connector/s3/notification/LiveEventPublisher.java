@@ -0,0 +1,94 @@
+package ai.pipestream.connector.s3.notification;
+
+import ai.pipestream.connector.s3.events.ChangeType;
+import ai.pipestream.connector.s3.events.S3CrawlEventPublisher;
+import ai.pipestream.connector.s3.state.CrawlSource;
+import ai.pipestream.connector.s3.target.LiveTargetLookup;
+import ai.pipestream.connector.s3.target.LiveTargetLookup.LiveTarget;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Publishes bucket notification records as {@link CrawlSource#LIVE} crawl events.
+ * <p>
+ * Every record is matched against the enabled {@code LIVE} and {@code BOTH} crawl
+ * targets of its bucket (one lookup per call) and sent through the crawl
+ * publishing window: {@code ObjectCreated} records as ordinary events pinned to the
+ * notified version, {@code ObjectRemoved} records as {@link ChangeType#DELETED}
+ * tombstones. Shared by the queue consumer and the webhook receiver.
+ * </p>
+ */
+@ApplicationScoped
+public class LiveEventPublisher {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public LiveEventPublisher() {
+    }
+
+    @Inject
+    S3CrawlEventPublisher eventPublisher;
+
+    @Inject
+    LiveTargetLookup liveTargets;
+
+    /**
+     * Publishes groups of records, e.g. the records of each received message.
+     *
+     * @param groups records to publish, grouped by the caller
+     * @return per group, {@code true} when every event was sent (or there was none to send)
+     */
+    public Uni<List<Boolean>> publish(List<List<S3EventRecord>> groups) {
+        if (groups.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        Set<String> buckets = new LinkedHashSet<>();
+        groups.forEach(records -> records.forEach(record -> buckets.add(record.bucket())));
+        return liveTargets.findByBuckets(buckets)
+            .flatMap(targets -> {
+                List<Uni<Boolean>> published = new ArrayList<>(groups.size());
+                for (List<S3EventRecord> records : groups) {
+                    published.add(publish(records, targets));
+                }
+                return Uni.join().all(published).andFailFast();
+            });
+    }
+
+    private Uni<Boolean> publish(List<S3EventRecord> records, Map<String, List<LiveTarget>> targets) {
+        List<Uni<Boolean>> sends = new ArrayList<>();
+        for (S3EventRecord record : records) {
+            if (!record.isCreated() && !record.isRemoved()) {
+                continue;
+            }
+            for (LiveTarget target : targets.getOrDefault(record.bucket(), List.of())) {
+                if (target.covers(record.key())) {
+                    sends.add(eventPublisher.publishInWindow(eventPublisher.buildEvent(
+                        target.datasourceId(),
+                        record.bucket(),
+                        record.key(),
+                        record.versionId(),
+                        record.size(),
+                        record.eTag(),
+                        record.eventTime() != null ? record.eventTime() : Instant.now(),
+                        CrawlSource.LIVE,
+                        "",
+                        record.isRemoved() ? ChangeType.DELETED : null)));
+                }
+            }
+        }
+        if (sends.isEmpty()) {
+            return Uni.createFrom().item(Boolean.TRUE);
+        }
+        return Uni.join().all(sends).andFailFast()
+            .map(sent -> !sent.contains(Boolean.FALSE));
+    }
+}
@@ -0,0 +1,141 @@
+package ai.pipestream.connector.s3.notification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces bucket notification records per {@code (bucket, key)} inside a debounce window.
+ * <p>
+ * The first record for an object opens a window of the configured length; every
+ * further record for the same object until the window closes replaces the held
+ * one if it is newer, so an object rewritten fifty times within the window yields
+ * one record: its latest state, including a final removal. Records are ordered by
+ * their S3 {@code sequencer} (hex strings compared after left-padding to equal
+ * length, as S3 documents), then by event time, then by arrival. The window is
+ * not extended by later records, so an object written continuously still comes
+ * out once per window.
+ * </p>
+ * <p>
+ * At most {@code maxPending} objects are held. A record for an object that is not
+ * already held is refused when the coalescer is full; records for held objects are
+ * always taken. Thread-safe.
+ * </p>
+ */
+public final class NotificationCoalescer {
+
+    private final long windowNanos;
+    private final int maxPending;
+    private final Map<ObjectRef, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param window     debounce window, opened by the first record of an object
+     * @param maxPending maximum number of objects held at once
+     */
+    public NotificationCoalescer(Duration window, int maxPending) {
+        this.windowNanos = Math.max(0, window.toNanos());
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /**
+     * Takes a record into its object's window.
+     *
+     * @param record    notification record
+     * @param nowNanos  current {@link System#nanoTime()}
+     * @return {@code false} if the record was refused because the coalescer is full
+     */
+    public boolean offer(S3EventRecord record, long nowNanos) {
+        ObjectRef ref = new ObjectRef(record.bucket(), record.key());
+        if (pending.size() >= maxPending && !pending.containsKey(ref)) {
+            return false;
+        }
+        pending.merge(ref, new Pending(record, nowNanos + windowNanos), (held, offered) -> {
+            coalesced.incrementAndGet();
+            return isNewer(offered.record(), held.record())
+                ? new Pending(offered.record(), held.dueAt())
+                : held;
+        });
+        return true;
+    }
+
+    /**
+     * Removes and returns the records whose window has closed.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return the latest record of every object whose window has closed
+     */
+    public List<S3EventRecord> drainDue(long nowNanos) {
+        return drain(nowNanos, false);
+    }
+
+    /**
+     * Removes and returns every held record, whether or not its window has closed.
+     *
+     * @return the latest record of every held object
+     */
+    public List<S3EventRecord> drainAll() {
+        return drain(0, true);
+    }
+
+    private List<S3EventRecord> drain(long nowNanos, boolean all) {
+        List<S3EventRecord> due = new ArrayList<>();
+        Iterator<Map.Entry<ObjectRef, Pending>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<ObjectRef, Pending> entry = entries.next();
+            Pending held = entry.getValue();
+            if ((all || held.dueAt() - nowNanos <= 0) && pending.remove(entry.getKey(), held)) {
+                due.add(held.record());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * @return number of objects currently held
+     */
+    public int pending() {
+        return pending.size();
+    }
+
+    /**
+     * @return number of records folded into an already held object so far
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Checks whether {@code candidate} reports a later state of the object than {@code held}.
+     */
+    static boolean isNewer(S3EventRecord candidate, S3EventRecord held) {
+        String a = candidate.sequencer();
+        String b = held.sequencer();
+        if (a != null && b != null && !a.isEmpty() && !b.isEmpty()) {
+            int width = Math.max(a.length(), b.length());
+            int order = pad(a, width).compareToIgnoreCase(pad(b, width));
+            if (order != 0) {
+                return order > 0;
+            }
+        }
+        if (candidate.eventTime() != null && held.eventTime() != null
+            && !candidate.eventTime().equals(held.eventTime())) {
+            return candidate.eventTime().isAfter(held.eventTime());
+        }
+        return true;
+    }
+
+    private static String pad(String sequencer, int width) {
+        return "0".repeat(width - sequencer.length()) + sequencer;
+    }
+
+    private record ObjectRef(String bucket, String key) {
+    }
+
+    private record Pending(S3EventRecord record, long dueAt) {
+    }
+}
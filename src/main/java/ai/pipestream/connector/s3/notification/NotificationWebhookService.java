@@ -0,0 +1,182 @@
+package ai.pipestream.connector.s3.notification;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Intake side of the notification webhook: coalesces records and publishes them in the background.
+ * <p>
+ * {@link #accept(List)} only folds records into a {@link NotificationCoalescer},
+ * so the HTTP request is answered without waiting for Postgres or Kafka. A
+ * background loop wakes several times per debounce window, drains the objects
+ * whose window has closed and publishes their latest state through
+ * {@link LiveEventPublisher}, one target lookup per drain. A write storm on one
+ * object therefore turns into one crawl event per window instead of one per write.
+ * Remaining records are published on shutdown.
+ * </p>
+ * <p>
+ * Senders were answered {@code 2xx} when the records were taken, so they never
+ * send them again: a record whose event could not be published is offered back
+ * to the coalescer and retried after another window, unless a newer record for
+ * its object has arrived meanwhile. The endpoint starts LIVE downloads and does
+ * not take {@code x-api-key}, so the webhook refuses to start without an
+ * {@code auth-token}.
+ * </p>
+ */
+@ApplicationScoped
+public class NotificationWebhookService {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public NotificationWebhookService() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(NotificationWebhookService.class);
+
+    /** Drains per debounce window; bounds how late past its window an object is published. */
+    private static final int TICKS_PER_WINDOW = 4;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    LiveEventPublisher liveEvents;
+
+    private volatile NotificationCoalescer coalescer;
+    private volatile Cancellable flusher;
+
+    void onStart(@Observes StartupEvent event) {
+        S3ConnectorConfig.WebhookConfig webhook = config.webhook();
+        if (!webhook.enabled()) {
+            return;
+        }
+        if (webhook.authToken().filter(token -> !token.isBlank()).isEmpty()) {
+            throw new IllegalStateException(
+                "s3.connector.webhook.auth-token is required when the notification webhook is enabled");
+        }
+        coalescer = new NotificationCoalescer(webhook.debounce(), webhook.maxPendingObjects());
+        Duration tick = webhook.debounce().dividedBy(TICKS_PER_WINDOW);
+        if (tick.compareTo(Duration.ofMillis(10)) < 0) {
+            tick = Duration.ofMillis(10);
+        }
+        flusher = Multi.createFrom().ticks().every(tick)
+            .onOverflow().drop()
+            .onItem().transformToUniAndConcatenate(ignored -> flush(coalescer.drainDue(System.nanoTime())))
+            .subscribe().with(
+                ignored -> { },
+                error -> LOG.errorf(error, "S3 notification webhook flusher stopped"));
+        LOG.infof("S3 notification webhook enabled: debounce=%s, maxPendingObjects=%d",
+            webhook.debounce(), webhook.maxPendingObjects());
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (flusher == null) {
+            return;
+        }
+        flusher.cancel();
+        flusher = null;
+        List<S3EventRecord> remaining = coalescer.drainAll();
+        if (!remaining.isEmpty()) {
+            try {
+                flush(remaining).await().atMost(Duration.ofSeconds(10));
+            } catch (RuntimeException e) {
+                LOG.warnf(e, "Could not publish %d coalesced S3 notification(s) on shutdown", remaining.size());
+            }
+        }
+    }
+
+    /**
+     * @return whether the webhook is accepting notifications
+     */
+    public boolean isEnabled() {
+        return coalescer != null;
+    }
+
+    /**
+     * Takes the records of one webhook request for coalescing.
+     *
+     * @param records parsed notification records
+     * @return number of records refused because too many objects are pending
+     * @throws IllegalStateException if the webhook is not enabled
+     */
+    public int accept(List<S3EventRecord> records) {
+        NotificationCoalescer current = coalescer;
+        if (current == null) {
+            throw new IllegalStateException("S3 notification webhook is not enabled");
+        }
+        long now = System.nanoTime();
+        int refused = 0;
+        for (S3EventRecord record : records) {
+            if ((record.isCreated() || record.isRemoved()) && !current.offer(record, now)) {
+                refused++;
+            }
+        }
+        return refused;
+    }
+
+    private Uni<Void> flush(List<S3EventRecord> records) {
+        if (records.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return liveEvents.publish(records.stream().map(record -> List.of(record)).toList())
+            .invoke(results -> {
+                List<S3EventRecord> failed = new ArrayList<>();
+                for (int i = 0; i < records.size(); i++) {
+                    if (!results.get(i)) {
+                        failed.add(records.get(i));
+                    }
+                }
+                if (!failed.isEmpty()) {
+                    LOG.warnf("S3 notification webhook: %d of %d object(s) could not be published, retrying",
+                        failed.size(), records.size());
+                    retry(failed);
+                }
+                LOG.debugf("S3 notification webhook flush: objects=%d, pending=%d, coalesced=%d",
+                    records.size(), coalescer.pending(), coalescer.coalesced());
+            })
+            .onFailure().invoke(error -> {
+                LOG.warnf(error, "S3 notification webhook: could not publish %d coalesced object(s), retrying",
+                    records.size());
+                retry(records);
+            })
+            .onFailure().recoverWithNull()
+            .replaceWithVoid();
+    }
+
+    /**
+     * Offers records back to the coalescer, so they are published again after
+     * another window; a newer record held for the same object wins over them.
+     */
+    private void retry(List<S3EventRecord> records) {
+        if (flusher == null) {
+            // Shutting down: nothing would publish them any more.
+            LOG.errorf("S3 notification webhook: dropping %d object(s) that could not be published on shutdown",
+                records.size());
+            return;
+        }
+        long now = System.nanoTime();
+        int refused = 0;
+        for (S3EventRecord record : records) {
+            if (!coalescer.offer(record, now)) {
+                refused++;
+            }
+        }
+        if (refused > 0) {
+            LOG.errorf("S3 notification webhook: dropping %d object(s) that could not be published, "
+                + "%d objects are already pending", refused, coalescer.pending());
+        }
+    }
+}
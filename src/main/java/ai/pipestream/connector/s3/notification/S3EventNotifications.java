@@ -0,0 +1,120 @@
+package ai.pipestream.connector.s3.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the S3 event notification messages found on a queue.
+ * <p>
+ * Accepts notifications sent by S3 straight to the queue and ones fanned out
+ * through SNS (the S3 document is then the envelope's {@code Message}). The
+ * {@code s3:TestEvent} S3 sends when a notification is configured has no
+ * records. Object keys arrive URL-encoded ({@code +} for spaces) and are decoded.
+ * MinIO webhook payloads use the same record layout with {@code s3:}-prefixed
+ * event names, which are normalized to the AWS form.
+ * </p>
+ */
+public final class S3EventNotifications {
+
+    private S3EventNotifications() {
+    }
+
+    /**
+     * Parses one queue message body.
+     *
+     * @param objectMapper JSON mapper
+     * @param body         message body
+     * @return the records of the notification, empty for test events
+     * @throws IOException if the body is not an S3 event notification
+     */
+    public static List<S3EventRecord> parse(ObjectMapper objectMapper, String body) throws IOException {
+        return parse(objectMapper, objectMapper.readTree(body));
+    }
+
+    /**
+     * Parses a request body holding one notification or a JSON array of them, as
+     * webhook senders that batch deliveries post it.
+     *
+     * @param objectMapper JSON mapper
+     * @param body         request body
+     * @return the records of all notifications, in order
+     * @throws IOException if the body, or one of its elements, is not an S3 event notification
+     */
+    public static List<S3EventRecord> parseAll(ObjectMapper objectMapper, String body) throws IOException {
+        JsonNode root = objectMapper.readTree(body);
+        if (root == null || !root.isArray()) {
+            return parse(objectMapper, root);
+        }
+        List<S3EventRecord> records = new ArrayList<>();
+        for (JsonNode notification : root) {
+            records.addAll(parse(objectMapper, notification));
+        }
+        return records;
+    }
+
+    private static List<S3EventRecord> parse(ObjectMapper objectMapper, JsonNode root) throws IOException {
+        if (root == null || !root.isObject()) {
+            throw new IOException("Not a JSON object");
+        }
+        if ("Notification".equals(root.path("Type").asText()) && root.path("Message").isTextual()) {
+            root = objectMapper.readTree(root.path("Message").asText());
+            if (root == null || !root.isObject()) {
+                throw new IOException("SNS Message is not a JSON object");
+            }
+        }
+        if ("s3:TestEvent".equals(root.path("Event").asText())) {
+            return List.of();
+        }
+        JsonNode records = root.path("Records");
+        if (!records.isArray()) {
+            throw new IOException("No Records in S3 event notification");
+        }
+
+        List<S3EventRecord> parsed = new ArrayList<>(records.size());
+        for (JsonNode record : records) {
+            JsonNode s3 = record.path("s3");
+            JsonNode object = s3.path("object");
+            String bucket = s3.path("bucket").path("name").asText(null);
+            String key = object.path("key").asText(null);
+            if (bucket == null || key == null) {
+                throw new IOException("S3 event record without bucket or key");
+            }
+            String eTag = textOrNull(object, "eTag");
+            String eventName = record.path("eventName").asText("");
+            parsed.add(new S3EventRecord(
+                eventName.startsWith("s3:") ? eventName.substring(3) : eventName,
+                bucket,
+                URLDecoder.decode(key, StandardCharsets.UTF_8),
+                textOrNull(object, "versionId"),
+                object.path("size").asLong(0),
+                eTag == null || eTag.startsWith("\"") ? eTag : "\"" + eTag + "\"",
+                textOrNull(object, "sequencer"),
+                eventTime(record.path("eventTime").asText(null))));
+        }
+        return parsed;
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return value.isValueNode() && !value.asText().isEmpty() ? value.asText() : null;
+    }
+
+    private static Instant eventTime(String value) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IOException("Invalid eventTime: " + value, e);
+        }
+    }
+}
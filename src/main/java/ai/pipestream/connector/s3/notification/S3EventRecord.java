@@ -0,0 +1,33 @@
+package ai.pipestream.connector.s3.notification;
+
+import java.time.Instant;
+
+/**
+ * One record of an S3 event notification.
+ *
+ * @param eventName event type, e.g. {@code ObjectCreated:Put} or {@code ObjectRemoved:Delete}
+ * @param bucket    bucket the event happened in
+ * @param key       object key, URL-decoded
+ * @param versionId version id of the object (or of the delete marker), {@code null} for unversioned buckets
+ * @param size      object size in bytes; 0 for removals
+ * @param eTag      object ETag, quoted like ListObjectsV2 returns it; {@code null} for removals
+ * @param sequencer S3's ordering token for events on the same key
+ * @param eventTime when the event happened
+ */
+public record S3EventRecord(String eventName, String bucket, String key, String versionId, long size,
+                            String eTag, String sequencer, Instant eventTime) {
+
+    /**
+     * @return whether the record reports a new or overwritten object
+     */
+    public boolean isCreated() {
+        return eventName != null && eventName.startsWith("ObjectCreated:");
+    }
+
+    /**
+     * @return whether the record reports a deleted object or a new delete marker
+     */
+    public boolean isRemoved() {
+        return eventName != null && eventName.startsWith("ObjectRemoved:");
+    }
+}
@@ -0,0 +1,196 @@
+package ai.pipestream.connector.s3.notification;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.events.ChangeType;
+import ai.pipestream.connector.s3.state.CrawlSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClientBuilder;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Event-driven mode: turns S3 bucket notifications into {@link CrawlSource#LIVE} crawl events.
+ * <p>
+ * {@code s3.connector.event-driven.pollers} independent loops long-poll the
+ * notification queue, each receiving up to {@code max-messages} messages at a
+ * time. The records of a batch are published by {@link LiveEventPublisher} (one
+ * target lookup per batch): {@code ObjectCreated} records as ordinary events
+ * pinned to the notified version, {@code ObjectRemoved} records as
+ * {@link ChangeType#DELETED} tombstones. A message is deleted from the queue, in
+ * one batch call per receive, only once all of its events were sent; a message
+ * with a failed send stays and comes back after its visibility timeout.
+ * Messages that are not S3 notifications, or concern no live target, are deleted
+ * so they do not circulate forever.
+ * </p>
+ */
+@ApplicationScoped
+public class S3NotificationConsumer {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public S3NotificationConsumer() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(S3NotificationConsumer.class);
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    LiveEventPublisher liveEvents;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private final List<Cancellable> pollers = new CopyOnWriteArrayList<>();
+    private SqsAsyncClient sqs;
+
+    void onStart(@Observes StartupEvent event) {
+        S3ConnectorConfig.EventDrivenConfig eventDriven = config.eventDriven();
+        if (!eventDriven.enabled()) {
+            return;
+        }
+        String queueUrl = eventDriven.queueUrl().orElseThrow(() -> new IllegalStateException(
+            "s3.connector.event-driven.queue-url is required when event-driven mode is enabled"));
+        sqs = createClient(eventDriven);
+        int count = Math.max(1, eventDriven.pollers());
+        for (int i = 0; i < count; i++) {
+            pollers.add(poll(queueUrl, eventDriven));
+        }
+        LOG.infof("Event-driven mode: %d poller(s) on %s", count, queueUrl);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        pollers.forEach(Cancellable::cancel);
+        pollers.clear();
+        if (sqs != null) {
+            sqs.close();
+            sqs = null;
+        }
+    }
+
+    /**
+     * One long-poll loop: receive, publish, delete, repeat. Failures back off and
+     * the loop carries on.
+     */
+    private Cancellable poll(String queueUrl, S3ConnectorConfig.EventDrivenConfig eventDriven) {
+        ReceiveMessageRequest receive = ReceiveMessageRequest.builder()
+            .queueUrl(queueUrl)
+            .maxNumberOfMessages(Math.min(10, Math.max(1, eventDriven.maxMessages())))
+            .waitTimeSeconds(Math.min(20, Math.max(0, eventDriven.waitTimeSeconds())))
+            .build();
+        Duration backoff = eventDriven.errorBackoff();
+        return Multi.createBy().repeating()
+            .uni(() -> Uni.createFrom().completionStage(() -> sqs.receiveMessage(receive))
+                .map(ReceiveMessageResponse::messages))
+            .indefinitely()
+            .onItem().transformToUniAndConcatenate(messages -> handle(queueUrl, messages))
+            .onFailure().invoke(error -> LOG.warnf(error, "S3 notification poll on %s failed; backing off", queueUrl))
+            .onFailure().retry().withBackOff(backoff, backoff.multipliedBy(12)).indefinitely()
+            .subscribe().with(
+                ignored -> { },
+                error -> LOG.errorf(error, "S3 notification poller on %s stopped", queueUrl));
+    }
+
+    /**
+     * Publishes the events of one received batch and deletes the messages that were fully published.
+     *
+     * @param queueUrl queue the messages came from
+     * @param messages one receive's messages
+     * @return completion once the batch is settled
+     */
+    Uni<Void> handle(String queueUrl, List<Message> messages) {
+        if (messages.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        List<Notification> notifications = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            List<S3EventRecord> records;
+            try {
+                records = S3EventNotifications.parse(objectMapper, message.body());
+            } catch (IOException e) {
+                LOG.warnf("Dropping queue message %s that is not an S3 event notification: %s",
+                    message.messageId(), e.getMessage());
+                records = List.of();
+            }
+            notifications.add(new Notification(message, records));
+        }
+
+        return liveEvents.publish(notifications.stream().map(Notification::records).toList())
+            .flatMap(results -> {
+                List<DeleteMessageBatchRequestEntry> done = new ArrayList<>();
+                for (int i = 0; i < results.size(); i++) {
+                    if (results.get(i)) {
+                        Message message = notifications.get(i).message();
+                        done.add(DeleteMessageBatchRequestEntry.builder()
+                            .id(Integer.toString(i))
+                            .receiptHandle(message.receiptHandle())
+                            .build());
+                    }
+                }
+                LOG.debugf("S3 notification batch: received=%d, settled=%d", messages.size(), done.size());
+                return delete(queueUrl, done);
+            });
+    }
+
+    private Uni<Void> delete(String queueUrl, List<DeleteMessageBatchRequestEntry> entries) {
+        if (entries.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        DeleteMessageBatchRequest request = DeleteMessageBatchRequest.builder()
+            .queueUrl(queueUrl)
+            .entries(entries)
+            .build();
+        return Uni.createFrom().completionStage(() -> sqs.deleteMessageBatch(request))
+            .invoke(response -> response.failed().forEach(failure -> LOG.warnf(
+                "Failed to delete S3 notification from %s (%s: %s); it will be delivered again",
+                queueUrl, failure.code(), failure.message())))
+            .replaceWithVoid();
+    }
+
+    private static SqsAsyncClient createClient(S3ConnectorConfig.EventDrivenConfig eventDriven) {
+        SqsAsyncClientBuilder builder = SqsAsyncClient.builder()
+            .region(Region.of(eventDriven.region()));
+        eventDriven.endpointOverride()
+            .filter(endpoint -> !endpoint.isBlank())
+            .ifPresent(endpoint -> builder.endpointOverride(URI.create(endpoint)));
+        if (eventDriven.accessKeyId().isPresent() && eventDriven.secretAccessKey().isPresent()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                eventDriven.accessKeyId().get(), eventDriven.secretAccessKey().get())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        return builder.build();
+    }
+
+    /**
+     * A received message with its parsed records.
+     */
+    private record Notification(Message message, List<S3EventRecord> records) {
+    }
+}
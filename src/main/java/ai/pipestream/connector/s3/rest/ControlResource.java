@@ -3,6 +3,11 @@ package ai.pipestream.connector.s3.rest;
 import ai.pipestream.connector.s3.service.DatasourceConfigService;
 import ai.pipestream.connector.s3.service.S3CrawlService;
 import ai.pipestream.connector.s3.service.S3TestCrawlService;
+import ai.pipestream.connector.s3.state.CrawlRun;
+import ai.pipestream.connector.s3.state.CrawlRunService;
+import ai.pipestream.connector.s3.state.CrawlRunStatus;
+import ai.pipestream.connector.s3.state.CrawlSource;
+import ai.pipestream.connector.s3.state.CrawlStatusRegistry;
 import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
 import ai.pipestream.connector.s3.v1.TestBucketCrawlResponse;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -10,10 +15,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 
@@ -23,7 +31,7 @@ import java.util.UUID;
 
 /**
  * REST control plane mirroring {@link ai.pipestream.connector.s3.grpc.S3ConnectorControlServiceImpl}.
- * Provides endpoints for starting S3 crawls and testing bucket connectivity.
+ * Provides endpoints for starting, pausing and resuming S3 crawls and testing bucket connectivity.
  */
 @Path("/api/control")
 @Produces(MediaType.APPLICATION_JSON)
@@ -47,6 +55,14 @@ public class ControlResource {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    CrawlStatusRegistry statusRegistry;
+
+    @Inject
+    CrawlRunService crawlRunService;
+
+    private static final Logger LOG = Logger.getLogger(ControlResource.class);
+
     /**
      * Starts a crawl for the specified bucket and prefix.
      *
@@ -89,10 +105,83 @@ public class ControlResource {
         String requestId = S3ProtoJson.firstNonBlank(body.requestId, UUID.randomUUID().toString());
 
         return datasourceConfigService.registerDatasourceConfig(datasourceId, headerApiKey, connectionConfig)
-            .flatMap(v -> crawlService.crawlBucket(datasourceId, bucket, prefix, requestId))
+            .invoke(v -> statusRegistry.register(requestId))
+            .flatMap(v -> body.incremental == null
+                ? crawlService.crawlBucket(datasourceId, bucket, prefix, requestId)
+                : crawlService.crawlBucket(datasourceId, bucket, prefix,
+                    body.incremental ? CrawlSource.INCREMENTAL : CrawlSource.INITIAL, requestId))
+            .invoke(v -> statusRegistry.complete(requestId))
+            .onFailure().invoke(failure -> statusRegistry.fail(requestId,
+                failure.getClass().getSimpleName() + ": " + failure.getMessage()))
             .replaceWith(new StartCrawlResponseDto(true, "Crawl accepted", requestId, Instant.now()));
     }
 
+    /**
+     * Gets a recorded crawl run with its per-shard checkpoints.
+     *
+     * @param crawlId crawl identifier (the StartCrawl request id)
+     * @return the crawl run
+     */
+    @GET
+    @Path("crawls/{crawlId}")
+    public Uni<CrawlRun> getCrawl(@PathParam("crawlId") String crawlId) {
+        return crawlRunService.find(crawlId);
+    }
+
+    /**
+     * Pauses a crawl running on this instance. Events already being published are
+     * finished; no further pages are taken until the crawl is resumed.
+     *
+     * @param crawlId crawl identifier (the StartCrawl request id)
+     * @return the crawl's new state
+     */
+    @POST
+    @Path("crawls/{crawlId}/pause")
+    public Uni<CrawlControlResponseDto> pauseCrawl(@PathParam("crawlId") String crawlId) {
+        if (!statusRegistry.pause(crawlId)) {
+            throw new IllegalStateException("Crawl " + crawlId + " is not running on this instance");
+        }
+        return crawlRunService.setStatus(crawlId, CrawlRunStatus.PAUSED, null)
+            .replaceWith(new CrawlControlResponseDto(crawlId, CrawlRunStatus.PAUSED, "Crawl paused", Instant.now()));
+    }
+
+    /**
+     * Resumes a crawl. A crawl paused on this instance continues where it stopped;
+     * otherwise a recorded run that failed, or whose instance went away, is started
+     * again in the background from its checkpoints. Progress is then available
+     * through {@code StreamCrawlStatus}.
+     *
+     * @param crawlId crawl identifier (the StartCrawl request id)
+     * @return the crawl's new state
+     */
+    @POST
+    @Path("crawls/{crawlId}/resume")
+    public Uni<CrawlControlResponseDto> resumeCrawl(@PathParam("crawlId") String crawlId) {
+        if (statusRegistry.resume(crawlId)) {
+            return crawlRunService.setStatus(crawlId, CrawlRunStatus.RUNNING, null)
+                .replaceWith(new CrawlControlResponseDto(crawlId, CrawlRunStatus.RUNNING, "Crawl resumed", Instant.now()));
+        }
+        CrawlStatusRegistry.CrawlStatus live = statusRegistry.get(crawlId);
+        if (live != null && !live.isTerminal()) {
+            throw new IllegalArgumentException("Crawl " + crawlId + " is already running on this instance");
+        }
+        return crawlRunService.findResumable(crawlId)
+            .invoke(run -> {
+                // Fire-and-forget like StartCrawl: the rest of a big crawl takes far
+                // longer than any client would wait for this response.
+                statusRegistry.restart(crawlId);
+                crawlService.resumeCrawl(run)
+                    .subscribe().with(
+                        ignored -> statusRegistry.complete(crawlId),
+                        failure -> {
+                            LOG.warnf(failure, "Resumed crawl %s failed", crawlId);
+                            statusRegistry.fail(crawlId, failure.getClass().getSimpleName() + ": " + failure.getMessage());
+                        });
+            })
+            .map(run -> new CrawlControlResponseDto(crawlId, CrawlRunStatus.RUNNING,
+                "Crawl resumed from checkpoint", Instant.now()));
+    }
+
     /**
      * Tests connectivity and access to a specific S3 bucket.
      *
@@ -161,6 +250,12 @@ public class ControlResource {
          * Optional request ID for tracking.
          */
         public String requestId;
+        /**
+         * Optional: {@code true} to only publish objects new or changed since the last
+         * crawl, {@code false} for a full crawl. Defaults to
+         * {@code s3.connector.initial-crawl.incremental}.
+         */
+        public Boolean incremental;
 
         /**
          * Default constructor for StartCrawlRequestJson.
@@ -212,6 +307,17 @@ public class ControlResource {
     public record StartCrawlResponseDto(boolean accepted, String message, String requestId, Instant acceptedAt) {
     }
 
+    /**
+     * Response DTO for a crawl pause or resume request.
+     *
+     * @param crawlId   crawl identifier
+     * @param status    the crawl's status after the request
+     * @param message   status message
+     * @param changedAt timestamp of the change
+     */
+    public record CrawlControlResponseDto(String crawlId, CrawlRunStatus status, String message, Instant changedAt) {
+    }
+
     /**
      * Response DTO for a bucket test request.
      *
@@ -0,0 +1,107 @@
+package ai.pipestream.connector.s3.rest;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.notification.NotificationWebhookService;
+import ai.pipestream.connector.s3.notification.S3EventNotifications;
+import ai.pipestream.connector.s3.notification.S3EventRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotAuthorizedException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Webhook for bucket notifications posted by MinIO and other S3-compatible stores.
+ * <p>
+ * Notifications are acknowledged as soon as their records are taken for
+ * coalescing; publishing happens in the background (see
+ * {@link NotificationWebhookService}). Authentication is the optional bearer
+ * token of {@code s3.connector.webhook.auth-token} rather than {@code x-api-key}.
+ * </p>
+ */
+@Path("/api/notifications")
+@Produces(MediaType.APPLICATION_JSON)
+public class NotificationResource {
+
+    /**
+     * Default constructor for NotificationResource.
+     */
+    public NotificationResource() {
+    }
+
+    private static final String BEARER = "Bearer ";
+
+    @Inject
+    NotificationWebhookService webhookService;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Accepts S3 event notifications: one notification, or a JSON array of them.
+     *
+     * @param authorization {@code Authorization} header
+     * @param body          notification payload
+     * @return acknowledgement with the number of records taken
+     */
+    @POST
+    @Path("s3")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Uni<NotificationAckDto> receive(@HeaderParam("Authorization") String authorization, String body) {
+        if (!webhookService.isEnabled()) {
+            throw new IllegalStateException("S3 notification webhook is not enabled");
+        }
+        Optional<String> token = config.webhook().authToken().filter(value -> !value.isBlank());
+        if (token.isEmpty() || !matches(token.get(), authorization)) {
+            throw new NotAuthorizedException("Invalid or missing bearer token", BEARER.trim());
+        }
+        if (body == null || body.isBlank()) {
+            throw new IllegalArgumentException("request body is required");
+        }
+
+        final List<S3EventRecord> records;
+        try {
+            records = S3EventNotifications.parseAll(objectMapper, body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid S3 event notification: " + e.getMessage(), e);
+        }
+        int refused = webhookService.accept(records);
+        if (refused > 0) {
+            throw new ServiceUnavailableException(1L);
+        }
+        return Uni.createFrom().item(new NotificationAckDto(records.size(), Instant.now()));
+    }
+
+    private static boolean matches(String token, String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            return false;
+        }
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+            authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Response DTO for an accepted notification.
+     *
+     * @param records    number of records in the notification
+     * @param acceptedAt timestamp of acceptance
+     */
+    public record NotificationAckDto(int records, Instant acceptedAt) {
+    }
+}
@@ -12,6 +12,8 @@ import java.util.Map;
 /**
  * Requires {@code x-api-key} for HTTP {@code /api/*} routes except {@code POST /api/control/test-bucket},
  * matching gRPC: {@code startCrawl} requires a key; {@code testBucketCrawl} does not validate one.
+ * {@code POST /api/notifications/s3} is exempt too: webhook senders cannot set the header, and
+ * {@link NotificationResource} checks its own bearer token.
  */
 @Provider
 @Priority(Priorities.AUTHENTICATION)
@@ -37,6 +39,9 @@ public class S3ApiKeyRequestFilter implements ContainerRequestFilter {
         if ("POST".equals(requestContext.getMethod()) && path.contains("control/test-bucket")) {
             return;
         }
+        if ("POST".equals(requestContext.getMethod()) && path.startsWith("/api/notifications/")) {
+            return;
+        }
         String apiKey = requestContext.getHeaderString(HDR);
         if (apiKey == null || apiKey.isBlank()) {
             requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED)
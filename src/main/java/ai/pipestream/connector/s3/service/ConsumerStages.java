@@ -0,0 +1,108 @@
+package ai.pipestream.connector.s3.service;
+
+import ai.pipestream.connector.s3.concurrent.AsyncPermits;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.function.Supplier;
+
+/**
+ * The fetch, digest and upload stages of the crawl event consumer.
+ * <p>
+ * Each stage is a bounded pool of slots ({@code s3.connector.consumer.*-concurrency});
+ * an event moves from stage to stage, holding one slot at a time, and waits in
+ * the next stage's FIFO queue when that stage is full. A slow intake therefore
+ * fills the upload queue while fetches continue for other events, and the other
+ * way round. The queues are bounded by admission: no more events are in the
+ * stages than the consumer's partition windows let in. Objects too large to
+ * buffer stream from S3 to intake and hold their fetch slot during the upload.
+ * </p>
+ * <p>
+ * Per stage, {@code s3.consumer.stage.queued} (events waiting for a slot) and
+ * {@code s3.consumer.stage.active} (slots in use) are exported as gauges tagged
+ * with {@code stage}; the stage whose queue grows is the bottleneck.
+ * </p>
+ */
+@ApplicationScoped
+public class ConsumerStages {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public ConsumerStages() {
+    }
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    MeterRegistry registry;
+
+    private AsyncPermits fetch;
+    private AsyncPermits digest;
+    private AsyncPermits upload;
+
+    @PostConstruct
+    void initStages() {
+        S3ConnectorConfig.ConsumerConfig consumer = config.consumer();
+        fetch = stage("fetch", consumer.fetchConcurrency());
+        digest = stage("digest", consumer.digestConcurrency());
+        upload = stage("upload", consumer.uploadConcurrency());
+    }
+
+    /**
+     * Runs an S3 download in the fetch stage.
+     *
+     * @param action supplier of the download, subscribed once a fetch slot is free
+     * @param <T>    item type
+     * @return the action's outcome
+     */
+    public <T> Uni<T> fetch(Supplier<Uni<T>> action) {
+        return fetch.withPermit(action);
+    }
+
+    /**
+     * Runs a checksum computation in the digest stage.
+     *
+     * @param action supplier of the digest, subscribed once a digest slot is free
+     * @param <T>    item type
+     * @return the action's outcome
+     */
+    public <T> Uni<T> digest(Supplier<Uni<T>> action) {
+        return digest.withPermit(action);
+    }
+
+    /**
+     * Runs an intake upload in the upload stage.
+     *
+     * @param action supplier of the upload, subscribed once an upload slot is free
+     * @param <T>    item type
+     * @return the action's outcome
+     */
+    public <T> Uni<T> upload(Supplier<Uni<T>> action) {
+        return upload.withPermit(action);
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerStages[" + fetch + ", " + digest + ", " + upload + "]";
+    }
+
+    private AsyncPermits stage(String name, int concurrency) {
+        AsyncPermits permits = new AsyncPermits("consumer-" + name, Math.max(1, concurrency));
+        Gauge.builder("s3.consumer.stage.queued", permits, AsyncPermits::queued)
+            .description("Crawl events waiting for a slot in the consumer stage")
+            .tag("stage", name)
+            .register(registry);
+        Gauge.builder("s3.consumer.stage.active", permits, p -> p.capacity() - p.available())
+            .description("Consumer stage slots in use")
+            .tag("stage", name)
+            .register(registry);
+        return permits;
+    }
+}
@@ -0,0 +1,129 @@
+package ai.pipestream.connector.s3.service;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.pgclient.PgConnection;
+import io.vertx.mutiny.sqlclient.Pool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Keeps the datasource configuration cache consistent across replicas.
+ * <p>
+ * A trigger on {@code s3_datasource_configs} sends {@code NOTIFY s3_datasource_configs}
+ * with the datasource id whenever a row is inserted, updated or deleted, once the
+ * change commits. This listener holds one connection of the reactive pool with
+ * {@code LISTEN} on that channel, and has {@link DatasourceConfigService#refresh(String)}
+ * re-read each changed datasource, which also closes its S3 client if the
+ * configuration changed. Notifications are not queued while the connection is down,
+ * so after reconnecting every cached datasource is refreshed.
+ * </p>
+ */
+@ApplicationScoped
+public class DatasourceChangeListener {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public DatasourceChangeListener() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(DatasourceChangeListener.class);
+
+    /** Channel the {@code s3_datasource_configs} trigger notifies. */
+    static final String CHANNEL = "s3_datasource_configs";
+
+    private static final long INITIAL_RETRY_DELAY_MS = 1_000;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    @Inject
+    Pool pool;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    DatasourceConfigService datasourceConfigService;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    private volatile boolean stopped;
+    private volatile PgConnection connection;
+    private volatile long retryDelayMs = INITIAL_RETRY_DELAY_MS;
+
+    void onStart(@Observes StartupEvent event) {
+        if (config.datasourceCache().listen()) {
+            connect(false);
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        stopped = true;
+        PgConnection current = connection;
+        if (current != null) {
+            current.closeAndForget();
+        }
+    }
+
+    private void connect(boolean reconnect) {
+        if (stopped) {
+            return;
+        }
+        pool.getConnection()
+            .map(PgConnection::cast)
+            .flatMap(conn -> {
+                conn.notificationHandler(notification -> {
+                    if (CHANNEL.equals(notification.getChannel())) {
+                        refresh(notification.getPayload());
+                    }
+                });
+                return conn.query("LISTEN " + CHANNEL).execute()
+                    .replaceWith(conn)
+                    .onFailure().call(conn::close);
+            })
+            .subscribe().with(
+                conn -> {
+                    conn.closeHandler(() -> {
+                        connection = null;
+                        if (!stopped) {
+                            LOG.warnf("Lost the %s listener connection, reconnecting", CHANNEL);
+                            scheduleReconnect();
+                        }
+                    });
+                    connection = conn;
+                    retryDelayMs = INITIAL_RETRY_DELAY_MS;
+                    LOG.infof("Listening for datasource config changes on %s", CHANNEL);
+                    if (reconnect) {
+                        // Changes made while disconnected were not delivered.
+                        datasourceConfigService.cachedDatasourceIds().forEach(this::refresh);
+                    }
+                },
+                error -> {
+                    LOG.warnf(error, "Could not listen on %s, retrying in %d ms", CHANNEL, retryDelayMs);
+                    scheduleReconnect();
+                });
+    }
+
+    private void scheduleReconnect() {
+        if (stopped) {
+            return;
+        }
+        long delay = retryDelayMs;
+        retryDelayMs = Math.min(MAX_RETRY_DELAY_MS, delay * 2);
+        vertx.setTimer(delay, ignored -> connect(true));
+    }
+
+    private void refresh(String datasourceId) {
+        if (datasourceId == null || datasourceId.isBlank()) {
+            return;
+        }
+        datasourceConfigService.refresh(datasourceId).subscribe().with(
+            ignored -> LOG.debugf("Refreshed datasource config after change notification: %s", datasourceId),
+            error -> LOG.warnf(error, "Failed to refresh datasource config %s after change notification", datasourceId));
+    }
+}
@@ -1,18 +1,32 @@
 package ai.pipestream.connector.s3.service;
 
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
 import ai.pipestream.connector.s3.entity.DatasourceConfigEntity;
 import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowIterator;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service for managing datasource configurations in S3 connector deployments.
@@ -29,6 +43,17 @@ import java.util.concurrent.ConcurrentHashMap;
  * Changes to configuration automatically invalidate cached S3 clients to
  * ensure connection parameters are refreshed.
  * </p>
+ * <p>
+ * Lookups run for every crawl event, so they stay off Hibernate Reactive: a
+ * fresh cache entry is returned without any database work, and a stale or
+ * missing one is read through the reactive SQL pool without a transaction.
+ * Concurrent lookups of the same datasource share that one read. Datasources
+ * found not to be registered are remembered for
+ * {@code s3.connector.datasource-cache.negative-ttl}. Lookups are counted in
+ * {@code s3.datasource.config.cache.requests}, tagged with their result.
+ * Changes made through other replicas arrive through {@link #refresh(String)},
+ * called by the {@link DatasourceChangeListener}.
+ * </p>
  *
  * <h2>Thread Safety</h2>
  * <p>
@@ -55,16 +80,72 @@ public class DatasourceConfigService {
     @Inject
     ObjectMapper objectMapper;
 
-    // In-memory cache for performance
-    private final ConcurrentHashMap<String, DatasourceConfig> configCache = new ConcurrentHashMap<>();
+    @Inject
+    Pool pool;
+
+    @Inject
+    S3ConnectorConfig connectorConfig;
+
+    @Inject
+    MeterRegistry registry;
+
+    private static final String SELECT_CONFIG = """
+        SELECT api_key, s3_config::text AS s3_config
+        FROM s3_datasource_configs
+        WHERE datasource_id = $1
+        """;
+
+    // In-memory cache for performance; an entry without a config marks an unregistered datasource
+    private final ConcurrentHashMap<String, CachedConfig> configCache = new ConcurrentHashMap<>();
+    // Loads in progress, shared by concurrent lookups of the same datasource
+    private final ConcurrentHashMap<String, Uni<DatasourceConfig>> loads = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter negativeHits;
+    private Counter misses;
+    private Counter writtenRegistrations;
+    private Counter unchangedRegistrations;
+
+    @PostConstruct
+    void initMetrics() {
+        hits = cacheRequests("hit");
+        negativeHits = cacheRequests("negative-hit");
+        misses = cacheRequests("miss");
+        writtenRegistrations = registrations("written");
+        unchangedRegistrations = registrations("unchanged");
+        Gauge.builder("s3.datasource.config.cache.size", configCache, ConcurrentHashMap::size)
+            .description("Datasource configurations held in memory, including unregistered markers")
+            .register(registry);
+    }
+
+    private Counter registrations(String result) {
+        return Counter.builder("s3.datasource.config.registrations")
+            .description("Datasource configuration registrations, by whether they changed the stored configuration")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private Counter cacheRequests(String result) {
+        return Counter.builder("s3.datasource.config.cache.requests")
+            .description("Datasource configuration lookups by cache result")
+            .tag("result", result)
+            .register(registry);
+    }
 
     /**
      * Registers or updates a datasource configuration.
      * <p>
      * This method persists the datasource configuration to the database and updates
      * the in-memory cache. If the configuration for the datasource already exists
-     * and has changed, any cached S3 client for that datasource is automatically
-     * invalidated to ensure connection parameters are refreshed.
+     * and its connection settings have changed, any cached S3 client for that
+     * datasource is automatically invalidated to ensure connection parameters are
+     * refreshed; a changed API key alone keeps the client.
+     * </p>
+     * <p>
+     * Callers register on every crawl request, so unchanged registrations are
+     * detected by a hash of the API key and S3 configuration: one matching a fresh
+     * cache entry returns without touching the database, and one matching the stored
+     * row is not written again.
      * </p>
      *
      * @param datasourceId the unique identifier for the datasource
@@ -74,7 +155,6 @@ public class DatasourceConfigService {
      * @throws IllegalArgumentException if any parameter is null, blank, or invalid
      * @since 1.0.0
      */
-    @WithTransaction
     public Uni<Void> registerDatasourceConfig(String datasourceId, String apiKey, S3ConnectionConfig s3Config) {
         if (datasourceId == null || datasourceId.isBlank()) {
             throw new IllegalArgumentException("Datasource ID is required");
@@ -86,47 +166,56 @@ public class DatasourceConfigService {
             throw new IllegalArgumentException("S3ConnectionConfig is required for datasource: " + datasourceId);
         }
 
-        return Uni.createFrom().item(() -> {
-            try {
-                // Use Protobuf's JsonFormat for serializing protobuf messages
-                String s3ConfigJson = JsonFormat.printer().print(s3Config);
-                return new Object[]{s3ConfigJson, new DatasourceConfig(datasourceId, apiKey, s3Config)};
-            } catch (InvalidProtocolBufferException e) {
-                throw new RuntimeException("Failed to serialize S3 config", e);
-            }
-        }).flatMap(tuple -> {
-            String s3ConfigJson = (String) tuple[0];
-            DatasourceConfig newConfig = (DatasourceConfig) tuple[1];
-
-            // Check if config already exists and has changed
-            DatasourceConfig existing = configCache.get(datasourceId);
-            if (existing != null && !existing.equals(newConfig)) {
-                // Config changed, invalidate cached client
-                LOG.infof("Datasource config changed for %s, invalidating cached S3 client", datasourceId);
-                clientFactory.closeClient(datasourceId);
-            }
+        DatasourceConfig newConfig = new DatasourceConfig(datasourceId, apiKey, s3Config);
+        String newHash = contentHash(newConfig);
 
-            // Save to database
-            return DatasourceConfigEntity.<DatasourceConfigEntity>findById(datasourceId)
+        // Unchanged and known to be current: nothing to do
+        CachedConfig cached = configCache.get(datasourceId);
+        if (cached != null && cached.config() != null && cached.isFresh(System.nanoTime())
+                && newHash.equals(cached.contentHash())) {
+            unchangedRegistrations.increment();
+            return Uni.createFrom().voidItem();
+        }
+
+        final String s3ConfigJson;
+        try {
+            // Use Protobuf's JsonFormat for serializing protobuf messages
+            s3ConfigJson = JsonFormat.printer().print(s3Config);
+        } catch (InvalidProtocolBufferException e) {
+            return Uni.createFrom().failure(new RuntimeException("Failed to serialize S3 config", e));
+        }
+
+        // Save to database
+        return Panache.withTransaction(() -> DatasourceConfigEntity.<DatasourceConfigEntity>findById(datasourceId)
                 .flatMap(existingEntity -> {
-                    if (existingEntity != null) {
-                        // Update existing
-                        existingEntity.updateS3Config(s3ConfigJson);
-                        existingEntity.updateApiKey(apiKey);
-                        return existingEntity.<DatasourceConfigEntity>persist();
-                    } else {
+                    if (existingEntity == null) {
                         // Create new
                         DatasourceConfigEntity newEntity = new DatasourceConfigEntity(datasourceId, apiKey, s3ConfigJson);
-                        return newEntity.<DatasourceConfigEntity>persist();
+                        return newEntity.<DatasourceConfigEntity>persist().replaceWith(Boolean.TRUE);
+                    }
+                    DatasourceConfig stored = parseStored(datasourceId, existingEntity.apiKey, existingEntity.s3ConfigJson);
+                    if (stored != null && newHash.equals(contentHash(stored))) {
+                        // Same content already stored (e.g. registered through another replica)
+                        return Uni.createFrom().item(Boolean.FALSE);
                     }
-                })
-                .invoke(() -> {
-                    // Update cache
-                    configCache.put(datasourceId, newConfig);
-                    LOG.debugf("Registered datasource config: datasourceId=%s", datasourceId);
-                })
-                .replaceWithVoid();
-        });
+                    if (stored == null || !connectionHash(stored.s3Config()).equals(connectionHash(s3Config))) {
+                        // Connection settings changed, invalidate cached client
+                        LOG.infof("Datasource config changed for %s, invalidating cached S3 client", datasourceId);
+                        clientFactory.closeClient(datasourceId);
+                    }
+                    // Update existing
+                    existingEntity.updateS3Config(s3ConfigJson);
+                    existingEntity.updateApiKey(apiKey);
+                    return existingEntity.<DatasourceConfigEntity>persist().replaceWith(Boolean.TRUE);
+                }))
+            .invoke(written -> {
+                (written ? writtenRegistrations : unchangedRegistrations).increment();
+                // Update cache; a load still in flight read the row before this write
+                loads.remove(datasourceId);
+                cache(datasourceId, newConfig);
+                LOG.debugf("Registered datasource config: datasourceId=%s, written=%s", datasourceId, written);
+            })
+            .replaceWithVoid();
     }
 
     /**
@@ -134,7 +223,7 @@ public class DatasourceConfigService {
      * <p>
      * Returns the complete datasource configuration including the API key
      * and S3 connection parameters. First checks the in-memory cache, then
-     * loads from database if not found. The datasource must have been previously
+     * loads from database if not found or expired. The datasource must have been previously
      * registered using {@link #registerDatasourceConfig(String, String, S3ConnectionConfig)}.
      * </p>
      *
@@ -144,7 +233,6 @@ public class DatasourceConfigService {
      *         or {@link IllegalStateException} if no configuration is registered
      * @since 1.0.0
      */
-    @WithTransaction
     public Uni<DatasourceConfig> getDatasourceConfig(String datasourceId) {
         LOG.debugf("Getting datasource config: datasourceId=%s", datasourceId);
 
@@ -153,36 +241,174 @@ public class DatasourceConfigService {
         }
 
         // Check cache first
-        DatasourceConfig cached = configCache.get(datasourceId);
-        if (cached != null) {
-            return Uni.createFrom().item(cached);
+        CachedConfig cached = configCache.get(datasourceId);
+        if (cached != null && cached.isFresh(System.nanoTime())) {
+            if (cached.config() == null) {
+                negativeHits.increment();
+                return Uni.createFrom().failure(notRegistered(datasourceId));
+            }
+            hits.increment();
+            return Uni.createFrom().item(cached.config());
         }
 
-        // Load from database
-        return DatasourceConfigEntity.<DatasourceConfigEntity>findById(datasourceId)
-            .flatMap(entity -> {
-                if (entity == null) {
-                    return Uni.createFrom().failure(new IllegalStateException(
-                        "Datasource config not registered for datasourceId=" + datasourceId));
+        // Load from database, sharing a load already in progress
+        misses.increment();
+        return loads.computeIfAbsent(datasourceId, this::load)
+            .flatMap(config -> config == null
+                ? Uni.createFrom().failure(notRegistered(datasourceId))
+                : Uni.createFrom().item(config));
+    }
+
+    /**
+     * Reads a datasource configuration from the database and caches it, or caches
+     * that it is missing. The returned Uni is memoized so every lookup waiting on
+     * it shares the one read, and it emits {@code null} for a missing datasource.
+     */
+    private Uni<DatasourceConfig> load(String datasourceId) {
+        AtomicReference<Uni<DatasourceConfig>> self = new AtomicReference<>();
+        Uni<DatasourceConfig> load = pool.preparedQuery(SELECT_CONFIG)
+            .execute(Tuple.of(datasourceId))
+            .map(rows -> {
+                RowIterator<Row> iterator = rows.iterator();
+                return iterator.hasNext() ? toConfig(datasourceId, iterator.next()) : null;
+            })
+            .onItem().invoke(config -> {
+                // Only the load still registered may cache: a registration since
+                // then has removed it and cached the newer config.
+                if (loads.remove(datasourceId, self.get())) {
+                    cache(datasourceId, config);
                 }
+            })
+            .onFailure().invoke(() -> loads.remove(datasourceId, self.get()))
+            .memoize().indefinitely();
+        self.set(load);
+        return load;
+    }
 
-                try {
-                    // Use Protobuf's JsonFormat for deserializing protobuf messages
-                    S3ConnectionConfig.Builder builder = S3ConnectionConfig.newBuilder();
-                    JsonFormat.parser().merge(entity.s3ConfigJson, builder);
-                    S3ConnectionConfig s3Config = builder.build();
+    /**
+     * Re-reads a datasource configuration after it changed in the database,
+     * possibly through another replica.
+     * <p>
+     * The cache entry is replaced with what the database now holds (or marked
+     * missing if the row is gone), and the cached S3 client is closed unless the
+     * connection settings are unchanged, as they are for this replica's own
+     * registrations and for API key changes.
+     * </p>
+     *
+     * @param datasourceId the datasource whose row changed
+     * @return a Uni that completes once the cache holds the current configuration
+     */
+    public Uni<Void> refresh(String datasourceId) {
+        CachedConfig previous = configCache.get(datasourceId);
+        Uni<DatasourceConfig> load = load(datasourceId);
+        loads.put(datasourceId, load);
+        return load
+            .invoke(config -> {
+                if (previous == null || previous.config() == null || config == null
+                        || !connectionHash(previous.config().s3Config()).equals(connectionHash(config.s3Config()))) {
+                    LOG.infof("Datasource config changed for %s, invalidating cached S3 client", datasourceId);
+                    clientFactory.closeClient(datasourceId);
+                }
+            })
+            .replaceWithVoid();
+    }
 
-                    DatasourceConfig config = new DatasourceConfig(datasourceId, entity.apiKey, s3Config);
+    /**
+     * @return ids of the datasources with a cached lookup result
+     */
+    public java.util.Set<String> cachedDatasourceIds() {
+        return java.util.Set.copyOf(configCache.keySet());
+    }
 
-                    // Cache for future use
-                    configCache.put(datasourceId, config);
+    private static DatasourceConfig toConfig(String datasourceId, Row row) {
+        try {
+            // Use Protobuf's JsonFormat for deserializing protobuf messages
+            S3ConnectionConfig.Builder builder = S3ConnectionConfig.newBuilder();
+            JsonFormat.parser().merge(row.getString("s3_config"), builder);
+            return new DatasourceConfig(datasourceId, row.getString("api_key"), builder.build());
+        } catch (InvalidProtocolBufferException e) {
+            throw new RuntimeException("Failed to deserialize S3 config for datasourceId=" + datasourceId, e);
+        }
+    }
 
-                    return Uni.createFrom().item(config);
-                } catch (InvalidProtocolBufferException e) {
-                    return Uni.createFrom().failure(new RuntimeException(
-                        "Failed to deserialize S3 config for datasourceId=" + datasourceId, e));
-                }
-            });
+    /**
+     * Parses a stored row for comparison, or returns {@code null} if it cannot be
+     * parsed, in which case it is overwritten.
+     */
+    private static DatasourceConfig parseStored(String datasourceId, String apiKey, String s3ConfigJson) {
+        try {
+            S3ConnectionConfig.Builder builder = S3ConnectionConfig.newBuilder();
+            JsonFormat.parser().merge(s3ConfigJson, builder);
+            return new DatasourceConfig(datasourceId, apiKey, builder.build());
+        } catch (InvalidProtocolBufferException | RuntimeException e) {
+            LOG.warnf(e, "Stored S3 config for datasourceId=%s is unreadable, overwriting it", datasourceId);
+            return null;
+        }
+    }
+
+    /**
+     * Hashes everything a registration stores: the API key and the S3 configuration.
+     */
+    static String contentHash(DatasourceConfig config) {
+        MessageDigest digest = sha256();
+        digest.update(config.apiKey().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(config.s3Config().toByteArray());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hashes the settings {@link S3ClientFactory} builds a client from; a change
+     * to any other field keeps the cached client.
+     */
+    static String connectionHash(S3ConnectionConfig s3Config) {
+        MessageDigest digest = sha256();
+        for (String field : new String[]{
+                s3Config.getCredentialsType(),
+                s3Config.getAccessKeyId(),
+                s3Config.getSecretAccessKey(),
+                s3Config.getKmsAccessKeyRef(),
+                s3Config.getKmsSecretKeyRef(),
+                s3Config.getRegion(),
+                s3Config.getEndpointOverride(),
+                Boolean.toString(s3Config.getPathStyleAccess())}) {
+            digest.update(field.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private void cache(String datasourceId, DatasourceConfig config) {
+        S3ConnectorConfig.DatasourceCacheConfig settings = connectorConfig.datasourceCache();
+        long ttlNanos = (config != null ? settings.ttl() : settings.negativeTtl()).toNanos();
+        configCache.put(datasourceId, new CachedConfig(config, config != null ? contentHash(config) : null,
+            System.nanoTime() + ttlNanos));
+    }
+
+    private static IllegalStateException notRegistered(String datasourceId) {
+        return new IllegalStateException("Datasource config not registered for datasourceId=" + datasourceId);
+    }
+
+    /**
+     * A cached lookup result.
+     *
+     * @param config         the configuration, or {@code null} if the datasource is not registered
+     * @param contentHash    {@link #contentHash(DatasourceConfig)} of the configuration, {@code null} if missing
+     * @param expiresAtNanos {@link System#nanoTime()} after which the entry is reloaded
+     */
+    private record CachedConfig(DatasourceConfig config, String contentHash, long expiresAtNanos) {
+
+        boolean isFresh(long nowNanos) {
+            return nowNanos - expiresAtNanos < 0;
+        }
     }
 
     /**
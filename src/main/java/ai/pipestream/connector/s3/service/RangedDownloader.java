@@ -0,0 +1,188 @@
+package ai.pipestream.connector.s3.service;
+
+import ai.pipestream.connector.s3.buffer.BufferArena;
+import ai.pipestream.connector.s3.buffer.PooledBuffer;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import mutiny.zero.flow.adapters.AdaptersToFlow;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Downloads large objects as concurrent byte-range GETs, reassembled in order.
+ * <p>
+ * A single GET is bound to one connection's throughput. For objects of at least
+ * {@code s3.connector.consumer.ranged-download-threshold-bytes}, the object is
+ * first HEADed for its size, type, ETag and stored checksum, then read as
+ * consecutive ranges, up to {@code ranged-download-concurrency} of them in flight.
+ * Ranges follow the object's multipart part boundaries when it was uploaded in
+ * parts of at most four times {@code ranged-download-part-bytes} (learned from a
+ * HEAD of part 1), and are {@code ranged-download-part-bytes} long otherwise.
+ * Every range GET carries {@code If-Match} with the ETag, so an object replaced
+ * mid-download fails instead of mixing two versions.
+ * </p>
+ * <p>
+ * The caller gets an ordinary {@link ResponseInputStream} whose response carries
+ * the HEAD's metadata. The stream hands out ranges in order and starts the next
+ * range as soon as one is consumed. Each range waits for a pooled buffer from the
+ * {@link BufferArena} before its GET is issued and hands it back once read, so
+ * ranges count against the buffer budget, and a range whose body is not exactly
+ * its length fails the download. The SDK does not verify ranged bodies against the stored checksum, so
+ * the stream does: when S3 holds a full-object SHA-256, the ranges are hashed as
+ * they are reassembled and the stream fails, before handing out any byte of the
+ * last range, if the digest does not match. Only a checksum verified this way is
+ * put on the response; composite checksums of multipart uploads are left off.
+ * </p>
+ */
+@ApplicationScoped
+public class RangedDownloader {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public RangedDownloader() {
+    }
+
+    /** Largest multiple of the configured range size that multipart parts are used as ranges up to. */
+    private static final int MAX_PART_RANGE_FACTOR = 4;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    BufferArena bufferArena;
+
+    /**
+     * Checks whether an object of the given listed size is downloaded in ranges.
+     *
+     * @param sizeBytes object size from the crawl event
+     * @return {@code true} if ranged downloads are enabled and the object is large enough
+     */
+    public boolean applies(long sizeBytes) {
+        S3ConnectorConfig.ConsumerConfig consumer = config.consumer();
+        return consumer.rangedDownloads() && sizeBytes >= consumer.rangedDownloadThresholdBytes();
+    }
+
+    /**
+     * Opens an object for a ranged download.
+     *
+     * @param client    S3 client
+     * @param bucket    bucket
+     * @param key       object key
+     * @param versionId version to read, or {@code null} for the current one
+     * @param fallback  download used instead when the object turns out smaller than the threshold
+     * @return a stage completing with the reassembled object stream
+     */
+    public CompletionStage<ResponseInputStream<GetObjectResponse>> open(
+        S3AsyncClient client, String bucket, String key, String versionId,
+        java.util.function.Supplier<CompletionStage<ResponseInputStream<GetObjectResponse>>> fallback) {
+
+        S3ConnectorConfig.ConsumerConfig consumer = config.consumer();
+        HeadObjectRequest.Builder head = HeadObjectRequest.builder().bucket(bucket).key(key);
+        if (versionId != null && !versionId.isEmpty()) {
+            head.versionId(versionId);
+        }
+        if (consumer.nativeChecksums()) {
+            head.checksumMode(ChecksumMode.ENABLED);
+        }
+        return client.headObject(head.build()).thenCompose(object -> {
+            long size = object.contentLength() != null ? object.contentLength() : 0L;
+            if (size < consumer.rangedDownloadThresholdBytes()) {
+                return fallback.get();
+            }
+            return rangeSize(client, bucket, key, object, head).thenApply(rangeSize -> {
+                List<long[]> ranges = new ArrayList<>();
+                for (long start = 0; start < size; start += rangeSize) {
+                    ranges.add(new long[]{start, Math.min(size, start + rangeSize) - 1});
+                }
+                byte[] storedSha256 = fullObjectSha256(object.checksumSHA256());
+                GetObjectResponse response = GetObjectResponse.builder()
+                    .contentLength(size)
+                    .contentType(object.contentType())
+                    .eTag(object.eTag())
+                    .versionId(object.versionId())
+                    .lastModified(object.lastModified())
+                    .checksumSHA256(storedSha256 != null ? object.checksumSHA256() : null)
+                    .build();
+                RangedInputStream stream = new RangedInputStream(ranges,
+                    Math.max(1, consumer.rangedDownloadConcurrency()),
+                    range -> fetchRange(client, bucket, key, object, range),
+                    storedSha256);
+                return new ResponseInputStream<>(response, AbortableInputStream.create(stream, stream::close));
+            });
+        });
+    }
+
+    /**
+     * Decodes a stored full-object SHA-256; composite checksums
+     * ({@code <base64>-<parts>}) and malformed ones yield {@code null}.
+     */
+    static byte[] fullObjectSha256(String checksum) {
+        if (checksum == null || checksum.isBlank() || checksum.contains("-")) {
+            return null;
+        }
+        try {
+            byte[] digest = Base64.getDecoder().decode(checksum);
+            return digest.length == 32 ? digest : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private CompletionStage<Long> rangeSize(S3AsyncClient client, String bucket, String key,
+                                            HeadObjectResponse object, HeadObjectRequest.Builder head) {
+        long configured = Math.max(1, config.consumer().rangedDownloadPartBytes());
+        Integer parts = object.partsCount();
+        boolean multipart = (parts != null && parts > 1) || (object.eTag() != null && object.eTag().contains("-"));
+        if (!multipart) {
+            return CompletableFuture.completedFuture(configured);
+        }
+        return client.headObject(head.partNumber(1).checksumMode((ChecksumMode) null).build())
+            .thenApply(part -> {
+                Long partSize = part.contentLength();
+                return partSize != null && partSize > 0 && partSize <= configured * MAX_PART_RANGE_FACTOR
+                    ? partSize
+                    : configured;
+            })
+            .exceptionally(error -> configured);
+    }
+
+    private CompletableFuture<PooledBuffer> fetchRange(S3AsyncClient client, String bucket, String key,
+                                                       HeadObjectResponse object, long[] range) {
+        GetObjectRequest.Builder get = GetObjectRequest.builder()
+            .bucket(bucket)
+            .key(key)
+            .range("bytes=" + range[0] + "-" + range[1]);
+        if (object.versionId() != null && !object.versionId().isEmpty() && !"null".equals(object.versionId())) {
+            get.versionId(object.versionId());
+        }
+        if (object.eTag() != null) {
+            get.ifMatch(object.eTag());
+        }
+        int length = Math.toIntExact(range[1] - range[0] + 1);
+        return bufferArena.lease(length)
+            .flatMap(buffer -> Uni.createFrom()
+                .completionStage(() -> client.getObject(get.build(), AsyncResponseTransformer.toPublisher()))
+                .flatMap(response -> buffer.fill(
+                    Multi.createFrom().publisher(AdaptersToFlow.publisher(response)), length))
+                .onFailure().invoke(buffer::close)
+                .onCancellation().invoke(buffer::close))
+            .subscribeAsCompletionStage();
+    }
+}
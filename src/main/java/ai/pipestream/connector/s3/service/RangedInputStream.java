@@ -0,0 +1,207 @@
+package ai.pipestream.connector.s3.service;
+
+import ai.pipestream.connector.s3.buffer.PooledBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Reads byte ranges of an object in order while keeping a window of later ranges
+ * downloading, and checks them against the expected SHA-256 if there is one.
+ * <p>
+ * Each range arrives in a {@link PooledBuffer}, which is handed back as soon as
+ * its bytes have been read, so the window bounds the memory the download holds.
+ * A failed range fails the read that reaches it and cancels the rest, as does
+ * {@link #close()}. When a digest is expected, the stream fails before handing
+ * out any byte of the last range if the ranges do not match it, so a reader that
+ * stops at the content length never gets a corrupted body whole. Reads are
+ * serialized with a lock rather than {@code synchronized}, so a virtual thread
+ * waiting for a range does not pin its carrier thread.
+ * </p>
+ */
+public final class RangedInputStream extends InputStream {
+
+    private final List<long[]> ranges;
+    private final int window;
+    private final Function<long[], CompletableFuture<PooledBuffer>> fetch;
+    private final ArrayDeque<CompletableFuture<PooledBuffer>> inFlight = new ArrayDeque<>();
+    private final ReentrantLock readLock = new ReentrantLock();
+    private final byte[] expectedSha256;
+    private final MessageDigest digest;
+    private int nextRange;
+    private PooledBuffer current;
+    private ByteBuffer unread;
+    private volatile CompletableFuture<PooledBuffer> awaited;
+    private volatile boolean closed;
+
+    /**
+     * Creates the stream; no range is fetched before the first read.
+     *
+     * @param ranges         inclusive {@code [first, last]} byte offsets of each range, in object order
+     * @param window         ranges downloading or waiting to be read, besides the one being read
+     * @param fetch          starts the download of a range into a buffer holding exactly its bytes
+     * @param expectedSha256 SHA-256 of the whole object to verify, or {@code null} to skip verification
+     */
+    public RangedInputStream(List<long[]> ranges, int window,
+                             Function<long[], CompletableFuture<PooledBuffer>> fetch,
+                             byte[] expectedSha256) {
+        this.ranges = ranges;
+        this.window = Math.max(1, window);
+        this.fetch = fetch;
+        this.expectedSha256 = expectedSha256;
+        try {
+            this.digest = expectedSha256 != null ? MessageDigest.getInstance("SHA-256") : null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        readLock.lock();
+        try {
+            if (!advance()) {
+                return -1;
+            }
+            return unread.get() & 0xFF;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        readLock.lock();
+        try {
+            if (!advance()) {
+                return -1;
+            }
+            int count = Math.min(len, unread.remaining());
+            unread.get(b, off, count);
+            return count;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the ranges still downloading and hands back every buffer held.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (inFlight) {
+            CompletableFuture<PooledBuffer> waitedFor = awaited;
+            if (waitedFor != null) {
+                waitedFor.cancel(true);
+            }
+            for (CompletableFuture<PooledBuffer> range : inFlight) {
+                range.cancel(true);
+                // Ranges that had already arrived hold a buffer of their own
+                range.thenAccept(PooledBuffer::close);
+            }
+            inFlight.clear();
+        }
+        if (readLock.tryLock()) {
+            try {
+                releaseCurrent();
+            } finally {
+                readLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return number of ranges downloading or downloaded but not yet read
+     */
+    public int inFlight() {
+        synchronized (inFlight) {
+            return inFlight.size();
+        }
+    }
+
+    /**
+     * Makes {@link #unread} hold unread bytes, waiting for the next range if needed.
+     *
+     * @return {@code false} at the end of the object
+     */
+    private boolean advance() throws IOException {
+        if (closed) {
+            releaseCurrent();
+            throw new IOException("Stream closed");
+        }
+        while (unread == null || !unread.hasRemaining()) {
+            releaseCurrent();
+            CompletableFuture<PooledBuffer> next;
+            synchronized (inFlight) {
+                startRanges();
+                next = inFlight.poll();
+                awaited = next;
+            }
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (next == null) {
+                return false;
+            }
+            try {
+                current = next.get();
+                awaited = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException("Interrupted waiting for a ranged GET");
+            } catch (ExecutionException | CompletionException | CancellationException e) {
+                close();
+                throw new IOException("Ranged GET failed", e.getCause() != null ? e.getCause() : e);
+            }
+            unread = current.contents();
+            if (closed) {
+                releaseCurrent();
+                throw new IOException("Stream closed");
+            }
+            boolean last;
+            synchronized (inFlight) {
+                startRanges();
+                last = inFlight.isEmpty() && nextRange == ranges.size();
+            }
+            if (digest != null) {
+                current.digest(digest);
+                if (last && !MessageDigest.isEqual(digest.digest(), expectedSha256)) {
+                    close();
+                    throw new IOException("Ranged download does not match the object's stored SHA-256");
+                }
+            }
+        }
+        return true;
+    }
+
+    private void startRanges() {
+        while (!closed && inFlight.size() < window && nextRange < ranges.size()) {
+            inFlight.add(fetch.apply(ranges.get(nextRange++)));
+        }
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            current.close();
+            current = null;
+            unread = null;
+        }
+    }
+}
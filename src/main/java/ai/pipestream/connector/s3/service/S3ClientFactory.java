@@ -1,20 +1,35 @@
 package ai.pipestream.connector.s3.service;
 
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
 import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.Cancellable;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Configuration;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Factory for creating and managing {@link S3AsyncClient} instances per datasource.
@@ -27,10 +42,28 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * <h2>Client Caching</h2>
  * <p>
- * Production clients (created via {@link #getOrCreateClient(String, S3ConnectionConfig)})
+ * Production clients (used via {@link #withClient(String, S3ConnectionConfig, Function)})
  * are cached by datasource ID to improve performance and reduce connection overhead.
  * The cache is invalidated when datasource configurations change.
  * </p>
+ * <p>
+ * Creation is single-flight: concurrent requests for a datasource without a
+ * client share one creation, so a burst of events for a new datasource builds
+ * one client. The cache holds at most {@code s3.connector.clients.max-cached}
+ * clients, evicting the least recently used, and evicts clients unused for
+ * {@code s3.connector.clients.idle-ttl}; a client leased by a crawl or transfer
+ * is never idle. Each use holds a lease on the client, so an evicted or
+ * invalidated client stays open until its last lease is released, and no
+ * sooner than {@code s3.connector.clients.close-grace} after it was retired; it
+ * is then closed off the caller's thread. The number of cached clients and
+ * the creation latency are exported as {@code s3.clients.cached} and
+ * {@code s3.client.creation}.
+ * </p>
+ * <p>
+ * All clients run on the event loop group of {@link S3HttpClients}, and cached
+ * clients of datasources with the same endpoint and credentials share its
+ * connection pool; test clients get a pool of their own, closed with them.
+ * </p>
  *
  * <h2>Credential Resolution</h2>
  * <p>
@@ -64,40 +97,292 @@ public class S3ClientFactory {
     @Inject
     KmsService kmsService;
 
+    @Inject
+    S3ConnectorConfig connectorConfig;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    S3HttpClients httpClients;
+
     // Cache clients per datasource to avoid recreating them
-    private final Map<String, S3AsyncClient> datasourceClientCache = new ConcurrentHashMap<>();
+    private final Map<String, CachedClient> datasourceClientCache = new ConcurrentHashMap<>();
+    // Clients retired and created but not closed yet
+    private final AtomicInteger retiredOpen = new AtomicInteger();
+
+    private volatile Timer creationTimer;
+    private volatile Cancellable idleSweeper;
+
+    void onStart(@Observes StartupEvent event) {
+        creationTimer = Timer.builder("s3.client.creation")
+            .description("Time to create a datasource S3 client, including credential resolution")
+            .register(registry);
+        Gauge.builder("s3.clients.cached", datasourceClientCache, Map::size)
+            .description("Datasource S3 clients cached or being created")
+            .register(registry);
+        Duration idleTtl = connectorConfig.clients().idleTtl();
+        Duration sweep = idleTtl.dividedBy(4);
+        if (sweep.compareTo(Duration.ofSeconds(1)) < 0) {
+            sweep = Duration.ofSeconds(1);
+        } else if (sweep.compareTo(Duration.ofMinutes(1)) > 0) {
+            sweep = Duration.ofMinutes(1);
+        }
+        idleSweeper = Multi.createFrom().ticks().every(sweep)
+            .onOverflow().drop()
+            .subscribe().with(
+                ignored -> evictIdle(System.nanoTime()),
+                error -> LOG.errorf(error, "S3 client idle eviction stopped"));
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        Cancellable sweeper = idleSweeper;
+        if (sweeper != null) {
+            sweeper.cancel();
+        }
+        closeAll();
+    }
+
+    /**
+     * A cache entry: the shared creation of one datasource's client and its leases.
+     * The lease count and closing state are guarded by the entry's monitor.
+     */
+    private static final class CachedClient {
+
+        final String datasourceId;
+        Uni<S3AsyncClient> creation;
+        volatile S3AsyncClient client;
+        volatile S3HttpClients.Lease httpLease;
+        volatile long lastUsedNanos = System.nanoTime();
+        volatile boolean retired;
+        int leases;
+        boolean graceElapsed;
+        boolean closeScheduled;
+        boolean closed;
+
+        CachedClient(String datasourceId) {
+            this.datasourceId = datasourceId;
+        }
+
+        synchronized boolean leased() {
+            return leases > 0;
+        }
+    }
 
     /**
-     * Gets or creates a cached {@link S3AsyncClient} for the specified datasource.
+     * Runs {@code action} with the cached {@link S3AsyncClient} of the specified
+     * datasource, creating the client if there is none.
      * <p>
-     * This method returns a cached client if one exists for the datasource,
-     * otherwise creates a new client and caches it for future use. The client
-     * is configured based on the provided S3 connection configuration.
+     * The client is leased when the returned Uni is subscribed and released when
+     * the action terminates, fails or is cancelled; it must not be used after that.
+     * A client evicted or invalidated while leased is closed only once every lease
+     * is released. The client is configured based on the provided S3 connection
+     * configuration.
      * </p>
      *
      * @param datasourceId the unique identifier for the datasource
      * @param config the S3 connection configuration (required, cannot be null)
-     * @return a {@link Uni} that completes with the configured {@link S3AsyncClient}
+     * @param action the work to run with the client
+     * @param <T> the action's result type
+     * @return a {@link Uni} that completes with the action's result
      * @throws IllegalArgumentException if config is null
      * @since 1.0.0
      */
-    public Uni<S3AsyncClient> getOrCreateClient(String datasourceId, S3ConnectionConfig config) {
+    public <T> Uni<T> withClient(String datasourceId, S3ConnectionConfig config,
+                                 Function<S3AsyncClient, Uni<T>> action) {
         if (config == null) {
             throw new IllegalArgumentException("S3ConnectionConfig is required for datasource: " + datasourceId);
         }
+        return Uni.createFrom().deferred(() -> {
+            CachedClient entry = lease(datasourceId, config);
+            S3AsyncClient cached = entry.client;
+            Uni<S3AsyncClient> client = cached != null ? Uni.createFrom().item(cached) : entry.creation;
+            return client.flatMap(action)
+                .onTermination().invoke(() -> release(entry));
+        });
+    }
+
+    /**
+     * Takes a lease on the datasource's cache entry, adding the entry if there is
+     * none. An entry closed since it was looked up is no longer cached, so the
+     * lookup is repeated.
+     */
+    private CachedClient lease(String datasourceId, S3ConnectionConfig config) {
+        while (true) {
+            CachedClient entry = datasourceClientCache.get(datasourceId);
+            if (entry == null) {
+                CachedClient created = newEntry(datasourceId, config);
+                entry = datasourceClientCache.computeIfAbsent(datasourceId, id -> created);
+                if (entry == created) {
+                    evictOverCapacity(entry);
+                }
+            }
+            synchronized (entry) {
+                if (entry.closed) {
+                    continue;
+                }
+                entry.leases++;
+            }
+            entry.lastUsedNanos = System.nanoTime();
+            return entry;
+        }
+    }
 
-        S3AsyncClient cached = datasourceClientCache.get(datasourceId);
-        if (cached != null) {
-            return Uni.createFrom().item(cached);
+    private void release(CachedClient entry) {
+        entry.lastUsedNanos = System.nanoTime();
+        boolean close;
+        synchronized (entry) {
+            entry.leases--;
+            close = closeIfUnused(entry);
         }
+        if (close) {
+            closeOffThread(entry);
+        }
+    }
 
-        return createClientAsync(config, "datasource-" + datasourceId)
-            .map(client -> {
-                datasourceClientCache.put(datasourceId, client);
-                return client;
+    /**
+     * Marks a retired entry closed once its grace period has passed and its last
+     * lease is released; the caller then closes it. Called holding the entry's monitor.
+     */
+    private static boolean closeIfUnused(CachedClient entry) {
+        if (entry.closed || !entry.graceElapsed || entry.leases > 0) {
+            return false;
+        }
+        entry.closed = true;
+        return true;
+    }
+
+    /**
+     * @return clients evicted or invalidated but not yet closed, because they are
+     *         still leased or within their close grace period
+     */
+    public int retiredClients() {
+        return retiredOpen.get();
+    }
+
+    /**
+     * Prepares the single, shared creation of a datasource's client; nothing is
+     * created until the entry is cached and its creation subscribed.
+     */
+    private CachedClient newEntry(String datasourceId, S3ConnectionConfig config) {
+        CachedClient entry = new CachedClient(datasourceId);
+        entry.creation = Uni.createFrom().item(() -> System.nanoTime())
+            .flatMap(start -> {
+                S3HttpClients.Lease lease = httpClients.acquire(datasourceId, config);
+                return createClientAsync(config, "datasource-" + datasourceId, lease.client())
+                    .onFailure().invoke(lease::release)
+                    .invoke(client -> {
+                        Timer timer = creationTimer;
+                        if (timer != null) {
+                            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                        entry.httpLease = lease;
+                        entry.client = client;
+                        if (entry.retired) {
+                            // Evicted or invalidated while being created
+                            scheduleClose(entry);
+                        }
+                    });
+            })
+            .onFailure().invoke(error -> {
+                LOG.warnf(error, "Failed to create S3AsyncClient for datasource: %s", datasourceId);
+                datasourceClientCache.remove(datasourceId, entry);
+            })
+            .memoize().indefinitely();
+        return entry;
+    }
+
+    private void evictOverCapacity(CachedClient added) {
+        int max = Math.max(1, connectorConfig.clients().maxCached());
+        while (datasourceClientCache.size() > max) {
+            CachedClient eldest = null;
+            for (CachedClient candidate : datasourceClientCache.values()) {
+                if (candidate != added && (eldest == null || candidate.lastUsedNanos - eldest.lastUsedNanos < 0)) {
+                    eldest = candidate;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            if (datasourceClientCache.remove(eldest.datasourceId, eldest)) {
+                LOG.infof("Evicting least recently used S3AsyncClient for datasource: %s", eldest.datasourceId);
+                retire(eldest);
+            }
+        }
+    }
+
+    private void evictIdle(long nowNanos) {
+        long idleNanos = connectorConfig.clients().idleTtl().toNanos();
+        for (CachedClient entry : datasourceClientCache.values()) {
+            if (nowNanos - entry.lastUsedNanos > idleNanos && !entry.leased()
+                    && datasourceClientCache.remove(entry.datasourceId, entry)) {
+                LOG.infof("Evicting idle S3AsyncClient for datasource: %s", entry.datasourceId);
+                retire(entry);
+            }
+        }
+    }
+
+    /**
+     * Marks a removed entry's client for closing, now if it exists or as soon as its creation completes.
+     */
+    private void retire(CachedClient entry) {
+        entry.retired = true;
+        if (entry.client != null) {
+            scheduleClose(entry);
+        }
+    }
+
+    /**
+     * Starts a retired client's grace period, after which it is closed as soon as
+     * no lease holds it.
+     */
+    private void scheduleClose(CachedClient entry) {
+        synchronized (entry) {
+            if (entry.closeScheduled) {
+                return;
+            }
+            entry.closeScheduled = true;
+        }
+        retiredOpen.incrementAndGet();
+        Uni.createFrom().voidItem()
+            .onItem().delayIt().by(connectorConfig.clients().closeGrace())
+            .subscribe().with(ignored -> {
+                boolean close;
+                synchronized (entry) {
+                    entry.graceElapsed = true;
+                    close = closeIfUnused(entry);
+                }
+                if (close) {
+                    close(entry);
+                }
             });
     }
 
+    /**
+     * Closes a client whose last lease was just released, off the releasing thread,
+     * which may be an SDK or event loop thread of that very client.
+     */
+    private void closeOffThread(CachedClient entry) {
+        Uni.createFrom().voidItem()
+            .emitOn(Infrastructure.getDefaultWorkerPool())
+            .subscribe().with(ignored -> close(entry));
+    }
+
+    private void close(CachedClient entry) {
+        try {
+            entry.client.close();
+            LOG.infof("Closed S3AsyncClient for datasource: %s", entry.datasourceId);
+        } catch (Exception e) {
+            LOG.warnf(e, "Error closing S3AsyncClient for datasource: %s", entry.datasourceId);
+        }
+        // A shared HTTP client is not closed with the S3 client; drop its reference
+        S3HttpClients.Lease lease = entry.httpLease;
+        if (lease != null) {
+            lease.release();
+        }
+        retiredOpen.decrementAndGet();
+    }
+
     /**
      * Creates a temporary {@link S3AsyncClient} for testing purposes.
      * <p>
@@ -115,7 +400,7 @@ public class S3ClientFactory {
         if (config == null) {
             throw new IllegalArgumentException("S3ConnectionConfig is required for test client");
         }
-        return createClientAsync(config, "test-client");
+        return createClientAsync(config, "test-client", null);
     }
 
     /**
@@ -125,9 +410,11 @@ public class S3ClientFactory {
      *
      * @param config S3 connection configuration (guaranteed non-null)
      * @param clientName name for logging purposes
+     * @param sharedHttpClient shared HTTP client to use, or {@code null} for one owned by the S3 client
      * @return Uni containing configured S3AsyncClient
      */
-    private Uni<S3AsyncClient> createClientAsync(S3ConnectionConfig config, String clientName) {
+    private Uni<S3AsyncClient> createClientAsync(S3ConnectionConfig config, String clientName,
+                                                 SdkAsyncHttpClient sharedHttpClient) {
         LOG.infof("DEBUG: Starting S3AsyncClient creation for %s", clientName);
 
         // Region (default to us-east-1 if not specified)
@@ -154,6 +441,13 @@ public class S3ClientFactory {
                     .pathStyleAccessEnabled(pathStyleAccess)
                     .build());
 
+                // Netty HTTP client on the shared event loop group
+                if (sharedHttpClient != null) {
+                    builder.httpClient(sharedHttpClient);
+                } else {
+                    builder.httpClientBuilder(httpClients.ownedClientBuilder());
+                }
+
                 S3AsyncClient client = builder.build();
                 LOG.infof("DEBUG: Successfully created S3AsyncClient for %s", clientName);
                 return client;
@@ -219,21 +513,17 @@ public class S3ClientFactory {
      * <p>
      * This method should be called when a datasource's configuration changes
      * to ensure that subsequent client requests use the updated configuration.
-     * The client is properly closed to release network resources.
+     * The client is closed to release network resources once the close grace
+     * period has passed, or once it has been created if that is still under way.
      * </p>
      *
      * @param datasourceId the datasource identifier whose client should be closed
      * @since 1.0.0
      */
     public void closeClient(String datasourceId) {
-        S3AsyncClient client = datasourceClientCache.remove(datasourceId);
-        if (client != null) {
-            try {
-                client.close();
-                LOG.infof("Closed S3AsyncClient for datasource: %s", datasourceId);
-            } catch (Exception e) {
-                LOG.warnf(e, "Error closing S3AsyncClient for datasource: %s", datasourceId);
-            }
+        CachedClient entry = datasourceClientCache.remove(datasourceId);
+        if (entry != null) {
+            retire(entry);
         }
     }
 
@@ -249,13 +539,25 @@ public class S3ClientFactory {
      */
     public void closeAll() {
         LOG.info("Closing all cached S3AsyncClient instances");
-        for (Map.Entry<String, S3AsyncClient> entry : datasourceClientCache.entrySet()) {
-            try {
-                entry.getValue().close();
-            } catch (Exception e) {
-                LOG.warnf(e, "Error closing S3AsyncClient for datasource: %s", entry.getKey());
+        for (CachedClient entry : datasourceClientCache.values()) {
+            datasourceClientCache.remove(entry.datasourceId, entry);
+            entry.retired = true;
+            if (entry.client == null) {
+                continue;
+            }
+            boolean close;
+            synchronized (entry) {
+                // Shutting down: leases no longer keep the client open
+                close = !entry.closed;
+                entry.closed = true;
+                if (close && !entry.closeScheduled) {
+                    entry.closeScheduled = true;
+                    retiredOpen.incrementAndGet();
+                }
+            }
+            if (close) {
+                close(entry);
             }
         }
-        datasourceClientCache.clear();
     }
 }
\ No newline at end of file
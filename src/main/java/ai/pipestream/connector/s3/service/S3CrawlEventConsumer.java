@@ -1,22 +1,61 @@
 package ai.pipestream.connector.s3.service;
 
+import ai.pipestream.connector.s3.buffer.BufferArena;
+import ai.pipestream.connector.s3.buffer.DiskSpool;
+import ai.pipestream.connector.s3.buffer.PooledBuffer;
 import ai.pipestream.connector.s3.client.ConnectorIntakeClient;
+import ai.pipestream.connector.s3.client.StreamingIntakeClient;
+import ai.pipestream.connector.s3.concurrent.DatasourceBulkhead;
+import ai.pipestream.connector.s3.concurrent.KeyedSequencer;
+import ai.pipestream.connector.s3.concurrent.PartitionAdmission;
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.events.S3CrawlEventPublisher;
+import ai.pipestream.connector.s3.state.CrawlDeltaService;
+import ai.pipestream.connector.s3.state.CrawlSource;
 import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import mutiny.zero.flow.adapters.AdaptersToFlow;
+import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Consumes S3 crawl events from Kafka, downloads the referenced objects from S3,
  * and streams them to the connector-intake-service for processing.
+ * <p>
+ * Up to {@code s3.connector.consumer.partition-concurrency} records of a partition
+ * are processed at once; records for the same object run one after another in
+ * offset order. A partition whose window is full queues its records without
+ * holding up other partitions, until {@code s3.connector.consumer.max-waiting-records}
+ * records wait across partitions. Records are acknowledged individually as they
+ * finish, and the channel's {@code throttled} commit strategy only commits up to
+ * the oldest unfinished record, so offsets advance contiguously.
+ * </p>
+ * <p>
+ * In {@code virtual-threads} execution each transfer runs on its own virtual
+ * thread with plain blocking S3 and intake calls, bounded by a global and a
+ * per-datasource limit instead of the worker pool and the consumer stages.
+ * </p>
  */
 @ApplicationScoped
 public class S3CrawlEventConsumer {
@@ -38,13 +77,87 @@ public class S3CrawlEventConsumer {
     @Inject
     DatasourceConfigService datasourceConfigService;
 
+    @Inject
+    CrawlDeltaService crawlDeltaService;
+
+    @Inject
+    S3ConnectorConfig connectorConfig;
+
+    @Inject
+    ConsumerStages stages;
+
+    @Inject
+    BufferArena bufferArena;
+
+    @Inject
+    DiskSpool diskSpool;
+
+    @Inject
+    RangedDownloader rangedDownloader;
+
+    @Inject
+    StreamingIntakeClient streamingIntakeClient;
+
+    private final KeyedSequencer objectSequencer = new KeyedSequencer();
+
+    private PartitionAdmission admission;
+    private ExecutorService virtualThreads;
+    private DatasourceBulkhead bulkhead;
+
+    @PostConstruct
+    void initExecution() {
+        S3ConnectorConfig.ConsumerConfig consumer = connectorConfig.consumer();
+        admission = new PartitionAdmission(Math.max(1, consumer.partitionConcurrency()),
+            Math.max(1, consumer.maxWaitingRecords()));
+        if (consumer.execution() == S3ConnectorConfig.ConsumerExecution.VIRTUAL_THREADS) {
+            virtualThreads = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("s3-crawl-transfer-", 0).factory());
+            bulkhead = new DatasourceBulkhead(consumer.virtualThreadConcurrency(),
+                consumer.virtualThreadDatasourceConcurrency());
+            LOG.infof("Crawl events are transferred on virtual threads (concurrency=%d, per datasource=%d)",
+                consumer.virtualThreadConcurrency(), consumer.virtualThreadDatasourceConcurrency());
+        }
+    }
+
+    @PreDestroy
+    void shutdownExecution() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes an incoming crawl event record into its partition's processing window.
+     * <p>
+     * The returned Uni completes as soon as the record is admitted, which lets the
+     * channel deliver the next record even while this record's partition window is
+     * full; the record starts once its window has room, and processing continues in the
+     * background and acknowledges the record (or negatively acknowledges it, which
+     * the {@code ignore} failure strategy also commits past) when it ends.
+     * </p>
+     *
+     * @param message the Kafka record carrying the S3 crawl event
+     * @return a Uni that completes when the record has been admitted
+     */
+    @Incoming("s3-crawl-events-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    public Uni<Void> consume(Message<S3CrawlEvent> message) {
+        S3CrawlEvent event = message.getPayload();
+        int partition = message.getMetadata(IncomingKafkaRecordMetadata.class)
+            .map(IncomingKafkaRecordMetadata::getPartition)
+            .orElse(-1);
+        return admission.admit(partition,
+            () -> objectSequencer.submit(objectKey(event), () -> processCrawlEvent(event)),
+            ignored -> message.ack(),
+            error -> message.nack(error));
+    }
+
     /**
-     * Processes an incoming S3 crawl event by downloading the object and uploading it to intake.
+     * Processes an S3 crawl event by downloading the object and uploading it to intake.
      *
      * @param event the S3 crawl event describing which object to process
      * @return a Uni that completes when the object has been uploaded
      */
-    @Incoming("s3-crawl-events-in")
     public Uni<Void> processCrawlEvent(S3CrawlEvent event) {
         long startMs = System.currentTimeMillis();
         String datasourceId = event != null ? event.getDatasourceId() : "unknown";
@@ -59,52 +172,124 @@ public class S3CrawlEventConsumer {
         LOG.infof("Processing S3 crawl event: datasourceId=%s, sourceUrl=%s", 
             event.getDatasourceId(), event.getSourceUrl());
 
+        if (S3CrawlEventPublisher.isTombstone(event)) {
+            // Deleted objects have nothing to download; the tombstone is for
+            // downstream consumers of the topic, and intake has no delete call.
+            LOG.infof("Skipping tombstone for deleted object: datasourceId=%s, sourceUrl=%s",
+                datasourceId, sourceUrl);
+            return Uni.createFrom().voidItem();
+        }
+
         return datasourceConfigService.getDatasourceConfig(event.getDatasourceId())
             .onFailure(IllegalStateException.class).recoverWithItem(err -> {
                 LOG.warnf("Skipping event for unregistered datasource %s (sourceUrl=%s) - datasource config not found, event will be acknowledged",
                     datasourceId, sourceUrl);
                 return null;
             })
-            .emitOn(Infrastructure.getDefaultWorkerPool())
+            .plug(uni -> virtualThreads != null ? uni : uni.emitOn(Infrastructure.getDefaultWorkerPool()))
             .flatMap(config -> {
                 if (config == null) {
                     return Uni.createFrom().voidItem();
                 }
-                return clientFactory.getOrCreateClient(config.datasourceId(), config.s3Config())
-                .flatMap(client -> {
+                return clientFactory.withClient(config.datasourceId(), config.s3Config(), client -> {
                     // #region agent log
                     logDebug("A", "S3CrawlEventConsumer#downloadObject", "client ready", datasourceId, sourceUrl, bucket, key, startMs, -1, "client-ready");
                     // #endregion
-                    return Uni.createFrom().completionStage(downloadObject(client, event))
-                        .onItem().invoke(response -> logDebug("A", "S3CrawlEventConsumer#downloadObject", "received headers", datasourceId, sourceUrl, bucket, key, startMs, response.response().contentLength(), "downloaded"))
-                        .flatMap(s3Response -> {
-                            LOG.infof("DEBUG: Received headers, starting stream for %s", event.getSourceUrl());
-                            Long contentLength = s3Response.response().contentLength();
-                            if (contentLength != null && contentLength > 0 && contentLength <= checksumMaxBufferBytes) {
-                                // Buffer + hash before the upload so the intake
-                                // headers can carry x-checksum-sha256 — that
-                                // header is what arms repository-service's
-                                // intake dedupe (identical re-crawl bytes skip
-                                // the S3 PUT). A streamed body can't know its
-                                // digest before the headers go out, so objects
-                                // over the cap upload as before, without
-                                // checksum and without dedupe.
-                                return Uni.createFrom().item(() -> readFully(s3Response, contentLength.intValue()))
-                                    .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
-                                    .flatMap(bytes -> intakeClient.uploadRaw(
-                                        event.getDatasourceId(),
-                                        config.apiKey(),
-                                        event.getSourceUrl(),
-                                        event.getBucket(),
-                                        event.getKey(),
-                                        s3Response.response().contentType(),
-                                        contentLength,
-                                        event.getCrawlId(),
-                                        sha256Hex(bytes),
-                                        new java.io.ByteArrayInputStream(bytes)
-                                    ));
-                            }
-                            return intakeClient.uploadRaw(
+                    return transfer(client, config, event, datasourceId, sourceUrl, bucket, key, startMs)
+                        .onItem().invoke(() -> logDebug("B", "S3CrawlEventConsumer#processCrawlEvent", "upload completed", datasourceId, sourceUrl, bucket, key, startMs, 0, "success"))
+                        .onFailure().retry().atMost(3)
+                        .onFailure().invoke(error -> {
+                            logDebug("C", "S3CrawlEventConsumer#processCrawlEvent", "processing failed", datasourceId, sourceUrl, bucket, key, startMs, 0, errorClass(error));
+                            LOG.errorf(error, "Failed to process crawl event: datasourceId=%s, sourceUrl=%s",
+                                event.getDatasourceId(), event.getSourceUrl());
+                        })
+                        // Settle the object's crawl state (incremental crawls skip it next
+                        // time once COMPLETED); bookkeeping errors never fail the event.
+                        .onFailure().call(error -> settleState(event, crawlDeltaService.markFailed(event.getDatasourceId(),
+                                event.getBucket(), event.getKey(), event.getVersionId(), event.getEtag(), errorClass(error)),
+                            "failure"))
+                        .call(() -> settleState(event, crawlDeltaService.markCompleted(event.getDatasourceId(),
+                                event.getBucket(), event.getKey(), event.getVersionId(), event.getEtag()),
+                            "completion"))
+                        .replaceWithVoid();
+                });
+            });
+    }
+
+    /**
+     * Records the outcome of an event in {@code s3_crawl_state}. Only incremental
+     * crawls record their objects as {@code PENDING}; initial and live events have
+     * no row to settle, so they skip the statement.
+     */
+    private Uni<Void> settleState(S3CrawlEvent event, Uni<Void> update, String outcome) {
+        if (S3CrawlEventPublisher.crawlSource(event) != CrawlSource.INCREMENTAL) {
+            return Uni.createFrom().voidItem();
+        }
+        return update
+            .onFailure().invoke(stateError -> LOG.warnf(stateError, "Failed to record crawl state %s for %s",
+                outcome, event.getSourceUrl()))
+            .onFailure().recoverWithNull();
+    }
+
+    /**
+     * Moves one object from S3 to intake through the fetch, digest and upload stages.
+     * <p>
+     * Objects S3 holds a full-object SHA-256 for (uploaded with
+     * {@code x-amz-checksum-sha256}) stream straight to intake with that checksum.
+     * Other buffered objects wait for room in the {@link BufferArena}, sized from the
+     * listing, before their GET is issued; the body is read into the pooled direct
+     * buffer, which is digested in place and streamed to intake without a heap copy.
+     * They release their fetch slot once the body is in memory, then
+     * take a digest slot for the checksum and an upload slot for the transfer.
+     * Objects over the buffer cap are spooled to disk and hashed on the way when the
+     * {@link DiskSpool} is enabled, waiting for disk quota before their GET as well,
+     * then uploaded from the file; otherwise they
+     * stream straight through without a checksum, holding the fetch slot until
+     * the upload that drains the S3 response has finished. An object that turns
+     * out to carry a SHA-256, or to differ from its listed size, hands back what
+     * was held for it once its headers arrive.
+     * </p>
+     */
+    private Uni<Void> transfer(S3AsyncClient client, DatasourceConfigService.DatasourceConfig config,
+                               S3CrawlEvent event, String datasourceId, String sourceUrl,
+                               String bucket, String key, long startMs) {
+        if (virtualThreads != null) {
+            return Uni.createFrom().item(() -> bulkhead.call(datasourceId, () -> {
+                    transferBlocking(client, config, event);
+                    return (Void) null;
+                }))
+                .runSubscriptionOn(virtualThreads);
+        }
+        if (streamsReactively(event)) {
+            return holdForListedSize(event).flatMap(held -> streamTransfer(client, config, event, held)
+                .onTermination().invoke(held::release));
+        }
+        return holdForListedSize(event).flatMap(held -> stagedTransfer(client, config, event, held,
+                datasourceId, sourceUrl, bucket, key, startMs)
+            .onTermination().invoke(held::release));
+    }
+
+    /**
+     * The fetch, digest and upload stages of {@link #transfer} for one object.
+     * {@code held} is what was taken for the object from its listed size.
+     */
+    private Uni<Void> stagedTransfer(S3AsyncClient client, DatasourceConfigService.DatasourceConfig config,
+                                     S3CrawlEvent event, Held held, String datasourceId,
+                                     String sourceUrl, String bucket, String key, long startMs) {
+        return stages.fetch(() -> Uni.createFrom().completionStage(() -> downloadObject(client, event))
+                .onItem().invoke(response -> logDebug("A", "S3CrawlEventConsumer#downloadObject", "received headers", datasourceId, sourceUrl, bucket, key, startMs, response.response().contentLength(), "downloaded"))
+                .flatMap(s3Response -> {
+                    LOG.infof("DEBUG: Received headers, starting stream for %s", event.getSourceUrl());
+                    Long contentLength = s3Response.response().contentLength();
+                    String nativeChecksum = connectorConfig.consumer().nativeChecksums()
+                        ? nativeSha256Hex(s3Response.response())
+                        : null;
+                    if (nativeChecksum != null) {
+                        // S3 already holds the object's SHA-256 (and the SDK
+                        // verifies the body against it as it streams), so
+                        // nothing needs buffering to hash it.
+                        held.release();
+                        return stages.upload(() -> intakeClient.uploadRaw(
                                 event.getDatasourceId(),
                                 config.apiKey(),
                                 event.getSourceUrl(),
@@ -113,22 +298,344 @@ public class S3CrawlEventConsumer {
                                 s3Response.response().contentType(),
                                 contentLength,
                                 event.getCrawlId(),
-                                null,
+                                nativeChecksum,
                                 s3Response
-                            );
-                        })
-                        .onItem().invoke(() -> logDebug("B", "S3CrawlEventConsumer#processCrawlEvent", "upload completed", datasourceId, sourceUrl, bucket, key, startMs, 0, "success"))
-                        .onFailure().retry().atMost(3)
-                        .onFailure().invoke(error -> {
-                            logDebug("C", "S3CrawlEventConsumer#processCrawlEvent", "processing failed", datasourceId, sourceUrl, bucket, key, startMs, 0, errorClass(error));
-                            LOG.errorf(error, "Failed to process crawl event: datasourceId=%s, sourceUrl=%s",
-                                event.getDatasourceId(), event.getSourceUrl());
-                        })
+                            ))
+                            .replaceWith(new Fetched(s3Response.response(), null, null));
+                    }
+                    if (contentLength != null && contentLength > 0 && contentLength <= checksumMaxBufferBytes) {
+                        // Buffer + hash before the upload so the intake
+                        // headers can carry x-checksum-sha256 — that
+                        // header is what arms repository-service's
+                        // intake dedupe (identical re-crawl bytes skip
+                        // the S3 PUT). A streamed body can't know its
+                        // digest before the headers go out, so objects
+                        // over the cap go through the disk spool, or
+                        // upload without checksum and without dedupe
+                        // when it is disabled.
+                        return bufferFor(held, contentLength.intValue())
+                            .onFailure().invoke(() -> s3Response.abort())
+                            .emitOn(Infrastructure.getDefaultWorkerPool())
+                            .map(buffer -> new Fetched(s3Response.response(),
+                                readFully(s3Response, buffer, contentLength.intValue()), null));
+                    }
+                    if (contentLength != null && contentLength > 0 && diskSpool.isEnabled()) {
+                        // Too large for memory: spool to disk, hashing on the way,
+                        // and upload from the file with the checksum.
+                        return reservationFor(held, contentLength)
+                            .onFailure().invoke(() -> s3Response.abort())
+                            .emitOn(Infrastructure.getDefaultWorkerPool())
+                            .map(reservation -> diskSpool.write(reservation, s3Response, contentLength))
+                            .map(spooled -> new Fetched(s3Response.response(), null, spooled));
+                    }
+                    held.release();
+                    return stages.upload(() -> intakeClient.uploadRaw(
+                            event.getDatasourceId(),
+                            config.apiKey(),
+                            event.getSourceUrl(),
+                            event.getBucket(),
+                            event.getKey(),
+                            s3Response.response().contentType(),
+                            contentLength,
+                            event.getCrawlId(),
+                            null,
+                            s3Response
+                        ))
+                        .replaceWith(new Fetched(s3Response.response(), null, null));
+                }))
+            .flatMap(fetched -> {
+                if (fetched.spooled() != null) {
+                    DiskSpool.SpooledFile spooled = fetched.spooled();
+                    return stages.upload(() -> intakeClient.uploadFile(
+                            event.getDatasourceId(),
+                            config.apiKey(),
+                            event.getSourceUrl(),
+                            event.getBucket(),
+                            event.getKey(),
+                            fetched.response().contentType(),
+                            spooled.size(),
+                            event.getCrawlId(),
+                            spooled.sha256Hex(),
+                            spooled.path()
+                        ))
+                        .onTermination().invoke(spooled::close)
                         .replaceWithVoid();
-                });
+                }
+                if (fetched.body() == null) {
+                    return Uni.createFrom().voidItem();
+                }
+                PooledBuffer body = fetched.body();
+                return stages.digest(() -> Uni.createFrom().item(() -> sha256Hex(body))
+                        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+                    .flatMap(checksum -> stages.upload(() -> intakeClient.uploadRaw(
+                        event.getDatasourceId(),
+                        config.apiKey(),
+                        event.getSourceUrl(),
+                        event.getBucket(),
+                        event.getKey(),
+                        fetched.response().contentType(),
+                        body.size(),
+                        event.getCrawlId(),
+                        checksum,
+                        body.inputStream()
+                    )))
+                    .onTermination().invoke(body::close)
+                    .replaceWithVoid();
+            });
+    }
+
+    /**
+     * Moves one object from S3 to intake without blocking a thread.
+     * <p>
+     * The GET response is a publisher of body chunks. Objects with a stored
+     * SHA-256, and objects over the buffer cap, hand it to the
+     * {@link StreamingIntakeClient}, which writes each chunk into the intake
+     * request as it arrives and only asks S3 for more as the request drains, so
+     * the fetch slot is held until intake has the whole body. Other objects copy
+     * the chunks into a pooled buffer as they arrive and then go through the
+     * digest and upload stages as in the blocking path.
+     * </p>
+     */
+    private Uni<Void> streamTransfer(S3AsyncClient client, DatasourceConfigService.DatasourceConfig config,
+                                     S3CrawlEvent event, Held held) {
+        return stages.fetch(() -> Uni.createFrom().completionStage(() -> client.getObject(
+                    getObjectRequest(event), AsyncResponseTransformer.toPublisher()))
+                .flatMap(s3Response -> {
+                    GetObjectResponse response = s3Response.response();
+                    Long contentLength = response.contentLength();
+                    Multi<ByteBuffer> body = Multi.createFrom().publisher(AdaptersToFlow.publisher(s3Response));
+                    String nativeChecksum = connectorConfig.consumer().nativeChecksums()
+                        ? nativeSha256Hex(response)
+                        : null;
+                    if (nativeChecksum == null && contentLength != null && contentLength > 0
+                            && contentLength <= checksumMaxBufferBytes) {
+                        return bufferFor(held, contentLength.intValue())
+                            .onFailure().invoke(() -> StreamingIntakeClient.discard(body))
+                            .flatMap(buffer -> buffer.fill(body, contentLength.intValue())
+                                .onFailure().invoke(buffer::close))
+                            .map(buffer -> new Fetched(response, buffer, null));
+                    }
+                    held.release();
+                    return stages.upload(() -> streamingIntakeClient.uploadRaw(
+                            event.getDatasourceId(),
+                            config.apiKey(),
+                            event.getSourceUrl(),
+                            event.getBucket(),
+                            event.getKey(),
+                            response.contentType(),
+                            contentLength,
+                            event.getCrawlId(),
+                            nativeChecksum,
+                            body
+                        ))
+                        .replaceWith(new Fetched(response, null, null));
+                }))
+            .flatMap(fetched -> {
+                if (fetched.body() == null) {
+                    return Uni.createFrom().voidItem();
+                }
+                PooledBuffer buffered = fetched.body();
+                return stages.digest(() -> Uni.createFrom().item(() -> sha256Hex(buffered))
+                        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+                    .flatMap(checksum -> stages.upload(() -> streamingIntakeClient.uploadRaw(
+                        event.getDatasourceId(),
+                        config.apiKey(),
+                        event.getSourceUrl(),
+                        event.getBucket(),
+                        event.getKey(),
+                        fetched.response().contentType(),
+                        buffered.size(),
+                        event.getCrawlId(),
+                        checksum,
+                        Multi.createFrom().item(() -> buffered.contents())
+                    )))
+                    .onTermination().invoke(buffered::close)
+                    .replaceWithVoid();
             });
     }
 
+    /**
+     * Moves one object from S3 to intake with blocking calls, for a virtual thread.
+     * Makes the same buffer, spool and streaming choices as {@link #transfer},
+     * waiting for each step in place.
+     */
+    private void transferBlocking(S3AsyncClient client, DatasourceConfigService.DatasourceConfig config,
+                                  S3CrawlEvent event) {
+        Held held = holdForListedSize(event).await().indefinitely();
+        try {
+            transferBlocking(client, config, event, held);
+        } finally {
+            held.release();
+        }
+    }
+
+    private void transferBlocking(S3AsyncClient client, DatasourceConfigService.DatasourceConfig config,
+                                  S3CrawlEvent event, Held held) {
+        ResponseInputStream<GetObjectResponse> s3Response = join(downloadObject(client, event));
+        GetObjectResponse response = s3Response.response();
+        Long contentLength = response.contentLength();
+        String nativeChecksum = connectorConfig.consumer().nativeChecksums()
+            ? nativeSha256Hex(response)
+            : null;
+        if (nativeChecksum == null && contentLength != null && contentLength > 0
+                && contentLength <= checksumMaxBufferBytes) {
+            try (PooledBuffer body = awaitOrAbort(bufferFor(held, contentLength.intValue()), s3Response)) {
+                readFully(s3Response, body, contentLength.intValue());
+                intakeClient.uploadRaw(
+                    event.getDatasourceId(),
+                    config.apiKey(),
+                    event.getSourceUrl(),
+                    event.getBucket(),
+                    event.getKey(),
+                    response.contentType(),
+                    body.size(),
+                    event.getCrawlId(),
+                    sha256Hex(body),
+                    body.inputStream()
+                ).await().indefinitely();
+            }
+            return;
+        }
+        if (nativeChecksum == null && contentLength != null && contentLength > 0 && diskSpool.isEnabled()) {
+            DiskSpool.Reservation reservation = awaitOrAbort(reservationFor(held, contentLength), s3Response);
+            try (DiskSpool.SpooledFile spooled = diskSpool.write(reservation, s3Response, contentLength)) {
+                intakeClient.uploadFile(
+                    event.getDatasourceId(),
+                    config.apiKey(),
+                    event.getSourceUrl(),
+                    event.getBucket(),
+                    event.getKey(),
+                    response.contentType(),
+                    spooled.size(),
+                    event.getCrawlId(),
+                    spooled.sha256Hex(),
+                    spooled.path()
+                ).await().indefinitely();
+            }
+            return;
+        }
+        held.release();
+        intakeClient.uploadRaw(
+            event.getDatasourceId(),
+            config.apiKey(),
+            event.getSourceUrl(),
+            event.getBucket(),
+            event.getKey(),
+            response.contentType(),
+            contentLength,
+            event.getCrawlId(),
+            nativeChecksum,
+            s3Response
+        ).await().indefinitely();
+    }
+
+    private static <T> T join(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> T awaitOrAbort(Uni<T> uni, ResponseInputStream<GetObjectResponse> s3Response) {
+        try {
+            return uni.await().indefinitely();
+        } catch (RuntimeException e) {
+            s3Response.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes what an object will be stored in, from the size the listing reports,
+     * before its GET is issued, so a download waiting for buffer budget or disk
+     * quota never holds an open S3 response: a pooled buffer for an object small
+     * enough to buffer, a spool reservation for a larger one when the spool is
+     * enabled, and nothing otherwise or when the event carries no size.
+     */
+    private Uni<Held> holdForListedSize(S3CrawlEvent event) {
+        long listedSize = event.getSizeBytes();
+        if (listedSize <= 0) {
+            return Uni.createFrom().item(Held.NOTHING);
+        }
+        if (listedSize <= checksumMaxBufferBytes) {
+            return bufferArena.lease((int) listedSize).map(buffer -> new Held(buffer, null));
+        }
+        if (diskSpool.isEnabled()) {
+            return diskSpool.reserve(listedSize).map(reservation -> new Held(null, reservation));
+        }
+        return Uni.createFrom().item(Held.NOTHING);
+    }
+
+    /**
+     * The buffer for a response of {@code contentLength} bytes: the one held from
+     * the listed size when it is large enough, otherwise (the object changed since
+     * it was listed, or the event had no size) a new lease, taken with the response
+     * already open.
+     */
+    private Uni<PooledBuffer> bufferFor(Held held, int contentLength) {
+        if (held.buffer() != null && held.buffer().capacity() >= contentLength) {
+            return Uni.createFrom().item(held.buffer());
+        }
+        held.release();
+        return bufferArena.lease(contentLength);
+    }
+
+    /**
+     * The spool reservation for a response of {@code contentLength} bytes: the one
+     * held from the listed size when it is large enough, otherwise a new one,
+     * waited for with the response already open.
+     */
+    private Uni<DiskSpool.Reservation> reservationFor(Held held, long contentLength) {
+        if (held.reservation() != null && held.reservation().size() >= contentLength) {
+            return Uni.createFrom().item(held.reservation());
+        }
+        held.release();
+        return diskSpool.reserve(contentLength);
+    }
+
+    /**
+     * What was taken for an object from its listed size: a pooled buffer, a spool
+     * reservation, or neither. {@link #release()} hands it back when the object
+     * turns out not to need it, and once the transfer has ended; releasing twice,
+     * or after the buffer or the spooled file has been closed, is harmless.
+     */
+    private record Held(PooledBuffer buffer, DiskSpool.Reservation reservation) {
+
+        static final Held NOTHING = new Held(null, null);
+
+        void release() {
+            if (buffer != null) {
+                buffer.close();
+            }
+            if (reservation != null) {
+                reservation.release();
+            }
+        }
+    }
+
+    /**
+     * Checks whether an object goes through {@link #streamTransfer}. Objects the
+     * listing reports as too large to buffer keep the blocking path when they are
+     * spooled to disk, as do ranged downloads, whose body is reassembled in a stream.
+     */
+    private boolean streamsReactively(S3CrawlEvent event) {
+        return connectorConfig.consumer().reactiveStreaming()
+            && streamingIntakeClient.isAvailable()
+            && !rangedDownloader.applies(event.getSizeBytes())
+            && !(diskSpool.isEnabled() && event.getSizeBytes() > checksumMaxBufferBytes);
+    }
+
+    /**
+     * An object's response headers and its body, either in a pooled buffer or in
+     * a spool file; both are {@code null} once a streamed object has been uploaded.
+     */
+    private record Fetched(GetObjectResponse response, PooledBuffer body, DiskSpool.SpooledFile spooled) {
+    }
+
     /**
      * Objects at or below this size are buffered in memory to compute the
      * SHA-256 sent as {@code x-checksum-sha256} (which arms the intake
@@ -138,26 +645,59 @@ public class S3CrawlEventConsumer {
             name = "s3.connector.checksum-max-buffer-bytes", defaultValue = "33554432")
     long checksumMaxBufferBytes;
 
-    private static byte[] readFully(ResponseInputStream<GetObjectResponse> stream, int expectedSize) {
-        try (stream) {
-            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream(Math.max(expectedSize, 32));
-            stream.transferTo(out);
-            return out.toByteArray();
+    private static PooledBuffer readFully(ResponseInputStream<GetObjectResponse> stream, PooledBuffer buffer,
+                                          int expectedSize) {
+        try {
+            return buffer.fill(stream, expectedSize);
         } catch (java.io.IOException e) {
+            buffer.close();
             throw new java.io.UncheckedIOException("Failed to buffer S3 object for checksumming", e);
+        } catch (RuntimeException e) {
+            buffer.close();
+            throw e;
         }
     }
 
-    private static String sha256Hex(byte[] data) {
+    private static String sha256Hex(PooledBuffer data) {
         try {
             return java.util.HexFormat.of().formatHex(
-                    java.security.MessageDigest.getInstance("SHA-256").digest(data));
+                    data.digest(java.security.MessageDigest.getInstance("SHA-256")).digest());
         } catch (java.security.NoSuchAlgorithmException e) {
             throw new IllegalStateException("SHA-256 unavailable", e);
         }
     }
 
+    /**
+     * Returns the full-object SHA-256 S3 stored for the object, as hex. Composite
+     * checksums of multipart uploads ({@code <base64>-<parts>}) are a digest of the
+     * part digests, not of the body, and yield {@code null} like a missing one.
+     */
+    static String nativeSha256Hex(GetObjectResponse response) {
+        String checksum = response.checksumSHA256();
+        if (checksum == null || checksum.isBlank() || checksum.contains("-")) {
+            return null;
+        }
+        try {
+            byte[] digest = java.util.Base64.getDecoder().decode(checksum);
+            return digest.length == 32 ? java.util.HexFormat.of().formatHex(digest) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private java.util.concurrent.CompletionStage<ResponseInputStream<GetObjectResponse>> downloadObject(S3AsyncClient client, S3CrawlEvent event) {
+        if (rangedDownloader.applies(event.getSizeBytes())) {
+            return rangedDownloader.open(client, event.getBucket(), event.getKey(), event.getVersionId(),
+                () -> singleGet(client, event));
+        }
+        return singleGet(client, event);
+    }
+
+    private java.util.concurrent.CompletionStage<ResponseInputStream<GetObjectResponse>> singleGet(S3AsyncClient client, S3CrawlEvent event) {
+        return client.getObject(getObjectRequest(event), AsyncResponseTransformer.toBlockingInputStream());
+    }
+
+    private GetObjectRequest getObjectRequest(S3CrawlEvent event) {
         GetObjectRequest.Builder requestBuilder = GetObjectRequest.builder()
             .bucket(event.getBucket())
             .key(event.getKey());
@@ -165,9 +705,11 @@ public class S3CrawlEventConsumer {
         if (event.getVersionId() != null && !event.getVersionId().isEmpty()) {
             requestBuilder.versionId(event.getVersionId());
         }
+        if (connectorConfig.consumer().nativeChecksums()) {
+            requestBuilder.checksumMode(ChecksumMode.ENABLED);
+        }
 
-        GetObjectRequest request = requestBuilder.build();
-        return client.getObject(request, AsyncResponseTransformer.toBlockingInputStream());
+        return requestBuilder.build();
     }
 
     private static void logDebug(String hypothesisId, String location, String message, String datasourceId, String sourceUrl, String bucket, String key, long startMs, long contentLength, String status) {
@@ -193,6 +735,10 @@ public class S3CrawlEventConsumer {
         LOG.trace(payload);
     }
 
+    private static String objectKey(S3CrawlEvent event) {
+        return event == null ? "" : event.getDatasourceId() + "\u0000" + event.getBucket() + "\u0000" + event.getKey();
+    }
+
     private static String errorClass(Throwable error) {
         return error == null ? "unknown" : error.getClass().getName() + ": " + String.valueOf(error.getMessage());
     }
@@ -1,22 +1,36 @@
 package ai.pipestream.connector.s3.service;
 
 import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.crawl.BucketLister;
+import ai.pipestream.connector.s3.crawl.ListedPage;
+import ai.pipestream.connector.s3.crawl.ListingShard;
+import ai.pipestream.connector.s3.crawl.inventory.InventoryLister;
+import ai.pipestream.connector.s3.crawl.snapshot.ListingSnapshotStore;
+import ai.pipestream.connector.s3.events.ChangeType;
 import ai.pipestream.connector.s3.events.S3CrawlEventPublisher;
 import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import ai.pipestream.connector.s3.state.CrawlCheckpointer;
+import ai.pipestream.connector.s3.state.CrawlDeltaService;
+import ai.pipestream.connector.s3.state.CrawlRun;
+import ai.pipestream.connector.s3.state.CrawlRunService;
+import ai.pipestream.connector.s3.state.CrawlRunStatus;
 import ai.pipestream.connector.s3.state.CrawlSource;
+import ai.pipestream.connector.s3.state.ShardCheckpoint;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectVersion;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Service for crawling S3 buckets and emitting crawl events to Kafka.
@@ -37,7 +51,26 @@ import java.util.stream.Collectors;
  * <p>
  * Bucket crawling uses S3's ListObjectsV2 API with continuation tokens to handle
  * buckets with large numbers of objects. Objects are processed in batches based
- * on the configured {@code maxKeysPerRequest} setting.
+ * on the configured {@code maxKeysPerRequest} setting. Listing is a demand-driven
+ * stream of pages that runs up to {@code list-ahead-pages} pages ahead of
+ * publishing, so S3 LIST latency and Kafka publish latency overlap instead of
+ * adding up page after page.
+ * </p>
+ * <p>
+ * With {@code s3.connector.initial-crawl.listing-mode=prefix-fan-out} the bucket is
+ * instead listed through {@link BucketLister#prefixFanOut}, which lists every
+ * delimiter-separated sub-prefix concurrently, and with {@code key-range} through
+ * {@link BucketLister#keyRanges}, which splits a flat keyspace into
+ * {@code StartAfter}-bounded ranges. With {@code inventory} no listing calls are
+ * made at all: {@link InventoryLister} reads the objects from the bucket's S3
+ * Inventory report, falling back to a sequential listing for buckets without one. Their pages feed the same publishing and status accounting
+ * as the sequential walk.
+ * </p>
+ * <p>
+ * With {@code s3.connector.initial-crawl.versions=latest} (or {@code all}) the
+ * bucket is listed through {@link BucketLister#versions} instead, and every event
+ * carries the version id it was listed with, so downloads are pinned to that
+ * version without a HEAD per object.
  * </p>
  *
  * <h2>Event Publishing</h2>
@@ -45,6 +78,23 @@ import java.util.stream.Collectors;
  * Each discovered object generates an {@link S3CrawlEvent} that is published to
  * the "s3-crawl-events-out" Kafka topic for consumption by the event processing pipeline.
  * </p>
+ * <p>
+ * An {@link CrawlSource#INCREMENTAL} crawl checks every listing page against
+ * {@code s3_crawl_state} through {@link CrawlDeltaService} and only publishes
+ * objects that are new or whose ETag or size changed since they were last
+ * processed. With {@code change-detection=snapshot} it instead merges a sequential
+ * listing against the previous crawl's listing snapshot ({@link ListingSnapshotStore}),
+ * which needs no database lookups and also reports deleted objects as tombstones.
+ * </p>
+ *
+ * <h2>Checkpoints</h2>
+ * <p>
+ * A crawl started with a request id records its progress in {@code s3_crawl_runs}:
+ * per listing shard, the last key up to which every object has been published
+ * ({@link CrawlCheckpointer}). {@link #resumeCrawl} continues each unfinished
+ * shard from there with {@code StartAfter}. A running crawl can also be paused
+ * and resumed in place through {@link ai.pipestream.connector.s3.state.CrawlStatusRegistry}.
+ * </p>
  *
  * @since 1.0.0
  */
@@ -68,12 +118,27 @@ public class S3CrawlService {
     @Inject
     S3CrawlEventPublisher eventPublisher;
 
+    @Inject
+    BucketLister bucketLister;
+
+    @Inject
+    InventoryLister inventoryLister;
+
     @Inject
     S3ConnectorConfig config;
 
     @Inject
     ai.pipestream.connector.s3.state.CrawlStatusRegistry statusRegistry;
 
+    @Inject
+    CrawlDeltaService crawlDeltaService;
+
+    @Inject
+    ListingSnapshotStore snapshotStore;
+
+    @Inject
+    CrawlRunService crawlRunService;
+
     /**
      * Performs a complete crawl of an S3 bucket and emits crawl events for all discovered objects.
      * <p>
@@ -101,6 +166,10 @@ public class S3CrawlService {
     /**
      * Crawls an S3 bucket, stamping every emitted event with {@code crawlId} so the
      * whole crawl is accounted for as one run downstream.
+     * <p>
+     * Runs as an incremental crawl when {@code s3.connector.initial-crawl.incremental}
+     * is set, otherwise as an initial (full) crawl.
+     * </p>
      *
      * @param datasourceId unique identifier for the datasource
      * @param bucket       S3 bucket name
@@ -109,7 +178,8 @@ public class S3CrawlService {
      * @return a Uni that completes when all objects have been processed
      */
     public Uni<Void> crawlBucket(String datasourceId, String bucket, String prefix, String crawlId) {
-        return crawlBucket(datasourceId, bucket, prefix, CrawlSource.INITIAL, crawlId);
+        CrawlSource crawlSource = config.initialCrawl().incremental() ? CrawlSource.INCREMENTAL : CrawlSource.INITIAL;
+        return crawlBucket(datasourceId, bucket, prefix, crawlSource, crawlId);
     }
 
     /**
@@ -128,6 +198,13 @@ public class S3CrawlService {
     /**
      * Crawls an S3 bucket and emits crawl events for discovered objects, each
      * carrying {@code crawlId}.
+     * <p>
+     * With a non-empty {@code crawlId} (and {@code s3.connector.checkpoint.enabled})
+     * the crawl is recorded in {@code s3_crawl_runs} with its listing shards, and
+     * each shard is checkpointed as its pages are published, so the crawl can be
+     * continued with {@link #resumeCrawl} after a restart. Starting a crawl id
+     * again starts it over.
+     * </p>
      *
      * @param datasourceId unique identifier for the datasource
      * @param bucket       S3 bucket name
@@ -141,84 +218,340 @@ public class S3CrawlService {
         LOG.infof("Starting S3 crawl: datasourceId=%s, bucket=%s, prefix=%s, crawlId=%s",
             datasourceId, bucket, prefix, crawlId);
 
-        AtomicInteger totalObjects = new AtomicInteger(0);
-
         return datasourceConfigService.getDatasourceConfig(datasourceId)
-            .flatMap(datasourceConfig -> clientFactory.getOrCreateClient(datasourceId, datasourceConfig.s3Config())
-                .flatMap(client -> {
-                    String configuredPrefix = config.initialCrawl().prefix().orElse(null);
-                    String actualPrefix = (prefix != null && !prefix.isBlank()) ? prefix : configuredPrefix;
-                    int maxKeys = config.initialCrawl().maxKeysPerRequest();
-
-                    ListObjectsV2Request firstRequest = ListObjectsV2Request.builder()
-                        .bucket(bucket)
-                        .maxKeys(maxKeys)
-                        .prefix(actualPrefix)
-                        .build();
-
-                    return crawlPage(client, firstRequest, datasourceId, bucket, crawlSource, crawlId, totalObjects)
-                        .invoke(() -> LOG.infof("Completed S3 crawl: emitted %d events for bucket=%s, prefix=%s",
-                            totalObjects.get(), bucket, actualPrefix));
-                }));
+            .flatMap(datasourceConfig -> clientFactory.withClient(datasourceId, datasourceConfig.s3Config(), client -> {
+                String configuredPrefix = config.initialCrawl().prefix().orElse(null);
+                String actualPrefix = (prefix != null && !prefix.isBlank()) ? prefix : configuredPrefix;
+                S3ConnectorConfig.ListingMode listingMode = config.initialCrawl().listingMode();
+
+                S3ConnectorConfig.VersionListing versions = config.initialCrawl().versions();
+                if (versions != S3ConnectorConfig.VersionListing.NONE) {
+                    return versionCrawl(client, datasourceId, bucket, actualPrefix, crawlSource, crawlId,
+                        versions == S3ConnectorConfig.VersionListing.LATEST, new CrawlCounters());
+                }
+                if (crawlSource == CrawlSource.INCREMENTAL
+                    && config.initialCrawl().changeDetection() == S3ConnectorConfig.ChangeDetection.SNAPSHOT) {
+                    return snapshotCrawl(client, datasourceId, bucket, actualPrefix, crawlSource, crawlId,
+                        new CrawlCounters());
+                }
+
+                return listingShards(client, bucket, actualPrefix, listingMode)
+                    .flatMap(shards -> {
+                        CrawlCounters counters = new CrawlCounters();
+                        if (!isCheckpointed(crawlId)) {
+                            return runCrawl(client, datasourceId, bucket, actualPrefix, crawlSource, crawlId,
+                                listingMode, shards, null, counters);
+                        }
+                        List<ShardCheckpoint> checkpoints = shards.stream()
+                            .map(shard -> new ShardCheckpoint(shard.id(), shard.lower(), shard.upper(),
+                                null, null, false))
+                            .toList();
+                        CrawlCheckpointer checkpointer = crawlRunService.checkpointer(crawlId, checkpoints,
+                            counters.sent::get, counters.failed::get);
+                        return crawlRunService.start(crawlId, datasourceId, bucket, actualPrefix, crawlSource,
+                                listingMode, shards)
+                            .flatMap(v -> runCrawl(client, datasourceId, bucket, actualPrefix, crawlSource,
+                                crawlId, listingMode, shards, checkpointer, counters));
+                    });
+            }));
     }
 
     /**
-     * Fetches one page of S3 objects, publishes all events for that page concurrently,
-     * then recursively processes the next page if one exists. Fully reactive — no blocking.
+     * Resumes a recorded crawl run from its checkpoints.
+     * <p>
+     * Every shard that is not done is listed again with {@code StartAfter} at the
+     * last key up to which everything was published, so at most the pages that
+     * were in flight when the run stopped are published twice. A prefix fan-out
+     * or inventory run has no shards and is crawled again from the start.
+     * </p>
+     *
+     * @param run the run to resume, as loaded from {@code s3_crawl_runs}
+     * @return a Uni that completes when the rest of the crawl has been processed
      */
-    private Uni<Void> crawlPage(S3AsyncClient client, ListObjectsV2Request request,
-                                String datasourceId, String bucket,
-                                CrawlSource crawlSource, String crawlId, AtomicInteger totalObjects) {
-        return Uni.createFrom().completionStage(client.listObjectsV2(request))
-            .flatMap(page -> {
-                // Publish all events in this page as a concurrent batch
-                List<Uni<Void>> pageEvents = page.contents().stream()
-                    .map(s3Object -> {
-                        totalObjects.incrementAndGet();
-                        return eventPublisher.publish(createCrawlEvent(datasourceId, bucket, s3Object, crawlSource, crawlId))
-                            // Status counter ticks on publish COMPLETION, so
-                            // StreamCrawlStatus reports events actually handed
-                            // to Kafka, not just objects seen in a listing.
-                            .invoke(() -> statusRegistry.markDispatched(crawlId));
-                    })
-                    .collect(Collectors.toList());
-
-                Uni<Void> publishPage = pageEvents.isEmpty()
-                        ? Uni.createFrom().voidItem()
-                        : Uni.combine().all().unis(pageEvents).discardItems();
-
-                // After the page is fully published, move to the next page if there is one
-                if (Boolean.TRUE.equals(page.isTruncated())) {
-                    ListObjectsV2Request nextRequest = request.toBuilder()
-                        .continuationToken(page.nextContinuationToken())
-                        .build();
-                    return publishPage.flatMap(ignored -> crawlPage(client, nextRequest, datasourceId, bucket, crawlSource, crawlId, totalObjects));
+    public Uni<Void> resumeCrawl(CrawlRun run) {
+        List<ListingShard> remaining = run.shards().stream()
+            .filter(shard -> !shard.done())
+            .map(ShardCheckpoint::remaining)
+            .toList();
+        LOG.infof("Resuming S3 crawl: crawlId=%s, bucket=%s, prefix=%s, listingMode=%s, %d of %d shard(s) left",
+            run.crawlId(), run.bucket(), run.prefix(), run.listingMode(), remaining.size(), run.shards().size());
+
+        CrawlCounters counters = new CrawlCounters();
+        CrawlCheckpointer checkpointer = crawlRunService.checkpointer(run.crawlId(), run.shards(),
+            () -> run.dispatchedCount() + counters.sent.get(),
+            () -> run.publishFailedCount() + counters.failed.get());
+
+        return crawlRunService.setStatus(run.crawlId(), CrawlRunStatus.RUNNING, null)
+            .flatMap(v -> datasourceConfigService.getDatasourceConfig(run.datasourceId()))
+            .flatMap(datasourceConfig -> clientFactory.withClient(run.datasourceId(), datasourceConfig.s3Config(),
+                client -> runCrawl(client, run.datasourceId(), run.bucket(), run.prefix(), run.crawlSource(),
+                    run.crawlId(), run.listingMode(), remaining, checkpointer, counters)));
+    }
+
+    private boolean isCheckpointed(String crawlId) {
+        return crawlId != null && !crawlId.isEmpty() && config.checkpoint().enabled();
+    }
+
+    /**
+     * The shards a fresh crawl lists: the whole keyspace for a sequential walk, the
+     * initial key ranges for {@code key-range}, none for prefix fan-out and inventory.
+     */
+    private Uni<List<ListingShard>> listingShards(S3AsyncClient client, String bucket, String prefix,
+                                                  S3ConnectorConfig.ListingMode listingMode) {
+        return switch (listingMode) {
+            case SEQUENTIAL -> Uni.createFrom().item(List.of(ListingShard.wholeKeyspace()));
+            case KEY_RANGE -> bucketLister.keyRangeShards(client, bucket, prefix);
+            case PREFIX_FAN_OUT, INVENTORY -> Uni.createFrom().item(List.<ListingShard>of());
+        };
+    }
+
+    private Multi<ListedPage> listPages(S3AsyncClient client, String bucket, String prefix,
+                                        S3ConnectorConfig.ListingMode listingMode, List<ListingShard> shards) {
+        return switch (listingMode) {
+            case SEQUENTIAL -> shards.isEmpty()
+                ? Multi.createFrom().empty()
+                : bucketLister.sequential(client, bucket, prefix, shards.get(0));
+            case KEY_RANGE -> bucketLister.keyRanges(client, bucket, prefix, shards);
+            case PREFIX_FAN_OUT -> bucketLister.prefixFanOut(client, bucket, prefix).map(ListedPage::unsharded);
+            case INVENTORY -> inventoryLister.findReport(client, bucket,
+                    config.initialCrawl().inventoryManifest().orElse(null))
+                .onItem().transformToMulti(report -> {
+                    if (report != null) {
+                        return inventoryLister.list(client, report, prefix).map(ListedPage::unsharded);
+                    }
+                    // No report for this bucket; the run has no shards, so neither is this listing checkpointed.
+                    LOG.infof("No inventory report for bucket %s, listing it with ListObjectsV2", bucket);
+                    return bucketLister.sequential(client, bucket, prefix, ListingShard.wholeKeyspace())
+                        .map(page -> ListedPage.unsharded(page.objects()));
+                });
+        };
+    }
+
+    /**
+     * Lists the given shards and publishes their objects, checkpointing each shard
+     * as its pages are published when {@code checkpointer} is set, and records how
+     * the run ended.
+     */
+    private Uni<Void> runCrawl(S3AsyncClient client, String datasourceId, String bucket, String prefix,
+                               CrawlSource crawlSource, String crawlId, S3ConnectorConfig.ListingMode listingMode,
+                               List<ListingShard> shards, CrawlCheckpointer checkpointer, CrawlCounters counters) {
+        Multi<ListedPage> pages = listPages(client, bucket, prefix, listingMode, shards);
+        if (crawlSource == CrawlSource.INCREMENTAL) {
+            // One batched state lookup per page; only new or changed objects go on.
+            pages = pages
+                .onItem().transformToUni(page ->
+                    crawlDeltaService.changedObjects(datasourceId, bucket, page.objects(), crawlSource)
+                        .map(page::withObjects))
+                .merge(Math.max(1, config.initialCrawl().listingConcurrency()));
+        }
+        Uni<Void> crawl = publishPages(pages, ListedPage::objects,
+            s3Object -> createCrawlEvent(datasourceId, bucket, s3Object, crawlSource, crawlId, null),
+            page -> {
+                if (checkpointer != null) {
+                    checkpointer.pagePublished(page);
                 }
-                return publishPage;
-            });
+            },
+            crawlId, counters);
+
+        if (checkpointer != null) {
+            crawl = crawl
+                .onFailure().call(error -> endRun(checkpointer, crawlId, CrawlRunStatus.FAILED,
+                    error.getClass().getSimpleName() + ": " + error.getMessage()))
+                .onCancellation().call(() -> endRun(checkpointer, crawlId, CrawlRunStatus.FAILED, "cancelled"))
+                .call(() -> counters.failed.get() > 0
+                    ? endRun(checkpointer, crawlId, CrawlRunStatus.FAILED,
+                        counters.failed.get() + " event(s) failed to publish")
+                    : endRun(checkpointer, crawlId, CrawlRunStatus.COMPLETED, null));
+        }
+        return crawl
+            .invoke(() -> LOG.infof("Completed S3 crawl: emitted %d events (%d failed to publish) for bucket=%s, prefix=%s, listingMode=%s",
+                counters.sent.get(), counters.failed.get(), bucket, prefix, listingMode));
+    }
+
+    /**
+     * Saves the final checkpoints and status of a run. Failing to record them does
+     * not change the crawl's own outcome.
+     */
+    private Uni<Void> endRun(CrawlCheckpointer checkpointer, String crawlId, CrawlRunStatus status, String error) {
+        return checkpointer.save()
+            .flatMap(v -> crawlRunService.setStatus(crawlId, status, error))
+            .onFailure().invoke(e -> LOG.warnf(e, "Failed to record end of crawl run %s as %s", crawlId, status))
+            .onFailure().recoverWithNull();
+    }
+
+    /**
+     * Incremental crawl by sorted merge against the previous listing snapshot.
+     * <p>
+     * The bucket is listed sequentially (the merge needs key order, whatever the
+     * configured listing mode) and only created, modified and deleted objects are
+     * published, deletions as tombstones. The new snapshot becomes the baseline
+     * only if every change was published; otherwise the next crawl diffs against
+     * the old snapshot again and re-reports what was missed. Snapshot crawls are
+     * not checkpointed: the diff has to see the whole listing.
+     * </p>
+     */
+    private Uni<Void> snapshotCrawl(S3AsyncClient client, String datasourceId, String bucket, String prefix,
+                                    CrawlSource crawlSource, String crawlId, CrawlCounters counters) {
+        if (config.initialCrawl().listingMode() != S3ConnectorConfig.ListingMode.SEQUENTIAL) {
+            LOG.infof("Snapshot change detection needs key-ordered pages; listing bucket=%s sequentially instead of %s",
+                bucket, config.initialCrawl().listingMode());
+        }
+        return snapshotStore.open(client, datasourceId, bucket, prefix)
+            .flatMap(diff -> publishPages(diff.diff(bucketLister.sequential(client, bucket, prefix)),
+                    changes -> changes,
+                    change -> createCrawlEvent(datasourceId, bucket, change.object(), crawlSource, crawlId, change.type()),
+                    changes -> { },
+                    crawlId, counters)
+                .onFailure().call(error -> diff.discard())
+                .onCancellation().call(diff::discard)
+                .call(() -> counters.failed.get() > 0 ? diff.discard() : diff.commit()))
+            .invoke(() -> LOG.infof("Completed snapshot S3 crawl: emitted %d change events (%d failed to publish) for bucket=%s, prefix=%s",
+                counters.sent.get(), counters.failed.get(), bucket, prefix));
+    }
+
+    /**
+     * Crawl of a versioned bucket through ListObjectVersions.
+     * <p>
+     * Every event is pinned to the version id it was listed with, so the consumer
+     * downloads exactly that version without a HEAD per object. With
+     * {@code latestOnly} only each key's current version is published; otherwise
+     * noncurrent versions are too. An incremental crawl skips versions already
+     * settled in {@code s3_crawl_state}, where each version has its own row.
+     * Versioned crawls are not checkpointed.
+     * </p>
+     */
+    private Uni<Void> versionCrawl(S3AsyncClient client, String datasourceId, String bucket, String prefix,
+                                   CrawlSource crawlSource, String crawlId, boolean latestOnly,
+                                   CrawlCounters counters) {
+        Multi<List<ObjectVersion>> pages = bucketLister.versions(client, bucket, prefix, latestOnly);
+        if (crawlSource == CrawlSource.INCREMENTAL) {
+            pages = pages
+                .onItem().transformToUni(page ->
+                    crawlDeltaService.changedVersions(datasourceId, bucket, page, crawlSource))
+                .merge(Math.max(1, config.initialCrawl().listingConcurrency()));
+        }
+        return publishPages(pages, page -> page,
+                version -> createVersionEvent(datasourceId, bucket, version, crawlSource, crawlId),
+                page -> { },
+                crawlId, counters)
+            .invoke(() -> LOG.infof("Completed versioned S3 crawl: emitted %d events (%d failed to publish) for bucket=%s, prefix=%s, latestOnly=%s",
+                counters.sent.get(), counters.failed.get(), bucket, prefix, latestOnly));
+    }
+
+    /**
+     * Publishes every item of the listed pages through the publisher's in-flight window.
+     * <p>
+     * Up to {@code list-ahead-pages} pages are requested from the lister ahead of
+     * the objects being published, so the next ListObjectsV2 calls run while the
+     * current page's events are sent to Kafka. Items are only pulled from that
+     * buffer as sends complete, at most {@code publish.max-in-flight} at a time,
+     * so a slow broker throttles listing instead of accumulating pages in memory.
+     * A send that fails after its retries is counted and skipped; it does not fail
+     * the page or the crawl. {@code onPagePublished} runs once every item of a page
+     * was sent, and never for a page with a failed send. A paused crawl stops
+     * taking pages here until it is resumed.
+     * </p>
+     */
+    private <P, T> Uni<Void> publishPages(Multi<P> pages, Function<P, List<T>> itemsOf,
+                                          Function<T, S3CrawlEvent> toEvent, Consumer<P> onPagePublished,
+                                          String crawlId, CrawlCounters counters) {
+        int listAhead = Math.max(1, config.initialCrawl().listAheadPages());
+        int maxInFlight = Math.max(1, config.publish().maxInFlight());
+        return pages
+            .emitOn(Infrastructure.getDefaultExecutor(), listAhead)
+            .onItem().call(page -> statusRegistry.awaitRunning(crawlId))
+            .onItem().transformToIterable(page -> {
+                List<T> items = itemsOf.apply(page);
+                if (items.isEmpty()) {
+                    onPagePublished.accept(page);
+                    return List.<PendingItem<P, T>>of();
+                }
+                PageProgress<P> progress = new PageProgress<>(page, items.size());
+                return items.stream().map(item -> new PendingItem<>(item, progress)).toList();
+            })
+            .onItem().transformToUni(pending ->
+                eventPublisher.publishInWindow(toEvent.apply(pending.item()))
+                    // Status counter ticks on publish COMPLETION, so
+                    // StreamCrawlStatus reports events actually handed
+                    // to Kafka, not just objects seen in a listing.
+                    .invoke(sent -> {
+                        if (sent) {
+                            counters.sent.incrementAndGet();
+                            statusRegistry.markDispatched(crawlId);
+                        } else {
+                            counters.failed.incrementAndGet();
+                            statusRegistry.markPublishFailed(crawlId);
+                        }
+                        pending.progress().itemDone(sent, onPagePublished);
+                    }))
+            .merge(maxInFlight)
+            .onItem().ignoreAsUni();
+    }
+
+    /**
+     * Per-crawl object counts.
+     */
+    private static final class CrawlCounters {
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+    }
+
+    /**
+     * One item of a page waiting to be published.
+     */
+    private record PendingItem<P, T>(T item, PageProgress<P> progress) {
+    }
+
+    /**
+     * Outstanding sends of one page.
+     */
+    private static final class PageProgress<P> {
+        private final P page;
+        private final AtomicInteger remaining;
+        private volatile boolean anyFailed;
+
+        private PageProgress(P page, int items) {
+            this.page = page;
+            this.remaining = new AtomicInteger(items);
+        }
+
+        private void itemDone(boolean sent, Consumer<P> onPagePublished) {
+            if (!sent) {
+                anyFailed = true;
+            }
+            if (remaining.decrementAndGet() == 0 && !anyFailed) {
+                onPagePublished.accept(page);
+            }
+        }
     }
 
     private S3CrawlEvent createCrawlEvent(String datasourceId, String bucket, S3Object s3Object,
-                                          CrawlSource crawlSource, String crawlId) {
-        Instant lastModified = s3Object.lastModified() != null
-            ? s3Object.lastModified()
-            : Instant.now();
+                                          CrawlSource crawlSource, String crawlId, ChangeType change) {
+        // ListObjectsV2 returns no version ids; versioned crawls go through createVersionEvent.
+        return buildListedEvent(datasourceId, bucket, s3Object.key(), null, s3Object.size(), s3Object.eTag(),
+            s3Object.lastModified(), crawlSource, crawlId, change);
+    }
 
-        // Note: S3Object from ListObjectsV2 doesn't include versionId
-        // Version ID is only available when getting/heading specific objects
-        // For initial crawl, we'll process objects without version IDs
-        String versionId = null;
+    private S3CrawlEvent createVersionEvent(String datasourceId, String bucket, ObjectVersion version,
+                                            CrawlSource crawlSource, String crawlId) {
+        return buildListedEvent(datasourceId, bucket, version.key(), version.versionId(), version.size(),
+            version.eTag(), version.lastModified(), crawlSource, crawlId, null);
+    }
 
+    private S3CrawlEvent buildListedEvent(String datasourceId, String bucket, String key, String versionId,
+                                          Long size, String etag, Instant lastModified,
+                                          CrawlSource crawlSource, String crawlId, ChangeType change) {
         return eventPublisher.buildEvent(
             datasourceId,
             bucket,
-            s3Object.key(),
+            key,
             versionId,
-            s3Object.size(),
-            s3Object.eTag(),
-            lastModified,
+            size != null ? size : 0L,
+            etag,
+            lastModified != null ? lastModified : Instant.now(),
             crawlSource,
-            crawlId
+            crawlId,
+            change
         );
     }
 
@@ -262,8 +595,7 @@ public class S3CrawlService {
         return datasourceConfigService.getDatasourceConfig(datasourceId)
             .flatMap(datasourceConfig ->
                 // Get datasource-specific S3 client
-                clientFactory.getOrCreateClient(datasourceId, datasourceConfig.s3Config())
-                    .flatMap(client ->
+                clientFactory.withClient(datasourceId, datasourceConfig.s3Config(), client ->
                         Uni.createFrom().completionStage(
                                 client.headObject(builder -> builder
                                     .bucket(bucket)
@@ -0,0 +1,179 @@
+package ai.pipestream.connector.s3.service;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Netty HTTP clients for the S3 clients of all datasources.
+ * <p>
+ * Every HTTP client runs on one {@link SdkEventLoopGroup}, sized to the number of
+ * cores unless {@code s3.connector.clients.event-loop-threads} says otherwise,
+ * instead of a group of its own per S3 client. Datasources with the same
+ * endpoint, region, credentials and pool size share one HTTP client, and so one
+ * connection pool; it is closed when the last S3 client using it is. Pool size
+ * ({@code max-concurrency}), connection acquisition timeout, read timeout and TCP
+ * keep-alive come from {@code s3.connector.clients.*}, and the pool size can be
+ * raised or lowered per datasource with
+ * {@code s3.connector.clients.datasource."<id>".max-concurrency}.
+ * </p>
+ * <p>
+ * The pool size limits the pool, not each datasource in it: datasources sharing
+ * a pool share its connections, which caps what they send to the one endpoint
+ * together. A datasource given a pool size no other datasource on its endpoint
+ * has gets a pool of its own.
+ * </p>
+ */
+@ApplicationScoped
+public class S3HttpClients {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public S3HttpClients() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(S3HttpClients.class);
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    MeterRegistry registry;
+
+    private SdkEventLoopGroup eventLoopGroup;
+    private final Map<String, SharedPool> pools = new HashMap<>();
+
+    @PostConstruct
+    void initEventLoop() {
+        int threads = Math.max(1, config.clients().eventLoopThreads().orElse(Runtime.getRuntime().availableProcessors()));
+        eventLoopGroup = SdkEventLoopGroup.builder().numberOfThreads(threads).build();
+        Gauge.builder("s3.http.pools", this, S3HttpClients::poolCount)
+            .description("Connection pools shared by datasource S3 clients")
+            .register(registry);
+        LOG.infof("S3 clients share one event loop group of %d thread(s)", threads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        synchronized (this) {
+            pools.values().forEach(pool -> pool.client.close());
+            pools.clear();
+        }
+        eventLoopGroup.eventLoopGroup().shutdownGracefully();
+    }
+
+    /**
+     * Takes a reference to the shared HTTP client for a datasource's connection
+     * settings, creating it if no other datasource uses them.
+     *
+     * @param datasourceId datasource the S3 client is for
+     * @param s3Config     its connection configuration
+     * @return a lease to {@link Lease#release() release} when the S3 client is closed
+     */
+    public synchronized Lease acquire(String datasourceId, S3ConnectionConfig s3Config) {
+        int maxConcurrency = maxConcurrency(datasourceId);
+        String key = DatasourceConfigService.connectionHash(s3Config) + "/" + maxConcurrency;
+        SharedPool pool = pools.computeIfAbsent(key, k -> new SharedPool(k, builder(maxConcurrency).build()));
+        pool.references++;
+        return new Lease(pool);
+    }
+
+    /**
+     * Returns a builder for an HTTP client owned by a single S3 client (which
+     * closes it), on the shared event loop group and with the default pool size.
+     *
+     * @return an HTTP client builder
+     */
+    public NettyNioAsyncHttpClient.Builder ownedClientBuilder() {
+        return builder(config.clients().maxConcurrency());
+    }
+
+    /**
+     * @return number of shared connection pools
+     */
+    public synchronized int poolCount() {
+        return pools.size();
+    }
+
+    private int maxConcurrency(String datasourceId) {
+        S3ConnectorConfig.ClientsConfig clients = config.clients();
+        S3ConnectorConfig.DatasourceClientConfig override = clients.datasource().get(datasourceId);
+        int maxConcurrency = override != null
+            ? override.maxConcurrency().orElse(clients.maxConcurrency())
+            : clients.maxConcurrency();
+        return Math.max(1, maxConcurrency);
+    }
+
+    private NettyNioAsyncHttpClient.Builder builder(int maxConcurrency) {
+        S3ConnectorConfig.ClientsConfig clients = config.clients();
+        return NettyNioAsyncHttpClient.builder()
+            .eventLoopGroup(eventLoopGroup)
+            .maxConcurrency(maxConcurrency)
+            .connectionAcquisitionTimeout(clients.connectionAcquisitionTimeout())
+            .readTimeout(clients.readTimeout())
+            .tcpKeepAlive(clients.tcpKeepAlive());
+    }
+
+    private synchronized void release(SharedPool pool) {
+        if (--pool.references > 0) {
+            return;
+        }
+        pools.remove(pool.key, pool);
+        pool.client.close();
+    }
+
+    private static final class SharedPool {
+
+        final String key;
+        final SdkAsyncHttpClient client;
+        int references;
+
+        SharedPool(String key, SdkAsyncHttpClient client) {
+            this.key = key;
+            this.client = client;
+        }
+    }
+
+    /**
+     * A reference to a shared HTTP client.
+     */
+    public final class Lease {
+
+        private final SharedPool pool;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(SharedPool pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * @return the HTTP client, to pass to {@code S3AsyncClientBuilder.httpClient}
+         */
+        public SdkAsyncHttpClient client() {
+            return pool.client;
+        }
+
+        /**
+         * Drops the reference, closing the HTTP client if it was the last; idempotent.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                S3HttpClients.this.release(pool);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ai.pipestream.connector.s3.state;
+
+import ai.pipestream.connector.s3.crawl.ListedPage;
+import io.smallrye.mutiny.Uni;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Turns published listing pages into shard watermarks for one crawl attempt.
+ * <p>
+ * Pages are published concurrently and complete out of order, so a shard's
+ * watermark only advances over an unbroken run of fully published pages
+ * starting at the current watermark; a page that had a send given up on holds
+ * its shard's watermark back, and a resume lists that page again. Advanced
+ * watermarks are written in the background with at most one write in flight per
+ * crawl; whatever advanced meanwhile goes out in the next write.
+ * </p>
+ */
+public final class CrawlCheckpointer {
+
+    private static final Logger LOG = Logger.getLogger(CrawlCheckpointer.class);
+
+    private final CrawlRunService runs;
+    private final String crawlId;
+    private final Map<String, ShardProgress> shards = new HashMap<>();
+    private final Map<String, ShardCheckpoint> dirty = new LinkedHashMap<>();
+    private final LongSupplier dispatched;
+    private final LongSupplier failed;
+    private boolean flushing;
+
+    CrawlCheckpointer(CrawlRunService runs, String crawlId, List<ShardCheckpoint> shards,
+                      LongSupplier dispatched, LongSupplier failed) {
+        this.runs = runs;
+        this.crawlId = crawlId;
+        for (ShardCheckpoint shard : shards) {
+            this.shards.put(shard.shardId(), new ShardProgress(shard));
+        }
+        this.dispatched = dispatched;
+        this.failed = failed;
+    }
+
+    /**
+     * Records that every object of {@code page} was published.
+     *
+     * @param page a page whose events were all sent
+     */
+    public void pagePublished(ListedPage page) {
+        if (page.shard() == null) {
+            return;
+        }
+        synchronized (this) {
+            ShardProgress shard = shards.get(page.shard());
+            if (shard == null || !shard.complete(page)) {
+                return;
+            }
+            dirty.put(page.shard(), shard.checkpoint());
+            if (flushing) {
+                return;
+            }
+            flushing = true;
+        }
+        flush();
+    }
+
+    /**
+     * Writes every shard's current watermark and the event counts, for the end of an attempt.
+     *
+     * @return completion once stored
+     */
+    public Uni<Void> save() {
+        List<ShardCheckpoint> all = new ArrayList<>();
+        synchronized (this) {
+            for (ShardProgress shard : shards.values()) {
+                all.add(shard.checkpoint());
+            }
+        }
+        return runs.saveCheckpoints(crawlId, all, dispatched.getAsLong(), failed.getAsLong());
+    }
+
+    private void flush() {
+        List<ShardCheckpoint> batch;
+        synchronized (this) {
+            if (dirty.isEmpty()) {
+                flushing = false;
+                return;
+            }
+            batch = new ArrayList<>(dirty.values());
+            dirty.clear();
+        }
+        runs.saveCheckpoints(crawlId, batch, dispatched.getAsLong(), failed.getAsLong())
+            .subscribe().with(
+                ignored -> flush(),
+                error -> {
+                    LOG.warnf(error, "Failed to checkpoint crawl %s; progress is saved with the next checkpoint", crawlId);
+                    flush();
+                });
+    }
+
+    /**
+     * Watermark of one shard, with the published pages that are not contiguous with it yet.
+     */
+    private static final class ShardProgress {
+        private final ShardCheckpoint stored;
+        private final Map<String, Coverage> ahead = new HashMap<>();
+        private String watermark;
+        private String continuationToken;
+        private boolean done;
+
+        private ShardProgress(ShardCheckpoint stored) {
+            this.stored = stored;
+            this.watermark = stored.lastKey() != null ? stored.lastKey() : stored.lowerKey();
+            this.continuationToken = stored.continuationToken();
+            this.done = stored.done();
+        }
+
+        /**
+         * @return whether the watermark advanced
+         */
+        private boolean complete(ListedPage page) {
+            if (done || Objects.equals(page.after(), page.through())) {
+                return false;
+            }
+            ahead.put(page.after(), new Coverage(page.through(), page.continuationToken()));
+            boolean advanced = false;
+            Coverage next;
+            while (!done && (next = ahead.remove(watermark)) != null) {
+                watermark = next.through();
+                continuationToken = next.continuationToken();
+                done = Objects.equals(watermark, stored.upperKey());
+                advanced = true;
+            }
+            return advanced;
+        }
+
+        private ShardCheckpoint checkpoint() {
+            return new ShardCheckpoint(stored.shardId(), stored.lowerKey(), stored.upperKey(),
+                watermark, continuationToken, done);
+        }
+    }
+
+    /**
+     * The end of a published page's interval.
+     */
+    private record Coverage(String through, String continuationToken) {
+    }
+}
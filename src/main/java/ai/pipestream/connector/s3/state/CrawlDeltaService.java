@@ -0,0 +1,299 @@
+package ai.pipestream.connector.s3.state;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.services.s3.model.ObjectVersion;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Change detection for incremental crawls against {@code s3_crawl_state}.
+ * <p>
+ * An incremental crawl checks each listing page with one batched lookup keyed on
+ * {@code (datasource_id, bucket, object_key)} and only lets new or changed objects
+ * through; those are upserted as {@code PENDING} with one batched upsert per page.
+ * The event consumer then marks each object {@code COMPLETED} or {@code FAILED} once
+ * intake has it, so an object whose ETag and size are unchanged since a completed
+ * (or exhausted) run is skipped next time, while one that never made it through is
+ * published again. Unversioned listings record rows with an empty version id;
+ * versioned crawls ({@link #changedVersions}) keep one row per object version.
+ * </p>
+ * <p>
+ * Statements go through the reactive SQL pool rather than Panache sessions: the
+ * crawl runs on S3 SDK and Mutiny executor threads, not on a Vert.x context, and the
+ * statements are single-row or batch writes that need no unit of work.
+ * </p>
+ */
+@ApplicationScoped
+public class CrawlDeltaService {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public CrawlDeltaService() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(CrawlDeltaService.class);
+
+    private static final String SELECT_PAGE_STATE = """
+        SELECT object_key, object_etag, size_bytes, status
+        FROM s3_crawl_state
+        WHERE datasource_id = $1 AND bucket = $2 AND object_version_id = '' AND object_key = ANY($3)
+        """;
+
+    private static final String SELECT_VERSION_PAGE_STATE = """
+        SELECT object_key, object_version_id, object_etag, size_bytes, status
+        FROM s3_crawl_state
+        WHERE datasource_id = $1 AND bucket = $2
+            AND (object_key, object_version_id) IN (SELECT * FROM unnest($3::varchar[], $4::varchar[]))
+        """;
+
+    private static final String UPSERT_PENDING = """
+        INSERT INTO s3_crawl_state (datasource_id, bucket, object_key, object_version_id, object_etag, size_bytes,
+            last_modified, status, attempt_count, failure_allowance, crawl_source, fingerprint, updated_at, created_at)
+        VALUES ($1, $2, $3, $4, $5, $6, $7, 'PENDING', 0, 1, $8, $9, now(), now())
+        ON CONFLICT (datasource_id, bucket, object_key, object_version_id) DO UPDATE SET
+            attempt_count = CASE WHEN s3_crawl_state.fingerprint IS DISTINCT FROM EXCLUDED.fingerprint
+                THEN 0 ELSE s3_crawl_state.attempt_count END,
+            object_etag = EXCLUDED.object_etag,
+            size_bytes = EXCLUDED.size_bytes,
+            last_modified = EXCLUDED.last_modified,
+            status = 'PENDING',
+            crawl_source = EXCLUDED.crawl_source,
+            fingerprint = EXCLUDED.fingerprint,
+            next_retry_at = NULL,
+            completed_at = NULL,
+            last_error = NULL,
+            updated_at = now()
+        """;
+
+    private static final String MARK_COMPLETED = """
+        UPDATE s3_crawl_state
+        SET status = 'COMPLETED', completed_at = now(), last_attempt_at = now(), updated_at = now(),
+            attempt_count = attempt_count + 1, next_retry_at = NULL, last_error = NULL
+        WHERE datasource_id = $1 AND bucket = $2 AND object_key = $3 AND object_version_id = $4
+            AND object_etag IS NOT DISTINCT FROM $5
+        """;
+
+    private static final String MARK_FAILED = """
+        UPDATE s3_crawl_state
+        SET attempt_count = attempt_count + 1,
+            status = CASE WHEN attempt_count + 1 > failure_allowance THEN 'EXHAUSTED' ELSE 'FAILED' END,
+            last_error = $6, last_attempt_at = now(), updated_at = now()
+        WHERE datasource_id = $1 AND bucket = $2 AND object_key = $3 AND object_version_id = $4
+            AND object_etag IS NOT DISTINCT FROM $5
+        """;
+
+    @Inject
+    Pool pool;
+
+    /**
+     * Filters one listing page down to the objects that are new or changed since
+     * the last run, and records those as {@code PENDING}.
+     * <p>
+     * An object is unchanged when a row exists with the same ETag and size whose
+     * status is {@code COMPLETED} or {@code EXHAUSTED}. Objects that were published
+     * before but never completed are returned again.
+     * </p>
+     *
+     * @param datasourceId datasource identifier
+     * @param bucket       bucket the page was listed from
+     * @param objects      one listing page
+     * @param crawlSource  crawl source recorded on upserted rows
+     * @return the objects to publish, in listing order
+     */
+    public Uni<List<S3Object>> changedObjects(String datasourceId, String bucket, List<S3Object> objects,
+                                              CrawlSource crawlSource) {
+        if (objects.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        String[] keys = objects.stream().map(S3Object::key).toArray(String[]::new);
+
+        return pool.preparedQuery(SELECT_PAGE_STATE)
+            .execute(Tuple.of(datasourceId, bucket, keys))
+            .flatMap(rows -> {
+                Map<String, Row> known = new HashMap<>();
+                for (Row row : rows) {
+                    known.put(row.getString("object_key"), row);
+                }
+
+                List<S3Object> changed = new ArrayList<>();
+                for (S3Object object : objects) {
+                    if (!isUnchanged(known.get(object.key()), object.eTag(), sizeOf(object.size()))) {
+                        changed.add(object);
+                    }
+                }
+                LOG.debugf("Delta page: datasourceId=%s, bucket=%s, listed=%d, known=%d, changed=%d",
+                    datasourceId, bucket, objects.size(), known.size(), changed.size());
+                if (changed.isEmpty()) {
+                    return Uni.createFrom().item(List.<S3Object>of());
+                }
+
+                List<Tuple> upserts = new ArrayList<>(changed.size());
+                for (S3Object object : changed) {
+                    upserts.add(pendingRow(datasourceId, bucket, object.key(), "", object.eTag(), sizeOf(object.size()),
+                        object.lastModified(), crawlSource));
+                }
+                return pool.preparedQuery(UPSERT_PENDING)
+                    .executeBatch(upserts)
+                    .replaceWith(changed);
+            });
+    }
+
+    /**
+     * Filters one page of object versions down to the versions not yet processed,
+     * and records those as {@code PENDING} under their version id.
+     * <p>
+     * Like {@link #changedObjects}, but rows are matched on key and version id, so
+     * each version is tracked in its own row and a settled version is never
+     * published again.
+     * </p>
+     *
+     * @param datasourceId datasource identifier
+     * @param bucket       bucket the page was listed from
+     * @param versions     one ListObjectVersions page
+     * @param crawlSource  crawl source recorded on upserted rows
+     * @return the versions to publish, in listing order
+     */
+    public Uni<List<ObjectVersion>> changedVersions(String datasourceId, String bucket, List<ObjectVersion> versions,
+                                                    CrawlSource crawlSource) {
+        if (versions.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        String[] keys = versions.stream().map(ObjectVersion::key).toArray(String[]::new);
+        String[] versionIds = versions.stream().map(version -> versionOrEmpty(version.versionId())).toArray(String[]::new);
+
+        return pool.preparedQuery(SELECT_VERSION_PAGE_STATE)
+            .execute(Tuple.of(datasourceId, bucket, keys, versionIds))
+            .flatMap(rows -> {
+                Map<String, Row> known = new HashMap<>();
+                for (Row row : rows) {
+                    known.put(versionKey(row.getString("object_key"), row.getString("object_version_id")), row);
+                }
+
+                List<ObjectVersion> changed = new ArrayList<>();
+                for (ObjectVersion version : versions) {
+                    Row row = known.get(versionKey(version.key(), versionOrEmpty(version.versionId())));
+                    if (!isUnchanged(row, version.eTag(), sizeOf(version.size()))) {
+                        changed.add(version);
+                    }
+                }
+                LOG.debugf("Delta version page: datasourceId=%s, bucket=%s, listed=%d, known=%d, changed=%d",
+                    datasourceId, bucket, versions.size(), known.size(), changed.size());
+                if (changed.isEmpty()) {
+                    return Uni.createFrom().item(List.<ObjectVersion>of());
+                }
+
+                List<Tuple> upserts = new ArrayList<>(changed.size());
+                for (ObjectVersion version : changed) {
+                    upserts.add(pendingRow(datasourceId, bucket, version.key(), versionOrEmpty(version.versionId()),
+                        version.eTag(), sizeOf(version.size()), version.lastModified(), crawlSource));
+                }
+                return pool.preparedQuery(UPSERT_PENDING)
+                    .executeBatch(upserts)
+                    .replaceWith(changed);
+            });
+    }
+
+    /**
+     * Records that an object's crawl event was fully processed.
+     * A row for a different ETag (the object changed since) is left alone.
+     *
+     * @param datasourceId datasource identifier
+     * @param bucket       S3 bucket name
+     * @param key          S3 object key
+     * @param versionId    S3 version ID, empty for unversioned listings
+     * @param etag         ETag the event was published with
+     * @return completion once the row is updated
+     */
+    public Uni<Void> markCompleted(String datasourceId, String bucket, String key, String versionId, String etag) {
+        return pool.preparedQuery(MARK_COMPLETED)
+            .execute(Tuple.of(datasourceId, bucket, key, versionOrEmpty(versionId), blankToNull(etag)))
+            .replaceWithVoid();
+    }
+
+    /**
+     * Records a failed attempt to process an object's crawl event; the row becomes
+     * {@code EXHAUSTED} once its failure allowance is used up.
+     *
+     * @param datasourceId datasource identifier
+     * @param bucket       S3 bucket name
+     * @param key          S3 object key
+     * @param versionId    S3 version ID, empty for unversioned listings
+     * @param etag         ETag the event was published with
+     * @param error        failure description
+     * @return completion once the row is updated
+     */
+    public Uni<Void> markFailed(String datasourceId, String bucket, String key, String versionId, String etag,
+                                String error) {
+        return pool.preparedQuery(MARK_FAILED)
+            .execute(Tuple.of(datasourceId, bucket, key, versionOrEmpty(versionId), blankToNull(etag), error))
+            .replaceWithVoid();
+    }
+
+    /**
+     * Change fingerprint stored with each row: ETag and size.
+     *
+     * @param etag      object ETag (may be {@code null})
+     * @param sizeBytes object size in bytes
+     * @return the fingerprint string
+     */
+    public static String fingerprint(String etag, long sizeBytes) {
+        return (etag == null ? "" : etag) + ":" + sizeBytes;
+    }
+
+    private static Tuple pendingRow(String datasourceId, String bucket, String key, String versionId, String etag,
+                                    long size, Instant lastModified, CrawlSource crawlSource) {
+        return Tuple.tuple(Arrays.<Object>asList(
+            datasourceId,
+            bucket,
+            key,
+            versionId,
+            etag,
+            size,
+            lastModified != null ? lastModified.atOffset(ZoneOffset.UTC) : null,
+            crawlSource.name(),
+            fingerprint(etag, size)));
+    }
+
+    private static boolean isUnchanged(Row row, String etag, long size) {
+        if (row == null) {
+            return false;
+        }
+        String status = row.getString("status");
+        boolean settled = CrawlStateStatus.COMPLETED.name().equals(status)
+            || CrawlStateStatus.EXHAUSTED.name().equals(status);
+        return settled
+            && Objects.equals(row.getString("object_etag"), etag)
+            && row.getLong("size_bytes") == size;
+    }
+
+    private static long sizeOf(Long size) {
+        return size != null ? size : 0L;
+    }
+
+    private static String versionKey(String key, String versionId) {
+        return key + "\n" + versionId;
+    }
+
+    private static String versionOrEmpty(String versionId) {
+        return versionId == null ? "" : versionId;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
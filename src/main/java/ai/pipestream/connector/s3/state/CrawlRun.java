@@ -0,0 +1,29 @@
+package ai.pipestream.connector.s3.state;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * A crawl run as persisted in {@code s3_crawl_runs}, with its shard checkpoints.
+ *
+ * @param crawlId            crawl identifier (the StartCrawl request id)
+ * @param datasourceId       datasource identifier
+ * @param bucket             crawled bucket
+ * @param prefix             crawled prefix, {@code null} for the whole bucket
+ * @param crawlSource        whether the run is an initial or incremental crawl
+ * @param listingMode        listing mode the run was started with
+ * @param status             current status
+ * @param dispatchedCount    events published so far, over all attempts
+ * @param publishFailedCount events given up on, over all attempts
+ * @param lastError          why the run last stopped, if it failed
+ * @param createdAt          when the run was first started
+ * @param updatedAt          when the run last recorded progress or a status change
+ * @param shards             checkpoints of the run's listing shards
+ */
+public record CrawlRun(String crawlId, String datasourceId, String bucket, String prefix, CrawlSource crawlSource,
+                       S3ConnectorConfig.ListingMode listingMode, CrawlRunStatus status, long dispatchedCount, long publishFailedCount,
+                       String lastError, OffsetDateTime createdAt, OffsetDateTime updatedAt,
+                       List<ShardCheckpoint> shards) {
+}
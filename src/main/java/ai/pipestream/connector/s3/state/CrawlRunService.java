@@ -0,0 +1,333 @@
+package ai.pipestream.connector.s3.state;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.crawl.ListingShard;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Persists crawl runs and their per-shard listing checkpoints in
+ * {@code s3_crawl_runs} and {@code s3_crawl_run_shards}.
+ * <p>
+ * A crawl records its listing shards when it starts, then each shard's watermark
+ * (the last key up to which every event has been published) as it advances. A run
+ * that died with its pod, was paused, or failed part-way can then be resumed by
+ * listing each unfinished shard again with {@code StartAfter} at its watermark.
+ * Watermarks only move forward: a checkpoint write that arrives late never moves
+ * a shard back.
+ * </p>
+ * <p>
+ * A crawl only counts as abandoned once its run has not been touched for
+ * {@code s3.connector.checkpoint.stale-after}. Checkpoints stop while a crawl is
+ * paused, or while a page takes long to list, so the owning instance also
+ * touches {@code updated_at} of every crawl it holds in its
+ * {@link CrawlStatusRegistry} (running or paused) every third of that period.
+ * A paused run is then never resumed elsewhere while its owner is alive.
+ * </p>
+ * <p>
+ * Like {@link CrawlDeltaService}, statements go through the reactive SQL pool,
+ * since crawls run on S3 SDK and Mutiny executor threads.
+ * </p>
+ */
+@ApplicationScoped
+public class CrawlRunService {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public CrawlRunService() {
+    }
+
+    private static final Logger LOG = Logger.getLogger(CrawlRunService.class);
+
+    private static final String UPSERT_RUN = """
+        INSERT INTO s3_crawl_runs (crawl_id, datasource_id, bucket, object_prefix, crawl_source, listing_mode,
+            status, dispatched_count, publish_failed_count, created_at, updated_at)
+        VALUES ($1, $2, $3, $4, $5, $6, 'RUNNING', 0, 0, now(), now())
+        ON CONFLICT (crawl_id) DO UPDATE SET
+            datasource_id = EXCLUDED.datasource_id,
+            bucket = EXCLUDED.bucket,
+            object_prefix = EXCLUDED.object_prefix,
+            crawl_source = EXCLUDED.crawl_source,
+            listing_mode = EXCLUDED.listing_mode,
+            status = 'RUNNING',
+            dispatched_count = 0,
+            publish_failed_count = 0,
+            last_error = NULL,
+            created_at = now(),
+            updated_at = now()
+        """;
+
+    private static final String DELETE_SHARDS = """
+        DELETE FROM s3_crawl_run_shards WHERE crawl_id = $1
+        """;
+
+    private static final String INSERT_SHARD = """
+        INSERT INTO s3_crawl_run_shards (crawl_id, shard_id, lower_key, upper_key, done, updated_at)
+        VALUES ($1, $2, $3, $4, FALSE, now())
+        """;
+
+    private static final String SAVE_SHARD_CHECKPOINT = """
+        UPDATE s3_crawl_run_shards
+        SET last_key = COALESCE($3, last_key),
+            continuation_token = $4,
+            done = done OR $5,
+            updated_at = now()
+        WHERE crawl_id = $1 AND shard_id = $2 AND NOT done
+            AND ($5 OR last_key IS NULL OR $3::varchar COLLATE "C" > last_key COLLATE "C")
+        """;
+
+    private static final String SAVE_COUNTS = """
+        UPDATE s3_crawl_runs
+        SET dispatched_count = GREATEST(dispatched_count, $2),
+            publish_failed_count = GREATEST(publish_failed_count, $3),
+            updated_at = now()
+        WHERE crawl_id = $1
+        """;
+
+    private static final String SET_STATUS = """
+        UPDATE s3_crawl_runs SET status = $2, last_error = $3, updated_at = now() WHERE crawl_id = $1
+        """;
+
+    private static final String TOUCH_RUNS = """
+        UPDATE s3_crawl_runs SET updated_at = now()
+        WHERE crawl_id = ANY($1) AND status IN ('RUNNING', 'PAUSED')
+        """;
+
+    private static final String SELECT_RUN = """
+        SELECT crawl_id, datasource_id, bucket, object_prefix, crawl_source, listing_mode, status,
+            dispatched_count, publish_failed_count, last_error, created_at, updated_at
+        FROM s3_crawl_runs
+        WHERE crawl_id = $1
+        """;
+
+    private static final String SELECT_SHARDS = """
+        SELECT shard_id, lower_key, upper_key, last_key, continuation_token, done
+        FROM s3_crawl_run_shards
+        WHERE crawl_id = $1
+        ORDER BY shard_id
+        """;
+
+    @Inject
+    Pool pool;
+
+    @Inject
+    S3ConnectorConfig config;
+
+    @Inject
+    CrawlStatusRegistry statusRegistry;
+
+    private volatile Cancellable heartbeat;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!config.checkpoint().enabled()) {
+            return;
+        }
+        Duration every = config.checkpoint().staleAfter().dividedBy(3);
+        if (every.compareTo(Duration.ofSeconds(1)) < 0) {
+            every = Duration.ofSeconds(1);
+        }
+        heartbeat = Multi.createFrom().ticks().every(every)
+            .onOverflow().drop()
+            .onItem().transformToUniAndConcatenate(ignored -> heartbeat()
+                .onFailure().invoke(error -> LOG.warnf(error, "Failed to record the crawl run heartbeat"))
+                .onFailure().recoverWithNull())
+            .subscribe().with(
+                ignored -> { },
+                error -> LOG.errorf(error, "Crawl run heartbeat stopped"));
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        Cancellable current = heartbeat;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * Touches the runs of every crawl running or paused in this process, so no
+     * other instance takes them for abandoned.
+     *
+     * @return completion once stored
+     */
+    public Uni<Void> heartbeat() {
+        String[] crawlIds = statusRegistry.activeRequestIds().toArray(String[]::new);
+        if (crawlIds.length == 0) {
+            return Uni.createFrom().voidItem();
+        }
+        return pool.preparedQuery(TOUCH_RUNS).execute(Tuple.of(crawlIds)).replaceWithVoid();
+    }
+
+    /**
+     * Records a crawl run as started from scratch with the given listing shards,
+     * replacing whatever an earlier run with the same id had recorded.
+     *
+     * @param crawlId      crawl identifier
+     * @param datasourceId datasource identifier
+     * @param bucket       crawled bucket
+     * @param prefix       crawled prefix (may be {@code null})
+     * @param crawlSource  initial or incremental
+     * @param listingMode  listing mode of the run
+     * @param shards       the run's listing shards; empty when the listing is not checkpointed
+     * @return completion once the run and its shards are stored
+     */
+    public Uni<Void> start(String crawlId, String datasourceId, String bucket, String prefix,
+                           CrawlSource crawlSource, S3ConnectorConfig.ListingMode listingMode,
+                           List<ListingShard> shards) {
+        return pool.withTransaction(connection -> connection.preparedQuery(UPSERT_RUN)
+            .execute(Tuple.tuple(Arrays.<Object>asList(crawlId, datasourceId, bucket, prefix,
+                crawlSource.name(), listingMode.name())))
+            .flatMap(rows -> connection.preparedQuery(DELETE_SHARDS).execute(Tuple.of(crawlId)))
+            .flatMap(rows -> {
+                if (shards.isEmpty()) {
+                    return Uni.createFrom().voidItem();
+                }
+                List<Tuple> inserts = new ArrayList<>(shards.size());
+                for (ListingShard shard : shards) {
+                    inserts.add(Tuple.of(crawlId, shard.id(), shard.lower(), shard.upper()));
+                }
+                return connection.preparedQuery(INSERT_SHARD).executeBatch(inserts).replaceWithVoid();
+            }));
+    }
+
+    /**
+     * Stores shard watermarks and the run's event counts. Watermarks behind the
+     * stored ones, and shards already done, are left alone.
+     *
+     * @param crawlId     crawl identifier
+     * @param checkpoints shard checkpoints to store
+     * @param dispatched  events published so far
+     * @param failed      events given up on so far
+     * @return completion once stored
+     */
+    public Uni<Void> saveCheckpoints(String crawlId, List<ShardCheckpoint> checkpoints, long dispatched, long failed) {
+        Uni<Void> shards = Uni.createFrom().voidItem();
+        if (!checkpoints.isEmpty()) {
+            List<Tuple> updates = new ArrayList<>(checkpoints.size());
+            for (ShardCheckpoint checkpoint : checkpoints) {
+                updates.add(Tuple.of(crawlId, checkpoint.shardId(), checkpoint.lastKey(),
+                    checkpoint.continuationToken(), checkpoint.done()));
+            }
+            shards = pool.preparedQuery(SAVE_SHARD_CHECKPOINT).executeBatch(updates).replaceWithVoid();
+        }
+        return shards.flatMap(v -> pool.preparedQuery(SAVE_COUNTS)
+            .execute(Tuple.of(crawlId, dispatched, failed))
+            .replaceWithVoid());
+    }
+
+    /**
+     * Sets a run's status.
+     *
+     * @param crawlId crawl identifier
+     * @param status  new status
+     * @param error   why the run stopped, or {@code null}
+     * @return completion once stored; a no-op for unknown runs
+     */
+    public Uni<Void> setStatus(String crawlId, CrawlRunStatus status, String error) {
+        return pool.preparedQuery(SET_STATUS)
+            .execute(Tuple.of(crawlId, status.name(), error))
+            .replaceWithVoid();
+    }
+
+    /**
+     * Loads a run with its shard checkpoints.
+     *
+     * @param crawlId crawl identifier
+     * @return the run, or a failure with {@link IllegalStateException} if there is none
+     */
+    public Uni<CrawlRun> find(String crawlId) {
+        return pool.preparedQuery(SELECT_RUN).execute(Tuple.of(crawlId))
+            .flatMap(runs -> {
+                if (runs.size() == 0) {
+                    return Uni.createFrom().failure(new IllegalStateException("No crawl run found for crawl_id=" + crawlId));
+                }
+                Row run = runs.iterator().next();
+                return pool.preparedQuery(SELECT_SHARDS).execute(Tuple.of(crawlId))
+                    .map(shards -> toRun(run, shards));
+            });
+    }
+
+    /**
+     * Loads a run that may be resumed from its checkpoints here: one that did not
+     * complete and is not still running elsewhere. A {@code RUNNING} or
+     * {@code PAUSED} run counts as abandoned once it has not recorded anything, nor
+     * had a heartbeat from the instance holding it, for
+     * {@code s3.connector.checkpoint.stale-after}.
+     *
+     * @param crawlId crawl identifier
+     * @return the run, or a failure with {@link IllegalArgumentException} if it cannot be resumed
+     */
+    public Uni<CrawlRun> findResumable(String crawlId) {
+        return find(crawlId).map(run -> {
+            if (run.status() == CrawlRunStatus.COMPLETED) {
+                throw new IllegalArgumentException("Crawl " + crawlId + " already completed");
+            }
+            boolean active = run.status() == CrawlRunStatus.RUNNING || run.status() == CrawlRunStatus.PAUSED;
+            OffsetDateTime staleBefore = OffsetDateTime.now().minus(config.checkpoint().staleAfter());
+            if (active && run.updatedAt() != null && run.updatedAt().isAfter(staleBefore)) {
+                throw new IllegalArgumentException("Crawl " + crawlId + " is " + run.status()
+                    + " on another instance (last progress at " + run.updatedAt() + ")");
+            }
+            return run;
+        });
+    }
+
+    /**
+     * Starts tracking the checkpoints of one crawl attempt.
+     *
+     * @param crawlId    crawl identifier
+     * @param shards     the run's shards, as stored
+     * @param dispatched events published by the run so far, over all attempts
+     * @param failed     events given up on by the run so far, over all attempts
+     * @return a checkpointer for this attempt
+     */
+    public CrawlCheckpointer checkpointer(String crawlId, List<ShardCheckpoint> shards,
+                                          LongSupplier dispatched, LongSupplier failed) {
+        return new CrawlCheckpointer(this, crawlId, shards, dispatched, failed);
+    }
+
+    private static CrawlRun toRun(Row run, RowSet<Row> shardRows) {
+        List<ShardCheckpoint> shards = new ArrayList<>();
+        for (Row shard : shardRows) {
+            shards.add(new ShardCheckpoint(
+                shard.getString("shard_id"),
+                shard.getString("lower_key"),
+                shard.getString("upper_key"),
+                shard.getString("last_key"),
+                shard.getString("continuation_token"),
+                shard.getBoolean("done")));
+        }
+        return new CrawlRun(
+            run.getString("crawl_id"),
+            run.getString("datasource_id"),
+            run.getString("bucket"),
+            run.getString("object_prefix"),
+            CrawlSource.valueOf(run.getString("crawl_source")),
+            S3ConnectorConfig.ListingMode.valueOf(run.getString("listing_mode")),
+            CrawlRunStatus.valueOf(run.getString("status")),
+            run.getLong("dispatched_count"),
+            run.getLong("publish_failed_count"),
+            run.getString("last_error"),
+            run.getOffsetDateTime("created_at"),
+            run.getOffsetDateTime("updated_at"),
+            shards);
+    }
+}
@@ -0,0 +1,26 @@
+package ai.pipestream.connector.s3.state;
+
+/**
+ * Lifecycle status of a crawl run in {@code s3_crawl_runs}.
+ */
+public enum CrawlRunStatus {
+    /**
+     * The crawl is listing and publishing.
+     */
+    RUNNING,
+
+    /**
+     * The crawl was paused and waits to be resumed.
+     */
+    PAUSED,
+
+    /**
+     * Every shard was listed and every event published.
+     */
+    COMPLETED,
+
+    /**
+     * The crawl stopped early or gave up on some events; it can be resumed from its checkpoints.
+     */
+    FAILED
+}
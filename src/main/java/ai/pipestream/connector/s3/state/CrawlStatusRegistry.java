@@ -1,11 +1,15 @@
 package ai.pipestream.connector.s3.state;
 
 import ai.pipestream.connector.s3.v1.S3CrawlPhase;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.jboss.logging.Logger;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -21,6 +25,10 @@ import java.util.concurrent.atomic.AtomicLong;
  * Terminal entries are retained so late subscribers still learn the
  * outcome (snapshot semantics), bounded by {@link #MAX_ENTRIES} with
  * oldest-terminal eviction.
+ *
+ * <p>Also the pause switch of running crawls: a paused crawl stops taking
+ * new pages at {@link #awaitRunning} until it is resumed. Durable progress
+ * lives in {@code s3_crawl_runs}, not here.
  */
 @ApplicationScoped
 public class CrawlStatusRegistry {
@@ -36,10 +44,12 @@ public class CrawlStatusRegistry {
     public static final class CrawlStatus {
         private final String requestId;
         private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong publishFailed = new AtomicLong();
         private volatile S3CrawlPhase phase = S3CrawlPhase.S3_CRAWL_PHASE_LISTING;
         private volatile long total = -1;
         private volatile String error;
         private volatile long lastUpdatedEpochMs = System.currentTimeMillis();
+        private volatile CompletableFuture<Void> resumed;
 
         private CrawlStatus(String requestId) {
             this.requestId = requestId;
@@ -53,6 +63,11 @@ public class CrawlStatusRegistry {
             return dispatched.get();
         }
 
+        /** Objects whose crawl event could not be published after all retries. */
+        public long publishFailed() {
+            return publishFailed.get();
+        }
+
         public S3CrawlPhase phase() {
             return phase;
         }
@@ -66,6 +81,11 @@ public class CrawlStatusRegistry {
             return error;
         }
 
+        /** Whether the crawl is paused and waits for {@link #resume}. */
+        public boolean isPaused() {
+            return resumed != null;
+        }
+
         public boolean isTerminal() {
             return phase == S3CrawlPhase.S3_CRAWL_PHASE_COMPLETED
                     || phase == S3CrawlPhase.S3_CRAWL_PHASE_FAILED;
@@ -78,6 +98,13 @@ public class CrawlStatusRegistry {
         return byRequestId.computeIfAbsent(requestId, CrawlStatus::new);
     }
 
+    /** Start tracking a resumed crawl, replacing the entry of its earlier, finished attempt. */
+    public CrawlStatus restart(String requestId) {
+        evictIfNeeded();
+        return byRequestId.compute(requestId,
+                (id, previous) -> previous == null || previous.isTerminal() ? new CrawlStatus(id) : previous);
+    }
+
     /** One object's crawl event was published. No-op for untracked/blank ids. */
     public void markDispatched(String requestId) {
         if (requestId == null || requestId.isEmpty()) {
@@ -90,6 +117,18 @@ public class CrawlStatusRegistry {
         }
     }
 
+    /** One object's crawl event was given up on after its retries. No-op for untracked/blank ids. */
+    public void markPublishFailed(String requestId) {
+        if (requestId == null || requestId.isEmpty()) {
+            return;
+        }
+        CrawlStatus status = byRequestId.get(requestId);
+        if (status != null) {
+            status.publishFailed.incrementAndGet();
+            status.lastUpdatedEpochMs = System.currentTimeMillis();
+        }
+    }
+
     /** The crawl listed and published everything; total freezes at the dispatched count. */
     public void complete(String requestId) {
         CrawlStatus status = byRequestId.get(requestId);
@@ -99,7 +138,8 @@ public class CrawlStatusRegistry {
         status.total = status.dispatched.get();
         status.phase = S3CrawlPhase.S3_CRAWL_PHASE_COMPLETED;
         status.lastUpdatedEpochMs = System.currentTimeMillis();
-        LOG.infof("Crawl %s COMPLETED: %d object(s) dispatched", requestId, status.total);
+        LOG.infof("Crawl %s COMPLETED: %d object(s) dispatched, %d failed to publish",
+                requestId, status.total, status.publishFailed());
     }
 
     /** The crawl aborted. dispatched() tells how far it got. */
@@ -114,6 +154,72 @@ public class CrawlStatusRegistry {
         LOG.warnf("Crawl %s FAILED after %d object(s): %s", requestId, status.dispatched(), error);
     }
 
+    /**
+     * Pause a running crawl: it finishes the pages it is publishing, then waits.
+     *
+     * @return false when the crawl is not running in this process
+     */
+    public boolean pause(String requestId) {
+        CrawlStatus status = byRequestId.get(requestId);
+        if (status == null || status.isTerminal()) {
+            return false;
+        }
+        synchronized (status) {
+            if (status.resumed == null) {
+                status.resumed = new CompletableFuture<>();
+                LOG.infof("Crawl %s PAUSED after %d object(s)", requestId, status.dispatched());
+            }
+        }
+        status.lastUpdatedEpochMs = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Resume a crawl paused in this process.
+     *
+     * @return false when the crawl is not paused in this process
+     */
+    public boolean resume(String requestId) {
+        CrawlStatus status = byRequestId.get(requestId);
+        if (status == null) {
+            return false;
+        }
+        CompletableFuture<Void> resumed;
+        synchronized (status) {
+            resumed = status.resumed;
+            status.resumed = null;
+        }
+        if (resumed == null) {
+            return false;
+        }
+        status.lastUpdatedEpochMs = System.currentTimeMillis();
+        LOG.infof("Crawl %s RESUMED", requestId);
+        resumed.complete(null);
+        return true;
+    }
+
+    /**
+     * Gate for the crawl loop: completes at once unless the crawl is paused, and
+     * otherwise when it is resumed (on a worker thread, not the resuming caller's).
+     */
+    public Uni<Void> awaitRunning(String requestId) {
+        CrawlStatus status = requestId == null || requestId.isEmpty() ? null : byRequestId.get(requestId);
+        CompletableFuture<Void> resumed = status == null ? null : status.resumed;
+        if (resumed == null) {
+            return Uni.createFrom().voidItem();
+        }
+        return Uni.createFrom().completionStage(resumed)
+            .emitOn(Infrastructure.getDefaultExecutor());
+    }
+
+    /** @return request ids of the crawls running or paused in this process. */
+    public List<String> activeRequestIds() {
+        return byRequestId.values().stream()
+                .filter(status -> !status.isTerminal())
+                .map(CrawlStatus::requestId)
+                .toList();
+    }
+
     /** @return the crawl's live status, or null when unknown (never started, or evicted/restart). */
     public CrawlStatus get(String requestId) {
         return byRequestId.get(requestId);
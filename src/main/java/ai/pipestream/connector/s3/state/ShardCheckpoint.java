@@ -0,0 +1,24 @@
+package ai.pipestream.connector.s3.state;
+
+import ai.pipestream.connector.s3.crawl.ListingShard;
+
+/**
+ * Persisted progress of one listing shard of a crawl run.
+ *
+ * @param shardId           shard identifier
+ * @param lowerKey          the shard's original exclusive lower bound, {@code null} when open
+ * @param upperKey          the shard's inclusive upper bound, {@code null} when open
+ * @param lastKey           last key up to which everything has been published, {@code null} before the first page
+ * @param continuationToken token of the page after {@code lastKey}, for sequential listings
+ * @param done              whether the whole shard has been published
+ */
+public record ShardCheckpoint(String shardId, String lowerKey, String upperKey, String lastKey,
+                              String continuationToken, boolean done) {
+
+    /**
+     * @return the part of the shard still to list: everything after the checkpoint
+     */
+    public ListingShard remaining() {
+        return new ListingShard(shardId, lastKey != null ? lastKey : lowerKey, upperKey);
+    }
+}
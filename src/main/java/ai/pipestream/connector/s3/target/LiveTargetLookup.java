@@ -0,0 +1,82 @@
+package ai.pipestream.connector.s3.target;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the crawl targets that take live (event-driven) updates for a set of buckets.
+ * <p>
+ * Used for every batch of bucket notifications, which arrive on SDK threads
+ * rather than a Vert.x context, so the lookup goes through the reactive SQL pool
+ * instead of Panache.
+ * </p>
+ */
+@ApplicationScoped
+public class LiveTargetLookup {
+
+    /**
+     * Default constructor for CDI injection.
+     */
+    public LiveTargetLookup() {
+    }
+
+    private static final String SELECT_LIVE_TARGETS = """
+        SELECT datasource_id, bucket, object_prefix
+        FROM s3_crawl_targets
+        WHERE enabled AND crawl_mode IN ('LIVE', 'BOTH') AND bucket = ANY($1)
+        """;
+
+    @Inject
+    Pool pool;
+
+    /**
+     * An enabled {@code LIVE} or {@code BOTH} target.
+     *
+     * @param datasourceId datasource the target belongs to
+     * @param bucket       target bucket
+     * @param prefix       target prefix, {@code null} for the whole bucket
+     */
+    public record LiveTarget(String datasourceId, String bucket, String prefix) {
+
+        /**
+         * @param key object key in {@link #bucket()}
+         * @return whether the key is inside the target
+         */
+        public boolean covers(String key) {
+            return prefix == null || prefix.isEmpty() || key.startsWith(prefix);
+        }
+    }
+
+    /**
+     * Loads the live targets of the given buckets.
+     *
+     * @param buckets bucket names
+     * @return live targets by bucket; buckets without any are absent
+     */
+    public Uni<Map<String, List<LiveTarget>>> findByBuckets(Collection<String> buckets) {
+        if (buckets.isEmpty()) {
+            return Uni.createFrom().item(Map.of());
+        }
+        return pool.preparedQuery(SELECT_LIVE_TARGETS)
+            .execute(Tuple.of(buckets.toArray(String[]::new)))
+            .map(rows -> {
+                Map<String, List<LiveTarget>> targets = new HashMap<>();
+                for (Row row : rows) {
+                    LiveTarget target = new LiveTarget(row.getString("datasource_id"), row.getString("bucket"),
+                        row.getString("object_prefix"));
+                    targets.computeIfAbsent(target.bucket(), bucket -> new ArrayList<>()).add(target);
+                }
+                return targets;
+            });
+    }
+}
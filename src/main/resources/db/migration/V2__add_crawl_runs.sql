@@ -0,0 +1,35 @@
+-- Crawl runs and their per-shard listing checkpoints, so a crawl can resume after a restart.
+CREATE TABLE IF NOT EXISTS s3_crawl_runs (
+    crawl_id VARCHAR(255) PRIMARY KEY,
+    datasource_id VARCHAR(255) NOT NULL,
+    bucket VARCHAR(512) NOT NULL,
+    object_prefix VARCHAR(2048),
+    crawl_source VARCHAR(20) NOT NULL,
+    listing_mode VARCHAR(32) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    dispatched_count BIGINT NOT NULL DEFAULT 0,
+    publish_failed_count BIGINT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_s3_crawl_runs_datasource
+    ON s3_crawl_runs (datasource_id);
+
+CREATE INDEX IF NOT EXISTS idx_s3_crawl_runs_status
+    ON s3_crawl_runs (status);
+
+-- One row per listing shard: keys (lower_key, upper_key] of the crawl, NULL bounds open.
+-- last_key is the watermark: every key of the shard up to and including it has been published.
+CREATE TABLE IF NOT EXISTS s3_crawl_run_shards (
+    crawl_id VARCHAR(255) NOT NULL REFERENCES s3_crawl_runs (crawl_id) ON DELETE CASCADE,
+    shard_id VARCHAR(64) NOT NULL,
+    lower_key VARCHAR(4096),
+    upper_key VARCHAR(4096),
+    last_key VARCHAR(4096),
+    continuation_token TEXT,
+    done BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (crawl_id, shard_id)
+);
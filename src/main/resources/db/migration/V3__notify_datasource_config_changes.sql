@@ -0,0 +1,18 @@
+-- Announce datasource config changes so every replica can drop its cached config and S3 client.
+-- The payload is the datasource id; listeners re-read the row.
+CREATE OR REPLACE FUNCTION notify_s3_datasource_config_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('s3_datasource_configs', OLD.datasource_id);
+    ELSE
+        PERFORM pg_notify('s3_datasource_configs', NEW.datasource_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS s3_datasource_configs_notify ON s3_datasource_configs;
+
+CREATE TRIGGER s3_datasource_configs_notify
+    AFTER INSERT OR UPDATE OR DELETE ON s3_datasource_configs
+    FOR EACH ROW EXECUTE FUNCTION notify_s3_datasource_config_change();
@@ -0,0 +1,105 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.concurrent.AsyncPermits;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AsyncPermits}, the non-blocking semaphore that bounds listing
+ * and publishing windows.
+ */
+class AsyncPermitsTest {
+
+    @Test
+    void waitersAreGrantedInArrivalOrder() {
+        AsyncPermits permits = new AsyncPermits("test", 2);
+        List<String> granted = new CopyOnWriteArrayList<>();
+        permits.acquire(2).subscribe().with(ignored -> granted.add("holder"));
+
+        permits.acquire(2).subscribe().with(ignored -> granted.add("large"));
+        permits.acquire(1).subscribe().with(ignored -> granted.add("small-1"));
+        permits.acquire(1).subscribe().with(ignored -> granted.add("small-2"));
+        assertThat(permits.queued()).isEqualTo(3);
+
+        // One permit back fits neither the head of the queue nor, since the queue
+        // is FIFO, anyone behind it.
+        permits.release(1);
+        assertThat(granted).containsExactly("holder");
+
+        permits.release(1);
+        assertThat(granted).containsExactly("holder", "large");
+
+        permits.release(2);
+        assertThat(granted).containsExactly("holder", "large", "small-1", "small-2");
+        assertThat(permits.queued()).isZero();
+        assertThat(permits.available()).isZero();
+    }
+
+    @Test
+    void cancelledWaiterDoesNotLeakPermits() {
+        AsyncPermits permits = new AsyncPermits("test", 1);
+        permits.acquire(1).subscribe().with(ignored -> { });
+
+        AtomicBoolean cancelledGranted = new AtomicBoolean();
+        Cancellable waiting = permits.acquire(1).subscribe().with(ignored -> cancelledGranted.set(true));
+        assertThat(permits.queued()).isEqualTo(1);
+
+        waiting.cancel();
+        assertThat(permits.queued()).isZero();
+
+        permits.release(1);
+        assertThat(cancelledGranted).isFalse();
+        assertThat(permits.available()).isEqualTo(1);
+    }
+
+    @Test
+    void releaseAfterCancelSkipsToTheNextWaiter() {
+        AsyncPermits permits = new AsyncPermits("test", 1);
+        List<String> granted = new CopyOnWriteArrayList<>();
+        permits.acquire(1).subscribe().with(ignored -> granted.add("holder"));
+        Cancellable first = permits.acquire(1).subscribe().with(ignored -> granted.add("first"));
+        permits.acquire(1).subscribe().with(ignored -> granted.add("second"));
+
+        first.cancel();
+        permits.release(1);
+
+        assertThat(granted).containsExactly("holder", "second");
+        assertThat(permits.available()).isZero();
+        assertThat(permits.queued()).isZero();
+    }
+
+    @Test
+    void cancellingGuardedWorkReturnsItsPermit() {
+        AsyncPermits permits = new AsyncPermits("test", 1);
+        Cancellable running = permits.withPermit(() -> Uni.createFrom().nothing())
+            .subscribe().with(ignored -> { });
+        assertThat(permits.available()).isZero();
+
+        running.cancel();
+        assertThat(permits.available()).isEqualTo(1);
+    }
+
+    @Test
+    void oversizeRequestsAreClampedToCapacity() {
+        AsyncPermits permits = new AsyncPermits("test", 4);
+        AtomicBoolean granted = new AtomicBoolean();
+        permits.acquire(10).subscribe().with(ignored -> granted.set(true));
+        assertThat(granted).isTrue();
+        assertThat(permits.available()).isZero();
+
+        permits.release(10);
+        assertThat(permits.available()).isEqualTo(4);
+
+        String result = permits.withPermits(100, () -> Uni.createFrom().item("done"))
+            .await().indefinitely();
+        assertThat(result).isEqualTo("done");
+        assertThat(permits.available()).isEqualTo(4);
+    }
+}
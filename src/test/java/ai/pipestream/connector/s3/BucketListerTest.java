@@ -0,0 +1,112 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.crawl.BucketLister;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tests for the demand-driven sequential listing of {@link BucketLister}: a
+ * ListObjectsV2 call is only made for a page someone asked for, so a bounded
+ * list-ahead buffer keeps listing ahead of a slow consumer by that buffer only.
+ * An in-memory client serves the pages and counts the calls.
+ */
+@QuarkusTest
+class BucketListerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int PAGES = 8;
+
+    @Inject
+    BucketLister lister;
+
+    @Test
+    void pagesAreListedOnlyAsTheyAreRequested() throws InterruptedException {
+        PagedBucket bucket = new PagedBucket();
+
+        AssertSubscriber<List<S3Object>> pages = lister.sequential(bucket, "bucket", null)
+            .subscribe().withSubscriber(AssertSubscriber.create(0));
+        Thread.sleep(200);
+        assertThat(bucket.listCalls).hasValue(0);
+
+        pages.request(2);
+        pages.awaitItems(2, TIMEOUT);
+        Thread.sleep(200);
+        assertThat(bucket.listCalls).hasValue(2);
+
+        pages.request(Long.MAX_VALUE);
+        pages.awaitCompletion(TIMEOUT);
+        assertThat(bucket.listCalls).hasValue(PAGES);
+        assertThat(pages.getItems()).extracting(page -> page.get(0).key())
+            .containsExactlyElementsOf(IntStream.range(0, PAGES).mapToObj(PagedBucket::firstKey).toList());
+    }
+
+    @Test
+    void listAheadBufferBoundsHowFarListingRunsAhead() throws InterruptedException {
+        PagedBucket bucket = new PagedBucket();
+        int listAhead = 2;
+
+        // The crawl's list-ahead stage, with a consumer stuck on its first page
+        AssertSubscriber<List<S3Object>> pages = lister.sequential(bucket, "bucket", null)
+            .emitOn(Infrastructure.getDefaultExecutor(), listAhead)
+            .subscribe().withSubscriber(AssertSubscriber.create(1));
+        pages.awaitItems(1, TIMEOUT);
+        await().atMost(TIMEOUT).until(() -> bucket.listCalls.get() >= listAhead);
+        Thread.sleep(200);
+        assertThat(bucket.listCalls.get()).isBetween(listAhead, listAhead + 1);
+
+        pages.request(Long.MAX_VALUE);
+        pages.awaitCompletion(TIMEOUT);
+        assertThat(pages.getItems()).hasSize(PAGES);
+    }
+
+    /**
+     * A bucket of {@link #PAGES} pages of two objects each, answering
+     * ListObjectsV2 from memory.
+     */
+    private static final class PagedBucket implements S3AsyncClient {
+
+        final AtomicInteger listCalls = new AtomicInteger();
+
+        static String firstKey(int page) {
+            return "object-%03d".formatted(page * 2);
+        }
+
+        @Override
+        public CompletableFuture<ListObjectsV2Response> listObjectsV2(ListObjectsV2Request request) {
+            listCalls.incrementAndGet();
+            int page = request.continuationToken() == null ? 0 : Integer.parseInt(request.continuationToken());
+            boolean truncated = page + 1 < PAGES;
+            return CompletableFuture.completedFuture(ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key(firstKey(page)).size(1L).build(),
+                    S3Object.builder().key("object-%03d".formatted(page * 2 + 1)).size(1L).build())
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? Integer.toString(page + 1) : null)
+                .build());
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
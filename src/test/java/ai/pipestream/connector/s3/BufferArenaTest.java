@@ -0,0 +1,107 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.buffer.BufferArena;
+import ai.pipestream.connector.s3.buffer.PooledBuffer;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link BufferArena} and {@link PooledBuffer}: size-class reuse, releasing
+ * leases, and bodies that do not match their expected length.
+ */
+@QuarkusTest
+class BufferArenaTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Inject
+    BufferArena arena;
+
+    @Test
+    void releasedBuffersAreReusedForTheirSizeClass() {
+        long pooledBefore = arena.pooledBytes();
+        long leasedBefore = arena.leasedBytes();
+
+        // 100 000 bytes fall into the 128 KiB class.
+        PooledBuffer first = arena.lease(100_000).await().atMost(TIMEOUT);
+        assertThat(arena.leasedBytes() - leasedBefore).isEqualTo(128 * 1024);
+        first.close();
+        assertThat(arena.leasedBytes()).isEqualTo(leasedBefore);
+        long pooledAfterRelease = arena.pooledBytes();
+        assertThat(pooledAfterRelease - pooledBefore).isBetween(0L, 128L * 1024);
+
+        // Another lease of the class takes the pooled buffer instead of allocating.
+        PooledBuffer second = arena.lease(120_000).await().atMost(TIMEOUT);
+        assertThat(arena.pooledBytes()).isEqualTo(pooledAfterRelease - 128 * 1024);
+        second.close();
+        assertThat(arena.pooledBytes()).isEqualTo(pooledAfterRelease);
+    }
+
+    @Test
+    void closeIsIdempotent() {
+        long leasedBefore = arena.leasedBytes();
+        PooledBuffer buffer = arena.lease(10).await().atMost(TIMEOUT);
+        buffer.close();
+        long pooled = arena.pooledBytes();
+
+        buffer.close();
+
+        assertThat(arena.pooledBytes()).isEqualTo(pooled);
+        assertThat(arena.leasedBytes()).isEqualTo(leasedBefore);
+    }
+
+    @Test
+    void fillFromStreamHoldsExactlyTheExpectedBytes() throws IOException {
+        byte[] body = "hello, arena".getBytes(StandardCharsets.UTF_8);
+        try (PooledBuffer buffer = arena.lease(body.length).await().atMost(TIMEOUT)) {
+            buffer.fill(new ByteArrayInputStream(body), body.length);
+            assertThat(buffer.size()).isEqualTo(body.length);
+            assertThat(buffer.inputStream().readAllBytes()).isEqualTo(body);
+        }
+    }
+
+    @Test
+    void fillFromStreamRejectsShortAndLongBodies() {
+        byte[] body = new byte[1_000];
+        try (PooledBuffer buffer = arena.lease(2_000).await().atMost(TIMEOUT)) {
+            assertThatThrownBy(() -> buffer.fill(new ByteArrayInputStream(body), 2_000))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("ended after 1000");
+            assertThatThrownBy(() -> buffer.fill(new ByteArrayInputStream(body), 500))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("larger than");
+        }
+    }
+
+    @Test
+    void fillFromChunksRejectsShortAndLongBodies() {
+        try (PooledBuffer buffer = arena.lease(2_000).await().atMost(TIMEOUT)) {
+            PooledBuffer filled = buffer.fill(chunks(600, 400), 1_000).await().atMost(TIMEOUT);
+            assertThat(filled.size()).isEqualTo(1_000);
+
+            assertThatThrownBy(() -> buffer.fill(chunks(600, 400), 2_000).await().atMost(TIMEOUT))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("ended after 1000");
+            assertThatThrownBy(() -> buffer.fill(chunks(600, 400), 800).await().atMost(TIMEOUT))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("larger than");
+        }
+    }
+
+    private static Multi<ByteBuffer> chunks(int... sizes) {
+        return Multi.createFrom().iterable(Arrays.stream(sizes).mapToObj(ByteBuffer::allocate).toList());
+    }
+}
@@ -0,0 +1,104 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.service.ConsumerStages;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ConsumerStages}: a full stage queues in order without holding
+ * up the others, slots come back on failure, and the per-stage gauges follow.
+ */
+@QuarkusTest
+@TestProfile(ConsumerStagesTest.NarrowStagesProfile.class)
+class ConsumerStagesTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * One fetch slot, one digest slot and two upload slots.
+     */
+    public static class NarrowStagesProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "s3.connector.consumer.fetch-concurrency", "1",
+                "s3.connector.consumer.digest-concurrency", "1",
+                "s3.connector.consumer.upload-concurrency", "2"
+            );
+        }
+    }
+
+    @Inject
+    ConsumerStages stages;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    void fullStageQueuesWithoutHoldingUpTheOthers() throws Exception {
+        CompletableFuture<String> slowFetch = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<String> first = stages.fetch(() -> {
+                started.incrementAndGet();
+                return Uni.createFrom().completionStage(slowFetch);
+            })
+            .subscribeAsCompletionStage().toCompletableFuture();
+        CompletableFuture<String> second = stages.fetch(() -> {
+                started.incrementAndGet();
+                return Uni.createFrom().item("second");
+            })
+            .subscribeAsCompletionStage().toCompletableFuture();
+
+        assertThat(started).hasValue(1);
+        assertThat(gauge("s3.consumer.stage.active", "fetch")).isEqualTo(1);
+        assertThat(gauge("s3.consumer.stage.queued", "fetch")).isEqualTo(1);
+
+        // The digest and upload stages have slots of their own
+        assertThat(stages.digest(() -> Uni.createFrom().item("digest")).await().atMost(TIMEOUT)).isEqualTo("digest");
+        assertThat(stages.upload(() -> Uni.createFrom().item("upload")).await().atMost(TIMEOUT)).isEqualTo("upload");
+        assertThat(second).isNotDone();
+
+        slowFetch.complete("first");
+        assertThat(first.get()).isEqualTo("first");
+        assertThat(second.get()).isEqualTo("second");
+        assertThat(gauge("s3.consumer.stage.active", "fetch")).isZero();
+        assertThat(gauge("s3.consumer.stage.queued", "fetch")).isZero();
+    }
+
+    @Test
+    void failedActionHandsBackItsSlot() {
+        assertThatThrownBy(() -> stages.upload(() -> Uni.createFrom().<String>failure(new IOException("intake down")))
+                .await().atMost(TIMEOUT))
+            .hasRootCauseMessage("intake down");
+        assertThat(gauge("s3.consumer.stage.active", "upload")).isZero();
+
+        // Both upload slots are still there
+        CompletableFuture<String> held = new CompletableFuture<>();
+        CompletableFuture<String> holding = stages.upload(() -> Uni.createFrom().completionStage(held))
+            .subscribeAsCompletionStage().toCompletableFuture();
+        assertThat(stages.upload(() -> Uni.createFrom().item("alongside")).await().atMost(TIMEOUT))
+            .isEqualTo("alongside");
+        assertThat(gauge("s3.consumer.stage.active", "upload")).isEqualTo(1);
+        held.complete("done");
+        assertThat(holding).isCompletedWithValue("done");
+        assertThat(gauge("s3.consumer.stage.active", "upload")).isZero();
+    }
+
+    private double gauge(String name, String stage) {
+        return registry.get(name).tag("stage", stage).gauge().value();
+    }
+}
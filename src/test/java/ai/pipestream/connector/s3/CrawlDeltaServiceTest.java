@@ -0,0 +1,92 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.state.CrawlDeltaService;
+import ai.pipestream.connector.s3.state.CrawlSource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.model.ObjectVersion;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Change detection for incremental crawls against {@code s3_crawl_state}.
+ */
+@QuarkusTest
+class CrawlDeltaServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Inject
+    CrawlDeltaService crawlDeltaService;
+
+    @Test
+    void onlyNewOrChangedObjectsPassAfterCompletion() {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        String datasourceId = "datasource-delta-" + suffix;
+        String bucket = "bucket-delta-" + suffix;
+        Instant modified = Instant.parse("2025-01-01T00:00:00Z");
+        List<S3Object> page = List.of(
+            object("a.txt", "\"etag-a\"", 10, modified),
+            object("b.txt", "\"etag-b\"", 20, modified));
+
+        List<S3Object> first = crawlDeltaService.changedObjects(datasourceId, bucket, page, CrawlSource.INCREMENTAL)
+            .await().atMost(TIMEOUT);
+        assertThat(first).extracting(S3Object::key).containsExactly("a.txt", "b.txt");
+
+        // Published but never completed: still pending, so both are offered again.
+        assertThat(crawlDeltaService.changedObjects(datasourceId, bucket, page, CrawlSource.INCREMENTAL)
+            .await().atMost(TIMEOUT)).hasSize(2);
+
+        for (S3Object object : page) {
+            crawlDeltaService.markCompleted(datasourceId, bucket, object.key(), "", object.eTag())
+                .await().atMost(TIMEOUT);
+        }
+        assertThat(crawlDeltaService.changedObjects(datasourceId, bucket, page, CrawlSource.INCREMENTAL)
+            .await().atMost(TIMEOUT)).isEmpty();
+
+        List<S3Object> changedPage = List.of(
+            object("a.txt", "\"etag-a\"", 10, modified),
+            object("b.txt", "\"etag-b2\"", 21, modified.plusSeconds(60)),
+            object("c.txt", "\"etag-c\"", 30, modified));
+        List<S3Object> changed = crawlDeltaService.changedObjects(datasourceId, bucket, changedPage, CrawlSource.INCREMENTAL)
+            .await().atMost(TIMEOUT);
+        assertThat(changed).extracting(S3Object::key).containsExactly("b.txt", "c.txt");
+    }
+
+    @Test
+    void versionsAreTrackedPerVersionId() {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        String datasourceId = "datasource-versions-" + suffix;
+        String bucket = "bucket-versions-" + suffix;
+        Instant modified = Instant.parse("2025-01-01T00:00:00Z");
+        List<ObjectVersion> page = List.of(
+            version("a.txt", "v2", "\"etag-a2\"", 11, modified.plusSeconds(60)),
+            version("a.txt", "v1", "\"etag-a1\"", 10, modified));
+
+        assertThat(crawlDeltaService.changedVersions(datasourceId, bucket, page, CrawlSource.INCREMENTAL)
+            .await().atMost(TIMEOUT)).extracting(ObjectVersion::versionId).containsExactly("v2", "v1");
+
+        crawlDeltaService.markCompleted(datasourceId, bucket, "a.txt", "v1", "\"etag-a1\"").await().atMost(TIMEOUT);
+        // The unversioned row for the same key is a different row and stays unknown.
+        assertThat(crawlDeltaService.changedObjects(datasourceId, bucket,
+                List.of(object("a.txt", "\"etag-a1\"", 10, modified)), CrawlSource.INCREMENTAL)
+            .await().atMost(TIMEOUT)).hasSize(1);
+        assertThat(crawlDeltaService.changedVersions(datasourceId, bucket, page, CrawlSource.INCREMENTAL)
+            .await().atMost(TIMEOUT)).extracting(ObjectVersion::versionId).containsExactly("v2");
+    }
+
+    private static ObjectVersion version(String key, String versionId, String etag, long size, Instant lastModified) {
+        return ObjectVersion.builder().key(key).versionId(versionId).eTag(etag).size(size)
+            .lastModified(lastModified).build();
+    }
+
+    private static S3Object object(String key, String etag, long size, Instant lastModified) {
+        return S3Object.builder().key(key).eTag(etag).size(size).lastModified(lastModified).build();
+    }
+}
@@ -0,0 +1,98 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.config.S3ConnectorConfig;
+import ai.pipestream.connector.s3.crawl.ListingShard;
+import ai.pipestream.connector.s3.state.CrawlRun;
+import ai.pipestream.connector.s3.state.CrawlRunService;
+import ai.pipestream.connector.s3.state.CrawlRunStatus;
+import ai.pipestream.connector.s3.state.CrawlSource;
+import ai.pipestream.connector.s3.state.CrawlStatusRegistry;
+import ai.pipestream.connector.s3.state.ShardCheckpoint;
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Crawl run checkpoints in {@code s3_crawl_runs} and {@code s3_crawl_run_shards}.
+ */
+@QuarkusTest
+class CrawlRunServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Inject
+    CrawlRunService crawlRunService;
+
+    @Inject
+    CrawlStatusRegistry statusRegistry;
+
+    @Inject
+    Pool pool;
+
+    @Test
+    void checkpointsOnlyMoveForwardAndResumeAfterTheWatermark() {
+        String crawlId = "crawl-run-" + System.currentTimeMillis();
+        List<ListingShard> shards = List.of(
+            new ListingShard("range-0000", null, "m"),
+            new ListingShard("range-0001", "m", null));
+        crawlRunService.start(crawlId, "datasource-run", "bucket-run", null, CrawlSource.INITIAL,
+            S3ConnectorConfig.ListingMode.KEY_RANGE, shards).await().atMost(TIMEOUT);
+
+        crawlRunService.saveCheckpoints(crawlId, List.of(
+            new ShardCheckpoint("range-0000", null, "m", "f", null, false),
+            new ShardCheckpoint("range-0001", "m", null, null, null, true)), 10, 0).await().atMost(TIMEOUT);
+        // A late write from behind the stored watermark is ignored.
+        crawlRunService.saveCheckpoints(crawlId, List.of(
+            new ShardCheckpoint("range-0000", null, "m", "c", null, false)), 4, 0).await().atMost(TIMEOUT);
+        crawlRunService.setStatus(crawlId, CrawlRunStatus.FAILED, "test").await().atMost(TIMEOUT);
+
+        CrawlRun run = crawlRunService.findResumable(crawlId).await().atMost(TIMEOUT);
+        assertThat(run.status()).isEqualTo(CrawlRunStatus.FAILED);
+        assertThat(run.dispatchedCount()).isEqualTo(10);
+        assertThat(run.shards()).extracting(ShardCheckpoint::done).containsExactly(false, true);
+        assertThat(run.shards().get(0).remaining()).isEqualTo(new ListingShard("range-0000", "f", "m"));
+
+        crawlRunService.setStatus(crawlId, CrawlRunStatus.COMPLETED, null).await().atMost(TIMEOUT);
+        assertThatThrownBy(() -> crawlRunService.findResumable(crawlId).await().atMost(TIMEOUT))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pausedRunIsNotStaleWhileItsOwnerHeartbeats() {
+        String crawlId = "crawl-paused-" + System.currentTimeMillis();
+        crawlRunService.start(crawlId, "datasource-run", "bucket-run", null, CrawlSource.INITIAL,
+            S3ConnectorConfig.ListingMode.SEQUENTIAL, List.of()).await().atMost(TIMEOUT);
+        statusRegistry.register(crawlId);
+        assertThat(statusRegistry.pause(crawlId)).isTrue();
+        crawlRunService.setStatus(crawlId, CrawlRunStatus.PAUSED, null).await().atMost(TIMEOUT);
+
+        // Paused long past stale-after without a checkpoint...
+        backdate(crawlId);
+        // ...but the owner's heartbeat keeps it from being resumed elsewhere.
+        crawlRunService.heartbeat().await().atMost(TIMEOUT);
+        assertThatThrownBy(() -> crawlRunService.findResumable(crawlId).await().atMost(TIMEOUT))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("PAUSED");
+
+        // Once the owner is gone the heartbeat stops and the run may be resumed.
+        statusRegistry.fail(crawlId, "owner gone");
+        backdate(crawlId);
+        crawlRunService.heartbeat().await().atMost(TIMEOUT);
+        assertThat(crawlRunService.findResumable(crawlId).await().atMost(TIMEOUT).status())
+            .isEqualTo(CrawlRunStatus.PAUSED);
+    }
+
+    private void backdate(String crawlId) {
+        pool.preparedQuery("UPDATE s3_crawl_runs SET updated_at = now() - interval '1 day' WHERE crawl_id = $1")
+            .execute(Tuple.of(crawlId))
+            .await().atMost(TIMEOUT);
+    }
+}
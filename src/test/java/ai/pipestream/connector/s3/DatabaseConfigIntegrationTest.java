@@ -1,14 +1,24 @@
 package ai.pipestream.connector.s3;
 
 import ai.pipestream.connector.s3.service.DatasourceConfigService;
+import ai.pipestream.connector.s3.service.S3ClientFactory;
+import ai.pipestream.connector.s3.service.DatasourceConfigService.DatasourceConfig;
 import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
 import ai.pipestream.test.support.S3TestResource;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.util.JsonFormat;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.vertx.RunOnVertxContext;
 import io.quarkus.test.vertx.UniAsserter;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -24,8 +34,8 @@ import static org.assertj.core.api.Assertions.*;
  * <ul>
  *   <li>Datasource configuration persistence to database</li>
  *   <li>Configuration retrieval from database</li>
- *   <li>In-memory caching behavior</li>
- *   <li>Configuration updates and versioning</li>
+ *   <li>In-memory caching behavior, including shared loads and unregistered datasources</li>
+ *   <li>Configuration updates and versioning, and which of them keep the S3 client</li>
  *   <li>Error handling for missing configurations</li>
  * </ul>
  *
@@ -38,6 +48,12 @@ class DatabaseConfigIntegrationTest {
     @Inject
     DatasourceConfigService datasourceConfigService;
 
+    @Inject
+    S3ClientFactory clientFactory;
+
+    @Inject
+    Pool pool;
+
     /**
      * Tests complete configuration lifecycle: save, retrieve, cache.
      */
@@ -120,6 +136,61 @@ class DatabaseConfigIntegrationTest {
         );
     }
 
+    /**
+     * Tests that registering an unchanged configuration writes nothing and keeps the client.
+     */
+    @Test
+    @RunOnVertxContext
+    void testUnchangedRegistrationIsNotWritten(UniAsserter asserter) {
+        String datasourceId = "test-datasource-unchanged";
+        String apiKey = "test-api-key-unchanged";
+        S3ConnectionConfig s3Config = anonymousConfig("us-east-1");
+        AtomicReference<S3AsyncClient> client = new AtomicReference<>();
+        AtomicReference<Long> version = new AtomicReference<>();
+
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(datasourceId, apiKey, s3Config));
+        asserter.execute(() -> cachedClient(datasourceId, s3Config).invoke(client::set));
+        asserter.execute(() -> storedVersion(datasourceId).invoke(version::set));
+
+        // Registered again, as on every crawl request
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(datasourceId, apiKey,
+            s3Config.toBuilder().build()));
+
+        asserter.assertThat(() -> storedVersion(datasourceId), stored -> assertThat(stored).isEqualTo(version.get()));
+        asserter.assertThat(
+            () -> cachedClient(datasourceId, s3Config),
+            current -> assertThat(current).isSameAs(client.get())
+        );
+    }
+
+    /**
+     * Tests that changing only the API key updates the configuration but keeps the client.
+     */
+    @Test
+    @RunOnVertxContext
+    void testApiKeyChangeKeepsClient(UniAsserter asserter) {
+        String datasourceId = "test-datasource-api-key";
+        S3ConnectionConfig s3Config = anonymousConfig("us-east-1");
+        AtomicReference<S3AsyncClient> client = new AtomicReference<>();
+        AtomicReference<Long> version = new AtomicReference<>();
+
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(datasourceId, "first-api-key", s3Config));
+        asserter.execute(() -> cachedClient(datasourceId, s3Config).invoke(client::set));
+        asserter.execute(() -> storedVersion(datasourceId).invoke(version::set));
+
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(datasourceId, "second-api-key", s3Config));
+
+        asserter.assertThat(() -> storedVersion(datasourceId), stored -> assertThat(stored).isGreaterThan(version.get()));
+        asserter.assertThat(
+            () -> datasourceConfigService.getDatasourceConfig(datasourceId),
+            config -> assertThat(config.apiKey()).isEqualTo("second-api-key")
+        );
+        asserter.assertThat(
+            () -> cachedClient(datasourceId, s3Config),
+            current -> assertThat(current).isSameAs(client.get())
+        );
+    }
+
     /**
      * Tests in-memory caching behavior.
      */
@@ -156,6 +227,95 @@ class DatabaseConfigIntegrationTest {
         );
     }
 
+    /**
+     * Tests that concurrent lookups of an uncached datasource share one database read.
+     */
+    @Test
+    @RunOnVertxContext
+    void testConcurrentMissesShareOneLoad(UniAsserter asserter) {
+        String datasourceId = "test-datasource-single-flight";
+
+        asserter.execute(() -> writeRowSilently(datasourceId, "single-flight-key", anonymousConfig("us-east-1")));
+
+        asserter.assertThat(
+            () -> {
+                // Both lookups miss before either is subscribed, so nothing is cached yet
+                Uni<DatasourceConfig> first = datasourceConfigService.getDatasourceConfig(datasourceId);
+                Uni<DatasourceConfig> second = datasourceConfigService.getDatasourceConfig(datasourceId);
+                return Uni.combine().all().unis(first, second).asTuple();
+            },
+            both -> {
+                assertThat(both.getItem1().apiKey()).isEqualTo("single-flight-key");
+                // Each read builds its own config, so one instance means one read
+                assertThat(both.getItem2()).isSameAs(both.getItem1());
+            }
+        );
+    }
+
+    /**
+     * Tests that an unregistered datasource is remembered for the negative TTL.
+     */
+    @Test
+    @RunOnVertxContext
+    void testUnregisteredDatasourceIsCached(UniAsserter asserter) {
+        String datasourceId = "test-datasource-negative";
+
+        asserter.assertFailedWith(
+            () -> datasourceConfigService.getDatasourceConfig(datasourceId),
+            throwable -> assertThat(throwable).isInstanceOf(IllegalStateException.class)
+        );
+
+        // The row appears without a change notification reaching this replica
+        asserter.execute(() -> writeRowSilently(datasourceId, "negative-key", anonymousConfig("us-east-1")));
+
+        // Within the negative TTL the lookup is answered from the cache, not the row
+        asserter.assertFailedWith(
+            () -> datasourceConfigService.getDatasourceConfig(datasourceId),
+            throwable -> assertThat(throwable).isInstanceOf(IllegalStateException.class)
+        );
+
+        // A refresh re-reads the row
+        asserter.execute(() -> datasourceConfigService.refresh(datasourceId));
+        asserter.assertThat(
+            () -> datasourceConfigService.getDatasourceConfig(datasourceId),
+            config -> assertThat(config.apiKey()).isEqualTo("negative-key")
+        );
+    }
+
+    /**
+     * Tests that a load started before a registration does not replace the
+     * registered configuration in the cache with the row it read.
+     */
+    @Test
+    @RunOnVertxContext
+    void testRegistrationDuringLoadIsNotOverwritten(UniAsserter asserter) {
+        String datasourceId = "test-datasource-mid-load";
+        S3ConnectionConfig registeredConfig = anonymousConfig("us-west-2");
+        AtomicReference<Uni<DatasourceConfig>> load = new AtomicReference<>();
+
+        // The row already holds the registered config, so registering writes nothing
+        // and no change notification refreshes the cache behind the test's back
+        asserter.execute(() -> writeRowSilently(datasourceId, "registered-key", registeredConfig));
+
+        // A lookup misses and starts its load, then the datasource is registered
+        asserter.execute(() -> load.set(datasourceConfigService.getDatasourceConfig(datasourceId)));
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(datasourceId, "registered-key",
+            registeredConfig));
+
+        // The load reads an older row, as it would have had it read before the registration
+        asserter.execute(() -> writeRowSilently(datasourceId, "older-key", anonymousConfig("us-east-1")));
+        asserter.assertThat(load::get, config -> assertThat(config.apiKey()).isEqualTo("older-key"));
+
+        // The cache still holds the registered config
+        asserter.assertThat(
+            () -> datasourceConfigService.getDatasourceConfig(datasourceId),
+            config -> {
+                assertThat(config.apiKey()).isEqualTo("registered-key");
+                assertThat(config.s3Config().getRegion()).isEqualTo("us-west-2");
+            }
+        );
+    }
+
     /**
      * Tests error handling for non-existent configurations.
      */
@@ -227,4 +387,48 @@ class DatabaseConfigIntegrationTest {
             throwable -> assertThat(throwable).isInstanceOf(IllegalArgumentException.class)
         );
     }
+
+    private static S3ConnectionConfig anonymousConfig(String region) {
+        return S3ConnectionConfig.newBuilder()
+            .setCredentialsType("anonymous")
+            .setRegion(region)
+            .build();
+    }
+
+    /**
+     * The datasource's cached client; the lease ends with the Uni, which is all a
+     * test comparing instances needs.
+     */
+    private Uni<S3AsyncClient> cachedClient(String datasourceId, S3ConnectionConfig s3Config) {
+        return clientFactory.withClient(datasourceId, s3Config, client -> Uni.createFrom().item(client));
+    }
+
+    private Uni<Long> storedVersion(String datasourceId) {
+        return pool.preparedQuery("SELECT version FROM s3_datasource_configs WHERE datasource_id = $1")
+            .execute(Tuple.of(datasourceId))
+            .map(rows -> rows.iterator().next().getLong("version"));
+    }
+
+    /**
+     * Writes a configuration row directly, with triggers off for the transaction so
+     * no change notification reaches the {@code DatasourceChangeListener}.
+     */
+    private Uni<Void> writeRowSilently(String datasourceId, String apiKey, S3ConnectionConfig s3Config) {
+        final String s3ConfigJson;
+        try {
+            s3ConfigJson = JsonFormat.printer().print(s3Config);
+        } catch (InvalidProtocolBufferException e) {
+            return Uni.createFrom().failure(e);
+        }
+        return pool.withTransaction(connection -> connection.query("SET LOCAL session_replication_role = replica")
+                .execute()
+                .flatMap(ignored -> connection.preparedQuery("""
+                        INSERT INTO s3_datasource_configs (datasource_id, api_key, s3_config, created_at, updated_at)
+                        VALUES ($1, $2, $3::jsonb, now(), now())
+                        ON CONFLICT (datasource_id) DO UPDATE
+                        SET api_key = EXCLUDED.api_key, s3_config = EXCLUDED.s3_config, updated_at = now()
+                        """)
+                    .execute(Tuple.of(datasourceId, apiKey, s3ConfigJson))))
+            .replaceWithVoid();
+    }
 }
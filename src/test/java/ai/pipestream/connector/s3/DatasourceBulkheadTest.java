@@ -0,0 +1,192 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.concurrent.DatasourceBulkhead;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DatasourceBulkhead}, the limits of the virtual-thread consumer execution,
+ * and that idle datasources are dropped, plus a load comparison of that execution against
+ * a bounded worker pool that only runs with {@code ./gradlew loadTest}.
+ */
+class DatasourceBulkheadTest {
+
+    @Test
+    void limitsHoldGloballyAndPerDatasource() throws Exception {
+        DatasourceBulkhead bulkhead = new DatasourceBulkhead(6, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Map<String, AtomicInteger> perDatasource = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> maxPerDatasource = new ConcurrentHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String datasource = "ds-" + (i % 5);
+                calls.add(executor.submit(() -> bulkhead.call(datasource, () -> {
+                    AtomicInteger mine = perDatasource.computeIfAbsent(datasource, ignored -> new AtomicInteger());
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    maxPerDatasource.computeIfAbsent(datasource, ignored -> new AtomicInteger())
+                        .accumulateAndGet(mine.incrementAndGet(), Math::max);
+                    sleep(Duration.ofMillis(2));
+                    mine.decrementAndGet();
+                    return running.decrementAndGet();
+                })));
+            }
+            for (Future<Integer> call : calls) {
+                call.get();
+            }
+        }
+
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(6);
+        assertThat(maxPerDatasource.values()).allSatisfy(max -> assertThat(max.get()).isLessThanOrEqualTo(2));
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    @Test
+    void busyDatasourceDoesNotHoldGlobalPermitsWhileWaiting() throws Exception {
+        DatasourceBulkhead bulkhead = new DatasourceBulkhead(2, 1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                executor.submit(() -> bulkhead.call("busy", () -> {
+                    sleep(Duration.ofMillis(20));
+                    return null;
+                }));
+            }
+            sleep(Duration.ofMillis(10));
+            long start = System.nanoTime();
+            executor.submit(() -> bulkhead.call("quiet", () -> null)).get();
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(200));
+        }
+    }
+
+    /**
+     * Transfers mostly wait on the network; on virtual threads only the configured
+     * limits apply, so every call a datasource is allowed runs at once.
+     */
+    @Test
+    void callsRunUpToTheConfiguredLimitsAtOnce() throws Exception {
+        int perDatasource = 64;
+        DatasourceBulkhead bulkhead = new DatasourceBulkhead(256, perDatasource);
+        CountDownLatch allRunning = new CountDownLatch(perDatasource);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Object>> calls = new ArrayList<>();
+            for (int i = 0; i < perDatasource; i++) {
+                calls.add(executor.submit(() -> bulkhead.call("ds", () -> {
+                    allRunning.countDown();
+                    await(release);
+                    return null;
+                })));
+            }
+            assertThat(allRunning.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(bulkhead.active()).isEqualTo(perDatasource);
+            release.countDown();
+            for (Future<Object> call : calls) {
+                call.get();
+            }
+        }
+    }
+
+    /**
+     * Transfers mostly wait on the network; a sleep stands in for a transfer.
+     * With the worker pool they are capped by its size, while on virtual threads
+     * only the configured limits apply. Wall-clock timing depends on the machine,
+     * so this is tagged out of the regular test run.
+     */
+    @Test
+    @Tag("load")
+    void virtualThreadsAreNotCappedByPoolSize() throws Exception {
+        int transfers = 400;
+        Duration latency = Duration.ofMillis(100);
+        long poolNanos;
+        try (ExecutorService pool = Executors.newFixedThreadPool(16)) {
+            poolNanos = timeAll(pool, transfers, () -> sleep(latency));
+        }
+        DatasourceBulkhead bulkhead = new DatasourceBulkhead(256, 64);
+        long virtualNanos;
+        try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            AtomicInteger next = new AtomicInteger();
+            virtualNanos = timeAll(virtual, transfers, () -> bulkhead.call("ds-" + (next.getAndIncrement() % 8), () -> {
+                sleep(latency);
+                return null;
+            }));
+        }
+
+        // 400 transfers of 100 ms on 16 threads take at least 2.5 s; on virtual
+        // threads with 256 permits they take two rounds.
+        assertThat(Duration.ofNanos(poolNanos)).isGreaterThanOrEqualTo(Duration.ofMillis(2_500));
+        assertThat(virtualNanos * 3).isLessThan(poolNanos);
+    }
+
+    @Test
+    void idleDatasourcesAreNotTracked() throws Exception {
+        DatasourceBulkhead bulkhead = new DatasourceBulkhead(4, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> held = executor.submit(() -> bulkhead.call("held", () -> {
+                running.countDown();
+                await(release);
+                return null;
+            }));
+            assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 100; i++) {
+                String datasource = "ds-" + i;
+                executor.submit(() -> bulkhead.call(datasource, () -> null)).get();
+            }
+            // Only the datasource with a call still running is tracked.
+            assertThat(bulkhead.trackedDatasources()).isEqualTo(1);
+
+            release.countDown();
+            held.get();
+        }
+        assertThat(bulkhead.trackedDatasources()).isZero();
+    }
+
+    private static long timeAll(ExecutorService executor, int count, Runnable task) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.service.DatasourceConfigService;
+import ai.pipestream.connector.s3.service.S3ClientFactory;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.vertx.RunOnVertxContext;
+import io.quarkus.test.vertx.UniAsserter;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Integration test for {@code DatasourceChangeListener}: rows changed straight in
+ * the database, as another replica would change them, reach this instance's
+ * datasource cache and S3 client through the {@code s3_datasource_configs} trigger.
+ */
+@QuarkusTest
+@TestProfile(DatasourceChangeListenerTest.LongCacheProfile.class)
+class DatasourceChangeListenerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final String API_KEY = "test-change-listener-api-key";
+
+    /**
+     * Keeps cache entries fresh for the whole test, so only a notification can
+     * change what the cache serves.
+     */
+    public static class LongCacheProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "s3.connector.datasource-cache.ttl", "1h",
+                "s3.connector.datasource-cache.negative-ttl", "1h",
+                "s3.connector.datasource-cache.listen", "true"
+            );
+        }
+    }
+
+    @Inject
+    DatasourceConfigService datasourceConfigService;
+
+    @Inject
+    S3ClientFactory clientFactory;
+
+    @Inject
+    Pool pool;
+
+    @Inject
+    Vertx vertx;
+
+    @Test
+    @RunOnVertxContext
+    void updatedRowRefreshesTheCacheAndReplacesTheClient(UniAsserter asserter) {
+        String datasourceId = "test-change-listener-update";
+        AtomicReference<S3AsyncClient> before = new AtomicReference<>();
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(datasourceId, API_KEY, s3Config()));
+        asserter.execute(() -> client(datasourceId).invoke(before::set));
+
+        asserter.execute(() -> pool.preparedQuery("""
+                UPDATE s3_datasource_configs
+                SET s3_config = jsonb_set(s3_config, '{region}', '"eu-west-1"')
+                WHERE datasource_id = $1
+                """)
+            .execute(Tuple.of(datasourceId)));
+
+        asserter.execute(() -> vertx.executeBlocking(() -> {
+            await().atMost(TIMEOUT).untilAsserted(() ->
+                assertThat(datasourceConfigService.getDatasourceConfig(datasourceId).await().atMost(TIMEOUT)
+                    .s3Config().getRegion()).isEqualTo("eu-west-1"));
+            return null;
+        }));
+        // The old client was closed; the next one is built from the changed row
+        asserter.assertThat(() -> datasourceConfigService.getDatasourceConfig(datasourceId)
+            .flatMap(config -> clientFactory.withClient(datasourceId, config.s3Config(), client -> Uni.createFrom().item(client))), after -> {
+            assertThat(after).isNotSameAs(before.get());
+            assertThat(after.serviceClientConfiguration().region()).isEqualTo(Region.EU_WEST_1);
+        });
+    }
+
+    @Test
+    @RunOnVertxContext
+    void deletedRowIsNoLongerServed(UniAsserter asserter) {
+        String datasourceId = "test-change-listener-delete";
+        AtomicReference<S3AsyncClient> before = new AtomicReference<>();
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(datasourceId, API_KEY, s3Config()));
+        asserter.execute(() -> client(datasourceId).invoke(before::set));
+
+        asserter.execute(() -> pool.preparedQuery("DELETE FROM s3_datasource_configs WHERE datasource_id = $1")
+            .execute(Tuple.of(datasourceId)));
+
+        asserter.execute(() -> vertx.executeBlocking(() -> {
+            await().atMost(TIMEOUT).untilAsserted(() ->
+                assertThatThrownBy(() -> datasourceConfigService.getDatasourceConfig(datasourceId).await().atMost(TIMEOUT))
+                    .isInstanceOf(IllegalStateException.class));
+            return null;
+        }));
+        asserter.assertThat(() -> client(datasourceId), after -> assertThat(after).isNotSameAs(before.get()));
+    }
+
+    private Uni<S3AsyncClient> client(String datasourceId) {
+        return clientFactory.withClient(datasourceId, s3Config(), client -> Uni.createFrom().item(client));
+    }
+
+    private static S3ConnectionConfig s3Config() {
+        return S3ConnectionConfig.newBuilder()
+            .setCredentialsType("static")
+            .setAccessKeyId("change-listener-access-key")
+            .setSecretAccessKey("change-listener-secret-key")
+            .setRegion("us-east-1")
+            .setEndpointOverride("http://localhost:9000")
+            .setPathStyleAccess(true)
+            .build();
+    }
+}
@@ -0,0 +1,151 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.buffer.DiskSpool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DiskSpool}: quota accounting, hashing while writing, bodies
+ * that do not match their expected length, and cleanup of files a previous
+ * process left behind.
+ */
+@QuarkusTest
+@TestProfile(DiskSpoolTest.SpoolProfile.class)
+class DiskSpoolTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final long QUOTA = 1024 * 1024;
+
+    /**
+     * Enables the spool with a 1 MiB quota in a directory of its own, holding a
+     * leftover spool file and an unrelated file before the application starts.
+     */
+    public static class SpoolProfile implements QuarkusTestProfile {
+
+        static final Path DIRECTORY;
+
+        static {
+            try {
+                DIRECTORY = Files.createTempDirectory("disk-spool-test-");
+                Files.writeString(DIRECTORY.resolve("object-leftover.spool"), "left behind");
+                Files.writeString(DIRECTORY.resolve("unrelated.txt"), "not ours");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "s3.connector.consumer.spool-enabled", "true",
+                "s3.connector.consumer.spool-directory", DIRECTORY.toString(),
+                "s3.connector.consumer.spool-quota-bytes", Long.toString(QUOTA)
+            );
+        }
+    }
+
+    @Inject
+    DiskSpool spool;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    void leftoverSpoolFilesAreDeletedAtStartup() {
+        assertThat(spool.isEnabled()).isTrue();
+        assertThat(SpoolProfile.DIRECTORY.resolve("object-leftover.spool")).doesNotExist();
+        assertThat(SpoolProfile.DIRECTORY.resolve("unrelated.txt")).exists();
+    }
+
+    @Test
+    void reservationsWaitForQuotaAndCloseHandsItBack() throws Exception {
+        DiskSpool.Reservation first = spool.reserve(600 * 1024).await().atMost(TIMEOUT);
+        assertThat(spooledBytes()).isEqualTo(600 * 1024);
+
+        // The second does not fit next to the first
+        CompletableFuture<DiskSpool.Reservation> second = spool.reserve(600 * 1024)
+            .subscribeAsCompletionStage().toCompletableFuture();
+        assertThat(second).isNotDone();
+
+        first.release();
+        first.release();
+        DiskSpool.Reservation granted = second.get();
+        assertThat(spooledBytes()).isEqualTo(600 * 1024);
+
+        byte[] body = new byte[1_000];
+        DiskSpool.SpooledFile spooled = spool.write(granted, new ByteArrayInputStream(body), body.length);
+        spooled.close();
+        assertThat(spooled.path()).doesNotExist();
+        assertThat(spooledBytes()).isZero();
+    }
+
+    @Test
+    void reservationLargerThanTheQuotaProceedsAlone() {
+        DiskSpool.Reservation oversized = spool.reserve(QUOTA * 4).await().atMost(TIMEOUT);
+        assertThat(spooledBytes()).isEqualTo(QUOTA);
+        oversized.release();
+        assertThat(spooledBytes()).isZero();
+    }
+
+    @Test
+    void writeHashesTheBodyOnTheWay() throws Exception {
+        // Spans several of the spool's 1 MiB copy chunks
+        byte[] body = new byte[2 * 1024 * 1024 + 123];
+        new Random(42).nextBytes(body);
+        DiskSpool.Reservation reservation = spool.reserve(body.length).await().atMost(TIMEOUT);
+
+        try (DiskSpool.SpooledFile spooled = spool.write(reservation, new ByteArrayInputStream(body), body.length)) {
+            assertThat(spooled.size()).isEqualTo(body.length);
+            assertThat(Files.readAllBytes(spooled.path())).isEqualTo(body);
+            assertThat(spooled.sha256Hex())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body)));
+        }
+        assertThat(spooledBytes()).isZero();
+    }
+
+    @Test
+    void shortAndLongBodiesAreRejectedWithoutLeavingFiles() throws IOException {
+        byte[] body = new byte[1_000];
+
+        DiskSpool.Reservation forShort = spool.reserve(2_000).await().atMost(TIMEOUT);
+        assertThatThrownBy(() -> spool.write(forShort, new ByteArrayInputStream(body), 2_000))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasRootCauseMessage("Object ended after 1000 of its expected 2000 bytes");
+
+        DiskSpool.Reservation forLong = spool.reserve(2_000).await().atMost(TIMEOUT);
+        assertThatThrownBy(() -> spool.write(forLong, new ByteArrayInputStream(body), 500))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasRootCauseMessage("Object is larger than its expected 500 bytes");
+
+        // Both reservations went back with their files
+        assertThat(spooledBytes()).isZero();
+        try (Stream<Path> files = Files.list(SpoolProfile.DIRECTORY)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                .noneMatch(name -> name.endsWith(".spool"));
+        }
+    }
+
+    private long spooledBytes() {
+        return (long) registry.get("s3.consumer.spool.bytes").gauge().value();
+    }
+}
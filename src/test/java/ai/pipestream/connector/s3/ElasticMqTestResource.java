@@ -0,0 +1,68 @@
+package ai.pipestream.connector.s3;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.CreateQueueRequest;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Starts ElasticMQ (an SQS-compatible queue) with an S3 notification queue and
+ * points event-driven mode at it.
+ */
+public class ElasticMqTestResource implements QuarkusTestResourceLifecycleManager {
+
+    static final String QUEUE = "s3-notifications";
+    static final String ACCESS_KEY = "x";
+    static final String SECRET_KEY = "x";
+
+    private static volatile String endpoint;
+    private static volatile String queueUrl;
+
+    private GenericContainer<?> container;
+
+    @Override
+    public Map<String, String> start() {
+        container = new GenericContainer<>("softwaremill/elasticmq-native:1.6.11")
+            .withExposedPorts(9324)
+            .waitingFor(Wait.forListeningPort());
+        container.start();
+        endpoint = "http://" + container.getHost() + ":" + container.getMappedPort(9324);
+        try (SqsClient sqs = client()) {
+            queueUrl = sqs.createQueue(CreateQueueRequest.builder().queueName(QUEUE).build()).queueUrl();
+        }
+        return Map.of(
+            "s3.connector.event-driven.enabled", "true",
+            "s3.connector.event-driven.queue-url", queueUrl,
+            "s3.connector.event-driven.endpoint-override", endpoint,
+            "s3.connector.event-driven.access-key-id", ACCESS_KEY,
+            "s3.connector.event-driven.secret-access-key", SECRET_KEY,
+            "s3.connector.event-driven.wait-time-seconds", "1",
+            "s3.connector.event-driven.error-backoff", "200ms");
+    }
+
+    @Override
+    public void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    static String queueUrl() {
+        return queueUrl;
+    }
+
+    static SqsClient client() {
+        return SqsClient.builder()
+            .endpointOverride(URI.create(endpoint))
+            .region(Region.US_EAST_1)
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(ACCESS_KEY, SECRET_KEY)))
+            .build();
+    }
+}
@@ -0,0 +1,198 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.crawl.inventory.InventoryLister;
+import ai.pipestream.connector.s3.service.S3ClientFactory;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import ai.pipestream.test.support.S3TestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Inventory listing against a synthetic S3 Inventory report uploaded to the test bucket.
+ */
+@QuarkusTest
+@QuarkusTestResource(S3TestResource.class)
+class InventoryListerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String SCHEMA = "Bucket, Key, VersionId, IsLatest, IsDeleteMarker, Size, LastModifiedDate, ETag";
+
+    @Inject
+    InventoryLister inventoryLister;
+
+    @Inject
+    S3ClientFactory clientFactory;
+
+    @Test
+    void listsCurrentObjectsUnderThePrefixFromTheNewestReport() throws Exception {
+        String bucket = S3TestResource.BUCKET;
+        String root = "inventory-" + System.currentTimeMillis() + "/" + bucket + "/daily/";
+        byte[] data = gzip(String.join("\n",
+            row(bucket, "docs/a.txt", "v1", "true", "false", "10", "2024-05-01T00:00:00.000Z", "etag-a"),
+            row(bucket, "docs/with%20space/%C3%A9t%C3%A9.txt", "v1", "true", "false", "20", "2024-05-01T00:00:01.000Z", "etag-b"),
+            row(bucket, "docs/old.txt", "v0", "false", "false", "5", "2024-04-01T00:00:00.000Z", "etag-old"),
+            row(bucket, "docs/deleted.txt", "v2", "true", "true", "", "2024-05-01T00:00:02.000Z", ""),
+            row(bucket, "other/c.txt", "v1", "true", "false", "30", "2024-05-01T00:00:03.000Z", "etag-c"),
+            ""));
+        String dataKey = root + "data/part-0.csv.gz";
+
+        try (S3Client s3 = syncClient()) {
+            put(s3, dataKey, data);
+            put(s3, root + "2024-05-01T01-00Z/manifest.json", manifest(bucket, dataKey, md5(data)));
+            // An older report whose data file is gone; the newest one must be picked.
+            put(s3, root + "2024-04-30T01-00Z/manifest.json", manifest(bucket, root + "data/missing.csv.gz", md5(data)));
+        }
+
+        S3AsyncClient client = clientFactory.createTestClient(connectionConfig()).await().atMost(TIMEOUT);
+        try {
+            List<S3Object> objects = inventoryLister.list(client, bucket, "docs/", "s3://" + bucket + "/" + root)
+                .collect().asList().await().atMost(TIMEOUT)
+                .stream().flatMap(List::stream).toList();
+
+            assertThat(objects).extracting(S3Object::key)
+                .containsExactlyInAnyOrder("docs/a.txt", "docs/with space/\u00e9t\u00e9.txt");
+            S3Object first = objects.stream().filter(o -> o.key().equals("docs/a.txt")).findFirst().orElseThrow();
+            assertThat(first.size()).isEqualTo(10L);
+            assertThat(first.eTag()).isEqualTo("\"etag-a\"");
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void rejectsADataFileThatDoesNotMatchItsChecksum() throws Exception {
+        String bucket = S3TestResource.BUCKET;
+        String root = "inventory-bad-" + System.currentTimeMillis() + "/";
+        byte[] data = gzip(row(bucket, "a.txt", "v1", "true", "false", "1", "2024-05-01T00:00:00.000Z", "etag") + "\n");
+        try (S3Client s3 = syncClient()) {
+            put(s3, root + "data.csv.gz", data);
+            put(s3, root + "manifest.json", manifest(bucket, root + "data.csv.gz", "00000000000000000000000000000000"));
+        }
+
+        S3AsyncClient client = clientFactory.createTestClient(connectionConfig()).await().atMost(TIMEOUT);
+        try {
+            assertThatThrownBy(() -> inventoryLister.list(client, bucket, null, "s3://" + bucket + "/" + root + "manifest.json")
+                .collect().asList().await().atMost(TIMEOUT))
+                .hasMessageContaining("MD5");
+            assertThatThrownBy(() -> inventoryLister.list(client, "another-bucket", null,
+                    "s3://" + bucket + "/" + root + "manifest.json")
+                .collect().asList().await().atMost(TIMEOUT))
+                .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void findsTheCrawledBucketsReportThroughThePlaceholder() throws Exception {
+        String bucket = S3TestResource.BUCKET;
+        String root = "inventory-placeholder-" + System.currentTimeMillis() + "/";
+        byte[] data = gzip(row(bucket, "a.txt", "v1", "true", "false", "1", "2024-05-01T00:00:00.000Z", "etag") + "\n");
+        try (S3Client s3 = syncClient()) {
+            put(s3, root + bucket + "/data.csv.gz", data);
+            put(s3, root + bucket + "/2024-05-01T01-00Z/manifest.json", manifest(bucket, root + bucket + "/data.csv.gz", md5(data)));
+        }
+        String location = "s3://" + bucket + "/" + root + "{bucket}/";
+
+        S3AsyncClient client = clientFactory.createTestClient(connectionConfig()).await().atMost(TIMEOUT);
+        try {
+            assertThat(inventoryLister.findReport(client, bucket, location).await().atMost(TIMEOUT)).isNotNull();
+            // Another bucket has no report there, so its crawls fall back to ListObjectsV2.
+            assertThat(inventoryLister.findReport(client, "another-bucket", location).await().atMost(TIMEOUT)).isNull();
+            // A report for one bucket is never used for another.
+            assertThat(inventoryLister.findReport(client, "another-bucket",
+                    "s3://" + bucket + "/" + root + bucket + "/2024-05-01T01-00Z/manifest.json")
+                .await().atMost(TIMEOUT)).isNull();
+        } finally {
+            client.close();
+        }
+    }
+
+    private static String row(String... fields) {
+        StringBuilder row = new StringBuilder();
+        for (String field : fields) {
+            if (!row.isEmpty()) {
+                row.append(',');
+            }
+            row.append('"').append(field).append('"');
+        }
+        return row.toString();
+    }
+
+    private static byte[] manifest(String bucket, String dataKey, String md5) {
+        return ("""
+            {
+              "sourceBucket": "%s",
+              "destinationBucket": "arn:aws:s3:::%s",
+              "version": "2016-11-30",
+              "creationTimestamp": "1714525200000",
+              "fileFormat": "CSV",
+              "fileSchema": "%s",
+              "files": [ { "key": "%s", "size": 1, "MD5checksum": "%s" } ]
+            }
+            """).formatted(bucket, bucket, SCHEMA, dataKey, md5).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String md5(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+    }
+
+    private static void put(S3Client s3, String key, byte[] content) {
+        s3.putObject(PutObjectRequest.builder().bucket(S3TestResource.BUCKET).key(key).build(),
+            RequestBody.fromBytes(content));
+    }
+
+    private static S3Client syncClient() {
+        return S3Client.builder()
+            .credentialsProvider(StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(S3TestResource.ACCESS_KEY, S3TestResource.SECRET_KEY)))
+            .region(Region.US_EAST_1)
+            .endpointOverride(URI.create(S3TestResource.getSharedEndpoint()))
+            .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+            .build();
+    }
+
+    private static S3ConnectionConfig connectionConfig() {
+        return S3ConnectionConfig.newBuilder()
+            .setCredentialsType("static")
+            .setAccessKeyId(S3TestResource.ACCESS_KEY)
+            .setSecretAccessKey(S3TestResource.SECRET_KEY)
+            .setRegion("us-east-1")
+            .setEndpointOverride(S3TestResource.getSharedEndpoint())
+            .setPathStyleAccess(true)
+            .build();
+    }
+}
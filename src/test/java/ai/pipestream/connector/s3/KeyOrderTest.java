@@ -0,0 +1,60 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.crawl.KeyOrder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link KeyOrder}, the key comparison and boundary math behind
+ * key-range listing.
+ */
+class KeyOrderTest {
+
+    @Test
+    void compareUsesCodePointOrder() {
+        assertThat(KeyOrder.compare("a", "b")).isNegative();
+        assertThat(KeyOrder.compare("ab", "a")).isPositive();
+        assertThat(KeyOrder.compare("same", "same")).isZero();
+        // U+1F600 is a surrogate pair in UTF-16 and sorts below U+FF5E there, but above it in UTF-8.
+        assertThat(KeyOrder.compare("\uD83D\uDE00", "\uFF5E")).isPositive();
+    }
+
+    @Test
+    void midpointFallsStrictlyBetweenBounds() {
+        List<String[]> bounds = List.of(
+            new String[]{"a", "z"},
+            new String[]{"ab12", "ab13"},
+            new String[]{"ab", "ab0"},
+            new String[]{"a~~", null},
+            new String[]{"0f3e/blob", "1"});
+        for (String[] pair : bounds) {
+            String mid = KeyOrder.midpoint(pair[0], pair[1]);
+            assertThat(mid).as("midpoint of %s and %s", pair[0], pair[1]).isNotNull();
+            assertThat(KeyOrder.compare(pair[0], mid)).isNegative();
+            if (pair[1] != null) {
+                assertThat(KeyOrder.compare(mid, pair[1])).isNegative();
+            }
+        }
+    }
+
+    @Test
+    void midpointIsNullWhenBoundsAreAdjacent() {
+        assertThat(KeyOrder.midpoint("b", "a")).isNull();
+        assertThat(KeyOrder.midpoint("ab", "a")).isNull();
+    }
+
+    @Test
+    void lexicographicBoundariesAreIncreasingAndPrefixed() {
+        List<String> boundaries = KeyOrder.lexicographicBoundaries("data/", "0123456789abcdef", 64);
+
+        assertThat(boundaries).hasSize(63);
+        assertThat(boundaries).allMatch(b -> b.startsWith("data/"));
+        for (int i = 1; i < boundaries.size(); i++) {
+            assertThat(KeyOrder.compare(boundaries.get(i - 1), boundaries.get(i))).isNegative();
+        }
+        assertThat(KeyOrder.lexicographicBoundaries(null, "01", 1)).isEmpty();
+    }
+}
@@ -0,0 +1,86 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.concurrent.KeyedSequencer;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link KeyedSequencer}, which keeps the records of one key in order
+ * while records of different keys are processed concurrently.
+ */
+class KeyedSequencerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void sameKeyRunsStrictlyInSubmissionOrder() {
+        KeyedSequencer sequencer = new KeyedSequencer();
+        List<String> log = new CopyOnWriteArrayList<>();
+        List<Uni<Integer>> submitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int task = i;
+            // Earlier tasks take longer, so any overlap would reorder the log.
+            submitted.add(sequencer.submit("key", () -> {
+                log.add("start-" + task);
+                return Uni.createFrom().item(task)
+                    .onItem().delayIt().by(Duration.ofMillis(50 - task * 10L))
+                    .invoke(() -> log.add("end-" + task));
+            }));
+        }
+
+        List<Integer> results = Uni.join().all(submitted).andFailFast().await().atMost(TIMEOUT);
+
+        assertThat(results).containsExactly(0, 1, 2, 3, 4);
+        assertThat(log).containsExactly(
+            "start-0", "end-0", "start-1", "end-1", "start-2", "end-2",
+            "start-3", "end-3", "start-4", "end-4");
+        assertThat(sequencer.activeKeys()).isZero();
+    }
+
+    @Test
+    void differentKeysOverlap() {
+        KeyedSequencer sequencer = new KeyedSequencer();
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        AtomicBoolean secondOfSlowKeyStarted = new AtomicBoolean();
+
+        CompletableFuture<String> first = sequencer.submit("slow", () -> Uni.createFrom().completionStage(slow))
+            .subscribeAsCompletionStage().toCompletableFuture();
+        CompletableFuture<String> second = sequencer.submit("slow", () -> {
+                secondOfSlowKeyStarted.set(true);
+                return Uni.createFrom().item("slow-2");
+            })
+            .subscribeAsCompletionStage().toCompletableFuture();
+
+        // Another key runs to completion while the first key's work is still going.
+        String other = sequencer.submit("other", () -> Uni.createFrom().item("other")).await().atMost(TIMEOUT);
+        assertThat(other).isEqualTo("other");
+        assertThat(first).isNotDone();
+        assertThat(secondOfSlowKeyStarted).isFalse();
+        assertThat(sequencer.activeKeys()).isEqualTo(1);
+
+        slow.complete("slow-1");
+        assertThat(first.join()).isEqualTo("slow-1");
+        assertThat(second.join()).isEqualTo("slow-2");
+        assertThat(secondOfSlowKeyStarted).isTrue();
+        assertThat(sequencer.activeKeys()).isZero();
+    }
+
+    @Test
+    void failureDoesNotBlockTheKey() {
+        KeyedSequencer sequencer = new KeyedSequencer();
+        Uni<String> failing = sequencer.submit("key", () -> Uni.createFrom().failure(new IllegalStateException("boom")));
+        Uni<String> next = sequencer.submit("key", () -> Uni.createFrom().item("next"));
+
+        assertThat(failing.onFailure().recoverWithItem("recovered").await().atMost(TIMEOUT)).isEqualTo("recovered");
+        assertThat(next.await().atMost(TIMEOUT)).isEqualTo("next");
+    }
+}
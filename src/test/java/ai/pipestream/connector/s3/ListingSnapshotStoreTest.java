@@ -0,0 +1,65 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.crawl.snapshot.ListingSnapshotStore;
+import ai.pipestream.connector.s3.events.S3CrawlEventPublisher;
+import ai.pipestream.connector.s3.state.CrawlSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The {@code bucket} snapshot store writes into the crawled bucket; its snapshots
+ * must never be published as documents, whichever path finds them.
+ */
+@QuarkusTest
+@TestProfile(ListingSnapshotStoreTest.BucketStoreProfile.class)
+class ListingSnapshotStoreTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Stores snapshots in the crawled bucket.
+     */
+    public static class BucketStoreProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "s3.connector.initial-crawl.snapshot.store", "bucket",
+                "s3.connector.initial-crawl.snapshot.key-prefix", ".s3-connector/snapshots/");
+        }
+    }
+
+    @Inject
+    ListingSnapshotStore snapshotStore;
+
+    @Inject
+    S3CrawlEventPublisher eventPublisher;
+
+    @Test
+    void snapshotKeysAreRecognised() {
+        assertThat(snapshotStore.isSnapshotKey(".s3-connector/snapshots/0123abcd.snap.gz")).isTrue();
+        assertThat(snapshotStore.isSnapshotKey("docs/.s3-connector/snapshots/0123abcd.snap.gz")).isFalse();
+        assertThat(snapshotStore.isSnapshotKey("docs/report.pdf")).isFalse();
+        assertThat(snapshotStore.isSnapshotKey(null)).isFalse();
+    }
+
+    @Test
+    void eventsForSnapshotKeysAreNotPublished() {
+        // As a LIVE notification for the snapshot's own PutObject would produce
+        var event = eventPublisher.buildEvent("snapshot-ds", "crawled-bucket",
+            ".s3-connector/snapshots/0123abcd.snap.gz", null, 1_024, "\"etag\"", Instant.now(),
+            CrawlSource.LIVE, "", null);
+
+        // Reported as handled without waiting on the broker
+        assertThat(eventPublisher.publishInWindow(event).await().atMost(TIMEOUT)).isTrue();
+        eventPublisher.publish(event).await().atMost(TIMEOUT);
+    }
+}
@@ -0,0 +1,78 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.crawl.snapshot.ListingSnapshotReader;
+import ai.pipestream.connector.s3.crawl.snapshot.ListingSnapshotWriter;
+import ai.pipestream.connector.s3.crawl.snapshot.SnapshotEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Round trip of the listing snapshot file format.
+ */
+class ListingSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesRoundTripInOrder() throws IOException {
+        Path file = dir.resolve("listing.snap.gz");
+        try (ListingSnapshotWriter writer = new ListingSnapshotWriter(file)) {
+            writer.append("docs/a.txt", "\"etag-a\"", 10, 1_700_000_000_000L);
+            writer.append("docs/ab.txt", null, 0, 0);
+            writer.append("docs/b/\u00e9t\u00e9.txt", "\"etag-c\"", 5_000_000_000L, 1_700_000_000_123L);
+            assertThat(writer.count()).isEqualTo(3);
+        }
+
+        List<SnapshotEntry> entries = new ArrayList<>();
+        try (ListingSnapshotReader reader = ListingSnapshotReader.open(file)) {
+            assertThat(reader.peek().key()).isEqualTo("docs/a.txt");
+            SnapshotEntry entry;
+            while ((entry = reader.poll()) != null) {
+                entries.add(entry);
+            }
+        }
+        assertThat(entries).containsExactly(
+            new SnapshotEntry("docs/a.txt", "\"etag-a\"", 10, 1_700_000_000_000L),
+            new SnapshotEntry("docs/ab.txt", "", 0, 0),
+            new SnapshotEntry("docs/b/\u00e9t\u00e9.txt", "\"etag-c\"", 5_000_000_000L, 1_700_000_000_123L));
+    }
+
+    @Test
+    void emptyReaderHasNoEntries() throws IOException {
+        try (ListingSnapshotReader reader = ListingSnapshotReader.empty()) {
+            assertThat(reader.peek()).isNull();
+            assertThat(reader.poll()).isNull();
+        }
+    }
+
+    @Test
+    void truncatedSnapshotIsRejected() throws IOException {
+        Path file = dir.resolve("truncated.snap.gz");
+        try (ListingSnapshotWriter writer = new ListingSnapshotWriter(file)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.append(String.format("key-%05d", i), "\"etag-" + i + "\"", i, i);
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThatThrownBy(() -> {
+            try (ListingSnapshotReader reader = ListingSnapshotReader.open(file)) {
+                while (reader.poll() != null) {
+                    // drain
+                }
+            }
+        }).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,221 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.service.DatasourceConfigService;
+import ai.pipestream.connector.s3.service.S3CrawlEventConsumer;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.vertx.RunOnVertxContext;
+import io.quarkus.test.vertx.UniAsserter;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for S3-native checksums in the consumer. WireMock stands in for
+ * S3 so the test controls the {@code x-amz-checksum-sha256} each GET returns, and
+ * the buffer cap is 16 bytes, so only small objects can be hashed locally.
+ */
+@QuarkusTest
+@TestProfile(NativeChecksumTransferTest.SmallBufferProfile.class)
+@QuarkusTestResource(S3ConnectorWireMockTestResource.class)
+class NativeChecksumTransferTest {
+
+    private static final String DATASOURCE_ID = "test-native-checksum-datasource";
+    private static final String API_KEY = "test-native-checksum-api-key";
+    private static final String BUCKET = "native-checksum-bucket";
+    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+
+    /**
+     * Buffers no object over 16 bytes, and spools none.
+     */
+    public static class SmallBufferProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "s3.connector.checksum-max-buffer-bytes", "16",
+                "s3.connector.consumer.spool-enabled", "false",
+                "s3.connector.consumer.native-checksums", "true"
+            );
+        }
+    }
+
+    @Inject
+    S3CrawlEventConsumer consumer;
+
+    @Inject
+    DatasourceConfigService datasourceConfigService;
+
+    @ConfigProperty(name = "wiremock.host")
+    String wiremockHost;
+
+    @ConfigProperty(name = "wiremock.port")
+    String wiremockPort;
+
+    private final List<String> stubIds = new ArrayList<>();
+
+    @BeforeEach
+    void resetRequests() {
+        send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/requests")))
+            .DELETE()
+            .build());
+    }
+
+    @AfterEach
+    void removeObjectStubs() {
+        stubIds.forEach(id -> send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/mappings/" + id)))
+            .DELETE()
+            .build()));
+        stubIds.clear();
+    }
+
+    @Test
+    @RunOnVertxContext
+    void storedChecksumIsForwardedWithoutBuffering(UniAsserter asserter) throws Exception {
+        String key = "stored/object.bin";
+        byte[] body = object(1_000);
+        byte[] sha256 = MessageDigest.getInstance("SHA-256").digest(body);
+        stubObject(key, body, Base64.getEncoder().encodeToString(sha256));
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(DATASOURCE_ID, API_KEY, s3Config()));
+
+        asserter.execute(() -> consumer.processCrawlEvent(event(key)));
+
+        // Over the 16-byte cap, so the checksum can only be the one S3 stored
+        asserter.execute(() -> assertThat(uploadCount(key, """
+                { "equalTo": "%s" }""".formatted(HexFormat.of().formatHex(sha256)))).isEqualTo(1));
+    }
+
+    @Test
+    @RunOnVertxContext
+    void compositeChecksumOfALargeObjectIsNotForwarded(UniAsserter asserter) throws Exception {
+        String key = "composite/large.bin";
+        byte[] body = object(1_000);
+        String composite = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body)) + "-2";
+        stubObject(key, body, composite);
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(DATASOURCE_ID, API_KEY, s3Config()));
+
+        asserter.execute(() -> consumer.processCrawlEvent(event(key)));
+
+        // A digest of part digests is not the body's SHA-256; the object streams without one
+        asserter.execute(() -> assertThat(uploadCount(key, """
+                { "absent": true }""")).isEqualTo(1));
+    }
+
+    @Test
+    @RunOnVertxContext
+    void compositeChecksumOfASmallObjectIsReplacedByItsDigest(UniAsserter asserter) throws Exception {
+        String key = "composite/small.bin";
+        byte[] body = object(10);
+        byte[] sha256 = MessageDigest.getInstance("SHA-256").digest(body);
+        stubObject(key, body, Base64.getEncoder().encodeToString(sha256) + "-2");
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(DATASOURCE_ID, API_KEY, s3Config()));
+
+        asserter.execute(() -> consumer.processCrawlEvent(event(key)));
+
+        asserter.execute(() -> assertThat(uploadCount(key, """
+                { "equalTo": "%s" }""".formatted(HexFormat.of().formatHex(sha256)))).isEqualTo(1));
+    }
+
+    private void stubObject(String key, byte[] body, String checksumSha256) {
+        String id = UUID.randomUUID().toString();
+        send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/mappings")))
+            .POST(HttpRequest.BodyPublishers.ofString("""
+                {
+                  "id": "%s",
+                  "request": { "method": "GET", "urlPath": "/%s/%s" },
+                  "response": {
+                    "status": 200,
+                    "base64Body": "%s",
+                    "headers": {
+                      "Content-Type": "application/octet-stream",
+                      "x-amz-checksum-sha256": "%s"
+                    }
+                  }
+                }
+                """.formatted(id, BUCKET, key, Base64.getEncoder().encodeToString(body), checksumSha256)))
+            .header("Content-Type", "application/json")
+            .build());
+        stubIds.add(id);
+    }
+
+    private int uploadCount(String key, String checksumMatcher) {
+        HttpResponse<String> response = send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/requests/count")))
+            .POST(HttpRequest.BodyPublishers.ofString("""
+                {
+                  "method": "POST",
+                  "url": "/uploads/raw",
+                  "headers": {
+                    "x-source-path": { "equalTo": "%s" },
+                    "x-checksum-sha256": %s
+                  }
+                }
+                """.formatted(key, checksumMatcher)))
+            .header("Content-Type", "application/json")
+            .build());
+        // Response format: {"count":1}
+        return Integer.parseInt(response.body().replaceAll("[^0-9]", ""));
+    }
+
+    private static byte[] object(int size) {
+        byte[] object = new byte[size];
+        new Random(size).nextBytes(object);
+        return object;
+    }
+
+    private static S3CrawlEvent event(String key) {
+        return S3CrawlEvent.newBuilder()
+            .setEventId("native-checksum-" + UUID.randomUUID())
+            .setDatasourceId(DATASOURCE_ID)
+            .setBucket(BUCKET)
+            .setKey(key)
+            .setSourceUrl("s3://" + BUCKET + "/" + key)
+            .build();
+    }
+
+    private S3ConnectionConfig s3Config() {
+        return S3ConnectionConfig.newBuilder()
+            .setCredentialsType("static")
+            .setAccessKeyId("native-checksum-access-key")
+            .setSecretAccessKey("native-checksum-secret-key")
+            .setRegion("us-east-1")
+            .setEndpointOverride(wiremockUrl(""))
+            .setPathStyleAccess(true)
+            .build();
+    }
+
+    private static HttpResponse<String> send(HttpRequest request) {
+        try {
+            return HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            throw new IllegalStateException("WireMock admin request failed: " + request.uri(), e);
+        }
+    }
+
+    private String wiremockUrl(String path) {
+        return "http://" + wiremockHost + ":" + wiremockPort + path;
+    }
+}
@@ -0,0 +1,70 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.notification.NotificationCoalescer;
+import ai.pipestream.connector.s3.notification.S3EventRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link NotificationCoalescer}, the per-object debounce behind the notification webhook.
+ */
+class NotificationCoalescerTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void rewritesInsideTheWindowYieldOneLatestRecord() {
+        NotificationCoalescer coalescer = new NotificationCoalescer(Duration.ofSeconds(1), 100);
+        long start = 1_000L;
+        // Sequencers grow in length, so plain string order would put "F" after "10".
+        for (int i = 1; i <= 50; i++) {
+            assertThat(coalescer.offer(created("docs/a.txt", Integer.toHexString(i).toUpperCase(), "etag-" + i), start + i))
+                .isTrue();
+        }
+        coalescer.offer(created("docs/b.txt", "01", "etag-b"), start);
+
+        assertThat(coalescer.drainDue(start + SECOND - 1)).isEmpty();
+        List<S3EventRecord> due = coalescer.drainDue(start + SECOND);
+        assertThat(due).hasSize(2);
+        assertThat(due).filteredOn(record -> record.key().equals("docs/a.txt"))
+            .singleElement()
+            .satisfies(record -> assertThat(record.eTag()).isEqualTo("\"etag-50\""));
+        assertThat(coalescer.coalesced()).isEqualTo(49);
+        assertThat(coalescer.pending()).isZero();
+    }
+
+    @Test
+    void olderRecordArrivingLateDoesNotWin() {
+        NotificationCoalescer coalescer = new NotificationCoalescer(Duration.ofSeconds(1), 100);
+        coalescer.offer(removed("docs/a.txt", "0055AED6DCD90281E6"), 0);
+        coalescer.offer(created("docs/a.txt", "0055AED6DCD90281E5", "etag-old"), 1);
+
+        assertThat(coalescer.drainAll())
+            .singleElement()
+            .satisfies(record -> assertThat(record.isRemoved()).isTrue());
+    }
+
+    @Test
+    void newObjectsAreRefusedWhenFull() {
+        NotificationCoalescer coalescer = new NotificationCoalescer(Duration.ofSeconds(1), 1);
+        assertThat(coalescer.offer(created("a", "01", "e1"), 0)).isTrue();
+        assertThat(coalescer.offer(created("b", "01", "e1"), 0)).isFalse();
+        assertThat(coalescer.offer(created("a", "02", "e2"), 0)).isTrue();
+        assertThat(coalescer.pending()).isEqualTo(1);
+    }
+
+    private static S3EventRecord created(String key, String sequencer, String eTag) {
+        return new S3EventRecord("ObjectCreated:Put", "bucket", key, null, 42, "\"" + eTag + "\"", sequencer,
+            Instant.parse("2025-01-01T00:00:00Z"));
+    }
+
+    private static S3EventRecord removed(String key, String sequencer) {
+        return new S3EventRecord("ObjectRemoved:Delete", "bucket", key, null, 0, null, sequencer,
+            Instant.parse("2025-01-01T00:00:00Z"));
+    }
+}
@@ -0,0 +1,118 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.concurrent.PartitionAdmission;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PartitionAdmission}: a full partition window queues its own
+ * records without holding up other partitions, and admission only waits once the
+ * consumer-wide waiting budget is used up.
+ */
+class PartitionAdmissionTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void fullPartitionDoesNotBlockOtherPartitions() {
+        PartitionAdmission admission = new PartitionAdmission(1, 8);
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        admission.admit(0, () -> {
+            started.add("p0-a");
+            return Uni.createFrom().completionStage(slow);
+        }, ignored -> { }, error -> { }).await().atMost(TIMEOUT);
+        // Partition 0's window is full, but its next record is still admitted
+        admission.admit(0, () -> {
+            started.add("p0-b");
+            return Uni.createFrom().voidItem();
+        }, ignored -> { }, error -> { }).await().atMost(TIMEOUT);
+        admission.admit(1, () -> {
+            started.add("p1-a");
+            return Uni.createFrom().voidItem();
+        }, ignored -> { }, error -> { }).await().atMost(TIMEOUT);
+
+        assertThat(started).containsExactly("p0-a", "p1-a");
+        assertThat(admission.waiting()).isEqualTo(1);
+        assertThat(admission.inFlight(0)).isEqualTo(1);
+
+        slow.complete(null);
+        assertThat(started).containsExactly("p0-a", "p1-a", "p0-b");
+        assertThat(admission.waiting()).isZero();
+        assertThat(admission.inFlight(0)).isZero();
+    }
+
+    @Test
+    void admissionWaitsOnceTheWaitingBudgetIsUsed() {
+        PartitionAdmission admission = new PartitionAdmission(1, 2);
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+
+        admission.admit(0, () -> Uni.createFrom().completionStage(slow), ignored -> { }, error -> { })
+            .await().atMost(TIMEOUT);
+        List<CompletableFuture<Void>> admitted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            admitted.add(admission.admit(0, () -> Uni.createFrom().voidItem(), ignored -> { }, error -> { })
+                .subscribeAsCompletionStage().toCompletableFuture());
+        }
+
+        // Two records wait behind the slow one; the third is not admitted yet
+        assertThat(admitted.get(0)).isDone();
+        assertThat(admitted.get(1)).isDone();
+        assertThat(admitted.get(2)).isNotDone();
+        assertThat(admission.waiting()).isEqualTo(2);
+
+        slow.complete(null);
+        admitted.get(2).join();
+        assertThat(admission.waiting()).isZero();
+        assertThat(admission.inFlight(0)).isZero();
+    }
+
+    @Test
+    void recordsFinishOutOfOrderWithinTheWindow() {
+        PartitionAdmission admission = new PartitionAdmission(3, 8);
+        List<CompletableFuture<Void>> work = List.of(
+            new CompletableFuture<>(), new CompletableFuture<>(), new CompletableFuture<>());
+        List<Integer> acked = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < work.size(); i++) {
+            int offset = i;
+            admission.admit(0, () -> Uni.createFrom().completionStage(work.get(offset)),
+                ignored -> acked.add(offset), error -> { }).await().atMost(TIMEOUT);
+        }
+        assertThat(admission.inFlight(0)).isEqualTo(3);
+
+        work.get(2).complete(null);
+        work.get(0).complete(null);
+        work.get(1).complete(null);
+
+        assertThat(acked).containsExactly(2, 0, 1);
+        assertThat(admission.inFlight(0)).isZero();
+    }
+
+    @Test
+    void failuresReleaseTheWindow() {
+        PartitionAdmission admission = new PartitionAdmission(1, 8);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        admission.admit(0, () -> Uni.createFrom().<Void>failure(new IllegalStateException("boom")),
+            ignored -> { }, failures::add).await().atMost(TIMEOUT);
+        admission.admit(0, () -> {
+            started.add("next");
+            return Uni.createFrom().voidItem();
+        }, ignored -> { }, failures::add).await().atMost(TIMEOUT);
+
+        assertThat(failures).singleElement().isInstanceOf(IllegalStateException.class);
+        assertThat(started).containsExactly("next");
+        assertThat(admission.inFlight(0)).isZero();
+    }
+}
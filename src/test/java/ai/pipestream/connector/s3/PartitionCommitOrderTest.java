@@ -0,0 +1,242 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.events.S3CrawlEventPublisher;
+import ai.pipestream.connector.s3.service.DatasourceConfigService;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import ai.pipestream.test.support.S3TestResource;
+import ai.pipestream.test.support.S3WithSampleDataTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.vertx.RunOnVertxContext;
+import io.quarkus.test.vertx.UniAsserter;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Integration test for offset commits when records of one partition finish out
+ * of order.
+ * <p>
+ * With {@code partition-concurrency} above 1 a slow record is overtaken by the
+ * records behind it. They are acknowledged first, but the {@code throttled}
+ * commit strategy must not commit past the slow record until it is done, so a
+ * restart would redeliver it.
+ * </p>
+ */
+@QuarkusTest
+@TestProfile(PartitionCommitOrderTest.CommitOrderTestProfile.class)
+@QuarkusTestResource(S3WithSampleDataTestResource.class)
+@QuarkusTestResource(S3ConnectorWireMockTestResource.class)
+class PartitionCommitOrderTest {
+
+    private static final String TOPIC = "s3-crawl-events-commit-order-test-" + UUID.randomUUID().toString().substring(0, 8);
+    private static final String GROUP_ID = TOPIC + "-group";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+    private static final String DATASOURCE_ID = "test-commit-order-datasource";
+    private static final String API_KEY = "test-commit-order-api-key";
+    private static final String SLOW_KEY = "sample_audio/sample.mp3";
+    private static final String SLOW_STUB_ID = "6c1a4f0e-3b1d-4d8e-9a53-0b7f2f6a1c01";
+    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+
+    /**
+     * Enables the consumer on a topic and group of its own, with three records of a
+     * partition in flight and commits every 200ms.
+     */
+    public static class CommitOrderTestProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "mp.messaging.incoming.s3-crawl-events-in.enabled", "true",
+                "mp.messaging.outgoing.s3-crawl-events-out.topic", TOPIC,
+                "mp.messaging.incoming.s3-crawl-events-in.topic", TOPIC,
+                "mp.messaging.incoming.s3-crawl-events-in.group.id", GROUP_ID,
+                "mp.messaging.incoming.s3-crawl-events-in.auto.offset.reset", "earliest",
+                "mp.messaging.incoming.s3-crawl-events-in.auto.commit.interval.ms", "200",
+                "s3.connector.consumer.partition-concurrency", "3"
+            );
+        }
+    }
+
+    @Inject
+    S3CrawlEventPublisher eventPublisher;
+
+    @Inject
+    DatasourceConfigService datasourceConfigService;
+
+    @Inject
+    Vertx vertx;
+
+    @ConfigProperty(name = "kafka.bootstrap.servers")
+    String bootstrapServers;
+
+    @ConfigProperty(name = "wiremock.host")
+    String wiremockHost;
+
+    @ConfigProperty(name = "wiremock.port")
+    String wiremockPort;
+
+    @BeforeEach
+    void stubUploads() throws Exception {
+        HTTP_CLIENT.send(HttpRequest.newBuilder()
+                .uri(URI.create(wiremockUrl("/__admin/requests")))
+                .DELETE()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        registerStub("""
+                {
+                  "request": { "method": "POST", "url": "/uploads/raw" },
+                  "response": { "status": 200, "body": "{\\"status\\":\\"accepted\\"}", "headers": { "Content-Type": "application/json" } }
+                }
+                """);
+        // The slow object's upload takes long enough for the records behind it to finish first
+        registerStub(String.format("""
+                {
+                  "id": "%s",
+                  "priority": 1,
+                  "request": {
+                    "method": "POST",
+                    "url": "/uploads/raw",
+                    "headers": { "x-source-path": { "equalTo": "%s" } }
+                  },
+                  "response": {
+                    "status": 200,
+                    "fixedDelayMilliseconds": 4000,
+                    "body": "{\\"status\\":\\"accepted\\"}",
+                    "headers": { "Content-Type": "application/json" }
+                  }
+                }
+                """, SLOW_STUB_ID, SLOW_KEY));
+    }
+
+    @AfterEach
+    void removeSlowStub() throws Exception {
+        HTTP_CLIENT.send(HttpRequest.newBuilder()
+                .uri(URI.create(wiremockUrl("/__admin/mappings/" + SLOW_STUB_ID)))
+                .DELETE()
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @RunOnVertxContext
+    void offsetsAreNotCommittedPastAnUnfinishedRecord(UniAsserter asserter) {
+        S3ConnectionConfig s3Config = S3ConnectionConfig.newBuilder()
+            .setCredentialsType("static")
+            .setAccessKeyId(S3TestResource.ACCESS_KEY)
+            .setSecretAccessKey(S3TestResource.SECRET_KEY)
+            .setRegion("us-east-1")
+            .setEndpointOverride(S3TestResource.getSharedEndpoint())
+            .setPathStyleAccess(true)
+            .build();
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(DATASOURCE_ID, API_KEY, s3Config));
+
+        // Warm up: the consumer has its partition and has committed everything before the test records
+        asserter.execute(() -> eventPublisher.publish(event("sentinel", "sample_text/sample.txt")));
+        long[] slowOffset = new long[1];
+        asserter.execute(() -> vertx.executeBlocking(() -> {
+            try (Admin admin = admin()) {
+                await().atMost(Duration.ofSeconds(30)).untilAsserted(() ->
+                    assertThat(committedOffset(admin)).isEqualTo(endOffset(admin)).isPositive());
+                slowOffset[0] = endOffset(admin);
+            }
+            return null;
+        }));
+
+        asserter.execute(() -> eventPublisher.publish(event("slow", SLOW_KEY)));
+        asserter.execute(() -> eventPublisher.publish(event("fast-1", "sample_text/sample.txt")));
+        asserter.execute(() -> eventPublisher.publish(event("fast-2", "sample_image/sample.png")));
+
+        asserter.execute(() -> vertx.executeBlocking(() -> {
+            try (Admin admin = admin()) {
+                // The records behind the slow one are uploaded and acknowledged first...
+                await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+                    assertThat(uploadCount("sample_text/sample.txt")).isGreaterThanOrEqualTo(2);
+                    assertThat(uploadCount("sample_image/sample.png")).isGreaterThanOrEqualTo(1);
+                });
+                // ...but a few commit intervals later the offset still stops at the slow record
+                Thread.sleep(Duration.ofMillis(1000));
+                assertThat(committedOffset(admin)).isEqualTo(slowOffset[0]);
+
+                // Once it is done the commit moves past all three
+                await().atMost(Duration.ofSeconds(15)).untilAsserted(() ->
+                    assertThat(committedOffset(admin)).isEqualTo(slowOffset[0] + 3));
+            }
+            return null;
+        }));
+    }
+
+    private static S3CrawlEvent event(String name, String key) {
+        return S3CrawlEvent.newBuilder()
+            .setEventId("commit-order-" + name + "-" + UUID.randomUUID())
+            .setDatasourceId(DATASOURCE_ID)
+            .setBucket(S3TestResource.BUCKET)
+            .setKey(key)
+            .setSourceUrl("s3://" + S3TestResource.BUCKET + "/" + key)
+            .build();
+    }
+
+    private Admin admin() {
+        return Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+    }
+
+    private static long committedOffset(Admin admin) throws Exception {
+        OffsetAndMetadata committed = admin.listConsumerGroupOffsets(GROUP_ID)
+            .partitionsToOffsetAndMetadata().get()
+            .get(PARTITION);
+        return committed == null ? 0 : committed.offset();
+    }
+
+    private static long endOffset(Admin admin) throws Exception {
+        return admin.listOffsets(Map.of(PARTITION, OffsetSpec.latest()))
+            .partitionResult(PARTITION).get()
+            .offset();
+    }
+
+    private void registerStub(String stub) throws Exception {
+        HTTP_CLIENT.send(HttpRequest.newBuilder()
+                .uri(URI.create(wiremockUrl("/__admin/mappings")))
+                .POST(HttpRequest.BodyPublishers.ofString(stub))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int uploadCount(String sourcePath) throws Exception {
+        HttpResponse<String> response = HTTP_CLIENT.send(HttpRequest.newBuilder()
+                .uri(URI.create(wiremockUrl("/__admin/requests/count")))
+                .POST(HttpRequest.BodyPublishers.ofString(String.format("""
+                        {
+                          "method": "POST",
+                          "url": "/uploads/raw",
+                          "headers": { "x-source-path": { "equalTo": "%s" } }
+                        }
+                        """, sourcePath)))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        // Response format: {"count":3}
+        return response.statusCode() == 200 ? Integer.parseInt(response.body().replaceAll("[^0-9]", "")) : 0;
+    }
+
+    private String wiremockUrl(String path) {
+        return "http://" + wiremockHost + ":" + wiremockPort + path;
+    }
+}
@@ -0,0 +1,59 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.events.PartitionKeyStrategy;
+import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PartitionKeyStrategy}: every strategy keys one object alike,
+ * and the wider ones spread a datasource.
+ */
+class PartitionKeyStrategyTest {
+
+    @Test
+    void datasourceKeyIsUnchanged() {
+        assertThat(PartitionKeyStrategy.datasource().key(event("ds-1", "docs/a.txt")))
+            .isEqualTo(UUID.nameUUIDFromBytes("ds-1".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void objectAndShardedKeysSpreadOneDatasource() {
+        PartitionKeyStrategy object = PartitionKeyStrategy.object();
+        PartitionKeyStrategy sharded = PartitionKeyStrategy.sharded(8);
+        Set<UUID> objectKeys = new HashSet<>();
+        Set<UUID> shardKeys = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            S3CrawlEvent event = event("ds-1", "docs/" + i + ".txt");
+            objectKeys.add(object.key(event));
+            shardKeys.add(sharded.key(event));
+            assertThat(object.key(event("ds-1", "docs/" + i + ".txt"))).isEqualTo(object.key(event));
+            assertThat(sharded.key(event("ds-1", "docs/" + i + ".txt"))).isEqualTo(sharded.key(event));
+        }
+        assertThat(objectKeys).hasSize(1000);
+        assertThat(shardKeys).hasSize(8);
+    }
+
+    @Test
+    void prefixKeyGroupsByLeadingSegments() {
+        PartitionKeyStrategy prefix = PartitionKeyStrategy.prefix(2);
+        assertThat(prefix.key(event("ds-1", "a/b/c.txt"))).isEqualTo(prefix.key(event("ds-1", "a/b/d/e.txt")));
+        assertThat(prefix.key(event("ds-1", "a/b/c.txt"))).isNotEqualTo(prefix.key(event("ds-1", "a/x/c.txt")));
+        assertThat(prefix.key(event("ds-1", "a/c.txt"))).isEqualTo(prefix.key(event("ds-1", "a/d.txt")));
+        assertThat(prefix.key(event("ds-1", "a/b/c.txt"))).isNotEqualTo(prefix.key(event("ds-2", "a/b/c.txt")));
+    }
+
+    private static S3CrawlEvent event(String datasourceId, String key) {
+        return S3CrawlEvent.newBuilder()
+            .setDatasourceId(datasourceId)
+            .setBucket("bucket")
+            .setKey(key)
+            .build();
+    }
+}
@@ -0,0 +1,86 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.events.S3CrawlEventPublisher;
+import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link S3CrawlEventPublisher#publishInWindow}: sends through a window
+ * of one, and an event the broker can never take reported as unsent after its
+ * retries without failing or keeping its slot. The producer's
+ * {@code max.request.size} is lowered so an oversized key makes every send fail.
+ */
+@QuarkusTest
+@TestProfile(PublishWindowTest.NarrowWindowProfile.class)
+class PublishWindowTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * A window of one send, quick retries, and a producer refusing records over 4 KiB.
+     */
+    public static class NarrowWindowProfile implements QuarkusTestProfile {
+        private static final String UNIQUE_TOPIC = "s3-crawl-events-publish-window-test-" +
+            UUID.randomUUID().toString().substring(0, 8);
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "mp.messaging.outgoing.s3-crawl-events-out.topic", UNIQUE_TOPIC,
+                "mp.messaging.outgoing.s3-crawl-events-out.max.request.size", "4096",
+                "s3.connector.publish.max-in-flight", "1",
+                "s3.connector.publish.max-retries", "2",
+                "s3.connector.publish.retry-initial-backoff-ms", "10",
+                "s3.connector.publish.retry-max-backoff-ms", "50"
+            );
+        }
+    }
+
+    @Inject
+    S3CrawlEventPublisher publisher;
+
+    @Test
+    void eventsQueueForTheWindowAndAreAllSent() {
+        List<Uni<Boolean>> sends = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sends.add(publisher.publishInWindow(event("queued/object-" + i + ".txt")));
+        }
+
+        List<Boolean> sent = Uni.join().all(sends).andFailFast().await().atMost(TIMEOUT);
+
+        assertThat(sent).hasSize(20).containsOnly(true);
+    }
+
+    @Test
+    void unsendableEventIsReportedAfterItsRetriesAndFreesItsSlot() {
+        String oversizedKey = "oversized/" + "k".repeat(8 * 1024) + ".txt";
+
+        assertThat(publisher.publishInWindow(event(oversizedKey)).await().atMost(TIMEOUT)).isFalse();
+
+        // The window holds one send, so this only goes through if the slot came back
+        assertThat(publisher.publishInWindow(event("after/object.txt")).await().atMost(TIMEOUT)).isTrue();
+    }
+
+    private static S3CrawlEvent event(String key) {
+        return S3CrawlEvent.newBuilder()
+            .setEventId("publish-window-" + UUID.randomUUID())
+            .setDatasourceId("test-publish-window-datasource")
+            .setBucket("publish-window-bucket")
+            .setKey(key)
+            .setSourceUrl("s3://publish-window-bucket/" + key)
+            .build();
+    }
+}
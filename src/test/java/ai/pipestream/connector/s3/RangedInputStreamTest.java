@@ -0,0 +1,198 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.buffer.BufferArena;
+import ai.pipestream.connector.s3.buffer.PooledBuffer;
+import ai.pipestream.connector.s3.service.RangedInputStream;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tests for {@link RangedInputStream}: ranges reassembled in order whatever order
+ * they arrive in, the download window, failed ranges, closing mid-download, and
+ * the digest check before the last range is handed out.
+ */
+@QuarkusTest
+class RangedInputStreamTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int RANGE_BYTES = 1_000;
+
+    @Inject
+    BufferArena arena;
+
+    @Test
+    void rangesAreReassembledInOrderWhateverOrderTheyArriveIn() throws Exception {
+        long leasedBefore = arena.leasedBytes();
+        byte[] object = object(5 * RANGE_BYTES + 17);
+        List<long[]> ranges = ranges(object.length);
+        List<CompletableFuture<PooledBuffer>> started = new CopyOnWriteArrayList<>();
+        RangedInputStream stream = new RangedInputStream(ranges, 8, range -> {
+            CompletableFuture<PooledBuffer> future = new CompletableFuture<>();
+            started.add(future);
+            return future;
+        }, null);
+
+        // Every range is started on the first read; complete them last to first
+        CompletableFuture<byte[]> read = CompletableFuture.supplyAsync(() -> readAll(stream));
+        await().atMost(TIMEOUT).until(() -> started.size() == ranges.size());
+        for (int i = ranges.size() - 1; i >= 0; i--) {
+            started.get(i).complete(filled(object, ranges.get(i)));
+        }
+
+        assertThat(read.get()).isEqualTo(object);
+        assertThat(arena.leasedBytes()).isEqualTo(leasedBefore);
+    }
+
+    @Test
+    void noMoreThanTheWindowIsFetchedAheadOfTheReader() throws IOException {
+        long leasedBefore = arena.leasedBytes();
+        byte[] object = object(10 * RANGE_BYTES);
+        List<long[]> fetched = new CopyOnWriteArrayList<>();
+        RangedInputStream stream = new RangedInputStream(ranges(object.length), 2, range -> {
+            fetched.add(range);
+            return CompletableFuture.completedFuture(filled(object, range));
+        }, null);
+
+        assertThat(fetched).isEmpty();
+        assertThat(stream.read()).isEqualTo(object[0] & 0xFF);
+        // The range being read, plus two more
+        assertThat(fetched).hasSize(3);
+        assertThat(stream.inFlight()).isEqualTo(2);
+
+        stream.readNBytes(RANGE_BYTES - 1);
+        assertThat(fetched).hasSize(3);
+        stream.read();
+        assertThat(fetched).hasSize(4);
+        assertThat(fetched.get(3)[0]).isEqualTo(3L * RANGE_BYTES);
+
+        stream.close();
+        assertThat(arena.leasedBytes()).isEqualTo(leasedBefore);
+    }
+
+    @Test
+    void failedRangeFailsTheReadAndCancelsTheRest() {
+        long leasedBefore = arena.leasedBytes();
+        byte[] object = object(6 * RANGE_BYTES);
+        List<CompletableFuture<PooledBuffer>> started = new CopyOnWriteArrayList<>();
+        RangedInputStream stream = new RangedInputStream(ranges(object.length), 4, range -> {
+            CompletableFuture<PooledBuffer> future;
+            if (range[0] == RANGE_BYTES) {
+                future = CompletableFuture.failedFuture(new UncheckedIOException(
+                    new IOException("Object ended after 10 of its expected 1000 bytes")));
+            } else if (range[0] == 0) {
+                future = CompletableFuture.completedFuture(filled(object, range));
+            } else {
+                future = new CompletableFuture<>();
+            }
+            started.add(future);
+            return future;
+        }, null);
+
+        assertThatThrownBy(() -> readAll(stream))
+            .hasRootCauseMessage("Object ended after 10 of its expected 1000 bytes");
+        assertThat(started.subList(2, started.size())).allSatisfy(range -> assertThat(range).isCancelled());
+        assertThatThrownBy(stream::read).isInstanceOf(IOException.class).hasMessage("Stream closed");
+        assertThat(arena.leasedBytes()).isEqualTo(leasedBefore);
+    }
+
+    @Test
+    void closeCancelsRangesInFlightAndHandsBackArrivedOnes() throws IOException {
+        long leasedBefore = arena.leasedBytes();
+        byte[] object = object(6 * RANGE_BYTES);
+        List<CompletableFuture<PooledBuffer>> started = new CopyOnWriteArrayList<>();
+        RangedInputStream stream = new RangedInputStream(ranges(object.length), 3, range -> {
+            // The first two ranges arrive at once, the others never do
+            CompletableFuture<PooledBuffer> future = range[0] < 2 * RANGE_BYTES
+                ? CompletableFuture.completedFuture(filled(object, range))
+                : new CompletableFuture<>();
+            started.add(future);
+            return future;
+        }, null);
+
+        stream.read();
+        assertThat(arena.leasedBytes()).isGreaterThan(leasedBefore);
+        stream.close();
+
+        assertThat(started.subList(2, started.size())).isNotEmpty()
+            .allSatisfy(range -> assertThat(range).isCancelled());
+        assertThat(arena.leasedBytes()).isEqualTo(leasedBefore);
+    }
+
+    @Test
+    void digestMismatchFailsBeforeTheLastRangeIsHandedOut() throws Exception {
+        long leasedBefore = arena.leasedBytes();
+        byte[] object = object(4 * RANGE_BYTES + 500);
+        byte[] other = Arrays.copyOf(object, object.length);
+        other[other.length - 1] ^= 1;
+        byte[] wrongDigest = MessageDigest.getInstance("SHA-256").digest(other);
+        RangedInputStream stream = new RangedInputStream(ranges(object.length), 2,
+            range -> CompletableFuture.completedFuture(filled(object, range)), wrongDigest);
+
+        ByteArrayOutputStream handedOut = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> stream.transferTo(handedOut))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Ranged download does not match the object's stored SHA-256");
+        // Everything up to the last range, and nothing of it
+        assertThat(handedOut.toByteArray()).isEqualTo(Arrays.copyOf(object, 4 * RANGE_BYTES));
+        assertThat(arena.leasedBytes()).isEqualTo(leasedBefore);
+
+        byte[] rightDigest = MessageDigest.getInstance("SHA-256").digest(object);
+        RangedInputStream verified = new RangedInputStream(ranges(object.length), 2,
+            range -> CompletableFuture.completedFuture(filled(object, range)), rightDigest);
+        assertThat(readAll(verified)).isEqualTo(object);
+    }
+
+    private static byte[] object(int size) {
+        byte[] object = new byte[size];
+        new Random(size).nextBytes(object);
+        return object;
+    }
+
+    private static List<long[]> ranges(int size) {
+        List<long[]> ranges = new ArrayList<>();
+        for (long start = 0; start < size; start += RANGE_BYTES) {
+            ranges.add(new long[]{start, Math.min(size, start + RANGE_BYTES) - 1});
+        }
+        return ranges;
+    }
+
+    /**
+     * A pooled buffer holding one range of the object, as a range GET delivers it.
+     */
+    private PooledBuffer filled(byte[] object, long[] range) {
+        int length = (int) (range[1] - range[0] + 1);
+        PooledBuffer buffer = arena.lease(length).await().atMost(TIMEOUT);
+        try {
+            return buffer.fill(new ByteArrayInputStream(object, (int) range[0], length), length);
+        } catch (IOException e) {
+            buffer.close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readAll(RangedInputStream stream) {
+        try (stream) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.service.DatasourceConfigService;
+import ai.pipestream.connector.s3.service.S3CrawlEventConsumer;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import ai.pipestream.connector.s3.v1.S3CrawlEvent;
+import ai.pipestream.test.support.S3TestResource;
+import ai.pipestream.test.support.S3WithSampleDataTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.vertx.RunOnVertxContext;
+import io.quarkus.test.vertx.UniAsserter;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the consumer's non-blocking transfer
+ * ({@code s3.connector.consumer.reactive-streaming=true}): a buffered object
+ * reaches intake with the SHA-256 of its bytes, and an intake error status fails
+ * the event after its retries.
+ */
+@QuarkusTest
+@TestProfile(ReactiveStreamingTransferTest.ReactiveStreamingProfile.class)
+@QuarkusTestResource(S3WithSampleDataTestResource.class)
+@QuarkusTestResource(S3ConnectorWireMockTestResource.class)
+class ReactiveStreamingTransferTest {
+
+    private static final String DATASOURCE_ID = "test-reactive-streaming-datasource";
+    private static final String API_KEY = "test-reactive-streaming-api-key";
+    private static final String TEXT_KEY = "sample_text/sample.txt";
+    private static final String FAILING_KEY = "sample_image/sample.png";
+    private static final String FAILING_STUB_ID = "0d9f6b52-8c3e-4a41-b7de-5f1c2a9e7b44";
+    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+
+    /**
+     * Streams transfers through the reactive path.
+     */
+    public static class ReactiveStreamingProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("s3.connector.consumer.reactive-streaming", "true");
+        }
+    }
+
+    @Inject
+    S3CrawlEventConsumer consumer;
+
+    @Inject
+    DatasourceConfigService datasourceConfigService;
+
+    @ConfigProperty(name = "wiremock.host")
+    String wiremockHost;
+
+    @ConfigProperty(name = "wiremock.port")
+    String wiremockPort;
+
+    @BeforeEach
+    void stubFailingUpload() {
+        send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/requests")))
+            .DELETE()
+            .build());
+        send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/mappings")))
+            .POST(HttpRequest.BodyPublishers.ofString(String.format("""
+                    {
+                      "id": "%s",
+                      "priority": 1,
+                      "request": {
+                        "method": "POST",
+                        "url": "/uploads/raw",
+                        "headers": { "x-source-path": { "equalTo": "%s" } }
+                      },
+                      "response": { "status": 503, "body": "intake busy" }
+                    }
+                    """, FAILING_STUB_ID, FAILING_KEY)))
+            .header("Content-Type", "application/json")
+            .build());
+    }
+
+    @AfterEach
+    void removeFailingStub() {
+        send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/mappings/" + FAILING_STUB_ID)))
+            .DELETE()
+            .build());
+    }
+
+    @Test
+    @RunOnVertxContext
+    void bufferedObjectIsUploadedWithItsChecksum(UniAsserter asserter) throws Exception {
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objectBytes(TEXT_KEY)));
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(DATASOURCE_ID, API_KEY, s3Config()));
+
+        asserter.execute(() -> consumer.processCrawlEvent(event(TEXT_KEY)));
+
+        asserter.execute(() -> assertThat(uploadCount(String.format("""
+                {
+                  "method": "POST",
+                  "url": "/uploads/raw",
+                  "headers": {
+                    "x-source-path": { "equalTo": "%s" },
+                    "x-checksum-sha256": { "equalTo": "%s" }
+                  }
+                }
+                """, TEXT_KEY, sha256))).isEqualTo(1));
+    }
+
+    @Test
+    @RunOnVertxContext
+    void intakeErrorStatusFailsTheEventAfterItsRetries(UniAsserter asserter) {
+        asserter.execute(() -> datasourceConfigService.registerDatasourceConfig(DATASOURCE_ID, API_KEY, s3Config()));
+
+        asserter.assertFailedWith(() -> consumer.processCrawlEvent(event(FAILING_KEY)),
+            error -> assertThat(error).isInstanceOf(WebApplicationException.class).hasMessageContaining("HTTP 503"));
+
+        // The first attempt and three retries, each with a fresh GET
+        asserter.execute(() -> assertThat(uploadCount(String.format("""
+                {
+                  "method": "POST",
+                  "url": "/uploads/raw",
+                  "headers": { "x-source-path": { "equalTo": "%s" } }
+                }
+                """, FAILING_KEY))).isEqualTo(4));
+    }
+
+    private static S3CrawlEvent event(String key) {
+        return S3CrawlEvent.newBuilder()
+            .setEventId("reactive-streaming-" + UUID.randomUUID())
+            .setDatasourceId(DATASOURCE_ID)
+            .setBucket(S3TestResource.BUCKET)
+            .setKey(key)
+            .setSourceUrl("s3://" + S3TestResource.BUCKET + "/" + key)
+            .build();
+    }
+
+    private static S3ConnectionConfig s3Config() {
+        return S3ConnectionConfig.newBuilder()
+            .setCredentialsType("static")
+            .setAccessKeyId(S3TestResource.ACCESS_KEY)
+            .setSecretAccessKey(S3TestResource.SECRET_KEY)
+            .setRegion("us-east-1")
+            .setEndpointOverride(S3TestResource.getSharedEndpoint())
+            .setPathStyleAccess(true)
+            .build();
+    }
+
+    private static byte[] objectBytes(String key) {
+        try (S3Client s3 = S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(S3TestResource.ACCESS_KEY, S3TestResource.SECRET_KEY)))
+                .region(Region.of("us-east-1"))
+                .endpointOverride(URI.create(S3TestResource.getSharedEndpoint()))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build()) {
+            return s3.getObjectAsBytes(r -> r.bucket(S3TestResource.BUCKET).key(key)).asByteArray();
+        }
+    }
+
+    private int uploadCount(String matcherJson) {
+        HttpResponse<String> response = send(HttpRequest.newBuilder()
+            .uri(URI.create(wiremockUrl("/__admin/requests/count")))
+            .POST(HttpRequest.BodyPublishers.ofString(matcherJson))
+            .header("Content-Type", "application/json")
+            .build());
+        // Response format: {"count":3}
+        return Integer.parseInt(response.body().replaceAll("[^0-9]", ""));
+    }
+
+    private static HttpResponse<String> send(HttpRequest request) {
+        try {
+            return HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            throw new IllegalStateException("WireMock admin request failed: " + request.uri(), e);
+        }
+    }
+
+    private String wiremockUrl(String path) {
+        return "http://" + wiremockHost + ":" + wiremockPort + path;
+    }
+}
@@ -0,0 +1,120 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.service.S3ClientFactory;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tests for {@link S3ClientFactory}: one client per datasource however many
+ * leases ask for it at once, and retired clients staying open while leased.
+ */
+@QuarkusTest
+class S3ClientFactoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Inject
+    S3ClientFactory clientFactory;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    void concurrentLeasesShareOneCreation() throws Exception {
+        String datasourceId = "factory-single-flight-" + System.nanoTime();
+        long createdBefore = registry.get("s3.client.creation").timer().count();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<S3AsyncClient> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<S3AsyncClient>> leases = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                leases.add(executor.submit(() -> {
+                    start.await();
+                    return clientOf(datasourceId).await().atMost(TIMEOUT);
+                }));
+            }
+            start.countDown();
+            for (Future<S3AsyncClient> lease : leases) {
+                clients.add(lease.get());
+            }
+        }
+
+        assertThat(clients).allSatisfy(client -> assertThat(client).isSameAs(clients.get(0)));
+        assertThat(registry.get("s3.client.creation").timer().count()).isEqualTo(createdBefore + 1);
+    }
+
+    @Test
+    void invalidatedClientStaysOpenUntilItsLastLeaseIsReleased() {
+        String datasourceId = "factory-eviction-" + System.nanoTime();
+        int retiredBefore = clientFactory.retiredClients();
+        AtomicReference<S3AsyncClient> leased = new AtomicReference<>();
+        CompletableFuture<Void> crawlDone = new CompletableFuture<>();
+
+        // A long-running crawl holds the client
+        CompletableFuture<Void> crawl = clientFactory.withClient(datasourceId, connectionConfig(), client -> {
+                leased.set(client);
+                return Uni.createFrom().completionStage(crawlDone);
+            })
+            .subscribeAsCompletionStage().toCompletableFuture();
+        await().atMost(TIMEOUT).until(() -> leased.get() != null);
+
+        clientFactory.closeClient(datasourceId);
+        assertThat(clientFactory.retiredClients()).isEqualTo(retiredBefore + 1);
+
+        // New work gets a new client, while the crawl's stays open past the grace period
+        S3AsyncClient replacement = clientOf(datasourceId).await().atMost(TIMEOUT);
+        assertThat(replacement).isNotSameAs(leased.get());
+        sleep(Duration.ofMillis(600));
+        assertThat(clientFactory.retiredClients()).isEqualTo(retiredBefore + 1);
+        assertThat(crawl).isNotDone();
+
+        crawlDone.complete(null);
+        crawl.join();
+        await().atMost(TIMEOUT).until(() -> clientFactory.retiredClients() == retiredBefore);
+    }
+
+    /**
+     * The datasource's cached client; the lease ends with the Uni, which is all a
+     * test comparing instances needs.
+     */
+    private Uni<S3AsyncClient> clientOf(String datasourceId) {
+        return clientFactory.withClient(datasourceId, connectionConfig(), client -> Uni.createFrom().item(client));
+    }
+
+    private static S3ConnectionConfig connectionConfig() {
+        return S3ConnectionConfig.newBuilder()
+            .setCredentialsType("anonymous")
+            .setRegion("us-east-1")
+            .setEndpointOverride("http://localhost:9000")
+            .setPathStyleAccess(true)
+            .build();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
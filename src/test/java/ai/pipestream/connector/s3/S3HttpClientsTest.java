@@ -0,0 +1,212 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.service.S3HttpClients;
+import ai.pipestream.connector.s3.v1.S3ConnectionConfig;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link S3HttpClients}: which datasources share a connection pool,
+ * pools closing with their last lease, and every pool running on the one event
+ * loop group.
+ */
+@QuarkusTest
+@TestProfile(S3HttpClientsTest.SharedPoolsProfile.class)
+class S3HttpClientsTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Two event loop threads, and a pool size of its own for one datasource.
+     */
+    public static class SharedPoolsProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "s3.connector.clients.event-loop-threads", "2",
+                "s3.connector.clients.datasource.\"own-pool\".max-concurrency", "7"
+            );
+        }
+    }
+
+    @Inject
+    S3HttpClients httpClients;
+
+    @TestHTTPResource
+    URL testUrl;
+
+    @Test
+    void datasourcesWithTheSameSettingsShareOnePool() {
+        int poolsBefore = httpClients.poolCount();
+        S3HttpClients.Lease first = httpClients.acquire("shared-1", s3Config("http://localhost:9100"));
+        S3HttpClients.Lease second = httpClients.acquire("shared-2", s3Config("http://localhost:9100"));
+        S3HttpClients.Lease otherEndpoint = httpClients.acquire("shared-3", s3Config("http://localhost:9101"));
+        // Same settings, but a pool size no other datasource has
+        S3HttpClients.Lease ownSize = httpClients.acquire("own-pool", s3Config("http://localhost:9100"));
+
+        assertThat(second.client()).isSameAs(first.client());
+        assertThat(otherEndpoint.client()).isNotSameAs(first.client());
+        assertThat(ownSize.client()).isNotSameAs(first.client());
+        assertThat(httpClients.poolCount()).isEqualTo(poolsBefore + 3);
+
+        List.of(first, second, otherEndpoint, ownSize).forEach(S3HttpClients.Lease::release);
+        assertThat(httpClients.poolCount()).isEqualTo(poolsBefore);
+    }
+
+    @Test
+    void poolIsClosedWhenItsLastLeaseIsReleased() {
+        int poolsBefore = httpClients.poolCount();
+        S3HttpClients.Lease first = httpClients.acquire("refcount-1", s3Config("http://localhost:9200"));
+        S3HttpClients.Lease second = httpClients.acquire("refcount-2", s3Config("http://localhost:9200"));
+        SdkAsyncHttpClient client = first.client();
+
+        // Releasing twice drops one reference only
+        first.release();
+        first.release();
+        assertThat(httpClients.poolCount()).isEqualTo(poolsBefore + 1);
+        S3HttpClients.Lease third = httpClients.acquire("refcount-3", s3Config("http://localhost:9200"));
+        assertThat(third.client()).isSameAs(client);
+
+        second.release();
+        third.release();
+        assertThat(httpClients.poolCount()).isEqualTo(poolsBefore);
+
+        // The closed pool is not handed out again
+        S3HttpClients.Lease fresh = httpClients.acquire("refcount-1", s3Config("http://localhost:9200"));
+        assertThat(fresh.client()).isNotSameAs(client);
+        fresh.release();
+    }
+
+    @Test
+    void everyPoolRunsOnTheSharedEventLoop() throws Exception {
+        Set<String> eventLoopThreads = ConcurrentHashMap.newKeySet();
+        List<S3HttpClients.Lease> leases = List.of(
+            httpClients.acquire("loop-1", s3Config("http://localhost:9301")),
+            httpClients.acquire("loop-2", s3Config("http://localhost:9302")),
+            httpClients.acquire("loop-3", s3Config("http://localhost:9303")),
+            httpClients.acquire("loop-4", s3Config("http://localhost:9304")));
+        try {
+            for (S3HttpClients.Lease lease : leases) {
+                for (int i = 0; i < 4; i++) {
+                    get(lease.client(), eventLoopThreads).get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            leases.forEach(S3HttpClients.Lease::release);
+        }
+
+        // Four pools, but no more threads than the one group of two has
+        assertThat(eventLoopThreads).isNotEmpty().hasSizeLessThanOrEqualTo(2)
+            .allSatisfy(name -> assertThat(name).startsWith("aws-java-sdk-NettyEventLoop"));
+    }
+
+    /**
+     * Sends a GET to the application itself, recording the thread the response
+     * headers arrive on.
+     */
+    private CompletableFuture<Void> get(SdkAsyncHttpClient client, Set<String> threads) {
+        URI uri = URI.create(testUrl.toString());
+        SdkHttpFullRequest request = SdkHttpFullRequest.builder()
+            .method(SdkHttpMethod.GET)
+            .uri(uri)
+            .putHeader("Host", uri.getHost() + ":" + uri.getPort())
+            .build();
+        return client.execute(AsyncExecuteRequest.builder()
+            .request(request)
+            .requestContentPublisher(new EmptyContent())
+            .responseHandler(new SdkAsyncHttpResponseHandler() {
+                @Override
+                public void onHeaders(SdkHttpResponse headers) {
+                    threads.add(Thread.currentThread().getName());
+                }
+
+                @Override
+                public void onStream(Publisher<ByteBuffer> stream) {
+                    stream.subscribe(new Subscriber<>() {
+                        @Override
+                        public void onSubscribe(Subscription subscription) {
+                            subscription.request(Long.MAX_VALUE);
+                        }
+
+                        @Override
+                        public void onNext(ByteBuffer item) {
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                        }
+
+                        @Override
+                        public void onComplete() {
+                        }
+                    });
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                }
+            })
+            .build());
+    }
+
+    private static S3ConnectionConfig s3Config(String endpoint) {
+        return S3ConnectionConfig.newBuilder()
+            .setCredentialsType("static")
+            .setAccessKeyId("http-clients-access-key")
+            .setSecretAccessKey("http-clients-secret-key")
+            .setRegion("us-east-1")
+            .setEndpointOverride(endpoint)
+            .setPathStyleAccess(true)
+            .build();
+    }
+
+    private static final class EmptyContent implements SdkHttpContentPublisher {
+
+        @Override
+        public Optional<Long> contentLength() {
+            return Optional.of(0L);
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onComplete();
+        }
+    }
+}
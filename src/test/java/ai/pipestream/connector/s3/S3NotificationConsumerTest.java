@@ -0,0 +1,110 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.notification.S3EventNotifications;
+import ai.pipestream.connector.s3.notification.S3EventRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Event-driven mode against ElasticMQ: S3 notifications are parsed, published and
+ * removed from the queue.
+ */
+@QuarkusTest
+@QuarkusTestResource(value = ElasticMqTestResource.class, restrictToAnnotatedClass = true)
+class S3NotificationConsumerTest {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Pool pool;
+
+    @Test
+    void parsesDirectAndSnsWrappedNotifications() throws Exception {
+        String direct = notification("ObjectCreated:Put", "bucket-a", "docs/with+space/%C3%A9t%C3%A9.txt", "abc", "v1");
+        List<S3EventRecord> records = S3EventNotifications.parse(objectMapper, direct);
+        assertThat(records).hasSize(1);
+        S3EventRecord record = records.get(0);
+        assertThat(record.isCreated()).isTrue();
+        assertThat(record.key()).isEqualTo("docs/with space/\u00e9t\u00e9.txt");
+        assertThat(record.eTag()).isEqualTo("\"abc\"");
+        assertThat(record.versionId()).isEqualTo("v1");
+        assertThat(record.size()).isEqualTo(42L);
+
+        String sns = objectMapper.writeValueAsString(Map.of("Type", "Notification", "Message",
+            notification("ObjectRemoved:DeleteMarkerCreated", "bucket-a", "a.txt", null, "v2")));
+        assertThat(S3EventNotifications.parse(objectMapper, sns))
+            .singleElement()
+            .satisfies(removed -> assertThat(removed.isRemoved()).isTrue());
+
+        assertThat(S3EventNotifications.parse(objectMapper,
+            "{\"Service\":\"Amazon S3\",\"Event\":\"s3:TestEvent\",\"Bucket\":\"bucket-a\"}")).isEmpty();
+        assertThatThrownBy(() -> S3EventNotifications.parse(objectMapper, "{\"hello\":1}"))
+            .isInstanceOf(java.io.IOException.class);
+    }
+
+    @Test
+    void publishedAndUnusableMessagesAreDeleted() {
+        String bucket = "live-bucket-" + System.currentTimeMillis();
+        pool.preparedQuery("""
+                INSERT INTO s3_crawl_targets (datasource_id, target_name, bucket, object_prefix, crawl_mode,
+                    failure_allowance, max_keys_per_request, enabled, version, created_at, updated_at)
+                VALUES ($1, $2, $3, 'docs/', 'LIVE', 1, 1000, TRUE, 0, now(), now())
+                """)
+            .execute(Tuple.of("datasource-live", "live-target", bucket))
+            .await().atMost(Duration.ofSeconds(10));
+
+        try (SqsClient sqs = ElasticMqTestResource.client()) {
+            send(sqs, notification("ObjectCreated:Put", bucket, "docs/a.txt", "etag-a", null));
+            send(sqs, notification("ObjectRemoved:Delete", bucket, "docs/b.txt", null, null));
+            send(sqs, notification("ObjectCreated:Put", bucket, "other/c.txt", "etag-c", null));
+            send(sqs, "not json");
+
+            await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> {
+                Map<QueueAttributeName, String> attributes = sqs.getQueueAttributes(GetQueueAttributesRequest.builder()
+                        .queueUrl(ElasticMqTestResource.queueUrl())
+                        .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                            QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+                        .build())
+                    .attributes();
+                assertThat(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)).isEqualTo("0");
+                assertThat(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)).isEqualTo("0");
+            });
+        }
+    }
+
+    private static void send(SqsClient sqs, String body) {
+        sqs.sendMessage(SendMessageRequest.builder()
+            .queueUrl(ElasticMqTestResource.queueUrl())
+            .messageBody(body)
+            .build());
+    }
+
+    private static String notification(String eventName, String bucket, String key, String eTag, String versionId) {
+        String object = "\"key\":\"" + key + "\",\"size\":42,\"sequencer\":\"0055AED6DCD90281E5\""
+            + (eTag != null ? ",\"eTag\":\"" + eTag + "\"" : "")
+            + (versionId != null ? ",\"versionId\":\"" + versionId + "\"" : "");
+        return """
+            {"Records":[{"eventVersion":"2.1","eventSource":"aws:s3","awsRegion":"us-east-1",
+              "eventTime":"2025-01-01T00:00:00.000Z","eventName":"%s",
+              "s3":{"s3SchemaVersion":"1.0","bucket":{"name":"%s"},"object":{%s}}}]}
+            """.formatted(eventName, bucket, object);
+    }
+}
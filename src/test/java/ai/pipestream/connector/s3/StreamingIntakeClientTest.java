@@ -0,0 +1,188 @@
+package ai.pipestream.connector.s3;
+
+import ai.pipestream.connector.s3.client.ConnectorIntakeClient.IntakeUploadResponse;
+import ai.pipestream.connector.s3.client.StreamingIntakeClient;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tests for {@link StreamingIntakeClient} against a local intake the test
+ * controls: the body is only read as fast as intake takes it, a body that can
+ * never be sent is cancelled, and error statuses fail the upload.
+ */
+@QuarkusTest
+@TestProfile(StreamingIntakeClientTest.LocalIntakeProfile.class)
+class StreamingIntakeClientTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * Points the intake URL at a port of the test's own, without the WireMock intake.
+     */
+    public static class LocalIntakeProfile implements QuarkusTestProfile {
+
+        static final int PORT;
+
+        static {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                PORT = socket.getLocalPort();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("%test.quarkus.rest-client.connector-intake.url", "http://localhost:" + PORT);
+        }
+
+        @Override
+        public boolean disableGlobalTestResources() {
+            return true;
+        }
+    }
+
+    @Inject
+    StreamingIntakeClient client;
+
+    @Inject
+    Vertx vertx;
+
+    private volatile Handler<HttpServerRequest> intake;
+    private HttpServer server;
+
+    @BeforeEach
+    void startIntake() {
+        server = vertx.getDelegate().createHttpServer()
+            .requestHandler(request -> intake.handle(request));
+        server.listen(LocalIntakeProfile.PORT).toCompletionStage().toCompletableFuture().join();
+    }
+
+    @AfterEach
+    void stopIntake() {
+        server.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void bodyIsReadOnlyAsFastAsIntakeTakesIt() throws Exception {
+        int chunks = 2048;
+        AtomicLong emitted = new AtomicLong();
+        AtomicLong received = new AtomicLong();
+        AtomicReference<HttpServerRequest> paused = new AtomicReference<>();
+        intake = request -> {
+            request.handler(buffer -> received.addAndGet(buffer.length()));
+            request.endHandler(ignored -> accept(request));
+            request.pause();
+            paused.set(request);
+        };
+
+        CompletableFuture<IntakeUploadResponse> upload = upload((long) chunks * CHUNK_BYTES,
+                Multi.createFrom().range(0, chunks)
+                    .map(ignored -> ByteBuffer.allocate(CHUNK_BYTES))
+                    .invoke(emitted::incrementAndGet))
+            .subscribeAsCompletionStage().toCompletableFuture();
+
+        // While intake reads nothing, the body stops being requested once the
+        // connection's buffers are full
+        await().atMost(TIMEOUT).until(() -> paused.get() != null && emitted.get() > 0);
+        Thread.sleep(1000);
+        long stalled = emitted.get();
+        Thread.sleep(500);
+        assertThat(emitted.get()).isEqualTo(stalled);
+        assertThat(stalled * CHUNK_BYTES).isLessThan(32L * 1024 * 1024);
+        assertThat(upload).isNotDone();
+
+        paused.get().resume();
+        assertThat(upload.get().statusCode()).isEqualTo(200);
+        assertThat(emitted.get()).isEqualTo(chunks);
+        assertThat(received.get()).isEqualTo((long) chunks * CHUNK_BYTES);
+    }
+
+    @Test
+    void bodyIsCancelledWhenTheRequestCannotBeMade() {
+        server.close().toCompletionStage().toCompletableFuture().join();
+        AtomicLong emitted = new AtomicLong();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Multi<ByteBuffer> body = Multi.createFrom().range(0, 16)
+            .map(ignored -> ByteBuffer.allocate(CHUNK_BYTES))
+            .invoke(emitted::incrementAndGet)
+            .onCancellation().invoke(() -> cancelled.set(true));
+
+        assertThatThrownBy(() -> upload(16L * CHUNK_BYTES, body).await().atMost(TIMEOUT))
+            .isNotInstanceOf(WebApplicationException.class);
+        assertThat(cancelled).isTrue();
+        assertThat(emitted).hasValue(0);
+
+        // Restarted for stopIntake
+        startIntake();
+    }
+
+    @Test
+    void errorStatusesFailTheUpload() {
+        intake = request -> request.body().onSuccess(ignored -> request.response()
+            .setStatusCode(503)
+            .putHeader("Content-Type", "text/plain")
+            .end("intake busy"));
+
+        assertThatThrownBy(() -> upload(CHUNK_BYTES,
+                Multi.createFrom().item(() -> ByteBuffer.allocate(CHUNK_BYTES))).await().atMost(TIMEOUT))
+            .isInstanceOfSatisfying(WebApplicationException.class, error -> {
+                assertThat(error.getResponse().getStatus()).isEqualTo(503);
+                assertThat(error).hasMessageContaining("HTTP 503").hasMessageContaining("intake busy");
+            });
+    }
+
+    @Test
+    void discardCancelsWithoutRequestingAnyChunk() {
+        AtomicLong emitted = new AtomicLong();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        StreamingIntakeClient.discard(Multi.createFrom().range(0, 16)
+            .map(ignored -> ByteBuffer.allocate(CHUNK_BYTES))
+            .invoke(emitted::incrementAndGet)
+            .onCancellation().invoke(() -> cancelled.set(true)));
+
+        assertThat(cancelled).isTrue();
+        assertThat(emitted).hasValue(0);
+    }
+
+    private Uni<IntakeUploadResponse> upload(long size, Multi<ByteBuffer> body) {
+        return client.uploadRaw("streaming-test", "streaming-test-key", "s3://bucket/object.bin",
+            "bucket", "object.bin", "application/octet-stream", size, "", null, body);
+    }
+
+    private static void accept(HttpServerRequest request) {
+        request.response()
+            .putHeader("Content-Type", "application/json")
+            .end("{\"status\":\"accepted\"}");
+    }
+}